@@ -0,0 +1,126 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
+import org.vetronauta.latrunculus.core.math.matrix.Matrix;
+import org.vetronauta.latrunculus.core.math.matrix.RMatrix;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vector and matrix arithmetic, both on the primitive real
+ * implementations and on generic (boxed) rational vectors.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+    @Param({"4", "64"})
+    private int dimension;
+
+    private RealVector realA;
+    private RealVector realB;
+    private Vector<Rational> rationalA;
+    private Vector<Rational> rationalB;
+    private RMatrix matrix;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        realA = randomRealVector(random);
+        realB = randomRealVector(random);
+        rationalA = randomRationalVector(random);
+        rationalB = randomRationalVector(random);
+        double[][] values = new double[dimension][dimension];
+        for (double[] row : values) {
+            for (int j = 0; j < dimension; j++) {
+                row[j] = random.nextDouble();
+            }
+        }
+        matrix = new RMatrix(values);
+    }
+
+    @Benchmark
+    public Vector<Real> realVectorSum() {
+        return realA.sum(realB);
+    }
+
+    @Benchmark
+    public Real realScalarProduct() {
+        return realA.scalarProduct(realB);
+    }
+
+    @Benchmark
+    public Vector<Rational> rationalVectorSum() {
+        return rationalA.sum(rationalB);
+    }
+
+    @Benchmark
+    public Vector<Real> matrixVectorProduct() {
+        return matrix.product(realA);
+    }
+
+    @Benchmark
+    public Matrix<Real> matrixProduct() {
+        return matrix.product((Matrix<Real>) matrix);
+    }
+
+    private RealVector randomRealVector(Random random) {
+        double[] values = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            values[i] = random.nextDouble();
+        }
+        return new RealVector(values);
+    }
+
+    private Vector<Rational> randomRationalVector(Random random) {
+        List<Rational> values = new ArrayList<>(dimension);
+        for (int i = 0; i < dimension; i++) {
+            values.add(new Rational(random.nextInt(200)-100, 1+random.nextInt(16)));
+        }
+        return new Vector<>(QRing.ring, values);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access to the coordinates of the notes of a score by path,
+ * as done by most of the rubettes working on scores.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DenotatorPathBenchmark {
+
+    private static final int[] ONSET_PATH = {0, 0};
+    private static final int[] PITCH_PATH = {1, 0};
+    private static final int[] PITCH_DENOTATOR_PATH = {1};
+
+    @Param({"1000"})
+    private int size;
+
+    private PowerDenotator score;
+
+    @Setup
+    public void setup() {
+        score = ScoreFixtures.score(size, 1);
+    }
+
+    @Benchmark
+    public void getElement(Blackhole blackhole) throws LatrunculusCheckedException {
+        for (Denotator note : score.getFactors()) {
+            blackhole.consume(note.getElement(ONSET_PATH));
+            blackhole.consume(note.getElement(PITCH_PATH));
+        }
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) throws LatrunculusCheckedException {
+        for (Denotator note : score.getFactors()) {
+            blackhole.consume(note.get(PITCH_DENOTATOR_PATH));
+        }
+    }
+
+}
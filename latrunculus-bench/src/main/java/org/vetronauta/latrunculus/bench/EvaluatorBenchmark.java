@@ -0,0 +1,76 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vetronauta.latrunculus.core.scheme.Evaluator;
+import org.vetronauta.latrunculus.core.scheme.expression.SExpr;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of Scheme code: a recursive numeric function
+ * and a list building loop.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    private static final String DEFINITIONS =
+            "(define (fib n) (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))" +
+            "(define (range a b) (if (>= a b) '() (cons a (range (+ a 1) b))))";
+
+    private Evaluator evaluator;
+
+    @Setup
+    public void setup() {
+        evaluator = new Evaluator();
+        evaluator.eval(DEFINITIONS);
+        if (evaluator.hasErrors()) {
+            throw new IllegalStateException(String.join("\n", evaluator.getErrors()));
+        }
+    }
+
+    @Benchmark
+    public SExpr fibonacci() {
+        return evaluator.eval("(fib 15)");
+    }
+
+    @Benchmark
+    public SExpr listLoop() {
+        return evaluator.eval("(length (map (lambda (x) (* x x)) (range 0 500)))");
+    }
+
+}
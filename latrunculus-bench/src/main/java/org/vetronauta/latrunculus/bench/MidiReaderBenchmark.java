@@ -0,0 +1,96 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.server.midi.MidiReader;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import of a MIDI file into a score. The MIDI file is generated in memory,
+ * with the notes spread over several tracks and channels.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MidiReaderBenchmark {
+
+    private static final int RESOLUTION = 480;
+    private static final int TRACKS = 4;
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private byte[] midi;
+
+    @Setup
+    public void setup() throws InvalidMidiDataException, IOException {
+        Random random = new Random(7);
+        Sequence sequence = new Sequence(Sequence.PPQ, RESOLUTION);
+        Track[] tracks = new Track[TRACKS];
+        for (int i = 0; i < TRACKS; i++) {
+            tracks[i] = sequence.createTrack();
+        }
+        for (int i = 0; i < size; i++) {
+            int channel = random.nextInt(TRACKS);
+            int pitch = 36+random.nextInt(60);
+            long onset = (long) random.nextInt(4*size) * RESOLUTION/4;
+            long duration = (1+random.nextInt(8)) * RESOLUTION/4;
+            tracks[channel].add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, channel, pitch, 40+random.nextInt(80)), onset));
+            tracks[channel].add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_OFF, channel, pitch, 0), onset+duration));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MidiSystem.write(sequence, 1, bytes);
+        midi = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Denotator read() throws InvalidMidiDataException, IOException {
+        return new MidiReader(new ByteArrayInputStream(midi)).getDenotator();
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.exception.MappingException;
+import org.vetronauta.latrunculus.core.math.element.generic.PolynomialElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
+import org.vetronauta.latrunculus.core.math.matrix.RMatrix;
+import org.vetronauta.latrunculus.core.math.module.generic.PolynomialRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.morphism.CompositionMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.PolynomialMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineFreeMorphism;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of affine, composed and polynomial module morphisms,
+ * i.e., the work done for each note by the transformation rubettes.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MorphismBenchmark {
+
+    private ModuleMorphism affine;
+    private ModuleMorphism composition;
+    private PolynomialMorphism<Real> polynomial;
+    private Vector<Real> point;
+    private Real value;
+
+    @Setup
+    public void setup() throws LatrunculusCheckedException {
+        // a rotation by a quarter turn followed by a translation, in the onset-pitch plane
+        affine = AffineFreeMorphism.make(RRing.ring, new RMatrix(new double[][] {{0, -1}, {1, 0}}),
+                                         new RealVector(new double[] {1, 2}));
+        ModuleMorphism scaling = AffineFreeMorphism.make(RRing.ring, new RMatrix(new double[][] {{2, 0}, {0, 0.5}}),
+                                                         new RealVector(new double[] {0, 0}));
+        composition = CompositionMorphism.make(scaling, affine);
+        PolynomialRing<Real> ring = PolynomialRing.make(RRing.ring, "X");
+        polynomial = new PolynomialMorphism<>(new PolynomialElement<>(ring, Arrays.asList(
+                new Real(1), new Real(-2), new Real(0.5), new Real(3))));
+        point = new RealVector(new double[] {3, 60});
+        value = new Real(1.5);
+    }
+
+    @Benchmark
+    public Object affineMap() throws MappingException {
+        return affine.map(point);
+    }
+
+    @Benchmark
+    public Object compositionMap() throws MappingException {
+        return composition.map(point);
+    }
+
+    @Benchmark
+    public Real polynomialMap() throws MappingException {
+        return polynomial.map(value);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.logeo.Sets;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of scores and set operations on scores.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PowerDenotatorBenchmark {
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private List<Denotator> notes;
+    private PowerDenotator scoreA;
+    private PowerDenotator scoreB;
+    private PowerDenotator scoreC;
+    private PowerDenotator scoreD;
+
+    @Setup
+    public void setup() throws LatrunculusCheckedException {
+        notes = ScoreFixtures.notes(size, 1);
+        scoreA = new PowerDenotator(null, ScoreFixtures.SCORE_FORM, notes);
+        // scoreB shares half of its notes with scoreA
+        List<Denotator> overlapping = new ArrayList<>(notes.subList(0, size/2));
+        overlapping.addAll(ScoreFixtures.notes(size/2, 2));
+        scoreB = new PowerDenotator(null, ScoreFixtures.SCORE_FORM, overlapping);
+        scoreC = ScoreFixtures.score(size, 3);
+        scoreD = ScoreFixtures.score(size, 4);
+    }
+
+    @Benchmark
+    public PowerDenotator construction() throws LatrunculusCheckedException {
+        return new PowerDenotator(null, ScoreFixtures.SCORE_FORM, notes);
+    }
+
+    @Benchmark
+    public PowerDenotator union() throws LatrunculusCheckedException {
+        return Sets.union(scoreA, scoreB);
+    }
+
+    @Benchmark
+    public PowerDenotator intersection() throws LatrunculusCheckedException {
+        return Sets.intersection(scoreA, scoreB);
+    }
+
+    @Benchmark
+    public PowerDenotator difference() throws LatrunculusCheckedException {
+        return Sets.difference(scoreA, scoreB);
+    }
+
+    @Benchmark
+    public PowerDenotator unionOfFour() throws LatrunculusCheckedException {
+        return Sets.union(scoreA, scoreB, scoreC, scoreD);
+    }
+
+}
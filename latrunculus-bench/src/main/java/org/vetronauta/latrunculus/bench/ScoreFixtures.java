@@ -0,0 +1,89 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.logeo.DenoFactory;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
+import org.vetronauta.latrunculus.core.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ * All the random data is generated from fixed seeds, so that
+ * successive runs measure exactly the same work.
+ *
+ * @author vetronauta
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ScoreFixtures {
+
+    static final Repository REPOSITORY = Repository.systemRepository();
+    static final PowerForm SCORE_FORM = (PowerForm) REPOSITORY.getForm("Score");
+
+    private static final Form NOTE_FORM = REPOSITORY.getForm("Note");
+    private static final Form ONSET_FORM = REPOSITORY.getForm("Onset");
+    private static final Form PITCH_FORM = REPOSITORY.getForm("Pitch");
+    private static final Form LOUDNESS_FORM = REPOSITORY.getForm("Loudness");
+    private static final Form DURATION_FORM = REPOSITORY.getForm("Duration");
+    private static final Form VOICE_FORM = REPOSITORY.getForm("Voice");
+
+    static Denotator note(double onset, int pitch, int loudness, double duration, int voice) {
+        List<Denotator> coordinates = new ArrayList<>(5);
+        coordinates.add(DenoFactory.makeDenotator(ONSET_FORM, onset));
+        coordinates.add(DenoFactory.makeDenotator(PITCH_FORM, new Rational(pitch)));
+        coordinates.add(DenoFactory.makeDenotator(LOUDNESS_FORM, loudness));
+        coordinates.add(DenoFactory.makeDenotator(DURATION_FORM, duration));
+        coordinates.add(DenoFactory.makeDenotator(VOICE_FORM, voice));
+        return DenoFactory.makeDenotator(NOTE_FORM, coordinates);
+    }
+
+    /**
+     * Returns <code>size</code> random notes on a grid of sixteenth notes.
+     */
+    static List<Denotator> notes(int size, long seed) {
+        Random random = new Random(seed);
+        List<Denotator> notes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            notes.add(note(random.nextInt(4*size)/4.0, 36+random.nextInt(60), 40+random.nextInt(80),
+                           (1+random.nextInt(8))/4.0, random.nextInt(4)));
+        }
+        return notes;
+    }
+
+    static PowerDenotator score(int size, long seed) {
+        try {
+            return new PowerDenotator(null, SCORE_FORM, notes(size, seed));
+        }
+        catch (LatrunculusCheckedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
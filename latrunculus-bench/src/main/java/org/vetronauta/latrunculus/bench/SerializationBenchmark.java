@@ -0,0 +1,119 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.server.binary.BinaryReader;
+import org.vetronauta.latrunculus.server.binary.BinaryWriter;
+import org.vetronauta.latrunculus.server.xml.XMLReader;
+import org.vetronauta.latrunculus.server.xml.XMLWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a score in the XML and in the binary format.
+ *
+ * @author vetronauta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String NAME = "BenchmarkScore";
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private PowerDenotator score;
+    private String xml;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws LatrunculusCheckedException, IOException {
+        score = new PowerDenotator(NameDenotator.make(NAME), ScoreFixtures.SCORE_FORM, ScoreFixtures.notes(size, 1));
+        xml = writeXml();
+        binary = writeBinary();
+        if (!score.equals(readXml()) || !score.equals(readBinary())) {
+            throw new IllegalStateException("Round trip does not preserve the score");
+        }
+    }
+
+    @Benchmark
+    public String writeXml() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false);
+        XMLWriter writer = new XMLWriter(out);
+        writer.open();
+        writer.writeDenotator(score);
+        writer.close();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Denotator readXml() {
+        XMLReader reader = new XMLReader(new StringReader(xml));
+        reader.parse();
+        return reader.getDenotator(NAME);
+    }
+
+    @Benchmark
+    public byte[] writeBinary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(Channels.newChannel(bytes))) {
+            writer.open();
+            writer.writeDenotator(score);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Denotator readBinary() throws IOException {
+        try (BinaryReader reader = new BinaryReader(Channels.newChannel(new ByteArrayInputStream(binary)))) {
+            reader.read();
+            return reader.getDenotator(NAME);
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.logeo;
+
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * N-ary set operations on the factor lists of power denotators.
+ * All the input lists must be sorted in strictly increasing order (as the
+ * factors of a power denotator are); the resulting lists are sorted too,
+ * so that they can be used to build a power denotator without sorting again.
+ * Union and symmetric difference are computed with a single k-way merge,
+ * intersection and difference by probing hashed indexes of the other arguments
+ * in the order of the driving argument.
+ *
+ * @author vetronauta
+ */
+final class SetEngine {
+
+    private SetEngine() {
+        //static utility class
+    }
+
+    static List<Denotator> union(List<List<Denotator>> lists) {
+        return merge(lists, false);
+    }
+
+    static List<Denotator> symmetric(List<List<Denotator>> lists) {
+        return merge(lists, true);
+    }
+
+    static List<Denotator> intersection(List<List<Denotator>> lists) {
+        int driverIndex = 0;
+        for (int i = 1; i < lists.size(); i++) {
+            if (lists.get(i).size() < lists.get(driverIndex).size()) {
+                driverIndex = i;
+            }
+        }
+        List<Denotator> driver = lists.get(driverIndex);
+        if (driver.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Membership> others = new ArrayList<>(lists.size()-1);
+        for (int i = 0; i < lists.size(); i++) {
+            if (i != driverIndex) {
+                others.add(membership(lists.get(i), driver.size()));
+            }
+        }
+        List<Denotator> res = new ArrayList<>(driver.size());
+        outer:
+        for (Denotator d : driver) {
+            for (Membership other : others) {
+                if (!other.contains(d)) {
+                    continue outer;
+                }
+            }
+            res.add(d);
+        }
+        return res;
+    }
+
+    static List<Denotator> difference(List<List<Denotator>> lists) {
+        List<Denotator> minuend = lists.get(0);
+        if (minuend.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Membership> subtrahends = new ArrayList<>(lists.size()-1);
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                subtrahends.add(membership(lists.get(i), minuend.size()));
+            }
+        }
+        List<Denotator> res = new ArrayList<>(minuend.size());
+        outer:
+        for (Denotator d : minuend) {
+            for (Membership subtrahend : subtrahends) {
+                if (subtrahend.contains(d)) {
+                    continue outer;
+                }
+            }
+            res.add(d);
+        }
+        return res;
+    }
+
+    /**
+     * Merges the sorted lists, keeping each element once, or only the elements
+     * occurring in an odd number of lists if <code>oddOnly</code> is true.
+     */
+    private static List<Denotator> merge(List<List<Denotator>> lists, boolean oddOnly) {
+        int total = 0;
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(lists.size());
+        for (List<Denotator> list : lists) {
+            total += list.size();
+            if (!list.isEmpty()) {
+                heap.add(new Cursor(list));
+            }
+        }
+        List<Denotator> res = new ArrayList<>(total);
+        Cursor[] popped = new Cursor[lists.size()];
+        while (!heap.isEmpty()) {
+            Cursor min = heap.poll();
+            Denotator d = min.current;
+            int count = 0;
+            popped[count++] = min;
+            while (!heap.isEmpty() && heap.peek().current.compareTo(d) == 0) {
+                popped[count++] = heap.poll();
+            }
+            if (!oddOnly || count % 2 == 1) {
+                res.add(d);
+            }
+            for (int i = 0; i < count; i++) {
+                if (popped[i].advance()) {
+                    heap.add(popped[i]);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the cheapest membership test for <code>sorted</code>, given
+     * the number of lookups that will be done: a binary search if there
+     * are only few lookups, a hashed index otherwise.
+     */
+    private static Membership membership(List<Denotator> sorted, int lookups) {
+        int n = sorted.size();
+        int log = 32 - Integer.numberOfLeadingZeros(n);
+        if ((long) lookups * log < n) {
+            return new SortedMembership(sorted);
+        }
+        return new HashMembership(sorted);
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final List<Denotator> list;
+        private int index;
+        private Denotator current;
+
+        private Cursor(List<Denotator> list) {
+            this.list = list;
+            this.current = list.get(0);
+        }
+
+        private boolean advance() {
+            index++;
+            if (index < list.size()) {
+                current = list.get(index);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return current.compareTo(other.current);
+        }
+    }
+
+    private interface Membership {
+        boolean contains(Denotator d);
+    }
+
+    private static final class HashMembership implements Membership {
+
+        private final Set<Denotator> set;
+
+        private HashMembership(List<Denotator> list) {
+            set = new HashSet<>(list);
+        }
+
+        @Override
+        public boolean contains(Denotator d) {
+            return set.contains(d);
+        }
+    }
+
+    private static final class SortedMembership implements Membership {
+
+        private final List<Denotator> list;
+
+        private SortedMembership(List<Denotator> list) {
+            this.list = list;
+        }
+
+        @Override
+        public boolean contains(Denotator d) {
+            int i = 0;
+            int j = list.size()-1;
+            while (i <= j) {
+                int t = (i+j) >>> 1;
+                int c = d.compareTo(list.get(t));
+                if (c == 0) {
+                    return true;
+                }
+                else if (c < 0) {
+                    j = t-1;
+                }
+                else {
+                    i = t+1;
+                }
+            }
+            return false;
+        }
+    }
+
+}
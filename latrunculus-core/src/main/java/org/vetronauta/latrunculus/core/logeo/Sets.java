@@ -22,6 +22,9 @@ package org.vetronauta.latrunculus.core.logeo;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
 
 import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
 import org.vetronauta.latrunculus.core.logeo.predicates.Predicate;
@@ -57,47 +60,20 @@ public final class Sets {
      */
     public static PowerDenotator union(PowerDenotator d1, PowerDenotator d2)
             throws LatrunculusCheckedException {
-        Form form = processArguments(d1, d2);
-        if (form == null) {   
-            throw new LatrunculusCheckedException("Sets.union: "+d1+" and "+d2+" do not have the same base form");
-        }
-        
-        List<Denotator> factors1 = d1.getFactors();
-        List<Denotator> factors2 = d2.getFactors();
-        if (!d1.getAddress().equals(d2.getAddress())) {
-            Module newAddress = Address.getCommonModule(d1.getAddress(), d2.getAddress());
-            if (newAddress == null) {
-                throw new LatrunculusCheckedException("Sets.union: Could not find a common address for "+d1+" and "+d2);
-            }
-            factors1 = readdress(factors1, newAddress);
-            factors2 = readdress(factors2, newAddress);
-            List<Denotator> factors = mergeLists(factors1, factors2);
-            PowerDenotator res = new PowerDenotator(null, d1.getPowerForm(), factors);
-            return res;
-        }
-        else {
-            List<Denotator> factors = mergeLists(factors1, factors2);
-            return PowerDenotator._make_unsafe(null, d1.getAddress(), d1.getPowerForm(), factors);
-        }
+        return combine(SetOperation.UNION, d1, d2);
     }
 
     
     /**
-     * Returns the set union of argument list of denotators. 
+     * Returns the set union of argument list of denotators.
+     * The union is computed in a single pass over all the arguments.
      * @param denoList input array of power denotators must have
      *                 length > 0 and must have no null elements
      * @throws LatrunculusCheckedException if the denotators do not have the required form
      */
     public static PowerDenotator union(PowerDenotator ... denoList)
             throws LatrunculusCheckedException {
-        if (denoList.length == 0) {
-            return null;
-        }
-        PowerDenotator result = denoList[0];
-        for (int i = 1; i < denoList.length; i++) {
-            result = union(result, denoList[i]);
-        }
-        return result;
+        return combine(SetOperation.UNION, denoList);
     }
 
     
@@ -111,46 +87,20 @@ public final class Sets {
      */
     public static PowerDenotator intersection(PowerDenotator d1, PowerDenotator d2)
             throws LatrunculusCheckedException {
-        Form form = processArguments(d1, d2);
-        if (form == null) {
-            throw new LatrunculusCheckedException("Sets.intersection: "+d1+" and "+d2+" have not the same factor form");
-        }
-        
-        List<Denotator> factors1 = d1.getFactors();
-        List<Denotator> factors2 = d2.getFactors();
-        if (!d1.getAddress().equals(d2.getAddress())) {
-            Module newAddress = Address.getCommonModule(d1.getAddress(), d2.getAddress());
-            if (newAddress == null) {
-                throw new LatrunculusCheckedException("Sets.intersection: Could not find a common address for "+d1+" and "+d2);
-            }
-            factors1 = readdress(factors1, newAddress);
-            factors2 = readdress(factors2, newAddress);
-            List<Denotator> factors = intersectLists(factors1, factors2);
-            return new PowerDenotator(null, d1.getPowerForm(), factors);       
-        }
-        else {
-            List<Denotator> factors = intersectLists(factors1, factors2);
-            return PowerDenotator._make_unsafe(null, d1.getAddress(), d1.getPowerForm(), factors);
-        }
+        return combine(SetOperation.INTERSECTION, d1, d2);
     }
 
 
     /**
      * Returns the set intersection of argument list of denotators.
+     * The intersection is computed in a single pass over the smallest argument.
      * @param denoList input array of power denotators must have
      *                 length > 0 and must have no null elements
      * @throws LatrunculusCheckedException if the denotators have not the required form
      */
     public static PowerDenotator intersection(PowerDenotator ... denoList)
             throws LatrunculusCheckedException {
-        if (denoList.length == 0) {
-            return null;
-        }
-        PowerDenotator result = denoList[0];
-        for (int i = 1; i < denoList.length; i++) {
-            result = intersection(result, denoList[i]);
-        }
-        return result;
+        return combine(SetOperation.INTERSECTION, denoList);
     }
 
     
@@ -164,44 +114,18 @@ public final class Sets {
      */
     public static PowerDenotator difference(PowerDenotator d1, PowerDenotator d2)
             throws LatrunculusCheckedException {
-        Form form = processArguments(d1, d2);
-        if (form == null) {
-            throw new LatrunculusCheckedException("Sets.difference: "+d1+" and "+d2+" have not the same factor form");
-        }
-        
-        List<Denotator> factors1 = d1.getFactors();
-        List<Denotator> factors2 = d2.getFactors();
-        if (!d1.getAddress().equals(d2.getAddress())) {
-            Module newAddress = Address.getCommonModule(d1.getAddress(), d2.getAddress());
-            if (newAddress == null) {
-                throw new LatrunculusCheckedException("Sets.difference: Could not find a common address for "+d1+" and "+d2);
-            }
-            factors1 = readdress(factors1, newAddress);
-            factors2 = readdress(factors2, newAddress);
-            List<Denotator> factors = differenceLists(factors1, factors2);
-            return new PowerDenotator(null, d1.getPowerForm(), factors);       
-        }
-        else {
-            List<Denotator> factors = differenceLists(factors1, factors2);
-            return PowerDenotator._make_unsafe(null, d1.getAddress(), d1.getPowerForm(), factors);
-        }
+        return combine(SetOperation.DIFFERENCE, d1, d2);
     }
     
     
     /**
-     * Returns the set difference of argument list of denotators.
+     * Returns the set difference of argument list of denotators, i.e.,
+     * the elements of the first denotator that are in none of the others.
      * @throws LatrunculusCheckedException if the denotators have not the required form
      */
     public static PowerDenotator difference(PowerDenotator ... denoList)
             throws LatrunculusCheckedException {
-        if (denoList.length == 0) {
-            return null;
-        }
-        PowerDenotator result = denoList[0];
-        for (int i = 1; i < denoList.length; i++) {
-            result = difference(result, denoList[i]);
-        }
-        return result;
+        return combine(SetOperation.DIFFERENCE, denoList);
     }
 
     
@@ -215,44 +139,18 @@ public final class Sets {
      */
     public static PowerDenotator symmetric(PowerDenotator d1, PowerDenotator d2)
             throws LatrunculusCheckedException {
-        Form form = processArguments(d1, d2);
-        if (form == null) {
-            throw new LatrunculusCheckedException("Sets.symmetric: "+d1+" and "+d2+" have not the same factor form");
-        }
-
-        List<Denotator> factors1 = d1.getFactors();
-        List<Denotator> factors2 = d2.getFactors();
-        if (!d1.getAddress().equals(d2.getAddress())) {
-            Module newAddress = Address.getCommonModule(d1.getAddress(), d2.getAddress());
-            if (newAddress == null) {
-                throw new LatrunculusCheckedException("Sets.symmetric: Could not find a common address for "+d1+" and "+d2);
-            }
-            factors1 = readdress(factors1, newAddress);
-            factors2 = readdress(factors2, newAddress);
-            List<Denotator> factors = symmetricdiffLists(factors1, factors2);
-            return new PowerDenotator(null, d1.getPowerForm(), factors);       
-        }
-        else {
-            List<Denotator> factors = symmetricdiffLists(factors1, factors2);
-            return PowerDenotator._make_unsafe(null, d1.getAddress(), d1.getPowerForm(), factors);
-        }
+        return combine(SetOperation.SYMMETRIC, d1, d2);
     }
     
 
     /**
-     * Returns the symmetric set difference of argument list of denotators.
+     * Returns the symmetric set difference of argument list of denotators, i.e.,
+     * the elements contained in an odd number of the arguments.
      * @throws LatrunculusCheckedException if the denotators have not the required form
      */
     public static PowerDenotator symmetric(PowerDenotator ... denoList)
             throws LatrunculusCheckedException {
-        if (denoList.length == 0) {
-            return null;
-        }
-        PowerDenotator result = denoList[0];
-        for (int i = 1; i < denoList.length; i++) {
-            result = symmetric(result, denoList[i]);
-        }
-        return result;
+        return combine(SetOperation.SYMMETRIC, denoList);
     }
 
     /**
@@ -423,24 +321,7 @@ public final class Sets {
     
     
     private static boolean _contains(PowerDenotator p, Denotator d) {
-        ArrayList<Denotator> factors = p.getListMorphismMap().getFactors();
-        int i = 0;
-        int j = factors.size()-1;
-        while (i <= j) {
-            int t = (i+j)/2;
-            Denotator s = factors.get(t);
-            int c = d.compareTo(s);
-            if (c == 0) {
-                return true;
-            }
-            else if (c < 0) {
-                j = t-1;
-            }
-            else {
-                i = t+1;
-            }
-        }   
-        return false;
+        return p.getListMorphismMap().indexOf(d) >= 0;
     }
 
     
@@ -448,119 +329,88 @@ public final class Sets {
     // Private methods
     //
 
-    static private List<Denotator> mergeLists(List<Denotator> list1, List<Denotator> list2) {
-        LinkedList<Denotator> newList = new LinkedList<Denotator>();
-        int count1 = list1.size();
-        int count2 = list2.size();
-        int i1 = 0;
-        int i2 = 0;
-        while (i1 < count1 && i2 < count2) {
-            Denotator d1 = list1.get(i1);
-            Denotator d2 = list2.get(i2);
-            int comp = d1.compareTo(d2);
-            if (comp < 0) {
-                newList.add(d1);
-                i1++;
-            }
-            else if (comp > 0) {
-                newList.add(d2);
-                i2++;
-            }
-            else {
-                newList.add(d1);
-                i1++;
-                i2++;
-            }            
+    /**
+     * Applies the set operation <code>op</code> to all the arguments at once.
+     * If all the arguments have the same address, the result is built directly
+     * from the sorted factor lists, otherwise the factors are first readdressed
+     * to a common address.
+     */
+    static private PowerDenotator combine(SetOperation op, PowerDenotator ... denoList)
+            throws LatrunculusCheckedException {
+        if (denoList.length == 0) {
+            return null;
         }
-        while (i1 < count1) {
-            newList.add(list1.get(i1));
-            i1++;
+        PowerDenotator first = denoList[0];
+        Module[] addresses = new Module[denoList.length];
+        boolean sameAddress = true;
+        for (int i = 0; i < denoList.length; i++) {
+            if (processArguments(first, denoList[i]) == null) {
+                throw new LatrunculusCheckedException("Sets."+op.getName()+": "+first+" and "+denoList[i]+" do not have the same base form");
+            }
+            addresses[i] = denoList[i].getAddress();
+            sameAddress &= addresses[i].equals(first.getAddress());
         }
-        while (i2 < count2) {
-            newList.add(list2.get(i2));
-            i2++;
+        if (denoList.length == 1) {
+            return first;
         }
-        return newList;
-    }
 
-    
-    static private List<Denotator> intersectLists(List<Denotator> list1, List<Denotator> list2) {
-        LinkedList<Denotator> newList = new LinkedList<Denotator>();
-        int count1 = list1.size();
-        int count2 = list2.size();
-        int i1 = 0;
-        int i2 = 0;
-        while (i1 < count1 && i2 < count2) {
-            while (i1 < count1 && i2 < count2 && list1.get(i1).compareTo(list2.get(i2)) < 0) {
-                i1++;
-            }
-            while (i1 < count1 && i2 < count2 && list1.get(i1).compareTo(list2.get(i2)) > 0) {
-                i2++;
-            }
-            if (i1 < count1 && i2 < count2 && list1.get(i1).equals(list2.get(i2))) {
-                newList.add(list1.get(i1));
-                i1++;
-                i2++;
+        List<List<Denotator>> factorLists = new ArrayList<List<Denotator>>(denoList.length);
+        if (sameAddress) {
+            for (PowerDenotator d : denoList) {
+                factorLists.add(d.getListMorphismMap().getFactors());
             }
+            return PowerDenotator._make_sorted_unsafe(null, first.getAddress(), first.getPowerForm(), op.apply(factorLists));
         }
-        return newList;
-    }
-
 
-    static private List<Denotator> differenceLists(List<Denotator> list1, List<Denotator> list2) {
-        LinkedList<Denotator> newList = new LinkedList<Denotator>();
-        int count1 = list1.size();
-        int count2 = list2.size();
-        int i1 = 0;
-        int i2 = 0;
-        while (i1 < count1 && i2 < count2) {
-            Denotator d1 = list1.get(i1);
-            Denotator d2 = list2.get(i2);
-            int comp = d1.compareTo(d2);
-            if (comp < 0) {
-                newList.add(d1);
-                i1++;
-            }
-            else if (comp > 0) {
-                i2++;
-            }
-            else {
-                i1++;
-                i2++;
-            }            
+        Module newAddress = Address.getCommonModule(addresses);
+        if (newAddress == null) {
+            throw new LatrunculusCheckedException("Sets."+op.getName()+": Could not find a common address for "+StringUtils.join(denoList, " and "));
         }
-        while (i1 < count1) {
-            newList.add(list1.get(i1));
-            i1++;
+        for (PowerDenotator d : denoList) {
+            // readdressing may change the order of the factors and identify some of them
+            factorLists.add(new ArrayList<Denotator>(new TreeSet<Denotator>(readdress(d.getListMorphismMap().getFactors(), newAddress))));
         }
-        return newList;
+        return new PowerDenotator(null, first.getPowerForm(), op.apply(factorLists));
     }
 
 
-    static private List<Denotator> symmetricdiffLists(List<Denotator> list1, List<Denotator> list2) {
-        LinkedList<Denotator> newList = new LinkedList<Denotator>();
-        int count1 = list1.size();
-        int count2 = list2.size();
-        int i1 = 0;
-        int i2 = 0;
-        while (i1 < count1 && i2 < count2) {
-            while (i1 < count1 && i2 < count2 && list1.get(i1).compareTo(list2.get(i2)) < 0) {
-                newList.add(list1.get(i1));
-                i1++;
+    private enum SetOperation {
+
+        UNION("union") {
+            List<Denotator> apply(List<List<Denotator>> factorLists) {
+                return SetEngine.union(factorLists);
+            }
+        },
+        INTERSECTION("intersection") {
+            List<Denotator> apply(List<List<Denotator>> factorLists) {
+                return SetEngine.intersection(factorLists);
             }
-            while (i1 < count1 && i2 < count2 && list1.get(i1).compareTo(list2.get(i2)) > 0) {
-                newList.add(list2.get(i2));
-                i2++;
+        },
+        DIFFERENCE("difference") {
+            List<Denotator> apply(List<List<Denotator>> factorLists) {
+                return SetEngine.difference(factorLists);
             }
-            if (i1 < count1 && i2 < count2 && list1.get(i1).equals(list2.get(i2))) {
-                i1++;
-                i2++;
+        },
+        SYMMETRIC("symmetric") {
+            List<Denotator> apply(List<List<Denotator>> factorLists) {
+                return SetEngine.symmetric(factorLists);
             }
+        };
+
+        private final String name;
+
+        SetOperation(String name) {
+            this.name = name;
         }
-        return newList;
-    }
 
+        String getName() {
+            return name;
+        }
+
+        abstract List<Denotator> apply(List<List<Denotator>> factorLists);
+    }
 
+    
     static private Form processArguments(PowerDenotator d1, PowerDenotator d2) {
         if (!d1.getPowerForm().getForm().equals(d2.getPowerForm().getForm())) {
             return null;
@@ -19,8 +19,6 @@
 
 package org.vetronauta.latrunculus.core.logeo.reform;
 
-import java.util.HashMap;
-
 import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
 import org.vetronauta.latrunculus.core.math.yoneda.form.ColimitForm;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
@@ -29,6 +27,7 @@ import org.vetronauta.latrunculus.core.math.yoneda.form.LimitForm;
 import org.vetronauta.latrunculus.core.math.yoneda.form.ListForm;
 import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
+import org.vetronauta.latrunculus.core.util.Interner;
 
 
 /**
@@ -84,35 +83,32 @@ public abstract class Reformer {
         if (from.equals(to)) {
             return identityReformer;
         }
-        FormPair formPair = new FormPair(from, to);
-        Reformer reformer = reformers.get(formPair);
-        if (reformer == null) {
-            switch (from.getType()) {
-            case SIMPLE: {
-                reformer = makeSimpleReformer((SimpleForm)from, to);
-                break;
-            }
-            case LIMIT: {
-                reformer = makeLimitReformer((LimitForm)from, to);
-                break;
-            }
-            case COLIMIT: {
-                reformer = makeColimitReformer((ColimitForm)from, to);
-                break;
-            }
-            case POWER: {
-                reformer = makePowerReformer((PowerForm)from, to);
-                break;
-            }
-            case LIST: {
-                reformer = makeListReformer((ListForm)from, to);
-                break;
-            }
-            }
-            
-            if (reformer != null) {
-                reformers.put(formPair, reformer);
-            }
+        return reformers.intern(new FormPair(from, to), formPair -> makeReformer(from, to));
+    }
+
+    private static Reformer makeReformer(Form from, Form to) {
+        Reformer reformer = null;
+        switch (from.getType()) {
+        case SIMPLE: {
+            reformer = makeSimpleReformer((SimpleForm)from, to);
+            break;
+        }
+        case LIMIT: {
+            reformer = makeLimitReformer((LimitForm)from, to);
+            break;
+        }
+        case COLIMIT: {
+            reformer = makeColimitReformer((ColimitForm)from, to);
+            break;
+        }
+        case POWER: {
+            reformer = makePowerReformer((PowerForm)from, to);
+            break;
+        }
+        case LIST: {
+            reformer = makeListReformer((ListForm)from, to);
+            break;
+        }
         }
         return reformer;
     }
@@ -189,7 +185,7 @@ public abstract class Reformer {
                 return from == p.from && to == p.to;
             }
             else {
-                return true;
+                return false;
             }
         }
         
@@ -202,11 +198,7 @@ public abstract class Reformer {
     }
     
     
-    private static HashMap<FormPair,Reformer> reformers;
-    
-    static {
-        reformers = new HashMap<FormPair,Reformer>();      
-    }
+    private static final Interner<FormPair,Reformer> reformers = Interner.strong();
     
     protected Reformer() {}
 }
@@ -0,0 +1,327 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.math.element.impl;
+
+import org.vetronauta.latrunculus.core.exception.DomainException;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A vector over the real numbers backed by a contiguous <code>double[]</code>.
+ * It is a drop-in replacement for <code>Vector&lt;Real&gt;</code>: the list returned
+ * by {@link #getValue()} is a view on the primitive storage, so code working on
+ * generic vectors keeps working, while the arithmetic does not allocate any
+ * boxed {@link Real}.
+ *
+ * @author vetronauta
+ */
+public class RealVector extends Vector<Real> {
+
+    private final double[] values;
+
+    /**
+     * Creates a real vector using <code>values</code> as its backing array (no copy is done).
+     */
+    public RealVector(double[] values) {
+        super(RRing.ring, new RealList(values));
+        this.values = values;
+    }
+
+    /**
+     * Creates the zero real vector of length <code>dimension</code>.
+     */
+    public static RealVector zero(int dimension) {
+        return new RealVector(new double[Math.max(0, dimension)]);
+    }
+
+    /**
+     * Returns a real vector with the same components of <code>vector</code>.
+     * If <code>vector</code> is already a RealVector, it is returned as it is.
+     */
+    public static RealVector of(Vector<Real> vector) {
+        if (vector instanceof RealVector) {
+            return (RealVector) vector;
+        }
+        return new RealVector(toArray(vector));
+    }
+
+    /**
+     * Returns a fresh array containing the components of <code>vector</code>.
+     */
+    public static double[] toArray(Vector<Real> vector) {
+        if (vector instanceof RealVector) {
+            return ((RealVector) vector).values.clone();
+        }
+        double[] res = new double[vector.getLength()];
+        List<Real> list = vector.getValue();
+        for (int i = 0; i < res.length; i++) {
+            res[i] = list.get(i).getValue();
+        }
+        return res;
+    }
+
+    /**
+     * Returns the backing array of this vector. Changes to the array are reflected in this vector.
+     */
+    public double[] getArray() {
+        return values;
+    }
+
+    /**
+     * Returns the <code>i</code>-th component as a primitive value.
+     */
+    public double getDouble(int i) {
+        return values[i];
+    }
+
+    /**
+     * Sets the <code>i</code>-th component to <code>value</code>.
+     */
+    public void set(int i, double value) {
+        values[i] = value;
+    }
+
+    @Override
+    public Real getRingElement(int i) {
+        if (i >= values.length) {
+            throw new IndexOutOfBoundsException(String.format("Cannot access index %d for Vector of length %d", i, values.length));
+        }
+        return new Real(values[i]);
+    }
+
+    @Override
+    public int getLength() {
+        return values.length;
+    }
+
+    @Override
+    public int length() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isZero() {
+        for (double v : values) {
+            if (v != 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public RealVector productCW(Vector<Real> element) throws DomainException {
+        double[] other = otherValues(element);
+        double[] res = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = values[i] * other[i];
+        }
+        return new RealVector(res);
+    }
+
+    @Override
+    public void multiplyCW(Vector<Real> element) throws DomainException {
+        double[] other = otherValues(element);
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= other[i];
+        }
+    }
+
+    @Override
+    public RealVector scaled(Real element) throws DomainException {
+        return scaled(element.getValue());
+    }
+
+    /**
+     * Returns this vector scaled by <code>scalar</code>.
+     */
+    public RealVector scaled(double scalar) {
+        double[] res = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = values[i] * scalar;
+        }
+        return new RealVector(res);
+    }
+
+    @Override
+    public void scale(Real element) throws DomainException {
+        scale(element.getValue());
+    }
+
+    /**
+     * Multiplies this vector by <code>scalar</code>.
+     * This is a destructive operation.
+     */
+    public void scale(double scalar) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] *= scalar;
+        }
+    }
+
+    @Override
+    public RealVector sum(Vector<Real> element) throws DomainException {
+        double[] other = otherValues(element);
+        double[] res = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = values[i] + other[i];
+        }
+        return new RealVector(res);
+    }
+
+    @Override
+    public void add(Vector<Real> element) throws DomainException {
+        double[] other = otherValues(element);
+        for (int i = 0; i < values.length; i++) {
+            values[i] += other[i];
+        }
+    }
+
+    @Override
+    public RealVector difference(Vector<Real> element) throws DomainException {
+        double[] other = otherValues(element);
+        double[] res = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = values[i] - other[i];
+        }
+        return new RealVector(res);
+    }
+
+    @Override
+    public void subtract(Vector<Real> element) throws DomainException {
+        double[] other = otherValues(element);
+        for (int i = 0; i < values.length; i++) {
+            values[i] -= other[i];
+        }
+    }
+
+    @Override
+    public RealVector negated() {
+        double[] res = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = -values[i];
+        }
+        return new RealVector(res);
+    }
+
+    @Override
+    public void negate() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -values[i];
+        }
+    }
+
+    @Override
+    public RealVector resize(int n) {
+        if (n == values.length) {
+            return this;
+        }
+        return new RealVector(Arrays.copyOf(values, Math.max(0, n)));
+    }
+
+    @Override
+    public Real scalarProduct(Vector<Real> other) {
+        double[] otherValues = otherValues(other);
+        double sp = 0.0;
+        for (int i = 0; i < values.length; i++) {
+            sp += values[i] * otherValues[i];
+        }
+        return new Real(sp);
+    }
+
+    @Override
+    public RealVector deepCopy() {
+        return new RealVector(values.clone());
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof RealVector) {
+            // components are compared with ==, as in Real.equals, so that 0.0 equals -0.0 and NaN equals nothing
+            double[] otherValues = ((RealVector) object).values;
+            if (values.length != otherValues.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != otherValues[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(object);
+    }
+
+    @Override
+    public int hashCode() {
+        // must agree with Vector.hashCode, which sums the hash codes of the components
+        int hash = 0;
+        for (double v : values) {
+            hash += (int) Math.round(v);
+        }
+        return hash;
+    }
+
+    private double[] otherValues(Vector<Real> element) {
+        if (values.length != element.getLength()) {
+            throw new DomainException(this.getModule(), element.getModule());
+        }
+        if (element instanceof RealVector) {
+            return ((RealVector) element).values;
+        }
+        return toArray(element);
+    }
+
+    /**
+     * List view of the backing array, used for compatibility with the generic Vector.
+     */
+    private static final class RealList extends AbstractList<Real> implements RandomAccess, Serializable {
+
+        private final double[] values;
+
+        private RealList(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Real get(int index) {
+            return new Real(values[index]);
+        }
+
+        @Override
+        public Real set(int index, Real element) {
+            Real old = new Real(values[index]);
+            values[index] = element.getValue();
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+    }
+
+}
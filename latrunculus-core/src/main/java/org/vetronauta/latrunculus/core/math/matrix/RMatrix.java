@@ -21,13 +21,11 @@ package org.vetronauta.latrunculus.core.math.matrix;
 
 import org.vetronauta.latrunculus.core.math.element.generic.Vector;
 import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
 import org.vetronauta.latrunculus.core.math.module.impl.RRing;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Matrixes over real numbers.
@@ -43,28 +41,36 @@ public class RMatrix extends Matrix<Real> {
         coefficients = new double[rows][cols];
     }
 
+    /**
+     * Returns a real matrix with the same coefficients of <code>matrix</code>.
+     * If <code>matrix</code> is already a RMatrix, it is returned as it is.
+     */
+    public static RMatrix of(Matrix<Real> matrix) {
+        if (matrix instanceof RMatrix) {
+            return (RMatrix) matrix;
+        }
+        RMatrix m = new RMatrix(matrix.getRowCount(), matrix.getColumnCount());
+        for (int r = 0; r < m.rows; r++) {
+            for (int c = 0; c < m.columns; c++) {
+                m.coefficients[r][c] = matrix.get(r, c).getValue();
+            }
+        }
+        return m;
+    }
+
     @Override
     public Matrix<Real> product(Matrix<Real> matrix) {
-        if (!(matrix instanceof RMatrix)) {
-            throw new UnsupportedOperationException("still have to do it");
-        }
-        return product((RMatrix) matrix);
+        return product(of(matrix));
     }
 
     @Override
     public Matrix<Real> sum(Matrix<Real> matrix) {
-        if (!(matrix instanceof RMatrix)) {
-            throw new UnsupportedOperationException("still have to do it");
-        }
-        return sum((RMatrix) matrix);
+        return sum(of(matrix));
     }
 
     @Override
     public Matrix<Real> difference(Matrix<Real> matrix) {
-        if (!(matrix instanceof RMatrix)) {
-            throw new UnsupportedOperationException("still have to do it");
-        }
-        return difference((RMatrix) matrix);
+        return difference(of(matrix));
     }
 
     @Override
@@ -162,19 +168,17 @@ public class RMatrix extends Matrix<Real> {
     }
 
     @Override
-    public Vector<Real> getColumn(int j) {
-        List<Real> list = new ArrayList<>(rows);
+    public RealVector getColumn(int j) {
+        double[] column = new double[rows];
         for (int i = 0; i < rows; i++) {
-            list.add(new Real(coefficients[i][j]));
+            column[i] = coefficients[i][j];
         }
-        return new Vector<>(RRing.ring, list);
+        return new RealVector(column);
     }
 
     @Override
-    public Vector<Real> getRow(int i) {
-        return new Vector<>(RRing.ring, Arrays.stream(coefficients[i])
-                .mapToObj(Real::new)
-                .collect(Collectors.toList()));
+    public RealVector getRow(int i) {
+        return new RealVector(coefficients[i].clone());
     }
 
     @Override
@@ -372,19 +376,14 @@ public class RMatrix extends Matrix<Real> {
     }
 
     @Override
-    public Vector<Real> product(Vector<Real> vector) {
+    public RealVector product(Vector<Real> vector) {
         if (columns != vector.getLength()) {
             throw new ArithmeticException("Unmatched matrix dimensions.");
         }
-        List<Real> res = new ArrayList<>(rows);
-        for (int r = 0; r < rows; r++) {
-            Real sum = ring.getZero();
-            for (int c = 0; c < columns; c++) {
-                sum = sum.sum((new Real(coefficients[r][c])).product(vector.getComponent(c)));
-            }
-            res.add(sum);
-        }
-        return new Vector<>(ring, res);
+        double[] x = vector instanceof RealVector ? ((RealVector) vector).getArray() : RealVector.toArray(vector);
+        double[] res = new double[rows];
+        product(x, null, res);
+        return new RealVector(res);
     }
 
 
@@ -780,6 +779,8 @@ public class RMatrix extends Matrix<Real> {
     
     /**
      * Returns the product of this matrix and <code>m</code>.
+     * The product is computed blockwise, in order to keep the accessed
+     * rows of both matrixes in cache for large sizes.
      */
     public RMatrix product(RMatrix m) {
         if (!productPossible(m)) {
@@ -787,13 +788,25 @@ public class RMatrix extends Matrix<Real> {
         }
         
         RMatrix product = new RMatrix(rows, m.columns);
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < m.columns; c++) {
-                double sum = 0.0;
-                for (int i = 0; i < columns; i++) {
-                    sum += coefficients[r][i]*m.coefficients[i][c];
+        double[][] res = product.coefficients;
+        for (int r0 = 0; r0 < rows; r0 += BLOCK_SIZE) {
+            int r1 = Math.min(r0 + BLOCK_SIZE, rows);
+            for (int i0 = 0; i0 < columns; i0 += BLOCK_SIZE) {
+                int i1 = Math.min(i0 + BLOCK_SIZE, columns);
+                for (int c0 = 0; c0 < m.columns; c0 += BLOCK_SIZE) {
+                    int c1 = Math.min(c0 + BLOCK_SIZE, m.columns);
+                    for (int r = r0; r < r1; r++) {
+                        double[] resRow = res[r];
+                        double[] row = coefficients[r];
+                        for (int i = i0; i < i1; i++) {
+                            double a = row[i];
+                            double[] otherRow = m.coefficients[i];
+                            for (int c = c0; c < c1; c++) {
+                                resRow[c] += a*otherRow[c];
+                            }
+                        }
+                    }
                 }
-                product.coefficients[r][c] = sum;
             }
         }
         return product;
@@ -808,15 +821,32 @@ public class RMatrix extends Matrix<Real> {
 	       throw new ArithmeticException("Unmatched matrix dimensions");
         }
         double[] res = new double[rows];
-        double sum;
+        product(vector, null, res);
+        return res;
+    }
+
+
+    /**
+     * Stores the affine map <i>A</i>*<code>vector</code>+<code>translation</code>
+     * in <code>result</code>, where <i>A</i> is this matrix.
+     * If <code>translation</code> is null, only the linear part is computed.
+     * No objects are allocated, <code>result</code> must not be
+     * the same array as <code>vector</code>.
+     *
+     * @throws ArithmeticException if the dimensions do not match
+     */
+    public void product(double[] vector, double[] translation, double[] result) {
+        if (columns != vector.length || rows != result.length || (translation != null && rows != translation.length)) {
+            throw new ArithmeticException("Unmatched matrix dimensions");
+        }
         for (int r = 0; r < rows; r++) {
-	        sum = 0;
-	        for (int c = 0; c < columns; c++) {
-		        sum = sum + coefficients[r][c] * vector[c];
+            double[] row = coefficients[r];
+            double sum = translation != null ? translation[r] : 0.0;
+            for (int c = 0; c < columns; c++) {
+                sum += row[c] * vector[c];
             }
-	        res[r] = sum;
+            result[r] = sum;
         }
-        return res;
     }
 
     
@@ -940,4 +970,6 @@ public class RMatrix extends Matrix<Real> {
     private double[][] coefficients;
     
     static final double EPSILON = 1.0e-6;
+
+    private static final int BLOCK_SIZE = 64;
 }
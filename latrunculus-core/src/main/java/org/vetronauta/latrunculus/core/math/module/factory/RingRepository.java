@@ -22,9 +22,7 @@ package org.vetronauta.latrunculus.core.math.module.factory;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.vetronauta.latrunculus.core.math.module.impl.ZnRing;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.vetronauta.latrunculus.core.util.Interner;
 
 /**
  * @author vetronauta
@@ -34,10 +32,10 @@ public class RingRepository {
 
     //TODO make this a proper object to inject when needed
 
-    private static final Map<Integer, ZnRing> modRingMap = new HashMap<>();
+    private static final Interner<Integer, ZnRing> modRingMap = Interner.strong();
 
     public static ZnRing getModulusRing(int modulus) {
-        return modRingMap.computeIfAbsent(modulus, ZnRing::make);
+        return modRingMap.intern(modulus, ZnRing::make);
     }
 
 }
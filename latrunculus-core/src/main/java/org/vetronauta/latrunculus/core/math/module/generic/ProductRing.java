@@ -24,10 +24,11 @@ import org.vetronauta.latrunculus.core.math.element.generic.ProductElement;
 import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Products over rings.
@@ -301,5 +302,5 @@ public final class ProductRing extends Ring<ProductElement> {
 
     private static final int basicHash = "ProductRing".hashCode();
     private int hashcode = 0;
-    private static HashMap<List<Ring>,ProductRing> cache = new HashMap<List<Ring>,ProductRing>();
+    private static final Map<List<Ring>,ProductRing> cache = new ConcurrentHashMap<List<Ring>,ProductRing>();
 }
@@ -30,9 +30,10 @@ import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
 import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
 import org.vetronauta.latrunculus.core.math.module.impl.ZnRing;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Canonical morphisms are the "simplest" morphisms that map
@@ -45,7 +46,7 @@ import java.util.List;
 public abstract class CanonicalMorphism<A extends ModuleElement<A, RA>, B extends ModuleElement<B, RB>, RA extends RingElement<RA>, RB extends RingElement<RB>>
         extends ModuleMorphism<A,B,RA,RB> {
 
-    private static final HashMap<Pair<Module<?,?>,Module<?,?>>,ModuleMorphism> canonicalMorphisms = new HashMap<>();
+    private static final Map<Pair<Module<?,?>,Module<?,?>>,ModuleMorphism> canonicalMorphisms = new ConcurrentHashMap<>();
 
     protected CanonicalMorphism(Module<A,RA> domain, Module<B,RB> codomain) {
         super(domain, codomain);
@@ -29,8 +29,8 @@ import org.vetronauta.latrunculus.core.math.module.generic.Ring;
 import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
 import org.vetronauta.latrunculus.core.math.module.generic.StringRing;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Morphism that casts elements from a ring to another ring.
@@ -47,7 +47,7 @@ public abstract class CastMorphism<A extends ModuleElement<A, RA>, B extends Mod
         extends ModuleMorphism<A,B,RA,RB> {
 
 
-    private static final Map<Pair<Module<?,?>,Module<?,?>>,ModuleMorphism> castingMorphisms = new HashMap<>();
+    private static final Map<Pair<Module<?,?>,Module<?,?>>,ModuleMorphism> castingMorphisms = new ConcurrentHashMap<>();
 
     protected CastMorphism(Module<A,RA> domain, Module<B,RB> codomain) {
         super(domain, codomain);
@@ -91,7 +91,8 @@ public final class CompositionMorphism<A extends ModuleElement<A,RA>, B extends
             }
         }
         else {
-            return new CompositionMorphism<>(f, g);
+            ModuleMorphism<X,Z,RX,RZ> simplified = MorphismSimplifier.compose(f, g);
+            return simplified != null ? simplified : new CompositionMorphism<>(f, g);
         }
     }
 
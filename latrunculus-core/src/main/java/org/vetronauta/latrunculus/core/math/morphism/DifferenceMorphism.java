@@ -58,7 +58,8 @@ public final class DifferenceMorphism<A extends ModuleElement<A, RA>, B extends
             }
         }
         else {
-            return new DifferenceMorphism<>(f, g);
+            ModuleMorphism<X,Y,RX,RY> simplified = MorphismSimplifier.difference(f, g);
+            return simplified != null ? simplified : new DifferenceMorphism<>(f, g);
         }
     }
     
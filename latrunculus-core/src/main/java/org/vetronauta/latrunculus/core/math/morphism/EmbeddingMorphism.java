@@ -39,9 +39,10 @@ import org.vetronauta.latrunculus.core.math.module.impl.ZnRing;
 import org.vetronauta.latrunculus.core.math.element.generic.PolynomialElement;
 import org.vetronauta.latrunculus.core.math.module.generic.PolynomialRing;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -61,7 +62,7 @@ import java.util.stream.Collectors;
 public abstract class EmbeddingMorphism<A extends ModuleElement<A, RA>, B extends ModuleElement<B, RB>, RA extends RingElement<RA>, RB extends RingElement<RB>>
         extends ModuleMorphism<A,B,RA,RB> {
 
-    private static final HashMap<Pair<Module<?,?>,Module<?,?>>,ModuleMorphism> embeddingsCache = new HashMap<>();
+    private static final Map<Pair<Module<?,?>,Module<?,?>>,ModuleMorphism> embeddingsCache = new ConcurrentHashMap<>();
 
     protected EmbeddingMorphism(final Module<A,RA> domain, final Module<B,RB> codomain) {
         super(domain, codomain);
@@ -151,6 +152,15 @@ public abstract class EmbeddingMorphism<A extends ModuleElement<A, RA>, B extend
      * This must be implemented by subclasses.
      */
     public abstract B mapValue(A element);
+
+    /**
+     * Returns the morphism into the factor <code>index</code> of the
+     * product ring codomain, or null if this embedding does not
+     * factor componentwise.
+     */
+    ModuleMorphism<A,?,RA,?> getFactorMorphism(int index) {
+        return null;
+    }
     
     /**
      * Embeddings are always module homomorphisms, except for
@@ -490,6 +500,20 @@ public abstract class EmbeddingMorphism<A extends ModuleElement<A, RA>, B extend
                 throw new AssertionError("This should never happen!");
             }
         }
+
+        @Override
+        ModuleMorphism<RA,?,RA,?> getFactorMorphism(int i) {
+            if (i == index) {
+                return morphism;
+            }
+            Ring<?> factor = getCodomain().getFactor(i);
+            return zero(getDomain(), factor);
+        }
+
+        private static <RA extends RingElement<RA>, R extends RingElement<R>> ModuleMorphism<RA,R,RA,R> zero(Module<RA,RA> domain, Ring<R> factor) {
+            R zero = factor.getZero();
+            return getConstantMorphism(domain, zero);
+        }
     }
 
     private static class ProductRingFullEmbedding<RA extends RingElement<RA>>
@@ -515,6 +539,13 @@ public abstract class EmbeddingMorphism<A extends ModuleElement<A, RA>, B extend
                 throw new AssertionError("This should never happen!");
             }
         }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        ModuleMorphism<RA,?,RA,?> getFactorMorphism(int i) {
+            // the embeddings into the factors all have the domain of this embedding
+            return (ModuleMorphism<RA,?,RA,?>) embeddings[i];
+        }
     }
 
     private static class ProductRingEmbedding extends EmbeddingMorphism<ProductElement,ProductElement,ProductElement,ProductElement> {
@@ -0,0 +1,494 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.math.morphism;
+
+import org.vetronauta.latrunculus.core.exception.CompositionException;
+import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
+import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.matrix.ArrayMatrix;
+import org.vetronauta.latrunculus.core.math.matrix.Matrix;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.module.generic.NumberRing;
+import org.vetronauta.latrunculus.core.math.module.generic.Ring;
+import org.vetronauta.latrunculus.core.math.module.generic.VectorModule;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineInjection;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineMultiMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineProjection;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineRingMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.endo.Endomorphism;
+import org.vetronauta.latrunculus.core.math.morphism.endo.EndomorphismWrapper;
+import org.vetronauta.latrunculus.core.math.morphism.endo.RingEndomorphismWrapper;
+import org.vetronauta.latrunculus.core.math.morphism.wrapper.VectorDewrapperMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.wrapper.VectorWrapperMorphism;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites of module morphism trees into equivalent morphisms that are cheaper to evaluate.
+ * Affine morphisms over the same ring are fused into a single affine morphism under composition,
+ * sum, difference, scaling and powers, where powers are computed by repeated squaring.
+ * Chains of translations are merged and projections of product ring embeddings are reduced
+ * to the embedding of the projected factor.
+ * The rewrites are applied by the virtual constructors of the composite morphisms,
+ * while {@link #simplify} normalises a tree that has already been built.
+ *
+ * @author vetronauta
+ */
+public final class MorphismSimplifier {
+
+    /**
+     * Returns a morphism equivalent to <code>morphism</code>, where all the compositions,
+     * sums, differences, scalings and powers are rebuilt bottom-up, so that they are simplified.
+     * Over R, the fused morphisms may round differently than the original tree.
+     *
+     * @throws CompositionException if the factors of the tree cannot be combined again
+     */
+    public static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, RX extends RingElement<RX>, RY extends RingElement<RY>>
+    ModuleMorphism<X,Y,RX,RY> simplify(ModuleMorphism<X,Y,RX,RY> morphism) throws CompositionException {
+        return rebuild(morphism);
+    }
+
+    private static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, RX extends RingElement<RX>, RY extends RingElement<RY>>
+    ModuleMorphism<X,Y,RX,RY> rebuild(ModuleMorphism<X,Y,RX,RY> morphism) throws CompositionException {
+        if (morphism instanceof CompositionMorphism) {
+            return rebuild((CompositionMorphism<X,?,Y,RX,?,RY>) morphism);
+        }
+        if (morphism instanceof SumMorphism) {
+            SumMorphism<X,Y,RX,RY> m = (SumMorphism<X,Y,RX,RY>) morphism;
+            return SumMorphism.make(rebuild(m.getFirstMorphism()), rebuild(m.getSecondMorphism()));
+        }
+        if (morphism instanceof DifferenceMorphism) {
+            DifferenceMorphism<X,Y,RX,RY> m = (DifferenceMorphism<X,Y,RX,RY>) morphism;
+            return DifferenceMorphism.make(rebuild(m.getFirstMorphism()), rebuild(m.getSecondMorphism()));
+        }
+        if (morphism instanceof ScaledMorphism) {
+            ScaledMorphism<X,Y,RX,RY> m = (ScaledMorphism<X,Y,RX,RY>) morphism;
+            return ScaledMorphism.make(rebuild(m.getMorphism()), m.getScalar());
+        }
+        if (morphism instanceof PowerMorphism) {
+            return cast(rebuild((PowerMorphism<?,?>) morphism));
+        }
+        if (morphism instanceof EndomorphismWrapper) {
+            return cast(rebuild((EndomorphismWrapper<?,?>) morphism));
+        }
+        if (morphism instanceof RingEndomorphismWrapper) {
+            return cast(rebuild((RingEndomorphismWrapper<?>) morphism));
+        }
+        return morphism;
+    }
+
+    private static <A extends ModuleElement<A,RA>, B extends ModuleElement<B,RB>, C extends ModuleElement<C,RC>,
+            RA extends RingElement<RA>, RB extends RingElement<RB>, RC extends RingElement<RC>>
+    ModuleMorphism<A,C,RA,RC> rebuild(CompositionMorphism<A,B,C,RA,RB,RC> morphism) throws CompositionException {
+        return CompositionMorphism.make(rebuild(morphism.getFirstMorphism()), rebuild(morphism.getSecondMorphism()));
+    }
+
+    private static <A extends ModuleElement<A,RA>, RA extends RingElement<RA>>
+    Endomorphism<A,RA> rebuild(PowerMorphism<A,RA> morphism) throws CompositionException {
+        return PowerMorphism.make(asEndomorphism(rebuild(morphism.getBaseMorphism())), morphism.getExponent());
+    }
+
+    private static <A extends ModuleElement<A,RA>, RA extends RingElement<RA>>
+    Endomorphism<A,RA> rebuild(EndomorphismWrapper<A,RA> morphism) throws CompositionException {
+        return asEndomorphism(rebuild(morphism.getInternalMorphism()));
+    }
+
+    private static <RA extends RingElement<RA>>
+    ModuleMorphism<RA,RA,RA,RA> rebuild(RingEndomorphismWrapper<RA> morphism) throws CompositionException {
+        ModuleMorphism<RA,RA,RA,RA> m = rebuild(morphism.getInternalMorphism());
+        return m instanceof Endomorphism ? m : new RingEndomorphismWrapper<>(m);
+    }
+
+    /**
+     * Returns a morphism equivalent to the composition <i>f.g</i>
+     * without building a composition morphism, or null if there is none.
+     */
+    static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, Z extends ModuleElement<Z,RZ>,
+            RX extends RingElement<RX>, RY extends RingElement<RY>, RZ extends RingElement<RZ>>
+    ModuleMorphism<X,Z,RX,RZ> compose(ModuleMorphism<Y,Z,RY,RZ> f, ModuleMorphism<X,Y,RX,RY> g) throws CompositionException {
+        Affine<?> af = affine(f);
+        Affine<?> ag = affine(g);
+        if (af != null && ag != null) {
+            Affine<?> res = af.compose(ag);
+            if (res != null) {
+                return cast(make(res, g.getDomain(), f.getCodomain()));
+            }
+        }
+        // reassociate, so that affine neighbours are fused
+        if (af != null && g instanceof CompositionMorphism) {
+            ModuleMorphism<X,Z,RX,RZ> res = composeFirst(af, f, (CompositionMorphism<X,?,Y,RX,?,RY>) g);
+            if (res != null) {
+                return res;
+            }
+        }
+        if (ag != null && f instanceof CompositionMorphism) {
+            ModuleMorphism<X,Z,RX,RZ> res = composeSecond((CompositionMorphism<Y,?,Z,RY,?,RZ>) f, g, ag);
+            if (res != null) {
+                return res;
+            }
+        }
+        if (f instanceof TranslationMorphism && g instanceof TranslationMorphism) {
+            return cast(translate((TranslationMorphism<?,?>) g, (TranslationMorphism<?,?>) f));
+        }
+        if (f instanceof ProjectionMorphism && g instanceof EmbeddingMorphism) {
+            return cast(((EmbeddingMorphism<?,?,?,?>) g).getFactorMorphism(((ProjectionMorphism<?>) f).getIndex()));
+        }
+        return null;
+    }
+
+    /**
+     * Returns <i>(f.h).k</i> for <i>g = h.k</i>, where <i>f.h</i> is fused,
+     * or null if <i>f</i> and <i>h</i> cannot be fused.
+     */
+    private static <X extends ModuleElement<X,RX>, W extends ModuleElement<W,RW>, Y extends ModuleElement<Y,RY>, Z extends ModuleElement<Z,RZ>,
+            RX extends RingElement<RX>, RW extends RingElement<RW>, RY extends RingElement<RY>, RZ extends RingElement<RZ>>
+    ModuleMorphism<X,Z,RX,RZ> composeFirst(Affine<?> af, ModuleMorphism<Y,Z,RY,RZ> f, CompositionMorphism<X,W,Y,RX,RW,RY> g)
+            throws CompositionException {
+        ModuleMorphism<W,Y,RW,RY> h = g.getFirstMorphism();
+        Affine<?> res = af.compose(affine(h));
+        if (res == null) {
+            return null;
+        }
+        ModuleMorphism<W,Z,RW,RZ> fh = cast(make(res, h.getDomain(), f.getCodomain()));
+        return CompositionMorphism.make(fh, g.getSecondMorphism());
+    }
+
+    /**
+     * Returns <i>h.(k.g)</i> for <i>f = h.k</i>, where <i>k.g</i> is fused,
+     * or null if <i>k</i> and <i>g</i> cannot be fused.
+     */
+    private static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, W extends ModuleElement<W,RW>, Z extends ModuleElement<Z,RZ>,
+            RX extends RingElement<RX>, RY extends RingElement<RY>, RW extends RingElement<RW>, RZ extends RingElement<RZ>>
+    ModuleMorphism<X,Z,RX,RZ> composeSecond(CompositionMorphism<Y,W,Z,RY,RW,RZ> f, ModuleMorphism<X,Y,RX,RY> g, Affine<?> ag)
+            throws CompositionException {
+        ModuleMorphism<Y,W,RY,RW> k = f.getSecondMorphism();
+        Affine<?> ak = affine(k);
+        Affine<?> res = ak != null ? ak.compose(ag) : null;
+        if (res == null) {
+            return null;
+        }
+        ModuleMorphism<X,W,RX,RW> kg = cast(make(res, g.getDomain(), k.getCodomain()));
+        return CompositionMorphism.make(f.getFirstMorphism(), kg);
+    }
+
+    /**
+     * Returns the translation by the sum of the translates of <code>g</code> and <code>f</code>,
+     * which act on the same module, since they are composable.
+     */
+    @SuppressWarnings("unchecked")
+    private static <A extends ModuleElement<A,RA>, RA extends RingElement<RA>>
+    Endomorphism<A,RA> translate(TranslationMorphism<A,RA> g, TranslationMorphism<?,?> f) {
+        A translate = g.getTranslate().sum(((TranslationMorphism<A,RA>) f).getTranslate());
+        return translate.isZero() ? ModuleMorphism.getIdentityMorphism(g.getDomain()) : new TranslationMorphism<>(translate);
+    }
+
+    /**
+     * Returns a morphism equivalent to the sum <i>f+g</i>
+     * without building a sum morphism, or null if there is none.
+     */
+    static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, RX extends RingElement<RX>, RY extends RingElement<RY>>
+    ModuleMorphism<X,Y,RX,RY> sum(ModuleMorphism<X,Y,RX,RY> f, ModuleMorphism<X,Y,RX,RY> g) {
+        Affine<?> af = affine(f);
+        Affine<?> res = af != null ? af.sum(affine(g)) : null;
+        return res != null ? cast(make(res, f.getDomain(), f.getCodomain())) : null;
+    }
+
+    /**
+     * Returns a morphism equivalent to the difference <i>f-g</i>
+     * without building a difference morphism, or null if there is none.
+     */
+    static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, RX extends RingElement<RX>, RY extends RingElement<RY>>
+    ModuleMorphism<X,Y,RX,RY> difference(ModuleMorphism<X,Y,RX,RY> f, ModuleMorphism<X,Y,RX,RY> g) {
+        Affine<?> af = affine(f);
+        Affine<?> res = af != null ? af.difference(affine(g)) : null;
+        return res != null ? cast(make(res, f.getDomain(), f.getCodomain())) : null;
+    }
+
+    /**
+     * Returns a morphism equivalent to <i>scalar*f</i>
+     * without building a scaled morphism, or null if there is none.
+     */
+    static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, RX extends RingElement<RX>, RY extends RingElement<RY>>
+    ModuleMorphism<X,Y,RX,RY> scaled(ModuleMorphism<X,Y,RX,RY> f, RY scalar) {
+        Affine<?> af = affine(f);
+        Affine<?> res = af != null ? af.scaled(scalar) : null;
+        return res != null ? cast(make(res, f.getDomain(), f.getCodomain())) : null;
+    }
+
+    /**
+     * Returns a morphism equivalent to <i>f^exp</i>, with <i>exp</i> &gt; 1,
+     * without building a power morphism, or null if there is none.
+     */
+    static <X extends ModuleElement<X,RX>, RX extends RingElement<RX>>
+    Endomorphism<X,RX> power(Endomorphism<X,RX> f, int exp) {
+        Affine<?> af = affine(f);
+        if (af != null) {
+            ModuleMorphism<X,X,RX,RX> res = cast(make(af.power(exp), f.getDomain(), f.getCodomain()));
+            return asEndomorphism(res);
+        }
+        if (f instanceof TranslationMorphism) {
+            X base = ((TranslationMorphism<X,RX>) f).getTranslate();
+            X res = null;
+            for (int n = exp; n > 0; n >>= 1) {
+                if ((n & 1) != 0) {
+                    res = res == null ? base : res.sum(base);
+                }
+                if (n > 1) {
+                    base = base.sum(base);
+                }
+            }
+            return res.isZero() ? ModuleMorphism.getIdentityMorphism(f.getDomain()) : new TranslationMorphism<>(res);
+        }
+        return null;
+    }
+
+    private static <X extends ModuleElement<X,RX>, RX extends RingElement<RX>>
+    Endomorphism<X,RX> asEndomorphism(ModuleMorphism<X,X,RX,RX> morphism) {
+        if (morphism instanceof Endomorphism) {
+            return (Endomorphism<X,RX>) morphism;
+        }
+        return new EndomorphismWrapper<>(morphism);
+    }
+
+    /**
+     * The rewrites keep the domain and the codomain of a morphism,
+     * but the type of the fused morphism is only known at runtime.
+     */
+    @SuppressWarnings("unchecked")
+    private static <X extends ModuleElement<X,RX>, Y extends ModuleElement<Y,RY>, RX extends RingElement<RX>, RY extends RingElement<RY>>
+    ModuleMorphism<X,Y,RX,RY> cast(ModuleMorphism<?,?,?,?> morphism) {
+        return (ModuleMorphism<X,Y,RX,RY>) morphism;
+    }
+
+    /**
+     * Returns the matrix and the vector of <code>morphism</code>, if it is an
+     * affine morphism between rings or vector modules, otherwise null.
+     */
+    private static Affine<?> affine(ModuleMorphism<?,?,?,?> morphism) {
+        if (morphism instanceof EndomorphismWrapper) {
+            return affine(((EndomorphismWrapper<?,?>) morphism).getInternalMorphism());
+        }
+        if (morphism instanceof RingEndomorphismWrapper) {
+            return affine(((RingEndomorphismWrapper<?>) morphism).getInternalMorphism());
+        }
+        if (morphism instanceof AffineMultiMorphism) {
+            return affine((AffineMultiMorphism<?>) morphism);
+        }
+        if (morphism instanceof AffineInjection) {
+            return affine((AffineInjection<?>) morphism);
+        }
+        if (morphism instanceof AffineProjection) {
+            return affine((AffineProjection<?>) morphism);
+        }
+        if (morphism instanceof AffineRingMorphism) {
+            return affine((AffineRingMorphism<?>) morphism);
+        }
+        if (morphism instanceof TranslationMorphism) {
+            return affine((TranslationMorphism<?,?>) morphism);
+        }
+        if (morphism instanceof VectorDewrapperMorphism || morphism instanceof VectorWrapperMorphism) {
+            return identity(morphism.getDomain().getRing());
+        }
+        return null;
+    }
+
+    private static <R extends RingElement<R>> Affine<R> affine(AffineMultiMorphism<R> morphism) {
+        return new Affine<>(morphism.getBaseRing(), morphism.getMatrix(), morphism.getVector());
+    }
+
+    private static <R extends RingElement<R>> Affine<R> affine(AffineInjection<R> morphism) {
+        return new Affine<>(morphism.getBaseRing(), column(morphism.getMatrix()), morphism.getVector());
+    }
+
+    private static <R extends RingElement<R>> Affine<R> affine(AffineProjection<R> morphism) {
+        Ring<R> ring = morphism.getBaseRing();
+        return new Affine<>(ring, row(morphism.getMatrix()), singleton(ring, morphism.getVector()));
+    }
+
+    private static <R extends RingElement<R>> Affine<R> affine(AffineRingMorphism<R> morphism) {
+        Ring<R> ring = morphism.getDomain();
+        return new Affine<>(ring, column(singleton(ring, morphism.getA())), singleton(ring, morphism.getB()));
+    }
+
+    /**
+     * A translation of a ring is a translation by a ring element,
+     * and a translation of a vector module is a translation by a vector.
+     */
+    @SuppressWarnings("unchecked")
+    private static <A extends ModuleElement<A,RA>, RA extends RingElement<RA>> Affine<RA> affine(TranslationMorphism<A,RA> morphism) {
+        Module<A,RA> domain = morphism.getDomain();
+        Ring<RA> ring = domain.getRing();
+        if (domain instanceof Ring) {
+            return new Affine<>(ring, unit(ring, 1), singleton(ring, (RA) morphism.getTranslate()));
+        }
+        if (domain instanceof VectorModule) {
+            return new Affine<>(ring, unit(ring, domain.getDimension()), (Vector<RA>) morphism.getTranslate());
+        }
+        return null;
+    }
+
+    private static <R extends RingElement<R>> Affine<R> identity(Ring<R> ring) {
+        return new Affine<>(ring, unit(ring, 1), singleton(ring, ring.getZero()));
+    }
+
+    /**
+     * Builds the affine morphism with the given matrix and vector, keeping
+     * the distinction between rings and one-dimensional vector modules
+     * of <code>domain</code> and <code>codomain</code>.
+     */
+    private static <R extends RingElement<R>> ModuleMorphism<?,?,?,?> make(Affine<R> affine, Module<?,?> domain, Module<?,?> codomain) {
+        ModuleMorphism<?,?,?,?> res;
+        if (domain instanceof Ring && codomain instanceof Ring) {
+            res = new AffineRingMorphism<>(affine.ring, affine.matrix.get(0, 0), affine.vector.getComponent(0));
+        }
+        else if (domain instanceof Ring) {
+            res = new AffineInjection<>(affine.ring, affine.matrix.getColumn(0), affine.vector);
+        }
+        else if (codomain instanceof Ring) {
+            res = new AffineProjection<>(affine.ring, affine.matrix.getRow(0), affine.vector.getComponent(0));
+        }
+        else {
+            res = new AffineMultiMorphism<>(affine.ring, affine.matrix, affine.vector);
+        }
+        if (res.isIdentity()) {
+            return ModuleMorphism.getIdentityMorphism(domain);
+        }
+        return res;
+    }
+
+    private static <R extends RingElement<R>> Matrix<R> column(Vector<R> vector) {
+        Matrix<R> matrix = new ArrayMatrix<>(vector.getRing(), vector.getLength(), 1);
+        for (int i = 0; i < vector.getLength(); i++) {
+            matrix.set(i, 0, vector.getComponent(i));
+        }
+        return matrix;
+    }
+
+    private static <R extends RingElement<R>> Matrix<R> row(Vector<R> vector) {
+        Matrix<R> matrix = new ArrayMatrix<>(vector.getRing(), 1, vector.getLength());
+        for (int i = 0; i < vector.getLength(); i++) {
+            matrix.set(0, i, vector.getComponent(i));
+        }
+        return matrix;
+    }
+
+    private static <R extends RingElement<R>> Matrix<R> unit(Ring<R> ring, int dimension) {
+        Matrix<R> matrix = new ArrayMatrix<>(ring, dimension, dimension);
+        for (int i = 0; i < dimension; i++) {
+            matrix.setToOne(i, i);
+        }
+        return matrix;
+    }
+
+    private static <R extends RingElement<R>> Vector<R> singleton(Ring<R> ring, R element) {
+        List<R> list = new ArrayList<>(1);
+        list.add(element);
+        return new Vector<>(ring, list);
+    }
+
+    /**
+     * The map <i>x -&gt; Ax+b</i> over a ring.
+     */
+    private static final class Affine<R extends RingElement<R>> {
+
+        private final Ring<R> ring;
+        private final Matrix<R> matrix;
+        private final Vector<R> vector;
+
+        private Affine(Ring<R> ring, Matrix<R> matrix, Vector<R> vector) {
+            this.ring = ring;
+            this.matrix = matrix;
+            this.vector = vector;
+        }
+
+        /**
+         * Returns the composition of this map after <code>other</code>,
+         * or null if they do not fit.
+         */
+        private Affine<R> compose(Affine<?> other) {
+            Affine<R> o = sameRing(other);
+            if (o == null || !matrix.productPossible(o.matrix)) {
+                return null;
+            }
+            return new Affine<>(ring, matrix.product(o.matrix), matrix.product(o.vector).sum(vector));
+        }
+
+        private Affine<R> sum(Affine<?> other) {
+            Affine<R> o = sameRing(other);
+            if (o == null || !matrix.sameSize(o.matrix)) {
+                return null;
+            }
+            return new Affine<>(ring, matrix.sum(o.matrix), vector.sum(o.vector));
+        }
+
+        private Affine<R> difference(Affine<?> other) {
+            Affine<R> o = sameRing(other);
+            if (o == null || !matrix.sameSize(o.matrix)) {
+                return null;
+            }
+            return new Affine<>(ring, matrix.difference(o.matrix), vector.difference(o.vector));
+        }
+
+        /**
+         * Returns the map scaled by <code>scalar</code>, or null if this is not
+         * equivalent to scaling the result.
+         */
+        @SuppressWarnings("unchecked")
+        private Affine<R> scaled(RingElement<?> scalar) {
+            // scaling the matrix is only equivalent to scaling the result over a commutative ring
+            if (!(ring instanceof NumberRing) || !ring.hasElement(scalar)) {
+                return null;
+            }
+            return new Affine<>(ring, matrix.scaled((R) scalar), vector.scaled((R) scalar));
+        }
+
+        /**
+         * Returns the <code>exp</code>-th power of this map, computed by repeated squaring.
+         */
+        private Affine<R> power(int exp) {
+            Affine<R> base = this;
+            Affine<R> res = null;
+            for (int n = exp; n > 0; n >>= 1) {
+                if ((n & 1) != 0) {
+                    res = res == null ? base : base.compose(res);
+                }
+                if (n > 1) {
+                    base = base.compose(base);
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Returns <code>other</code> as a map over the ring of this map,
+         * or null if it is null or a map over another ring.
+         */
+        @SuppressWarnings("unchecked")
+        private Affine<R> sameRing(Affine<?> other) {
+            return other != null && ring.equals(other.ring) ? (Affine<R>) other : null;
+        }
+
+    }
+
+    private MorphismSimplifier() { /* not allowed */ }
+
+}
@@ -57,13 +57,14 @@ public final class PowerMorphism<A extends ModuleElement<A, RA>, RA extends Ring
         if (exp == 1 || f.isIdentity() || f.isConstant()) {
             return f;
         }
-        return new PowerMorphism<>(f, exp);
+        Endomorphism<X,RX> simplified = MorphismSimplifier.power(f, exp);
+        return simplified != null ? simplified : new PowerMorphism<>(f, exp);
     }
 
     @Override
     public A map(A x) throws MappingException {
         A res = x;
-        for (int i = 1; i < exponent; i++) {
+        for (int i = 0; i < exponent; i++) {
             res = f.map(res);
         }
         return res;
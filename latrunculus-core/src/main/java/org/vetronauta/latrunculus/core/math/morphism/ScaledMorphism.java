@@ -64,7 +64,8 @@ public final class ScaledMorphism<A extends ModuleElement<A, RA>, B extends Modu
             }
 
         }
-        return new ScaledMorphism<>(f, scalar);
+        ModuleMorphism<X,Y,RX,RY> simplified = MorphismSimplifier.scaled(f, scalar);
+        return simplified != null ? simplified : new ScaledMorphism<>(f, scalar);
     }
     
     
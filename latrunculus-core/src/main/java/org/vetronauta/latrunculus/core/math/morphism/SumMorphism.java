@@ -58,7 +58,8 @@ public final class SumMorphism<A extends ModuleElement<A, RA>, B extends ModuleE
                 throw new AssertionError("This should never happen!");
             }
         } else {
-            return new SumMorphism<>(f, g);
+            ModuleMorphism<X,Y,RX,RY> simplified = MorphismSimplifier.sum(f, g);
+            return simplified != null ? simplified : new SumMorphism<>(f, g);
         }
     }
 
@@ -22,11 +22,15 @@ package org.vetronauta.latrunculus.core.math.morphism.affine;
 import org.vetronauta.latrunculus.core.exception.CompositionException;
 import org.vetronauta.latrunculus.core.exception.MappingException;
 import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
 import org.vetronauta.latrunculus.core.math.matrix.Matrix;
+import org.vetronauta.latrunculus.core.math.matrix.RMatrix;
 import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
 import org.vetronauta.latrunculus.core.math.module.generic.Ring;
 import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
 import org.vetronauta.latrunculus.core.math.module.generic.VectorModule;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
 import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 
 /**
@@ -37,10 +41,21 @@ public class AffineMultiMorphism<R extends RingElement<R>> extends AffineFreeMor
     private final Matrix<R> matrix;
     private final Vector<R> vector;
 
+    // primitive kernel used when the base ring is R
+    private final RMatrix realMatrix;
+    private final double[] realVector;
+
     public AffineMultiMorphism(Ring<R> ring, Matrix<R> matrix, Vector<R> vector) {
         super(new VectorModule<>(ring, matrix.getColumnCount()), new VectorModule<>(ring, matrix.getRowCount()));
         this.matrix = matrix;
         this.vector = vector;
+        if (RRing.ring.equals(ring)) {
+            this.realMatrix = RMatrix.of((Matrix<Real>) matrix);
+            this.realVector = RealVector.toArray((Vector<Real>) vector);
+        } else {
+            this.realMatrix = null;
+            this.realVector = null;
+        }
     }
 
     @Override
@@ -48,9 +63,40 @@ public class AffineMultiMorphism<R extends RingElement<R>> extends AffineFreeMor
         if (!getDomain().hasElement(x)) {
             throw new MappingException("AffineMultiMorphism.map: ", x, this);
         }
+        if (realMatrix != null) {
+            double[] res = new double[realVector.length];
+            realMatrix.product(RealVector.of((Vector<Real>) x).getArray(), realVector, res);
+            return (Vector<R>) new RealVector(res);
+        }
         return matrix.product(x).sum(vector);
     }
 
+    /**
+     * Stores the image of <code>x</code> under the real affine morphism <code>morphism</code> in <code>result</code>
+     * without allocating any object. The base ring is fixed to R by the type of <code>morphism</code>, so
+     * callers choose this path only after checking the ring.
+     */
+    public static void map(AffineMultiMorphism<Real> morphism, double[] x, double[] result) {
+        morphism.realMatrix.product(x, morphism.realVector, result);
+    }
+
+    /**
+     * Returns the images of the columns of <code>x</code> under the real affine morphism <code>morphism</code>
+     * as the columns of a new matrix. The linear part of all the images is computed by a single matrix product.
+     *
+     * @throws ArithmeticException if the rows of <code>x</code> do not match the dimension of the domain
+     */
+    public static RMatrix map(AffineMultiMorphism<Real> morphism, RMatrix x) {
+        RMatrix result = morphism.realMatrix.product(x);
+        for (int r = 0; r < result.getRowCount(); r++) {
+            double translation = morphism.realVector[r];
+            for (int c = 0; c < result.getColumnCount(); c++) {
+                result.set(r, c, result.getDouble(r, c) + translation);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Vector<R> getVector() {
         return vector;
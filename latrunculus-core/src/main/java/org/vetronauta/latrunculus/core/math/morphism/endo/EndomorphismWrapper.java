@@ -50,6 +50,13 @@ public class EndomorphismWrapper<A extends ModuleElement<A, RA>, RA extends Ring
         return internalMorphism.getRingMorphism();
     }
 
+    /**
+     * Returns the wrapped morphism.
+     */
+    public ModuleMorphism<A,A,RA,RA> getInternalMorphism() {
+        return internalMorphism;
+    }
+
     @Override
     public boolean equals(Object object) {
         return internalMorphism.equals(object);
@@ -45,6 +45,13 @@ public class RingEndomorphismWrapper<RA extends RingElement<RA>> extends RingEnd
         return this;
     }
 
+    /**
+     * Returns the wrapped morphism.
+     */
+    public ModuleMorphism<RA,RA,RA,RA> getInternalMorphism() {
+        return internalMorphism;
+    }
+
     @Override
     public boolean equals(Object object) {
         return internalMorphism.equals(object);
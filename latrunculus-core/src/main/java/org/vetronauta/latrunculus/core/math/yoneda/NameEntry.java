@@ -19,6 +19,8 @@
 
 package org.vetronauta.latrunculus.core.math.yoneda;
 
+import org.vetronauta.latrunculus.core.util.Interner;
+
 import java.util.*;
 
 /**
@@ -28,7 +30,8 @@ import java.util.*;
  */
 public final class NameEntry implements Comparable<NameEntry> {
 
-    private static final HashMap<NameEntry,NameEntry> NAME_TABLE = new HashMap<>();
+    //entries are interned by their list of names, so that unused entries can be collected
+    private static final Interner<List<String>,NameEntry> NAME_TABLE = Interner.weak();
     private static final String SLASH = "/";
 
     private final ArrayList<String> names;
@@ -110,42 +113,19 @@ public final class NameEntry implements Comparable<NameEntry> {
     //
 
     public static NameEntry lookup(NameEntry e) {
-        NameEntry ne = NAME_TABLE.get(e);
-        if (ne == null) {
-            NAME_TABLE.put(e, e);
-            return e;
-        }
-        return ne;
+        return NAME_TABLE.intern(e.names, names -> e);
     }
 
     public static NameEntry lookup(String name) {
-        NameEntry e = new NameEntry(name);
-        NameEntry ne = NAME_TABLE.get(e);
-        if (ne == null) {
-            NAME_TABLE.put(e, e);
-            return e;
-        }
-        return ne;
+        return lookup(new NameEntry(name));
     }
 
     public static NameEntry lookup(String name1, String name2) {
-        NameEntry e = new NameEntry(name1, name2);
-        NameEntry ne = NAME_TABLE.get(e);
-        if (ne == null) {
-            NAME_TABLE.put(e, e);
-            return e;
-        }
-        return ne;
+        return lookup(new NameEntry(name1, name2));
     }
 
     public static NameEntry lookup(List<String> names) {
-        NameEntry e = new NameEntry(names);
-        NameEntry ne = NAME_TABLE.get(e);
-        if (ne == null) {
-            NAME_TABLE.put(e, e);
-            return e;
-        }
-        return ne;
+        return lookup(new NameEntry(names));
     }
 
     public static NameEntry concat(NameEntry a, NameEntry b) {
@@ -403,6 +403,7 @@ public final class ColimitDenotator extends Denotator implements FactorDenotator
         }
         checkDenotator(d, getForm().getForm(i), getAddress());
         indexmap.setFactor(i, d);
+        invalidateFingerprint();
         setIndex(i);
     }
 
@@ -427,6 +428,7 @@ public final class ColimitDenotator extends Denotator implements FactorDenotator
         }
         checkDenotator(d, getForm().getForm(i), getAddress());
         indexmap.setFactor(i, d);
+        invalidateFingerprint();
     }
     
 
@@ -519,6 +521,9 @@ public final class ColimitDenotator extends Denotator implements FactorDenotator
      * Checks denotators of the same type for equality.
      */
     public boolean equals(ColimitDenotator other) {
+        if (fingerprintsDiffer(other)) {
+            return false;
+        }
         if (formEquals(other) && nameEquals(other)) {
             return getIndexMorphismMap().equals(other.getIndexMorphismMap());
         }
@@ -528,6 +533,16 @@ public final class ColimitDenotator extends Denotator implements FactorDenotator
     }
     
     
+    @Override
+    protected long computeFingerprint() {
+        long hash = super.computeFingerprint();
+        IndexMorphismMap map = getIndexMorphismMap();
+        hash = 37*hash+map.getIndex();
+        hash = 37*hash+factorFingerprint(map.getFactor());
+        return hash;
+    }
+
+
     public IndexMorphismMap getIndexMorphismMap() {
         return (IndexMorphismMap)getCoordinate().getMap();
     }
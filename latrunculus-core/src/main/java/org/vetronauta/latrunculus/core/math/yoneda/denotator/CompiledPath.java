@@ -0,0 +1,356 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.math.yoneda.denotator;
+
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.element.generic.Arithmetic;
+import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.module.generic.Ring;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A path in the denotators of a given form, checked against the form once,
+ * so that it can be followed in many denotators without re-walking the form.
+ * As in {@link Denotator#get(int[])}, each index selects a factor of a limit,
+ * the factor of a colimit (if it has that index) or the factor at that index
+ * of a list or power. The indices after the first simple form select
+ * components of the module element, as in {@link Denotator#getElement(int[])}.
+ * Following a compiled path does not allocate.
+ *
+ * @author vetronauta
+ */
+public final class CompiledPath {
+
+    private final Form form;
+    private final int[] path;
+    private final int denotatorLength;
+    private final Form endForm;
+
+    private CompiledPath(Form form, int[] path, int denotatorLength, Form endForm) {
+        this.form = form;
+        this.path = path;
+        this.denotatorLength = denotatorLength;
+        this.endForm = endForm;
+    }
+
+    /**
+     * Compiles <code>path</code> for denotators of form <code>form</code>.
+     *
+     * @throws LatrunculusCheckedException if <code>path</code> does not exist in <code>form</code>
+     */
+    public static CompiledPath compile(Form form, int[] path)
+            throws LatrunculusCheckedException {
+        Form currentForm = form;
+        for (int i = 0; i < path.length; i++) {
+            switch (currentForm.getType()) {
+                case SIMPLE:
+                    return new CompiledPath(form, path.clone(), i, currentForm);
+                case LIMIT:
+                case COLIMIT:
+                    if (path[i] < 0 || path[i] >= currentForm.getFormCount()) {
+                        throw new LatrunculusCheckedException("CompiledPath.compile: Expected index "+
+                                                              "0 <= index < %1, but got %2", currentForm.getFormCount(), path[i]);
+                    }
+                    currentForm = currentForm.getForm(path[i]);
+                    break;
+                case LIST:
+                case POWER:
+                    if (path[i] < 0) {
+                        throw new LatrunculusCheckedException("CompiledPath.compile: Expected index "+
+                                                              ">= 0, but got %1", path[i]);
+                    }
+                    currentForm = currentForm.getForm(0);
+                    break;
+                default:
+                    throw new LatrunculusCheckedException("CompiledPath.compile: Cannot follow path in form %1", currentForm);
+            }
+        }
+        return new CompiledPath(form, path.clone(), path.length, currentForm);
+    }
+
+    /**
+     * Returns the form the path is compiled for.
+     */
+    public Form getForm() {
+        return form;
+    }
+
+    /**
+     * Returns a copy of the path.
+     */
+    public int[] getPath() {
+        return path.clone();
+    }
+
+    /**
+     * Returns true iff this is <code>path</code> compiled for <code>form</code>.
+     */
+    public boolean isCompiledFor(Form form, int[] path) {
+        return this.form.equals(form) && Arrays.equals(this.path, path);
+    }
+
+    /**
+     * Returns the form of the denotators at the end of the path, ignoring the element indices.
+     */
+    public Form getEndForm() {
+        return endForm;
+    }
+
+    /**
+     * Returns true iff the path reaches a simple denotator,
+     * i.e., a module element can be retrieved along the path.
+     */
+    public boolean isElementPath() {
+        return endForm instanceof SimpleForm;
+    }
+
+    /**
+     * Returns the denotator at the end of the path in <code>denotator</code>,
+     * ignoring the element indices.
+     *
+     * @return null if the denotator cannot be retrieved along the path
+     */
+    public Denotator get(Denotator denotator) {
+        Denotator current = denotator;
+        for (int i = 0; i < denotatorLength && current != null; i++) {
+            current = getFactor(current, path[i]);
+        }
+        return current;
+    }
+
+    private static Denotator getFactor(Denotator denotator, int index) {
+        switch (denotator.getType()) {
+            case LIMIT: {
+                LimitDenotator limit = (LimitDenotator) denotator;
+                return index < limit.getFactorCount() ? limit.getFactor(index) : null;
+            }
+            case COLIMIT: {
+                ColimitDenotator colimit = (ColimitDenotator) denotator;
+                return index == colimit.getIndex() ? colimit.getFactor() : null;
+            }
+            case LIST:
+            case POWER: {
+                FactorDenotator factors = (FactorDenotator) denotator;
+                return index < factors.getFactorCount() ? factors.getFactor(index) : null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the module element at the end of the path in <code>denotator</code>.
+     *
+     * @return null if the element cannot be retrieved along the path
+     */
+    public ModuleElement getElement(Denotator denotator) {
+        if (!isElementPath()) {
+            return null;
+        }
+        Denotator simple = get(denotator);
+        if (!(simple instanceof SimpleDenotator)) {
+            return null;
+        }
+        return ((SimpleDenotator) simple).getModuleMorphismMap().getElement(path, denotatorLength);
+    }
+
+    /**
+     * Returns the module element at the end of the path in <code>denotator</code>
+     * as a double.
+     *
+     * @return NaN if the element cannot be retrieved along the path
+     *         or cannot be converted to a real number
+     */
+    public double getDouble(Denotator denotator) {
+        return toDouble(getElement(denotator));
+    }
+
+    /**
+     * Returns the module element at the end of the path in <code>denotator</code>
+     * as an integer, rounded to the nearest one.
+     *
+     * @return 0 if the element cannot be retrieved along the path
+     *         or cannot be converted to a real number
+     */
+    public int getInt(Denotator denotator) {
+        return (int) Math.round(getDouble(denotator));
+    }
+
+    private static double toDouble(ModuleElement element) {
+        if (element instanceof Arithmetic) {
+            return ((Arithmetic) element).doubleValue();
+        }
+        if (element == null) {
+            return Double.NaN;
+        }
+        Real real = RRing.ring.cast(element);
+        return real == null ? Double.NaN : real.getValue();
+    }
+
+    /**
+     * Returns the values at the end of the path in all factors of <code>power</code>,
+     * in the order of the factors. The path must be compiled for the base form of <code>power</code>.
+     * If <code>power</code> is backed by a score table, the values are read
+     * from the table without creating the factors.
+     *
+     * @see #getDouble(Denotator)
+     */
+    public double[] getDoubles(PowerDenotator power) {
+        double[] values = new double[power.getFactorCount()];
+        ScoreTable table = power.getScoreTable();
+        int column = getColumn(table);
+        if (column >= 0) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = table.getDouble(column, i);
+            }
+        }
+        else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = getDouble(power.getFactor(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the values at the end of the path in all <code>denotators</code>,
+     * in their order. The path must be compiled for the form of the denotators.
+     *
+     * @see #getDouble(Denotator)
+     */
+    public double[] getDoubles(List<? extends Denotator> denotators) {
+        double[] values = new double[denotators.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getDouble(denotators.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the column of <code>table</code> corresponding to this path,
+     * or -1 if there is none.
+     */
+    private int getColumn(ScoreTable table) {
+        if (table == null || !form.equals(table.getNoteForm()) || denotatorLength != 1) {
+            return -1;
+        }
+        // the components of a ring element are the element itself
+        for (int i = denotatorLength; i < path.length; i++) {
+            if (path[i] != 0) {
+                return -1;
+            }
+        }
+        return path[0];
+    }
+
+    /**
+     * Returns a denotator by replacing the module element at the end of the
+     * path in <code>denotator</code> with <code>value</code>, converted
+     * to the module of the simple form. The path must end at a simple
+     * form over a ring.
+     *
+     * @throws LatrunculusCheckedException if the element cannot be replaced
+     */
+    public Denotator replace(Denotator denotator, double value)
+            throws LatrunculusCheckedException {
+        Module module = getRingModule();
+        Denotator simple = get(denotator);
+        if (!(simple instanceof SimpleDenotator)) {
+            throw new LatrunculusCheckedException("CompiledPath.replace: No simple denotator at path %1", Arrays.toString(path));
+        }
+        ModuleElement element = module.cast(new Real(value));
+        if (element == null) {
+            throw new LatrunculusCheckedException("CompiledPath.replace: Cannot cast %1 to %2", value, module);
+        }
+        SimpleDenotator newSimple = new SimpleDenotator(simple.getName(), (SimpleForm) endForm, element);
+        return denotator.replace(Arrays.copyOf(path, denotatorLength), newSimple);
+    }
+
+    /**
+     * Returns a power denotator by replacing the module element at the end
+     * of the path in the <i>i</i>-th factor of <code>power</code> with
+     * <code>values[i]</code>, as in {@link #replace(Denotator, double)}.
+     * The path must be compiled for the base form of <code>power</code>.
+     * If <code>power</code> is backed by a score table, so is the result.
+     *
+     * @throws LatrunculusCheckedException if the elements cannot be replaced
+     */
+    public PowerDenotator replaceAll(PowerDenotator power, double[] values)
+            throws LatrunculusCheckedException {
+        if (values.length != power.getFactorCount()) {
+            throw new LatrunculusCheckedException("CompiledPath.replaceAll: Expected %1 values, but got %2",
+                                                  power.getFactorCount(), values.length);
+        }
+        getRingModule();
+        ScoreTable table = power.getScoreTable();
+        int column = getColumn(table);
+        if (column >= 0) {
+            ScoreTable.Builder builder = ScoreTable.builder(table.getForm());
+            for (int i = 0; i < values.length; i++) {
+                builder.addRow(table, i).setDouble(column, values[i]);
+            }
+            return PowerDenotator.fromScoreTable(power.getName(), builder.build());
+        }
+        List<Denotator> factors = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            factors.add(replace(power.getFactor(i), values[i]));
+        }
+        return new PowerDenotator(power.getName(), power.getAddress(), power.getPowerForm(), factors);
+    }
+
+    private Module getRingModule()
+            throws LatrunculusCheckedException {
+        if (!isElementPath() || !(((SimpleForm) endForm).getModule() instanceof Ring)) {
+            throw new LatrunculusCheckedException("CompiledPath: Expected a path to a simple form over a ring, but got %1", endForm);
+        }
+        return ((SimpleForm) endForm).getModule();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof CompiledPath)) {
+            return false;
+        }
+        CompiledPath other = (CompiledPath) object;
+        return form.equals(other.form) && Arrays.equals(path, other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return 37*form.hashCode()+Arrays.hashCode(path);
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledPath["+form.getNameString()+":"+Arrays.toString(path)+"]";
+    }
+
+}
@@ -21,6 +21,7 @@
 
 package org.vetronauta.latrunculus.core.math.yoneda.denotator;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
@@ -37,12 +38,14 @@ import org.vetronauta.latrunculus.core.math.yoneda.FormDenotatorTypeEnum;
 import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 import org.vetronauta.latrunculus.core.math.yoneda.morphism.YonedaMorphism;
 import org.vetronauta.latrunculus.core.repository.Dictionary;
+import org.vetronauta.latrunculus.core.util.Internal;
 import org.vetronauta.latrunculus.core.util.TextUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract base class for denotators.
@@ -65,6 +68,56 @@ public abstract class Denotator extends AbstractConnectableYoneda implements Com
     private YonedaMorphism coordinate;
     private YonedaMorphism frameCoordinate;
 
+    /**
+     * Counts the destructive operations on denotators that are factors of
+     * other denotators. A memoized fingerprint is valid only as long as this
+     * counter has not changed, since changing a factor in place also changes
+     * all the denotators containing it.
+     */
+    private static final AtomicLong MODIFICATIONS = new AtomicLong();
+
+    /**
+     * The memoized fingerprint, null if it has not been computed since the
+     * last destructive operation on this denotator.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile Fingerprint fingerprint;
+
+    /**
+     * True iff the fingerprint of another denotator has been computed from
+     * the one of this denotator. Destructive operations on this denotator
+     * then count as modifications of all denotators. Never reset, since the
+     * other denotators are not known.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile boolean usedAsFactor;
+
+    /**
+     * Sets the name of the denotator.
+     */
+    public void setName(NameDenotator name) {
+        this.name = name;
+        invalidateFingerprint();
+    }
+
+    /**
+     * Sets the coordinate of the denotator.
+     */
+    public void setCoordinate(YonedaMorphism coordinate) {
+        this.coordinate = coordinate;
+        invalidateFingerprint();
+    }
+
+    /**
+     * Sets the frame coordinate of the denotator.
+     */
+    public void setFrameCoordinate(YonedaMorphism frameCoordinate) {
+        this.frameCoordinate = frameCoordinate;
+        invalidateFingerprint();
+    }
+
     /**
      * Makes a shallow copy this denotator and gives
      * it the specified <code>name</code>.
@@ -85,6 +138,7 @@ public abstract class Denotator extends AbstractConnectableYoneda implements Com
      */
     public final void setNameString(String nameString) {
         name = StringUtils.isEmpty(nameString) ? NameDenotator.make(nameString) : null;
+        invalidateFingerprint();
     }
     
     /**
@@ -99,6 +153,8 @@ public abstract class Denotator extends AbstractConnectableYoneda implements Com
     protected final void setCoordinates(YonedaMorphism morphism) {
         coordinate = morphism;
         frameCoordinate = morphism;
+        // only used while constructing, no other denotator can contain this one yet
+        fingerprint = null;
     }
     
     /**
@@ -382,19 +438,119 @@ public abstract class Denotator extends AbstractConnectableYoneda implements Com
     
     /**
      * Returns a hash code for this denotator.
+     * The hash code is derived from the structural fingerprint.
      */
     @Override
     public int hashCode() {
-        int hash = 7;
+        long fp = getFingerprint();
+        return (int)(fp ^ (fp >>> 32));
+    }
+
+
+    /**
+     * Returns a 64-bit structural fingerprint of this denotator.
+     * Equal denotators have the same fingerprint, therefore different
+     * fingerprints imply different denotators. The fingerprint is memoized
+     * until a destructive operation on this denotator or on a denotator
+     * that is a factor of another one takes place.
+     */
+    public final long getFingerprint() {
+        // read before computing, so that a concurrent change of a factor is not missed
+        long modifications = MODIFICATIONS.get();
+        Fingerprint current = fingerprint;
+        if (current == null || current.modifications != modifications) {
+            current = new Fingerprint(modifications, mix(computeFingerprint()));
+            fingerprint = current;
+        }
+        return current.value;
+    }
+
+
+    /**
+     * Computes the structural fingerprint of this denotator.
+     * Subclasses must only use the parts of the denotator that
+     * are relevant for <code>equals</code>, and must obtain the
+     * fingerprints of their factors through {@link #factorFingerprint}.
+     */
+    protected long computeFingerprint() {
+        long hash = 7;
+        hash = 37*hash+getForm().hashCode();
         hash = 37*hash+getNameString().hashCode();
-        hash = 37*hash+getCoordinate().hashCode();
-        if (getCoordinate() != getFrameCoordinate()) {
-            hash = 37*hash+getFrameCoordinate().hashCode();
+        return hash;
+    }
+
+
+    /**
+     * Returns the fingerprint of the factor <code>factor</code> of this
+     * denotator and marks it as a factor, so that a destructive operation
+     * on it also invalidates the fingerprint of this denotator.
+     */
+    protected final long factorFingerprint(Denotator factor) {
+        // marked before reading its fingerprint, see invalidateFingerprint
+        if (!factor.usedAsFactor) {
+            factor.usedAsFactor = true;
+        }
+        return factor.getFingerprint();
+    }
+
+
+    /**
+     * Returns true iff both this denotator and <code>other</code> have an
+     * up-to-date memoized fingerprint and they differ, i.e., if the denotators
+     * are surely not equal. Never computes a fingerprint.
+     */
+    protected final boolean fingerprintsDiffer(Denotator other) {
+        if (getClass() != other.getClass()) {
+            return false;
+        }
+        Fingerprint a = fingerprint;
+        Fingerprint b = other.fingerprint;
+        if (a == null || b == null) {
+            return false;
         }
+        long modifications = MODIFICATIONS.get();
+        return a.modifications == modifications && b.modifications == modifications && a.value != b.value;
+    }
+
+
+    /**
+     * Invalidates the memoized fingerprint of this denotator and, if it is
+     * a factor of another denotator, of all denotators. Must be called by every
+     * destructive operation on this denotator or on the morphism maps of its
+     * coordinates.
+     */
+    protected final void invalidateFingerprint() {
+        fingerprint = null;
+        // a parent marking this denotator concurrently either sees the cleared
+        // fingerprint or is marked before it is read here
+        if (usedAsFactor) {
+            MODIFICATIONS.incrementAndGet();
+        }
+    }
+
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
         return hash;
     }
 
 
+    private static final class Fingerprint {
+
+        private final long modifications;
+        private final long value;
+
+        private Fingerprint(long modifications, long value) {
+            this.modifications = modifications;
+            this.value = value;
+        }
+    }
+
+
     /**
      * Returns a string representation of this denotator.
      * This string is not parseable and does not contain
@@ -443,6 +599,8 @@ public abstract class Denotator extends AbstractConnectableYoneda implements Com
             if (!getCoordinate().resolveReferences(dict, history)) {
                 return false;
             }
+            // references are replaced in place in the morphism maps
+            invalidateFingerprint();
             if (getCoordinate()!= getFrameCoordinate()) {
                 return getFrameCoordinate().resolveReferences(dict, history);
             }
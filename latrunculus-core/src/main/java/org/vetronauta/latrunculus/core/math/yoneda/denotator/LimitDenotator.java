@@ -439,6 +439,7 @@ public final class LimitDenotator extends Denotator implements FactorDenotator {
         }
         checkDenotator(d, getForm().getForm(i), getAddress());
         listmap.setFactor(i, d);
+        invalidateFingerprint();
     }
     
 
@@ -532,6 +533,9 @@ public final class LimitDenotator extends Denotator implements FactorDenotator {
      * Checks denotators of the same type for equality.
      */
     public boolean equals(LimitDenotator other) {
+        if (fingerprintsDiffer(other)) {
+            return false;
+        }
         if (formEquals(other) && nameEquals(other) &&
             getFactorCount() == other.getFactorCount()) {
             return getListMorphismMap().equals(other.getListMorphismMap());
@@ -542,6 +546,17 @@ public final class LimitDenotator extends Denotator implements FactorDenotator {
     }
 
 
+    @Override
+    protected long computeFingerprint() {
+        long hash = super.computeFingerprint();
+        ListMorphismMap map = getListMorphismMap();
+        for (int i = 0; i < map.getFactorCount(); i++) {
+            hash = 37*hash+factorFingerprint(map.getFactor(i));
+        }
+        return hash;
+    }
+
+
     @Override
     public LimitDenotator deepCopy() {
         YonedaMorphism coord;
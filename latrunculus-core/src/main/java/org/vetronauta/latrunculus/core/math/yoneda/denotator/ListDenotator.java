@@ -414,6 +414,7 @@ public class ListDenotator extends Denotator implements FactorDenotator {
         }
         checkDenotator(d, getListForm().getForm(), getAddress());
         listmap.setFactor(i, d);
+        invalidateFingerprint();
     }
 
 
@@ -427,6 +428,7 @@ public class ListDenotator extends Denotator implements FactorDenotator {
             throws LatrunculusCheckedException {
         checkDenotator(d, getListForm().getForm(), getAddress());
         getListMorphismMap().appendFactor(d);
+        invalidateFingerprint();
         return true;
     }
     
@@ -436,6 +438,7 @@ public class ListDenotator extends Denotator implements FactorDenotator {
      */
     public Denotator removeFactor(int index) {
     	Denotator d = getListMorphismMap().removeFactor(index);
+        invalidateFingerprint();
         return d;
     }
 
@@ -449,6 +452,7 @@ public class ListDenotator extends Denotator implements FactorDenotator {
             throws LatrunculusCheckedException {
         checkDenotator(d, getForm().getForm(0), getAddress());
         getListMorphismMap().prependFactor(d);
+        invalidateFingerprint();
     }
 
     
@@ -469,6 +473,7 @@ public class ListDenotator extends Denotator implements FactorDenotator {
             newMap.appendFactor(d);
         }
         getCoordinate().setMap(newMap);
+        invalidateFingerprint();
     }
     
     
@@ -602,6 +607,9 @@ public class ListDenotator extends Denotator implements FactorDenotator {
      * Checks denotators of the same form for equality.
      */
     public boolean equals(ListDenotator other) {
+        if (fingerprintsDiffer(other)) {
+            return false;
+        }
         if (formEquals(other) && nameEquals(other)) {
             return getListMorphismMap().equals(other.getListMorphismMap());
         }
@@ -611,6 +619,17 @@ public class ListDenotator extends Denotator implements FactorDenotator {
     }
 
 
+    @Override
+    protected long computeFingerprint() {
+        long hash = super.computeFingerprint();
+        ListMorphismMap map = getListMorphismMap();
+        for (int i = 0; i < map.getFactorCount(); i++) {
+            hash = 37*hash+factorFingerprint(map.getFactor(i));
+        }
+        return hash;
+    }
+
+
     @Override
     public ListDenotator deepCopy() {
         YonedaMorphism coord;
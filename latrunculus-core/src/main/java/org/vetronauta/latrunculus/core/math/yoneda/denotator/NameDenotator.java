@@ -332,6 +332,12 @@ public final class NameDenotator extends ListDenotator {
     }
 
 
+    @Override
+    protected long computeFingerprint() {
+        return nameEntry.hashCode();
+    }
+
+
     private NameDenotator(NameEntry nameEntry) {
         super();
         setName(this);
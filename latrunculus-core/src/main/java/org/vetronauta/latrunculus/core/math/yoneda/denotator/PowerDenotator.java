@@ -42,6 +42,9 @@ import org.vetronauta.latrunculus.core.math.yoneda.morphism.CompoundMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.morphism.ProperIdentityMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.morphism.YonedaMorphism;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -70,11 +73,10 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         
         FormDiagram diagram = form.getFormDiagram();
         Form baseForm = form.getForm();
-        AutoListMorphismMap map = new AutoListMorphismMap();
         for (Denotator d : cds) {
             checkDenotator(d, baseForm, address);
-            map.appendFactor(d);
         }
+        AutoListMorphismMap map = new AutoListMorphismMap(cds);
         setCoordinates(new CompoundMorphism(address, new ProperIdentityMorphism(diagram, FormDenotatorTypeEnum.POWER), map));
         _normalize();
     }
@@ -94,24 +96,60 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         
         FormDiagram diagram = form.getFormDiagram();
         Form baseForm = form.getForm();
-        AutoListMorphismMap map = new AutoListMorphismMap();
         Module address;
         
         if (cds.size() > 0) {
             address = cds.get(0).getAddress();
             for (Denotator d : cds) {
                 checkDenotator(d, baseForm, address);
-                map.appendFactor(d);
             }
         }
         else {
             address = ZRing.nullModule;
         }
+        AutoListMorphismMap map = new AutoListMorphismMap(cds);
         setCoordinates(new CompoundMorphism(address, new ProperIdentityMorphism(diagram, FormDenotatorTypeEnum.POWER), map));
         _normalize();
     }
 
     
+    /**
+     * Returns a builder for a power denotator of form <code>form</code>.
+     * The address is taken from the first factor, as for
+     * {@link #PowerDenotator(NameDenotator, PowerForm, List)}.
+     */
+    public static Builder builder(PowerForm form) {
+        return new Builder(form, null);
+    }
+
+
+    /**
+     * Returns a builder for a power denotator of form <code>form</code>
+     * with address <code>address</code>.
+     */
+    public static Builder builder(PowerForm form, Module address) {
+        return new Builder(form, address);
+    }
+
+    
+    /**
+     * Creates a new anonymous or named power denotator whose factors
+     * are backed by the score table <code>table</code>.
+     * The factor denotators are only created when they are accessed.
+     *
+     * @param name  the name of the denotator, null if denotator is anomymous
+     * @param table the score table containing the factors
+     */
+    public static PowerDenotator fromScoreTable(NameDenotator name, ScoreTable table) {
+        PowerForm form = table.getForm();
+        Module address = table.size() > 0 ? table.getDenotator(0).getAddress() : ZRing.nullModule;
+        AutoListMorphismMap map = AutoListMorphismMap.fromTable(table);
+        FormDiagram diagram = form.getFormDiagram();
+        CompoundMorphism coordinate = new CompoundMorphism(address, new ProperIdentityMorphism(diagram, FormDenotatorTypeEnum.POWER), map);
+        return new PowerDenotator(name, form, coordinate, coordinate);
+    }
+
+    
     /**
      * Returns the type of the denotator.
      * 
@@ -294,6 +332,7 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         	Denotator newDenotator = oldDenotator.replace(path, currentPosition +1, d);
         	AutoListMorphismMap listmap = getListMorphismMap();
         	listmap.replaceFactor(oldDenotator, newDenotator);
+        	invalidateFingerprint();
         	return _make_unsafe(null, getAddress(), getPowerForm(), getFactors());
         }
         else {
@@ -415,6 +454,7 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         checkDenotator(d, getPowerForm().getForm(), getAddress());
         Denotator oldFactor = listmap.getFactor(i); 
         listmap.replaceFactor(oldFactor, d);
+        invalidateFingerprint();
     }
 
 
@@ -429,6 +469,7 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         checkDenotator(d, getPowerForm().getForm(), getAddress());
         getListMorphismMap().appendFactor(d);
         _normalize();
+        invalidateFingerprint();
         return true;
     }
     
@@ -439,6 +480,7 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
     public Denotator removeFactor(int index) {
     	Denotator d = getListMorphismMap().removeFactor(index);
         _normalize();
+        invalidateFingerprint();
         return d;
     }
     
@@ -467,6 +509,7 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         }
         getCoordinate().setMap(newMap);
         _normalize();
+        invalidateFingerprint();
     }
     
 
@@ -542,6 +585,16 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
     }
 
 
+    /**
+     * Returns the score table backing the factors of this denotator,
+     * or null if the factors are not (or no longer) backed by a score table.
+     * To get a table in any case, use {@link ScoreTable#of(PowerDenotator)}.
+     */
+    public ScoreTable getScoreTable() {
+        return getListMorphismMap().getScoreTable();
+    }
+
+
     public AutoListMorphismMap getListMorphismMap() {
         return (AutoListMorphismMap)getCoordinate().getMap();
     }
@@ -606,6 +659,9 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
      * Checks denotators of the same form for equality.
      */
     public boolean equals(PowerDenotator other) {
+        if (fingerprintsDiffer(other)) {
+            return false;
+        }
         if (formEquals(other) && nameEquals(other)) {
             return getListMorphismMap().equals(other.getListMorphismMap());
         }
@@ -615,6 +671,23 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
     }
 
 
+    @Override
+    protected long computeFingerprint() {
+        long hash = super.computeFingerprint();
+        ScoreTable table = getScoreTable();
+        if (table != null) {
+            for (int i = 0; i < table.size(); i++) {
+                hash = 37*hash+table.getFingerprint(i);
+            }
+            return hash;
+        }
+        for (Denotator d : getListMorphismMap().getFactors()) {
+            hash = 37*hash+factorFingerprint(d);
+        }
+        return hash;
+    }
+
+
     @Override
     public PowerDenotator deepCopy() {
         YonedaMorphism coord;
@@ -719,7 +792,27 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
         return res;
     }
 
-    
+
+    /**
+     * Creates a new power denotator without checking whatsoever.
+     * The list <code>sortedList</code> must be sorted in strictly increasing
+     * order, so that the factor index can be built without sorting again.
+     * The arguments must result in a correct denotator, otherwise
+     * there may be nasty consequences.
+     */
+    @Unsafe
+    @Internal
+    public static PowerDenotator _make_sorted_unsafe(NameDenotator name, Module address,
+                                                     PowerForm form, List<Denotator> sortedList) {
+        AutoListMorphismMap map = AutoListMorphismMap.fromSorted(sortedList);
+        FormDiagram diagram = form.getFormDiagram();
+        CompoundMorphism coordinate = new CompoundMorphism(address, new ProperIdentityMorphism(diagram, FormDenotatorTypeEnum.POWER), map);
+        PowerDenotator res = new PowerDenotator(name, form, coordinate, coordinate);
+        assert(res._is_valid());
+        return res;
+    }
+
+
     /**
      * Returns true iff this denotator is correctly built.
      */
@@ -748,5 +841,112 @@ public final class PowerDenotator extends Denotator implements FactorDenotator {
     private PowerDenotator(NameDenotator name, PowerForm form,
                            YonedaMorphism coordinate, YonedaMorphism frameCoordinate) {
         super(name, form, coordinate, frameCoordinate);
+        AutoListMorphismMap map = getListMorphismMap();
+        if (map.getScoreTable() != null) {
+            // a fingerprint computed from the table does not mark the factors as such,
+            // so it is computed again once they are created
+            map.setMaterializeListener(this::invalidateFingerprint);
+        }
+    }
+
+
+    /**
+     * Builder of power denotators. The factors are added in any order,
+     * possibly from several threads, and {@link #build()} checks them,
+     * sorts them and removes duplicates in a single pass, so that the
+     * factor index of the denotator is built without sorting again.
+     */
+    public static final class Builder {
+
+        // number of factors from which they are sorted in parallel
+        private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+        private final PowerForm form;
+        private final Module address;
+        private NameDenotator name;
+        private final List<Denotator> factors = new ArrayList<>();
+        private boolean built;
+
+        private Builder(PowerForm form, Module address) {
+            this.form = form;
+            this.address = address;
+        }
+
+        /**
+         * Sets the name of the denotator, null (the default) if the denotator is anonymous.
+         */
+        public Builder name(NameDenotator name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Adds the factor <code>d</code>. This method may be called concurrently.
+         */
+        public synchronized Builder add(Denotator d) {
+            checkNotBuilt();
+            factors.add(d);
+            return this;
+        }
+
+        /**
+         * Adds all the factors in <code>ds</code>. This method may be called concurrently.
+         */
+        public synchronized Builder addAll(Collection<? extends Denotator> ds) {
+            checkNotBuilt();
+            factors.addAll(ds);
+            return this;
+        }
+
+        /**
+         * Returns the number of factors added so far, including duplicates.
+         */
+        public synchronized int size() {
+            return factors.size();
+        }
+
+        /**
+         * Creates the power denotator from the added factors.
+         *
+         * @throws LatrunculusCheckedException if a factor does not have the base form
+         *         of the power form or the address of the denotator
+         */
+        public PowerDenotator build()
+                throws LatrunculusCheckedException {
+            Denotator[] array;
+            synchronized (this) {
+                checkNotBuilt();
+                built = true;
+                array = factors.toArray(new Denotator[0]);
+                factors.clear();
+            }
+            Module a = address;
+            if (a == null) {
+                a = array.length > 0 ? array[0].getAddress() : ZRing.nullModule;
+            }
+            Form baseForm = form.getForm();
+            for (Denotator d : array) {
+                checkDenotator(d, baseForm, a);
+            }
+            if (array.length >= PARALLEL_THRESHOLD) {
+                Arrays.parallelSort(array);
+            }
+            else {
+                Arrays.sort(array);
+            }
+            int count = 0;
+            for (Denotator d : array) {
+                if (count == 0 || array[count-1].compareTo(d) != 0) {
+                    array[count++] = d;
+                }
+            }
+            return _make_sorted_unsafe(name, a, form, Arrays.asList(array).subList(0, count));
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("The power denotator has already been built");
+            }
+        }
     }
 }
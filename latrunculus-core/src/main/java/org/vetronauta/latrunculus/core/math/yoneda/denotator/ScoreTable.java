@@ -0,0 +1,680 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.math.yoneda.denotator;
+
+import org.vetronauta.latrunculus.core.exception.DomainException;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
+import org.vetronauta.latrunculus.core.math.yoneda.FormDenotatorTypeEnum;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.form.LimitForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
+import org.vetronauta.latrunculus.core.math.yoneda.map.ConstantModuleMorphismMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar representation of the factors of a power denotator whose base form
+ * is a limit of simple forms over Z, Q or R, such as the Score form.
+ * Each coordinate of the limit is stored in a primitive column, the rows are
+ * sorted in the order of the corresponding limit denotators and contain no duplicates.
+ * The limit denotators are only created on demand by {@link #getDenotator(int)}.
+ * A score table is immutable.
+ *
+ * @author vetronauta
+ */
+public final class ScoreTable implements Comparable<ScoreTable> {
+
+    /**
+     * The type of a column, determined by the module of its simple form.
+     */
+    public enum ColumnType {
+        INTEGER,
+        RATIONAL,
+        REAL
+    }
+
+    private final PowerForm form;
+    private final LimitForm noteForm;
+    private final SimpleForm[] columnForms;
+    private final ColumnType[] columnTypes;
+    private final int size;
+    private final double[][] reals;
+    private final int[][] integers;
+    private final int[][] denominators;
+
+    private ScoreTable(Builder builder, int size) {
+        this.form = builder.form;
+        this.noteForm = builder.noteForm;
+        this.columnForms = builder.columnForms;
+        this.columnTypes = builder.columnTypes;
+        this.size = size;
+        this.reals = builder.reals;
+        this.integers = builder.integers;
+        this.denominators = builder.denominators;
+    }
+
+    /**
+     * Returns true iff the factors of denotators of form <code>form</code>
+     * can be represented by a score table.
+     */
+    public static boolean isTabular(Form form) {
+        if (!(form instanceof PowerForm) || !(((PowerForm) form).getForm() instanceof LimitForm)) {
+            return false;
+        }
+        LimitForm noteForm = (LimitForm) ((PowerForm) form).getForm();
+        for (int i = 0; i < noteForm.getFormCount(); i++) {
+            if (getColumnType(noteForm.getForm(i)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a builder for a score table of power form <code>form</code>.
+     *
+     * @throws IllegalArgumentException if <code>form</code> is not tabular
+     */
+    public static Builder builder(PowerForm form) {
+        if (!isTabular(form)) {
+            throw new IllegalArgumentException("Form "+form.getNameString()+" is not tabular");
+        }
+        return new Builder(form, Builder.INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns a builder for a score table of power form <code>form</code>
+     * with room for <code>expectedRows</code> rows. If exactly that many
+     * rows are added in sorted order, {@link Builder#build()} neither
+     * copies nor sorts them.
+     *
+     * @throws IllegalArgumentException if <code>form</code> is not tabular
+     */
+    public static Builder builder(PowerForm form, int expectedRows) {
+        if (!isTabular(form)) {
+            throw new IllegalArgumentException("Form "+form.getNameString()+" is not tabular");
+        }
+        return new Builder(form, Math.max(expectedRows, 1));
+    }
+
+    /**
+     * Returns the score table of the factors of <code>score</code>.
+     * If <code>score</code> is backed by a score table, this table is returned,
+     * otherwise the factors are copied into a new table.
+     *
+     * @return null if the factors of <code>score</code> cannot be represented by a score table
+     */
+    public static ScoreTable of(PowerDenotator score) {
+        ScoreTable table = score.getScoreTable();
+        if (table != null) {
+            return table;
+        }
+        if (!isTabular(score.getPowerForm())) {
+            return null;
+        }
+        Builder builder = new Builder(score.getPowerForm(), Math.max(score.getFactorCount(), 1));
+        for (Denotator note : score.getListMorphismMap().getFactors()) {
+            if (!builder.addRow(note)) {
+                return null;
+            }
+        }
+        return builder.build();
+    }
+
+    private static ColumnType getColumnType(Form form) {
+        if (!(form instanceof SimpleForm)) {
+            return null;
+        }
+        Module module = ((SimpleForm) form).getModule();
+        if (ZRing.ring.equals(module)) {
+            return ColumnType.INTEGER;
+        }
+        if (QRing.ring.equals(module)) {
+            return ColumnType.RATIONAL;
+        }
+        if (RRing.ring.equals(module)) {
+            return ColumnType.REAL;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the power form of the table.
+     */
+    public PowerForm getForm() {
+        return form;
+    }
+
+    /**
+     * Returns the limit form of the rows.
+     */
+    public LimitForm getNoteForm() {
+        return noteForm;
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return columnForms.length;
+    }
+
+    public SimpleForm getColumnForm(int column) {
+        return columnForms[column];
+    }
+
+    public ColumnType getColumnType(int column) {
+        return columnTypes[column];
+    }
+
+    /**
+     * Returns the index of the column with the given label in the limit form.
+     * @return the index, or -1 if the label does not exist
+     */
+    public int getColumn(String label) {
+        return noteForm.labelToIndex(label);
+    }
+
+    /**
+     * Returns the value at <code>row</code> in <code>column</code> as a double.
+     */
+    public double getDouble(int column, int row) {
+        checkRow(row);
+        switch (columnTypes[column]) {
+            case INTEGER:
+                return integers[column][row];
+            case RATIONAL:
+                return ((double) integers[column][row]) / denominators[column][row];
+            default:
+                return reals[column][row];
+        }
+    }
+
+    /**
+     * Returns the value at <code>row</code> in an integer <code>column</code>.
+     *
+     * @throws IllegalStateException if the column is not of type {@link ColumnType#INTEGER}
+     */
+    public int getInt(int column, int row) {
+        checkRow(row);
+        checkType(column, ColumnType.INTEGER);
+        return integers[column][row];
+    }
+
+    /**
+     * Returns the value at <code>row</code> in a rational <code>column</code>.
+     *
+     * @throws IllegalStateException if the column is not of type {@link ColumnType#RATIONAL}
+     */
+    public Rational getRational(int column, int row) {
+        checkRow(row);
+        checkType(column, ColumnType.RATIONAL);
+        return new Rational(integers[column][row], denominators[column][row]);
+    }
+
+    /**
+     * Returns a new module element containing the value at <code>row</code> in <code>column</code>.
+     */
+    public ModuleElement getElement(int column, int row) {
+        checkRow(row);
+        switch (columnTypes[column]) {
+            case INTEGER:
+                return new ZInteger(integers[column][row]);
+            case RATIONAL:
+                return new Rational(integers[column][row], denominators[column][row]);
+            default:
+                return new Real(reals[column][row]);
+        }
+    }
+
+    /**
+     * Creates the limit denotator of the row <code>row</code>.
+     * Each call returns a new denotator.
+     */
+    public LimitDenotator getDenotator(int row) {
+        List<Denotator> factors = new ArrayList<>(columnForms.length);
+        try {
+            for (int i = 0; i < columnForms.length; i++) {
+                factors.add(new SimpleDenotator(null, columnForms[i], getElement(i, row)));
+            }
+            return new LimitDenotator(null, noteForm, factors);
+        }
+        catch (LatrunculusCheckedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates the list of the limit denotators of all rows.
+     */
+    public List<Denotator> getDenotators() {
+        List<Denotator> denotators = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            denotators.add(getDenotator(i));
+        }
+        return denotators;
+    }
+
+    /**
+     * Returns the fingerprint of the limit denotator of the row <code>row</code>,
+     * without creating the denotator.
+     */
+    long getFingerprint(int row) {
+        long hash = 37*(37*7L+noteForm.hashCode());
+        for (int i = 0; i < columnForms.length; i++) {
+            long simpleHash = 37*(37*7L+columnForms[i].hashCode());
+            simpleHash = 37*simpleHash+elementHashCode(i, row);
+            hash = 37*hash+Denotator.mix(simpleHash);
+        }
+        return Denotator.mix(hash);
+    }
+
+    private int elementHashCode(int column, int row) {
+        switch (columnTypes[column]) {
+            case INTEGER:
+                return integers[column][row];
+            case RATIONAL:
+                return integers[column][row]*denominators[column][row];
+            default:
+                return (int) Math.round(reals[column][row]);
+        }
+    }
+
+    /**
+     * Compares the row <code>row</code> with the row <code>otherRow</code> of <code>other</code>,
+     * which must have the same note form, in the order of the limit denotators.
+     */
+    int compareRows(int row, ScoreTable other, int otherRow) {
+        for (int i = 0; i < columnForms.length; i++) {
+            int c = compareValues(i, integers[i], denominators[i], reals[i], row,
+                                  other.integers[i], other.denominators[i], other.reals[i], otherRow);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private int compareValues(int column, int[] aInts, int[] aDens, double[] aReals, int a,
+                              int[] bInts, int[] bDens, double[] bReals, int b) {
+        switch (columnTypes[column]) {
+            case INTEGER:
+                return aInts[a]-bInts[b];
+            case RATIONAL:
+                return aInts[a]*bDens[b]-bInts[b]*aDens[a];
+            default:
+                return Double.compare(aReals[a], bReals[b]);
+        }
+    }
+
+    /**
+     * Compares this table with <code>other</code> in the order
+     * of the factor lists of the corresponding power denotators.
+     */
+    @Override
+    public int compareTo(ScoreTable other) {
+        if (!noteForm.equals(other.noteForm)) {
+            return noteForm.compareTo(other.noteForm);
+        }
+        for (int i = 0; i < Math.min(size, other.size); i++) {
+            int c = compareRows(i, other, i);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return other.size-size;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row+" not in [0,"+size+")");
+        }
+    }
+
+    private void checkType(int column, ColumnType type) {
+        if (columnTypes[column] != type) {
+            throw new IllegalStateException("Column "+column+" is of type "+columnTypes[column]+", not "+type);
+        }
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof ScoreTable)) {
+            return false;
+        }
+        ScoreTable other = (ScoreTable) object;
+        return size == other.size && noteForm.equals(other.noteForm) && compareTo(other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        for (int i = 0; i < size; i++) {
+            long fp = getFingerprint(i);
+            hash = 37*hash+(int)(fp^(fp >>> 32));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreTable["+form.getNameString()+","+size+" rows]";
+    }
+
+
+    /**
+     * Builder of score tables. Rows are appended in any order,
+     * {@link #build()} sorts them and removes duplicates.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final PowerForm form;
+        private final LimitForm noteForm;
+        private final SimpleForm[] columnForms;
+        private final ColumnType[] columnTypes;
+        private double[][] reals;
+        private int[][] integers;
+        private int[][] denominators;
+        private int size;
+        private int capacity;
+        private boolean built;
+
+        private Builder(PowerForm form, int capacity) {
+            this.form = form;
+            this.noteForm = (LimitForm) form.getForm();
+            int columns = noteForm.getFormCount();
+            this.columnForms = new SimpleForm[columns];
+            this.columnTypes = new ColumnType[columns];
+            this.reals = new double[columns][];
+            this.integers = new int[columns][];
+            this.denominators = new int[columns][];
+            this.capacity = capacity;
+            for (int i = 0; i < columns; i++) {
+                columnForms[i] = (SimpleForm) noteForm.getForm(i);
+                columnTypes[i] = ScoreTable.getColumnType(columnForms[i]);
+                allocate(i, capacity);
+            }
+        }
+
+        private void allocate(int column, int length) {
+            switch (columnTypes[column]) {
+                case INTEGER:
+                    integers[column] = integers[column] == null ? new int[length] : Arrays.copyOf(integers[column], length);
+                    break;
+                case RATIONAL:
+                    integers[column] = integers[column] == null ? new int[length] : Arrays.copyOf(integers[column], length);
+                    denominators[column] = denominators[column] == null ? new int[length] : Arrays.copyOf(denominators[column], length);
+                    break;
+                default:
+                    reals[column] = reals[column] == null ? new double[length] : Arrays.copyOf(reals[column], length);
+            }
+        }
+
+        /**
+         * Appends a new row, with all values 0.
+         * The setters of this builder refer to the last appended row.
+         */
+        public Builder addRow() {
+            if (built) {
+                throw new IllegalStateException("The score table has already been built");
+            }
+            if (size == capacity) {
+                capacity *= 2;
+                for (int i = 0; i < columnForms.length; i++) {
+                    allocate(i, capacity);
+                }
+            }
+            for (int i = 0; i < columnForms.length; i++) {
+                if (columnTypes[i] == ColumnType.RATIONAL) {
+                    denominators[i][size] = 1;
+                }
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends a copy of the row <code>row</code> of <code>table</code>,
+         * which must have the same note form.
+         */
+        public Builder addRow(ScoreTable table, int row) {
+            table.checkRow(row);
+            if (!noteForm.equals(table.noteForm)) {
+                throw new IllegalArgumentException("Expected note form "+noteForm.getNameString()+", but got "+table.noteForm.getNameString());
+            }
+            addRow();
+            int last = size-1;
+            for (int i = 0; i < columnForms.length; i++) {
+                if (integers[i] != null) {
+                    integers[i][last] = table.integers[i][row];
+                }
+                if (denominators[i] != null) {
+                    denominators[i][last] = table.denominators[i][row];
+                }
+                if (reals[i] != null) {
+                    reals[i][last] = table.reals[i][row];
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Appends a row with the values of the limit denotator <code>note</code>.
+         * @return false if <code>note</code> is not an anonymous limit denotator
+         *         of anonymous constant simple denotators of the required forms
+         */
+        private boolean addRow(Denotator note) {
+            if (note.getType() != FormDenotatorTypeEnum.LIMIT || note.getName() != null || !noteForm.equals(note.getForm())) {
+                return false;
+            }
+            LimitDenotator limit = (LimitDenotator) note;
+            if (limit.getFactorCount() != columnForms.length) {
+                return false;
+            }
+            addRow();
+            for (int i = 0; i < columnForms.length; i++) {
+                Denotator factor = limit.getFactor(i);
+                if (factor.getName() != null || !(factor.getCoordinate().getMap() instanceof ConstantModuleMorphismMap)) {
+                    return false;
+                }
+                ModuleElement element = ((ConstantModuleMorphismMap<?,?,?,?>) factor.getCoordinate().getMap()).getElement();
+                if (!setElement(i, element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean setElement(int column, ModuleElement element) {
+            int last = size-1;
+            switch (columnTypes[column]) {
+                case INTEGER:
+                    if (!(element instanceof ZInteger)) {
+                        return false;
+                    }
+                    integers[column][last] = ((ZInteger) element).intValue();
+                    return true;
+                case RATIONAL:
+                    if (!(element instanceof Rational)) {
+                        return false;
+                    }
+                    integers[column][last] = ((Rational) element).getNumerator();
+                    denominators[column][last] = ((Rational) element).getDenominator();
+                    return true;
+                default:
+                    if (!(element instanceof Real)) {
+                        return false;
+                    }
+                    reals[column][last] = ((Real) element).getValue();
+                    return true;
+            }
+        }
+
+        /**
+         * Sets the value of a real column in the last row.
+         */
+        public Builder setReal(int column, double value) {
+            checkColumn(column, ColumnType.REAL);
+            reals[column][size-1] = value;
+            return this;
+        }
+
+        /**
+         * Sets the value of an integer column in the last row.
+         */
+        public Builder setInteger(int column, int value) {
+            checkColumn(column, ColumnType.INTEGER);
+            integers[column][size-1] = value;
+            return this;
+        }
+
+        /**
+         * Sets the value of a rational column in the last row.
+         */
+        public Builder setRational(int column, Rational value) {
+            checkColumn(column, ColumnType.RATIONAL);
+            integers[column][size-1] = value.getNumerator();
+            denominators[column][size-1] = value.getDenominator();
+            return this;
+        }
+
+        /**
+         * Sets the value of a column in the last row, converting <code>value</code>
+         * to the type of the column. Integers are rounded and rationals are
+         * quantized with the default quantization.
+         */
+        public Builder setDouble(int column, double value) {
+            switch (columnTypes[column]) {
+                case INTEGER:
+                    return setInteger(column, (int) Math.round(value));
+                case RATIONAL:
+                    return setRational(column, new Rational(value));
+                default:
+                    return setReal(column, value);
+            }
+        }
+
+        private void checkColumn(int column, ColumnType type) {
+            if (size == 0 || built) {
+                throw new IllegalStateException("No row to set");
+            }
+            if (columnTypes[column] != type) {
+                throw new IllegalArgumentException("Column "+column+" is of type "+columnTypes[column]+", not "+type);
+            }
+        }
+
+        /**
+         * Returns the number of rows added so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Creates the score table, sorting the rows and removing duplicates.
+         * The builder must not be used afterwards.
+         */
+        public ScoreTable build() {
+            if (built) {
+                throw new IllegalStateException("The score table has already been built");
+            }
+            built = true;
+            trim(size);
+            ScoreTable unsorted = new ScoreTable(this, size);
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = unsorted.compareRows(i-1, unsorted, i) < 0;
+            }
+            if (sorted) {
+                return unsorted;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> unsorted.compareRows(a, unsorted, b));
+            int[] rows = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (count == 0 || unsorted.compareRows(rows[count-1], unsorted, order[i]) != 0) {
+                    rows[count++] = order[i];
+                }
+            }
+            for (int i = 0; i < columnForms.length; i++) {
+                integers[i] = permute(integers[i], rows, count);
+                denominators[i] = permute(denominators[i], rows, count);
+                reals[i] = permute(reals[i], rows, count);
+            }
+            return new ScoreTable(this, count);
+        }
+
+        private void trim(int length) {
+            if (length != capacity) {
+                for (int i = 0; i < columnForms.length; i++) {
+                    allocate(i, length);
+                }
+                capacity = length;
+            }
+        }
+
+        private static int[] permute(int[] column, int[] rows, int count) {
+            if (column == null) {
+                return null;
+            }
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = column[rows[i]];
+            }
+            return result;
+        }
+
+        private static double[] permute(double[] column, int[] rows, int count) {
+            if (column == null) {
+                return null;
+            }
+            double[] result = new double[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = column[rows[i]];
+            }
+            return result;
+        }
+    }
+
+}
@@ -33,6 +33,7 @@ import org.vetronauta.latrunculus.core.math.element.impl.Rational;
 import org.vetronauta.latrunculus.core.math.element.impl.Real;
 import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
 import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.morphism.ConstantMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.FormDenotatorTypeEnum;
 import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
@@ -610,6 +611,9 @@ public final class SimpleDenotator extends Denotator {
      * Checks denotators of the same type for equality.
      */
     public boolean equals(SimpleDenotator other) {
+        if (fingerprintsDiffer(other)) {
+            return false;
+        }
         if (formEquals(other) && nameEquals(other)) {
             return getModuleMorphismMap().equals(other.getModuleMorphismMap());
         }
@@ -624,6 +628,33 @@ public final class SimpleDenotator extends Denotator {
         return getModuleMorphismMap().isConstant();
     }
 
+
+    @Override
+    protected long computeFingerprint() {
+        long hash = super.computeFingerprint();
+        ModuleMorphismMap map = getModuleMorphismMap();
+        if (map instanceof ConstantModuleMorphismMap) {
+            hash = 37*hash+((ConstantModuleMorphismMap)map).getElement().hashCode();
+        }
+        else if (map.getMorphism() instanceof ConstantMorphism) {
+            hash = 37*hash+((ConstantMorphism)map.getMorphism()).getValue().hashCode();
+        }
+        else {
+            // module morphisms do not have a hash code consistent with equals,
+            // but equal morphisms have the same domain, codomain and values
+            ModuleMorphism morphism = map.getMorphism();
+            hash = 37*hash+morphism.getDomain().hashCode();
+            hash = 37*hash+morphism.getCodomain().hashCode();
+            try {
+                hash = 37*hash+morphism.map(morphism.getDomain().getZero()).hashCode();
+            }
+            catch (MappingException | DomainException e) {
+                // the fingerprint is only less selective
+            }
+        }
+        return hash;
+    }
+
     
     @Override
     public SimpleDenotator deepCopy() {
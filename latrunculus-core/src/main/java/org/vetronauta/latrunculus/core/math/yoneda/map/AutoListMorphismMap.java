@@ -26,34 +26,41 @@ import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
 import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.DenotatorReference;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
 import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.util.OrderStatisticTree;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 
 /**
  * Morphism map containing a set of morphisms (for power types).
+ * The factors may be backed by a {@link ScoreTable}: in this case the
+ * factor denotators are only created when they are first accessed.
+ * Otherwise the factors are kept in an {@link OrderStatisticTree}, so that
+ * adding and removing factors, {@link #getFactor(int)} and {@link #indexOf(Denotator)}
+ * take logarithmic time.
  *
  * @author Florian Thalmann
  */
 public final class AutoListMorphismMap implements MorphismMap {
     
-	private TreeMap<Denotator,Integer> indexMap;
+	private OrderStatisticTree<Denotator> factors;
+	// list of the factors, created on demand and discarded when the factors change
 	private ArrayList<Denotator> currentFactors;
-    private boolean indexUpdateNecessary;
-    private boolean listUpdateNecessary;
+    private volatile ScoreTable table;
+    // run once the factors of the table are created
+    private Runnable materializeListener;
 	
     /**
      * Creates an empty FastListMorphismMap.
      */
     public AutoListMorphismMap() {
-        this.indexMap = new TreeMap<>();
-        this.currentFactors = new ArrayList<>();
+        this.factors = new OrderStatisticTree<>();
     }
     
 
@@ -61,24 +68,84 @@ public final class AutoListMorphismMap implements MorphismMap {
      * Creates a FastListMorphismMap.
      */
     public AutoListMorphismMap(Collection<Denotator> denotators) {
-    	this.initMap(denotators);
-    	this.currentFactors = new ArrayList<>(this.indexMap.keySet());
+    	this.factors = OrderStatisticTree.of(denotators);
+    }
+
+
+    private AutoListMorphismMap(OrderStatisticTree<Denotator> factors) {
+        this.factors = factors;
+    }
+
+
+    /**
+     * Creates a FastListMorphismMap from a list of denotators that is already
+     * sorted in strictly increasing order and contains no duplicates.
+     * The index is built in linear time; the order is not checked,
+     * a list violating this contract results in a corrupted map.
+     */
+    public static AutoListMorphismMap fromSorted(List<Denotator> sortedDenotators) {
+        return new AutoListMorphismMap(OrderStatisticTree.fromSorted(sortedDenotators));
     }
     
-    private void initMap(Collection<Denotator> denotators) {
-    	this.indexMap = new TreeMap<>();
-    	int currentIndex = 0;
-    	for (Denotator currentDenotator: denotators) {
-    		this.indexMap.put(currentDenotator, currentIndex);
-    		currentIndex++;
-    	}
+    /**
+     * Creates a FastListMorphismMap backed by a score table.
+     * The factors are created from the table on first access.
+     */
+    public static AutoListMorphismMap fromTable(ScoreTable table) {
+        AutoListMorphismMap map = new AutoListMorphismMap((OrderStatisticTree<Denotator>) null);
+        map.table = table;
+        return map;
+    }
+
+
+    /**
+     * Returns the score table backing this map, or null if the
+     * factors have already been created (or the map is not backed by a table).
+     */
+    public ScoreTable getScoreTable() {
+        return table;
+    }
+
+
+    /**
+     * Sets the action run when the factors of a map backed by a score table
+     * are created. The power denotator owning this map invalidates its
+     * fingerprint, which was computed from the table and not from the factors.
+     */
+    public void setMaterializeListener(Runnable listener) {
+        this.materializeListener = listener;
+    }
+
+
+    /**
+     * Creates the factors of a map backed by a score table.
+     * Any access to the factors themselves goes through this method, so that
+     * destructive operations on the factors are never lost.
+     */
+    private void materialize() {
+        if (table != null) {
+            Runnable listener = null;
+            synchronized (this) {
+                ScoreTable current = table;
+                if (current != null) {
+                    this.factors = OrderStatisticTree.fromSorted(current.getDenotators());
+                    this.table = null;
+                    listener = materializeListener;
+                    materializeListener = null;
+                }
+            }
+            if (listener != null) {
+                listener.run();
+            }
+        }
     }
 
     /**
      * Returns the factor at position <code>index</code>.
      */
     public Denotator getFactor(int index) {
-    	return this.getFactors().get(index);
+        this.materialize();
+    	return this.factors.get(index);
     }
     
 
@@ -86,9 +153,10 @@ public final class AutoListMorphismMap implements MorphismMap {
      * Appends the factor <code>d</code>.
      */
     public void appendFactor(Denotator d) {
-    	this.indexMap.put(d, null);
-    	this.indexUpdateNecessary = true;
-    	this.listUpdateNecessary = true;
+        this.materialize();
+    	if (this.factors.add(d)) {
+    		this.currentFactors = null;
+    	}
     }
     
     
@@ -99,7 +167,10 @@ public final class AutoListMorphismMap implements MorphismMap {
     
     
     public void replaceFactor(Denotator oldD, Denotator newD) {
-    	this.indexMap.remove(oldD);
+        this.materialize();
+    	if (this.factors.remove(oldD)) {
+    		this.currentFactors = null;
+    	}
     	this.appendFactor(newD);
     }
     
@@ -108,12 +179,12 @@ public final class AutoListMorphismMap implements MorphismMap {
      * Removes the factor at <code>index</code>.
      */
     public Denotator removeFactor(int index) {
-    	if (index < this.indexMap.size()) {
-    		Denotator removed = this.getFactors().remove(index);
-    		this.indexMap.remove(removed);
-    		this.indexUpdateNecessary = true;
+        this.materialize();
+    	if (index < this.factors.size()) {
+    		Denotator removed = this.factors.removeAt(index);
+    		this.currentFactors = null;
     		return removed;
-    	} else throw new IndexOutOfBoundsException(index+" > "+(this.indexMap.size()-1));
+    	} else throw new IndexOutOfBoundsException(index+" > "+(this.factors.size()-1));
     }
     
 
@@ -121,17 +192,22 @@ public final class AutoListMorphismMap implements MorphismMap {
      * Returns the number of factors.
      */
     public int getFactorCount() {
-        return this.indexMap.size();
+        ScoreTable current = this.table;
+        if (current != null) {
+            return current.size();
+        }
+        return this.factors.size();
     }
 
     
     /**
      * Returns the list of factors.
+     * The list is shared until the factors change and must not be modified.
      */
     public ArrayList<Denotator> getFactors() {
-    	if (this.listUpdateNecessary) {
-    		this.currentFactors = new ArrayList<>(this.indexMap.keySet());
-    		this.listUpdateNecessary = false;
+        this.materialize();
+    	if (this.currentFactors == null) {
+    		this.currentFactors = this.factors.toList();
     	}
     	return this.currentFactors;
     }
@@ -140,18 +216,8 @@ public final class AutoListMorphismMap implements MorphismMap {
      * Returns the position index of factor <code>d</code>
      */
     public int indexOf(Denotator d) {
-    	this.updateIndices();
-    	Integer index = this.indexMap.get(d);
-    	if (index != null) {
-    		return index;
-    	} else return -1;
-    }
-    
-    private void updateIndices() {
-    	if (this.indexUpdateNecessary) {
-    		this.initMap(this.indexMap.keySet());
-    		this.indexUpdateNecessary = false;
-    	}
+        this.materialize();
+    	return this.factors.indexOf(d);
     }
 
 
@@ -163,6 +229,17 @@ public final class AutoListMorphismMap implements MorphismMap {
     }
 
 
+    /**
+     * Returns an iterator over the factors from position <code>fromIndex</code> (inclusive)
+     * to <code>toIndex</code> (exclusive), without creating the list of all factors.
+     * The factors must not be changed during the iteration.
+     */
+    public Iterator<Denotator> iterator(int fromIndex, int toIndex) {
+        this.materialize();
+        return this.factors.iterator(fromIndex, toIndex);
+    }
+
+
     public int compareTo(MorphismMap object) {
         if (this == object) {
             return 0;
@@ -177,6 +254,11 @@ public final class AutoListMorphismMap implements MorphismMap {
     
     
     public int compareTo(AutoListMorphismMap other) {
+        ScoreTable aTable = this.table;
+        ScoreTable bTable = other.table;
+        if (aTable != null && bTable != null && aTable.getNoteForm().equals(bTable.getNoteForm())) {
+            return aTable.compareTo(bTable);
+        }
         int aCount = getFactorCount();
         int bCount = other.getFactorCount();   
         ArrayList<Denotator> aList = this.getFactors();
@@ -198,7 +280,11 @@ public final class AutoListMorphismMap implements MorphismMap {
      */
     public MorphismMap at(ModuleElement element)
             throws MappingException {
-        ArrayList<Denotator> newList = this.getFactors();
+        if (this.table != null) {
+            // the factors of a score table are constant
+            return this;
+        }
+        ArrayList<Denotator> newList = new ArrayList<>(this.getFactors());
         boolean changed = false;
         for (int i = 0; i < newList.size(); i++) {            
             Denotator oldD = newList.get(i);
@@ -244,6 +330,9 @@ public final class AutoListMorphismMap implements MorphismMap {
     
     
     public boolean isConstant() {
+        if (this.table != null) {
+            return true;
+        }
         for (Denotator d : this.getFactors()) {
             if (!d.isConstant()) {
                 return false;
@@ -258,6 +347,10 @@ public final class AutoListMorphismMap implements MorphismMap {
     
     @Override
     public AutoListMorphismMap deepCopy() {
+        ScoreTable current = this.table;
+        if (current != null) {
+            return fromTable(current);
+        }
     	ArrayList<Denotator> copiedFactors = new ArrayList<>();
         for (Denotator d : this.getFactors()) {
         	copiedFactors.add(d.deepCopy());
@@ -272,16 +365,16 @@ public final class AutoListMorphismMap implements MorphismMap {
         }
         else if (object instanceof AutoListMorphismMap) {
         	AutoListMorphismMap m = (AutoListMorphismMap)object;
+            ScoreTable aTable = this.table;
+            ScoreTable bTable = m.table;
+            if (aTable != null && bTable != null) {
+                return aTable.equals(bTable);
+            }
             if (getFactorCount() != m.getFactorCount()) {
                 return false;
             }
             else {
-                for (int i = 0; i < getFactorCount(); i++) {
-                    if (!getFactor(i).equals(m.getFactor(i))) {
-                        return false;
-                    }
-                }
-                return true;
+                return getFactors().equals(m.getFactors());
             }
         }
         else {
@@ -296,15 +389,13 @@ public final class AutoListMorphismMap implements MorphismMap {
         }
         else if (map instanceof AutoListMorphismMap) {
         	AutoListMorphismMap lm = (AutoListMorphismMap)map;
+            if (this.table != null && lm.table != null) {
+                return equals(lm);
+            }
             if (getFactorCount() != lm.getFactorCount()) {
                 return false;
             }
-            for (int i = 0; i < getFactorCount(); i++) {
-                if (!(getFactor(i).equals(lm.getFactor(i)))) {
-                   return false;
-                }
-            }
-            return true;      
+            return getFactors().equals(lm.getFactors());
         }
         else {
             return false;
@@ -330,6 +421,9 @@ public final class AutoListMorphismMap implements MorphismMap {
      * @return true iff all references have been resolved.
      */
     public boolean resolveReferences(Dictionary dict, Map<Object,Object> history) {
+        if (this.table != null) {
+            return true;
+        }
         for (int i = 0; i < getFactorCount(); i++) {
             Denotator d = getFactor(i);
             if (d instanceof DenotatorReference) {
@@ -350,7 +444,8 @@ public final class AutoListMorphismMap implements MorphismMap {
     public String toString() {
         StringBuilder buf = new StringBuilder();
         buf.append("AutoListMorphismMap[");
-        List<Denotator> list = this.getFactors();
+        ScoreTable current = this.table;
+        List<Denotator> list = current != null ? current.getDenotators() : this.getFactors();
         if (list.size() > 0) {
            buf.append(list.get(0)); 
            for (int i = 1; i < list.size(); i++) {
@@ -367,11 +462,15 @@ public final class AutoListMorphismMap implements MorphismMap {
      * Returns a hash code of this list morphism map.
      */
     public int hashCode() {
+        ScoreTable current = this.table;
+        if (current != null) {
+            return current.hashCode();
+        }
         int hash = 7;
         for (Denotator d : this.getFactors()) {
             hash = 37*hash + d.hashCode();
         }
         return hash;
     }
-    
+
 }
@@ -58,6 +58,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Observable;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.vetronauta.latrunculus.core.logeo.DenoFactory.makeDenotator;
@@ -66,6 +67,12 @@ import static org.vetronauta.latrunculus.core.logeo.DenoFactory.makeDenotator;
  * A repository of forms and denotators, retrievable by their names.
  * There is a global repository, that should contain all forms
  * and named denotators used troughout the Latrunculus system.
+ * <p>
+ * Lookups do not lock: they read an immutable snapshot of the repository.
+ * Changes are made by a single writer at a time on a copy, which is
+ * published when the outermost change ends, together with a single
+ * notification of the observers. Use {@link #batch(Runnable)} to make
+ * several changes at once.
  * 
  * @author Gérard Milmeister
  */
@@ -76,16 +83,17 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Performs a rollback, if a different form already exists with the same name.
      * @return the form in the repository 
      */
-    public synchronized Form register(Form form) {
-        Form f = register(form, false);
-        if (f == null) {
-            rollback();
-        } else {
-            setChanged();
-            notifyObservers();
-            reset();
-        }
-        return f;
+    public Form register(Form form) {
+        return write(() -> {
+            Form f = register(form, false);
+            if (f == null) {
+                rollback();
+            } else {
+                changed = true;
+                reset();
+            }
+            return f;
+        });
     }
     
     
@@ -93,8 +101,8 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Registers a form as builtin with repository.
      * @return the form in the repository 
      */
-    public synchronized Form registerBuiltin(Form form) {
-        return form._register(this, true);
+    public Form registerBuiltin(Form form) {
+        return write(() -> form._register(this, true));
     }
     
     
@@ -102,7 +110,7 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Returns true iff the given form is a builtin.
      */
     public boolean isBuiltin(Form form) {
-        return builtinForms.containsKey(form);
+        return read(builtinForms).containsKey(form);
     }
         
 
@@ -111,12 +119,13 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * @param d register d only if it has a non-null name
      * @return the registered denotator
      */
-    public synchronized Denotator register(Denotator d) {
-        Denotator deno = register(d, false);
-        reset();
-        setChanged();
-        notifyObservers();
-        return deno;
+    public Denotator register(Denotator d) {
+        return write(() -> {
+            Denotator deno = register(d, false);
+            reset();
+            changed = true;
+            return deno;
+        });
     }
     
     
@@ -124,8 +133,8 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Registers a denotator as builtin with repository.
      * @return the denotator in the repository 
      */
-    public synchronized Denotator registerBuiltin(Denotator denotator) {
-        return register(denotator, true);
+    public Denotator registerBuiltin(Denotator denotator) {
+        return write(() -> register(denotator, true));
     }
     
     
@@ -133,7 +142,7 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Returns true iff the given denotator is a builtin.
      */
     public boolean isBuiltin(Denotator denotator) {
-        return builtinDenotators.containsKey(denotator);
+        return read(builtinDenotators).containsKey(denotator);
     }
         
 
@@ -145,10 +154,10 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     private Denotator register(Denotator denotator, boolean builtin) {
         if (denotator.getName() != null) {
             NameEntry nameEntry = denotator.getName().getNameEntry();
-            denotators.put(nameEntry, new DenotatorItem(denotator, builtin));
+            denotators.write().put(nameEntry, new DenotatorItem(denotator, builtin));
             tmpDenos.add(denotator);
             if (builtin) {
-                builtinDenotators.put(denotator, denotator);
+                builtinDenotators.write().put(denotator, denotator);
             }
         }
         return denotator;        
@@ -168,36 +177,40 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     }
 
     /**
-     * Registers a collection of forms and a collection of denotators.
+     * Registers a collection of forms and a collection of denotators
+     * as a single change.
      * Performs a rollback, if the registration fails
      * @param formSet a collection of forms
      * @param denotatorSet a collection of denotators
      * @return true if the registration succeeds
      */
-    public synchronized boolean register(Collection<Form> formSet, Collection<Denotator> denotatorSet) {
-        for (Form f : formSet) {
-            Form form = f._register(this, false);
-            if (form == null) {
-                // registration failed
-                rollback();
-                reset();
-                return false;
-            }                    
-        }
-        
-        for (Denotator deno : denotatorSet) {
-            Denotator d = register(deno, false);
-            if (d == null) {
-                // registration failed
-                rollback();
-                reset();
-                return false;
+    public boolean register(Collection<Form> formSet, Collection<Denotator> denotatorSet) {
+        return write(() -> {
+            for (Form f : formSet) {
+                Form form = f._register(this, false);
+                if (form == null) {
+                    // registration failed
+                    rollback();
+                    reset();
+                    return false;
+                }
             }
-        }
 
-        // registration successful
-        reset();
-        return true;
+            for (Denotator deno : denotatorSet) {
+                Denotator d = register(deno, false);
+                if (d == null) {
+                    // registration failed
+                    rollback();
+                    reset();
+                    return false;
+                }
+            }
+
+            // registration successful
+            changed = true;
+            reset();
+            return true;
+        });
     }
 
 
@@ -210,8 +223,13 @@ public class Repository extends Observable implements Dictionary { //TODO this s
             // do not register a form reference
             return form;
         }
+        return write(() -> registerForm(form, builtin));
+    }
+
+
+    private Form registerForm(Form form, boolean builtin) {
         NameEntry name = form.getName().getNameEntry();
-        FormItem item = forms.get(name);
+        FormItem item = read(forms).get(name);
         if (item == null) {
             // form not yet in repository
             if (form.getType() != FormDenotatorTypeEnum.SIMPLE) {
@@ -221,10 +239,10 @@ public class Repository extends Observable implements Dictionary { //TODO this s
                     return null;
                 }
             }
-            forms.put(name, new FormItem(form, builtin));
+            forms.write().put(name, new FormItem(form, builtin));
             tmpForms.add(form);
             if (builtin) {
-                builtinForms.put(form, form);
+                builtinForms.write().put(form, form);
             }
             return form;
         }
@@ -246,8 +264,8 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     /**
      * Returns the form with the given name if it exists, otherwise null.
      */
-    public synchronized Form getForm(NameDenotator name) {
-        FormItem item = forms.get(name.getNameEntry());
+    public Form getForm(NameDenotator name) {
+        FormItem item = read(forms).get(name.getNameEntry());
         return (item == null)?null:item.getForm();
     }
     
@@ -255,9 +273,9 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     /**
      * Returns the form with the given name if it exists, otherwise null.
      */
-    public synchronized Form getForm(String name) {
+    public Form getForm(String name) {
         NameEntry nameEntry = NameEntry.lookup(name);        
-        FormItem item = forms.get(nameEntry);
+        FormItem item = read(forms).get(nameEntry);
         return (item == null)?null:item.getForm();
     }
     
@@ -265,23 +283,23 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     /**
      * Returns the form with the given name if it exists, otherwise null.
      */
-    public synchronized Form getForm(NameEntry name) {
+    public Form getForm(NameEntry name) {
         NameEntry nameEntry = NameEntry.lookup(name);        
-        FormItem item = forms.get(nameEntry);
+        FormItem item = read(forms).get(nameEntry);
         return (item == null)?null:item.getForm();
     }
 
     
-    public synchronized List<Form> getForms() {
+    public List<Form> getForms() {
         LinkedList<Form> res = new LinkedList<>();
-        for (FormItem item : forms.values()) {
+        for (FormItem item : read(forms).values()) {
             res.add(item.getForm());
         }
         return res;
     }
 
-    public synchronized List<Form> getCustomForms() {
-        return forms.values().stream()
+    public List<Form> getCustomForms() {
+        return read(forms).values().stream()
             .filter(formItem -> !formItem.isBuiltin())
             .map(FormItem::getForm)
             .collect(Collectors.toList());
@@ -293,12 +311,19 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * The new form is given the name "_Power(baseFormName)".
      */
     public PowerForm autogenPowerForm(Form baseForm) {
-        PowerForm powerForm = autogenPowerForms.get(baseForm);
+        PowerForm powerForm = read(autogenPowerForms).get(baseForm);
         if (powerForm == null) {
-            String name = "_Power("+baseForm.getNameString()+")";
-            powerForm = FormFactory.makePowerForm(name, baseForm);
-            autogenPowerForms.put(baseForm, powerForm);
-            register(powerForm);
+            powerForm = write(() -> {
+                PowerForm form = read(autogenPowerForms).get(baseForm);
+                if (form != null) {
+                    return form;
+                }
+                String name = "_Power("+baseForm.getNameString()+")";
+                form = FormFactory.makePowerForm(name, baseForm);
+                autogenPowerForms.write().put(baseForm, form);
+                register(form);
+                return form;
+            });
         }
         return powerForm;
     }
@@ -309,12 +334,19 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * The new form is given the name "_List(baseFormName)".
      */
     public ListForm autogenListForm(Form baseForm) {
-        ListForm listForm = autogenListForms.get(baseForm);
+        ListForm listForm = read(autogenListForms).get(baseForm);
         if (listForm == null) {
-            String name = "_List("+baseForm.getNameString()+")";
-            listForm = FormFactory.makeListForm(name, baseForm);
-            autogenListForms.put(baseForm, listForm);
-            register(listForm);
+            listForm = write(() -> {
+                ListForm form = read(autogenListForms).get(baseForm);
+                if (form != null) {
+                    return form;
+                }
+                String name = "_List("+baseForm.getNameString()+")";
+                form = FormFactory.makeListForm(name, baseForm);
+                autogenListForms.write().put(baseForm, form);
+                register(form);
+                return form;
+            });
         }
         return listForm;
     }
@@ -325,19 +357,26 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * The new form is given the name "_Limit(factor0Name,factor1Name,...)".
      */
     public LimitForm autogenLimitForm(List<Form> factors) {
-        LimitForm limitForm = autogenLimitForms.get(factors);
+        LimitForm limitForm = read(autogenLimitForms).get(factors);
         if (limitForm == null) {
-            StringBuilder buf = new StringBuilder();
-            buf.append("_Limit(");
-            buf.append(factors.get(0));
-            for (int i = 0; i < factors.size(); i++) {
-                buf.append(",");
-                buf.append(factors.get(i));
-            }
-            buf.append(")");
-            limitForm = FormFactory.makeLimitForm(buf.toString(), factors);
-            autogenLimitForms.put(factors, limitForm);
-            register(limitForm);
+            limitForm = write(() -> {
+                LimitForm form = read(autogenLimitForms).get(factors);
+                if (form != null) {
+                    return form;
+                }
+                StringBuilder buf = new StringBuilder();
+                buf.append("_Limit(");
+                buf.append(factors.get(0));
+                for (int i = 0; i < factors.size(); i++) {
+                    buf.append(",");
+                    buf.append(factors.get(i));
+                }
+                buf.append(")");
+                form = FormFactory.makeLimitForm(buf.toString(), factors);
+                autogenLimitForms.write().put(factors, form);
+                register(form);
+                return form;
+            });
         }
         return limitForm;
     }
@@ -348,19 +387,26 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * The new form is given the name "_Colimit(factor0Name,factor1Name,...)".
      */
     public ColimitForm autogenColimitForm(List<Form> factors) {
-        ColimitForm colimitForm = autogenColimitForms.get(factors);
+        ColimitForm colimitForm = read(autogenColimitForms).get(factors);
         if (colimitForm == null) {
-            StringBuilder buf = new StringBuilder();
-            buf.append("_Colimit(");
-            buf.append(factors.get(0));
-            for (int i = 0; i < factors.size(); i++) {
-                buf.append(",");
-                buf.append(factors.get(i));
-            }
-            buf.append(")");
-            colimitForm = FormFactory.makeColimitForm(buf.toString(), factors);
-            autogenColimitForms.put(factors, colimitForm);
-            register(colimitForm);
+            colimitForm = write(() -> {
+                ColimitForm form = read(autogenColimitForms).get(factors);
+                if (form != null) {
+                    return form;
+                }
+                StringBuilder buf = new StringBuilder();
+                buf.append("_Colimit(");
+                buf.append(factors.get(0));
+                for (int i = 0; i < factors.size(); i++) {
+                    buf.append(",");
+                    buf.append(factors.get(i));
+                }
+                buf.append(")");
+                form = FormFactory.makeColimitForm(buf.toString(), factors);
+                autogenColimitForms.write().put(factors, form);
+                register(form);
+                return form;
+            });
         }
         return colimitForm;
     }
@@ -371,12 +417,19 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * The new form is given the name "_Simple(moduleName)".
      */
     public SimpleForm autogenSimpleForm(Module module) {
-        SimpleForm simpleForm = autogenSimpleForms.get(module);
+        SimpleForm simpleForm = read(autogenSimpleForms).get(module);
         if (simpleForm == null) {
-            String name = "_Simple("+module.toString()+")";
-            simpleForm = FormFactory.makeModuleForm(name, module);
-            autogenSimpleForms.put(module, simpleForm);
-            register(simpleForm);
+            simpleForm = write(() -> {
+                SimpleForm form = read(autogenSimpleForms).get(module);
+                if (form != null) {
+                    return form;
+                }
+                String name = "_Simple("+module.toString()+")";
+                form = FormFactory.makeModuleForm(name, module);
+                autogenSimpleForms.write().put(module, form);
+                register(form);
+                return form;
+            });
         }
         return simpleForm;
     }
@@ -385,10 +438,11 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     /**
      * Removes the form with given name in the repository.
      */
-    public synchronized void removeForm(NameDenotator name) {
-        forms.remove(name.getNameEntry());
-        setChanged();
-        notifyObservers();
+    public void removeForm(NameDenotator name) {
+        write(() -> {
+            forms.write().remove(name.getNameEntry());
+            changed = true;
+        });
     }
     
     
@@ -415,10 +469,11 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Remove the denotator with the given name from the repository.
      * @param name the name for the denotator to be removed
      */
-    public synchronized void removeDenotator(NameDenotator name) {
-        denotators.remove(name.getNameEntry());
-        setChanged();
-        notifyObservers();
+    public void removeDenotator(NameDenotator name) {
+        write(() -> {
+            denotators.write().remove(name.getNameEntry());
+            changed = true;
+        });
     }
 
 
@@ -445,9 +500,11 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Removes all temporary forms and denotators from the repository.
      */
     public void rollback() {
-        removeForms(tmpForms);
-        removeDenotators(tmpDenos);
-        reset();
+        write(() -> {
+            removeForms(tmpForms);
+            removeDenotators(tmpDenos);
+            reset();
+        });
     }
     
     
@@ -478,15 +535,16 @@ public class Repository extends Observable implements Dictionary { //TODO this s
         if (parser.hasError()) {
             return parser.getError();
         }
-        Evaluator evaluator = new Evaluator(env);
-        evaluator.eval(sexprList);
-        setChanged();
-        notifyObservers();
-        if (evaluator.hasErrors()) {
-            return evaluator.getErrors().get(0);
-        }
-        code = s;
-        return null;
+        return write(() -> {
+            Evaluator evaluator = new Evaluator(env);
+            evaluator.eval(sexprList);
+            changed = true;
+            if (evaluator.hasErrors()) {
+                return evaluator.getErrors().get(0);
+            }
+            code = s;
+            return null;
+        });
     }
     
 
@@ -503,29 +561,97 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Removes all content from the repository. 
      */
     public void clear() {
-        reset();
-        
-        forms      = new HashMap<>(256);
-        denotators = new HashMap<>(1024);
-        modules    = new HashMap<>(256);
-        
-        moduleElements  = new HashMap<>(1024);
-        moduleMorphisms = new HashMap<>(1024);
-        
-        builtinForms      = new IdentityHashMap<>(256);
-        builtinDenotators = new IdentityHashMap<>(256);
-        
-        autogenPowerForms   = new HashMap<>(256);
-        autogenListForms    = new HashMap<>(256);
-        autogenLimitForms   = new HashMap<>(256);
-        autogenColimitForms = new HashMap<>(256);
-        autogenSimpleForms  = new HashMap<>(256);
-        
-        env = Env.makeGlobalEnvironment();
-        code = "";
-        
-        setChanged();
-        notifyObservers();
+        write(() -> {
+            reset();
+
+            forms.clear();
+            denotators.clear();
+            modules.clear();
+
+            moduleElements.clear();
+            moduleMorphisms.clear();
+
+            builtinForms.clear();
+            builtinDenotators.clear();
+
+            autogenPowerForms.clear();
+            autogenListForms.clear();
+            autogenLimitForms.clear();
+            autogenColimitForms.clear();
+            autogenSimpleForms.clear();
+
+            env = Env.makeGlobalEnvironment();
+            code = "";
+
+            changed = true;
+        });
+    }
+
+
+    /**
+     * Makes the changes in <code>updates</code> as a single change of the repository:
+     * lookups in other threads see either none or all of them,
+     * and the observers are notified once at the end.
+     */
+    public void batch(Runnable updates) {
+        write(updates);
+    }
+
+
+    /**
+     * Returns the map to read: the copy being edited, if the current thread
+     * is changing the repository, otherwise the current snapshot.
+     */
+    private <K,V> Map<K,V> read(SnapshotMap<K,V> map) {
+        return map.read(writer == Thread.currentThread());
+    }
+
+
+    private synchronized <T> T write(Supplier<T> update) {
+        if (writeDepth++ == 0) {
+            writer = Thread.currentThread();
+        }
+        try {
+            return update.get();
+        }
+        finally {
+            if (--writeDepth == 0) {
+                publish();
+            }
+        }
+    }
+
+
+    private void write(Runnable update) {
+        write(() -> {
+            update.run();
+            return null;
+        });
+    }
+
+
+    /**
+     * Publishes the edited maps and notifies the observers, if anything changed.
+     */
+    private void publish() {
+        forms.publish();
+        denotators.publish();
+        modules.publish();
+        moduleElements.publish();
+        moduleMorphisms.publish();
+        builtinForms.publish();
+        builtinDenotators.publish();
+        autogenPowerForms.publish();
+        autogenListForms.publish();
+        autogenLimitForms.publish();
+        autogenColimitForms.publish();
+        autogenSimpleForms.publish();
+        writer = null;
+        if (changed) {
+            changed = false;
+            setChanged();
+            notifyObservers();
+        }
     }
 
     
@@ -533,8 +659,8 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Returns denotator with the given name if it exists, otherwise null.
      * @param name the name of the denotator to be returned
      */    
-    public synchronized Denotator getDenotator(NameDenotator name) {
-        DenotatorItem item = denotators.get(name.getNameEntry());
+    public Denotator getDenotator(NameDenotator name) {
+        DenotatorItem item = read(denotators).get(name.getNameEntry());
         return (item == null)?null:item.getDenotator();
     }
 
@@ -543,9 +669,9 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Returns denotator with the given name if it exists, otherwise null.
      * @param name the name of the denotator to be returned
      */    
-    public synchronized Denotator getDenotator(NameEntry name) {
+    public Denotator getDenotator(NameEntry name) {
         NameEntry nameEntry = NameEntry.lookup(name);
-        DenotatorItem item = denotators.get(nameEntry);
+        DenotatorItem item = read(denotators).get(nameEntry);
         return (item == null)?null:item.getDenotator();
     }
 
@@ -554,23 +680,23 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Returns denotator with the given name if it exists, otherwise null.
      * @param name the name of the denotator to be returned
      */    
-    public synchronized Denotator getDenotator(String name) {
+    public Denotator getDenotator(String name) {
         NameEntry nameEntry = NameEntry.lookup(name);
-        DenotatorItem item = denotators.get(nameEntry);
+        DenotatorItem item = read(denotators).get(nameEntry);
         return (item == null)?null:item.getDenotator();
     }
 
 
-    public synchronized List<Denotator> getDenotators() {
+    public List<Denotator> getDenotators() {
         LinkedList<Denotator> res = new LinkedList<Denotator>();
-        for (DenotatorItem item : denotators.values()) {
+        for (DenotatorItem item : read(denotators).values()) {
             res.add(item.getDenotator());
         }
         return res;
     }
 
-    public synchronized List<Denotator> getCustomDenotators() {
-        return denotators.values().stream()
+    public List<Denotator> getCustomDenotators() {
+        return read(denotators).values().stream()
             .filter(denotatorItem -> !denotatorItem.isBuiltin())
             .map(DenotatorItem::getDenotator)
             .collect(Collectors.toList());
@@ -588,88 +714,93 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     
     
     public void registerBuiltinModule(String name, Module module) {
-        modules.put(name, new ModuleItem(name, module, true));
+        write(() -> {
+            modules.write().put(name, new ModuleItem(name, module, true));
+        });
     }
     
     
     public void registerModule(String name, Module module) {
-        modules.put(name, new ModuleItem(name, module, false));
-        setChanged();
-        notifyObservers();
+        write(() -> {
+            modules.write().put(name, new ModuleItem(name, module, false));
+            changed = true;
+        });
     }
     
     
     public Module getModule(String name) {
-        ModuleItem item = modules.get(name);
+        ModuleItem item = read(modules).get(name);
         return (item == null)?null:item.getModule();
     }
 
     public boolean isBuiltinModule(String name) {
-        ModuleItem item = modules.get(name);
+        ModuleItem item = read(modules).get(name);
         return isNullOrBuiltin(item);
     }
     
     
     public List<String> getModuleNames() {
         LinkedList<String> list = new LinkedList<String>();
-        list.addAll(modules.keySet());
+        list.addAll(read(modules).keySet());
         return list;
     }
     
     
     public void registerModuleElement(String name, ModuleElement element) {
-        moduleElements.put(name, new ModuleElementItem(name, element, false));
-        setChanged();
-        notifyObservers();
+        write(() -> {
+            moduleElements.write().put(name, new ModuleElementItem(name, element, false));
+            changed = true;
+        });
     }
     
     
     public ModuleElement getModuleElement(String name) {
-        ModuleElementItem item = moduleElements.get(name);
+        ModuleElementItem item = read(moduleElements).get(name);
         return (item == null)?null:item.getModuleElement();
     }
 
     public boolean isBuiltinModuleElement(String name) {
-        ModuleElementItem item = moduleElements.get(name);
+        ModuleElementItem item = read(moduleElements).get(name);
         return isNullOrBuiltin(item);
     }
     
     
     public List<String> getModuleElementNames() {
         LinkedList<String> list = new LinkedList<>();
-        list.addAll(moduleElements.keySet());
+        list.addAll(read(moduleElements).keySet());
         return list;
     }
     
     
     public void registerModuleMorphism(String name, ModuleMorphism morphism) {
-        moduleMorphisms.put(name, new ModuleMorphismItem(name, morphism, false));
-        setChanged();
-        notifyObservers();
+        write(() -> {
+            moduleMorphisms.write().put(name, new ModuleMorphismItem(name, morphism, false));
+            changed = true;
+        });
     }
     
     
     public ModuleMorphism getModuleMorphism(String name) {
-        ModuleMorphismItem item = moduleMorphisms.get(name);
+        ModuleMorphismItem item = read(moduleMorphisms).get(name);
         return (item == null)?null:item.getModuleMorphism();
     }
 
     public boolean isBuiltinModuleMorphism(String name) {
-        ModuleMorphismItem item = moduleMorphisms.get(name);
+        ModuleMorphismItem item = read(moduleMorphisms).get(name);
         return isNullOrBuiltin(item);
     }
     
     
     public List<String> getModuleMorphismNames() {
         LinkedList<String> list = new LinkedList<>();
-        list.addAll(moduleMorphisms.keySet());
+        list.addAll(read(moduleMorphisms).keySet());
         return list;
     }
     
     
     public List<String> getModuleMorphismNames(Module domain, Module codomain) {
         LinkedList<String> list = new LinkedList<>();
-        for (Entry<String,ModuleMorphismItem> entry : moduleMorphisms.entrySet()) {
+        for (Entry<String,ModuleMorphismItem> entry : read(moduleMorphisms).entrySet()) {
             ModuleMorphism m = entry.getValue().getModuleMorphism();
             if (domain == null || domain.equals(m.getDomain())) {
                 if (codomain == null || codomain.equals(m.getCodomain())) {
@@ -684,10 +815,11 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Returns the global system-wide repository.
      */    
     public static Repository systemRepository() {
-        if (globalRepository == null) {
-            globalRepository = makeGlobalRepository();
+        Repository rep = globalRepository;
+        if (rep == null) {
+            rep = makeGlobalRepository();
         }
-        return globalRepository;
+        return rep;
     }
 
 
@@ -703,9 +835,12 @@ public class Repository extends Observable implements Dictionary { //TODO this s
      * Creates the system repository with builtin forms and denotators.
      */
     private static synchronized Repository makeGlobalRepository() {
-        Repository rep = new Repository();
-        rep.initGlobalRepository();
-        return rep;
+        if (globalRepository == null) {
+            Repository rep = new Repository();
+            rep.initGlobalRepository();
+            globalRepository = rep;
+        }
+        return globalRepository;
     }
 
     private static boolean isNullOrBuiltin(Item item) {
@@ -828,6 +963,11 @@ public class Repository extends Observable implements Dictionary { //TODO this s
     
     
     public void initGlobalRepository() {
+        batch(this::registerBuiltins);
+    }
+
+
+    private void registerBuiltins() {
         clear();
         
         // Register simple types
@@ -974,47 +1114,53 @@ public class Repository extends Observable implements Dictionary { //TODO this s
 
     private void registerNameForm(NameForm form) {
         NameEntry name = form.getName().getNameEntry();
-        forms.put(name, new FormItem(form, true));
-        builtinForms.put(form, form);
+        forms.write().put(name, new FormItem(form, true));
+        builtinForms.write().put(form, form);
     }
 
 
     // Dictionary for forms
-    private Map<NameEntry,FormItem> forms;
+    private final SnapshotMap<NameEntry,FormItem> forms = new SnapshotMap<>(() -> new HashMap<>(256));
     
     // Dictionary for denotators
-    private Map<NameEntry,DenotatorItem> denotators;
+    private final SnapshotMap<NameEntry,DenotatorItem> denotators = new SnapshotMap<>(() -> new HashMap<>(1024));
     
     // Dictionary for modules
-    private Map<String,ModuleItem> modules;
+    private final SnapshotMap<String,ModuleItem> modules = new SnapshotMap<>(() -> new HashMap<>(256));
 
     // Dictionary for module elements
-    private Map<String,ModuleElementItem> moduleElements;
+    private final SnapshotMap<String,ModuleElementItem> moduleElements = new SnapshotMap<>(() -> new HashMap<>(1024));
 
     // Dictionary for module morphisms
-    private Map<String,ModuleMorphismItem> moduleMorphisms;
+    private final SnapshotMap<String,ModuleMorphismItem> moduleMorphisms = new SnapshotMap<>(() -> new HashMap<>(1024));
 
     // The current namespace for lookup
-    private NameEntry namespace;
+    private volatile NameEntry namespace;
     
-    private IdentityHashMap<Form,Form> builtinForms;
-    private IdentityHashMap<Denotator,Denotator> builtinDenotators;
+    private final SnapshotMap<Form,Form> builtinForms = new SnapshotMap<>(() -> new IdentityHashMap<>(256));
+    private final SnapshotMap<Denotator,Denotator> builtinDenotators = new SnapshotMap<>(() -> new IdentityHashMap<>(256));
         
     // caching tables for autogenerated forms
-    private HashMap<Form,PowerForm>              autogenPowerForms;
-    private HashMap<Form,ListForm>               autogenListForms;
-    private HashMap<List<Form>,LimitForm>   autogenLimitForms;
-    private HashMap<List<Form>,ColimitForm> autogenColimitForms;
-    private HashMap<Module,SimpleForm>           autogenSimpleForms;
+    private final SnapshotMap<Form,PowerForm>        autogenPowerForms   = new SnapshotMap<>(() -> new HashMap<>(256));
+    private final SnapshotMap<Form,ListForm>         autogenListForms    = new SnapshotMap<>(() -> new HashMap<>(256));
+    private final SnapshotMap<List<Form>,LimitForm>   autogenLimitForms   = new SnapshotMap<>(() -> new HashMap<>(256));
+    private final SnapshotMap<List<Form>,ColimitForm> autogenColimitForms = new SnapshotMap<>(() -> new HashMap<>(256));
+    private final SnapshotMap<Module,SimpleForm>     autogenSimpleForms  = new SnapshotMap<>(() -> new HashMap<>(256));
     
     // Containers for temporary forms and denotators
     private LinkedList<Form> tmpForms = new LinkedList<>();
     private LinkedList<Denotator> tmpDenos = new LinkedList<>();
     
     // Scheme environment and code
-    private Env env;
-    private String code;
+    private volatile Env env;
+    private volatile String code;
+
+    // The thread changing the repository, the nesting depth of its
+    // changes and whether they must be notified to the observers
+    private volatile Thread writer;
+    private int writeDepth;
+    private boolean changed;
     
     // The unique global repository
-    private static Repository globalRepository = null;
+    private static volatile Repository globalRepository = null;
 }
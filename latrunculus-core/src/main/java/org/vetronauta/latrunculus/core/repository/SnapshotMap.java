@@ -0,0 +1,83 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.repository;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A map of the {@link Repository} that is read without locking.
+ * Readers get an immutable snapshot, while the writer holding the lock
+ * of the repository edits a copy, which becomes the new snapshot
+ * when it is published at the end of the write.
+ *
+ * @author vetronauta
+ */
+final class SnapshotMap<K,V> {
+
+    private final Supplier<Map<K,V>> factory;
+    private volatile Map<K,V> snapshot;
+    private Map<K,V> copy;
+
+    SnapshotMap(Supplier<Map<K,V>> factory) {
+        this.factory = factory;
+        this.snapshot = factory.get();
+    }
+
+    /**
+     * Returns the map to read: the copy being edited if <code>writing</code>
+     * is true and there is one, otherwise the current snapshot.
+     */
+    Map<K,V> read(boolean writing) {
+        if (writing && copy != null) {
+            return copy;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the copy to edit, creating it from the snapshot if necessary.
+     */
+    Map<K,V> write() {
+        if (copy == null) {
+            copy = factory.get();
+            copy.putAll(snapshot);
+        }
+        return copy;
+    }
+
+    /**
+     * Replaces the copy to edit with an empty map.
+     */
+    void clear() {
+        copy = factory.get();
+    }
+
+    /**
+     * Makes the edited copy, if any, the new snapshot.
+     */
+    void publish() {
+        if (copy != null) {
+            snapshot = copy;
+            copy = null;
+        }
+    }
+
+}
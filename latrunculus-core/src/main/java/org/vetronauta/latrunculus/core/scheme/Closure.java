@@ -0,0 +1,57 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.scheme;
+
+import org.vetronauta.latrunculus.core.scheme.expression.Env;
+import org.vetronauta.latrunculus.core.scheme.expression.SClosure;
+
+/**
+ * A closure of a compiled lambda expression.
+ *
+ * @author vetronauta
+ */
+final class Closure extends SClosure {
+
+    final Node.Lambda lambda;
+    final Frame frame;
+
+    Closure(Node.Lambda lambda, Frame frame, Env env) {
+        super(lambda.params, lambda.source, env);
+        this.lambda = lambda;
+        this.frame = frame;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Closure) {
+            Closure closure = (Closure)obj;
+            return lambda == closure.lambda && frame == closure.frame && getEnv() == closure.getEnv();
+        }
+        else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(lambda) ^ System.identityHashCode(frame);
+    }
+
+}
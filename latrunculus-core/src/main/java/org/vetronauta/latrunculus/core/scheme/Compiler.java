@@ -0,0 +1,405 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.scheme;
+
+import org.vetronauta.latrunculus.core.scheme.expression.Env;
+import org.vetronauta.latrunculus.core.scheme.expression.SBoolean;
+import org.vetronauta.latrunculus.core.scheme.expression.SExpr;
+import org.vetronauta.latrunculus.core.scheme.expression.SType;
+import org.vetronauta.latrunculus.core.scheme.expression.Symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.vetronauta.latrunculus.core.scheme.expression.SExpr.car;
+import static org.vetronauta.latrunculus.core.scheme.expression.SExpr.cdr;
+import static org.vetronauta.latrunculus.core.scheme.expression.SVoid.SCHEME_VOID;
+
+/**
+ * Translates Scheme expressions into trees of {@link Node}s.
+ * Special forms are recognized and checked once, <code>let</code> and
+ * <code>let*</code> are compiled directly into frames, variables bound
+ * by enclosing lambda or let expressions are resolved to a frame depth
+ * and a slot index, and all other variables to binding cells of the environment.
+ * Internal definitions are allocated in the frame of the enclosing lambda or let.
+ *
+ * @author vetronauta
+ */
+final class Compiler {
+
+    private final Evaluator evaluator;
+    private final Env env;
+
+    Compiler(Evaluator evaluator, Env env) {
+        this.evaluator = evaluator;
+        this.env = env;
+    }
+
+
+    /**
+     * Compiles the toplevel expression <code>sexpr</code>.
+     */
+    Node compile(SExpr sexpr) {
+        return compile(sexpr, null);
+    }
+
+
+    /**
+     * Compiles the lambda expression with the given parameters and body
+     * at toplevel.
+     */
+    Node.Lambda compileLambda(SExpr params, SExpr body) {
+        return compileLambda(params, body, null);
+    }
+
+
+    private Node compile(SExpr sexpr, Scope scope) {
+        if (sexpr == null) {
+            throw evaluator.error("syntax error");
+        }
+        switch (sexpr.type()) {
+        case NULL:
+            throw evaluator.error("cannot evaluate ()");
+        case VOID:
+            throw evaluator.error("cannot evaluate void value");
+        case SYMBOL:
+            return compileRef((Symbol)sexpr, scope);
+        case CONS:
+            return compileCons(sexpr, scope);
+        default:
+            return new Node.Constant(sexpr);
+        }
+    }
+
+
+    private Node compileCons(SExpr sexpr, Scope scope) {
+        SExpr car = car(sexpr);
+        if (car == Token.QUOTE) {
+            if (cdr(sexpr).type() != SType.CONS) {
+                throw evaluator.error("quote: malformed expression");
+            }
+            return new Node.Constant(car(cdr(sexpr)));
+        }
+        else if (car == Token.COND) { return compileCond(sexpr, scope); }
+        else if (car == Token.IF) { return compileIf(sexpr, scope); }
+        else if (car == Token.DEFINE) { return compileDefine(sexpr, scope); }
+        else if (car == Token.SET) { return compileSet(sexpr, scope); }
+        else if (car == Token.LAMBDA) {
+            SExpr rest = cdr(sexpr);
+            if (rest.type() != SType.CONS || cdr(rest).type() != SType.CONS) {
+                throw evaluator.error("lambda: malformed expression");
+            }
+            return compileLambda(car(rest), cdr(rest), scope);
+        }
+        else if (car == Token.LET) { return compileLet(sexpr, scope, false); }
+        else if (car == Token.LET_STAR) { return compileLet(sexpr, scope, true); }
+        else if (car == Token.AND) {
+            Node[] nodes = compileList(cdr(sexpr), scope, "and");
+            return nodes.length == 0 ? new Node.Constant(SBoolean.TRUE) : new Node.And(nodes);
+        }
+        else if (car == Token.OR) {
+            Node[] nodes = compileList(cdr(sexpr), scope, "or");
+            return nodes.length == 0 ? new Node.Constant(SBoolean.FALSE) : new Node.Or(nodes);
+        }
+        else {
+            Node operator = compile(car, scope);
+            Node[] operands = compileList(cdr(sexpr), scope, "app");
+            return new Node.Application(operator, operands);
+        }
+    }
+
+
+    private Node compileRef(Symbol symbol, Scope scope) {
+        int depth = 0;
+        for (Scope s = scope; s != null; s = s.parent) {
+            int index = s.indexOf(symbol);
+            if (index >= 0) {
+                return depth == 0 ? new Node.LocalRef(index, symbol) : new Node.OuterRef(depth, index, symbol);
+            }
+            depth++;
+        }
+        return new Node.GlobalRef(env, symbol);
+    }
+
+
+    private Node compileIf(SExpr sexpr, Scope scope) {
+        SExpr rest = cdr(sexpr);
+        if (rest.type() != SType.CONS) {
+            throw evaluator.error("if: missing test expression");
+        }
+        if (cdr(rest).type() != SType.CONS) {
+            throw evaluator.error("if: missing true part");
+        }
+        Node test = compile(car(rest), scope);
+        Node consequent = compile(car(cdr(rest)), scope);
+        SExpr alternative = cdr(cdr(rest));
+        if (alternative.type() == SType.CONS) {
+            return new Node.If(test, consequent, compile(car(alternative), scope));
+        }
+        else {
+            return new Node.If(test, consequent, new Node.Constant(SCHEME_VOID));
+        }
+    }
+
+
+    private Node compileCond(SExpr sexpr, Scope scope) {
+        List<Node> tests = new ArrayList<>();
+        List<Node> bodies = new ArrayList<>();
+        for (SExpr clauses = cdr(sexpr); clauses.type() == SType.CONS; clauses = cdr(clauses)) {
+            SExpr clause = car(clauses);
+            if (clause.type() != SType.CONS) {
+                throw evaluator.error("cond: malformed clause %1", clause);
+            }
+            SExpr actions = cdr(clause);
+            if (car(clause) == Token.ELSE) {
+                tests.add(null);
+                bodies.add(compileSequence(actions, scope, "cond"));
+                break;
+            }
+            tests.add(compile(car(clause), scope));
+            bodies.add(actions.type() == SType.CONS ? compileSequence(actions, scope, "cond") : null);
+        }
+        return new Node.Cond(tests.toArray(new Node[0]), bodies.toArray(new Node[0]));
+    }
+
+
+    private Node compileDefine(SExpr sexpr, Scope scope) {
+        SExpr rest = cdr(sexpr);
+        if (rest.type() != SType.CONS) {
+            throw evaluator.error("define: no variable in define expression");
+        }
+        SExpr target = car(rest);
+        Symbol symbol;
+        Node value;
+        if (target.type() == SType.SYMBOL) {
+            // variable definition
+            symbol = (Symbol)target;
+            if (cdr(rest).type() != SType.CONS) {
+                throw evaluator.error("define: missing value for %1", symbol);
+            }
+            value = compile(car(cdr(rest)), scope);
+        }
+        else if (target.type() == SType.CONS && car(target).type() == SType.SYMBOL) {
+            // procedure definition
+            symbol = (Symbol)car(target);
+            if (cdr(rest).type() != SType.CONS) {
+                throw evaluator.error("lambda: malformed expression");
+            }
+            value = compileLambda(cdr(target), cdr(rest), scope);
+        }
+        else {
+            throw evaluator.error("define: no variable in define expression");
+        }
+        if (scope == null) {
+            return new Node.GlobalDefine(env, symbol, value);
+        }
+        int index = scope.indexOf(symbol);
+        if (index < 0) {
+            index = scope.add(symbol);
+        }
+        return new Node.LocalDefine(index, value);
+    }
+
+
+    private Node compileSet(SExpr sexpr, Scope scope) {
+        SExpr rest = cdr(sexpr);
+        if (rest.type() != SType.CONS || cdr(rest).type() != SType.CONS) {
+            throw evaluator.error("set!: wrong number of arguments");
+        }
+        if (car(rest).type() != SType.SYMBOL) {
+            throw evaluator.error("set!: expected variable, but got %1", car(rest));
+        }
+        Symbol symbol = (Symbol)car(rest);
+        Node value = compile(car(cdr(rest)), scope);
+        int depth = 0;
+        for (Scope s = scope; s != null; s = s.parent) {
+            int index = s.indexOf(symbol);
+            if (index >= 0) {
+                return new Node.LocalSet(depth, index, symbol, value);
+            }
+            depth++;
+        }
+        return new Node.GlobalSet(env, symbol, value);
+    }
+
+
+    private Node.Lambda compileLambda(SExpr params, SExpr body, Scope scope) {
+        Scope inner = new Scope(scope);
+        SExpr p = params;
+        while (p.type() == SType.CONS) {
+            if (car(p).type() != SType.SYMBOL) {
+                throw evaluator.error("lambda: malformed expression");
+            }
+            inner.add((Symbol)car(p));
+            p = cdr(p);
+        }
+        int required = inner.size();
+        boolean rest = false;
+        if (p.type() == SType.SYMBOL) {
+            inner.add((Symbol)p);
+            rest = true;
+        }
+        else if (p.type() != SType.NULL) {
+            throw evaluator.error("lambda: malformed expression");
+        }
+        Node.Lambda lambda = new Node.Lambda(params, body, required, rest, env);
+        lambda.body = compileBody(body, inner, "lambda");
+        lambda.frameSize = inner.size();
+        return lambda;
+    }
+
+
+    private Node compileLet(SExpr sexpr, Scope scope, boolean sequential) {
+        String name = sequential ? "let*" : "let";
+        SExpr rest = cdr(sexpr);
+        if (rest.type() != SType.CONS || !car(rest).isList() || cdr(rest).type() != SType.CONS) {
+            throw evaluator.error("%1: malformed expression", name);
+        }
+        Scope inner = new Scope(scope);
+        List<Node> inits = new ArrayList<>();
+        List<Symbol> symbols = new ArrayList<>();
+        for (SExpr bindings = car(rest); bindings.type() == SType.CONS; bindings = cdr(bindings)) {
+            SExpr binding = car(bindings);
+            if (binding.type() != SType.CONS || car(binding).type() != SType.SYMBOL || cdr(binding).type() != SType.CONS) {
+                throw evaluator.error("%1: malformed expression", name);
+            }
+            Symbol symbol = (Symbol)car(binding);
+            if (sequential) {
+                inits.add(compile(car(cdr(binding)), inner));
+                inner.add(symbol);
+            }
+            else {
+                inits.add(compile(car(cdr(binding)), scope));
+                symbols.add(symbol);
+            }
+        }
+        for (Symbol symbol : symbols) {
+            inner.add(symbol);
+        }
+        Node.Let let = new Node.Let(inits.toArray(new Node[0]), sequential);
+        let.body = compileBody(cdr(rest), inner, name);
+        let.frameSize = inner.size();
+        return let;
+    }
+
+
+    /**
+     * Compiles the body of a lambda or let, after allocating the
+     * internal definitions in the frame of <code>scope</code>.
+     */
+    private Node compileBody(SExpr body, Scope scope, String name) {
+        for (SExpr exps = body; exps.type() == SType.CONS; exps = cdr(exps)) {
+            collectDefinitions(car(exps), scope);
+        }
+        return compileSequence(body, scope, name);
+    }
+
+
+    /**
+     * Adds to <code>scope</code> the variables defined by <code>sexpr</code>
+     * without entering a new frame.
+     */
+    private void collectDefinitions(SExpr sexpr, Scope scope) {
+        if (sexpr.type() != SType.CONS) {
+            return;
+        }
+        SExpr car = car(sexpr);
+        if (car == Token.QUOTE || car == Token.LAMBDA) {
+            return;
+        }
+        if (car == Token.LET || car == Token.LET_STAR) {
+            // only the initial values are evaluated in the current frame
+            if (cdr(sexpr).type() == SType.CONS) {
+                for (SExpr bindings = car(cdr(sexpr)); bindings.type() == SType.CONS; bindings = cdr(bindings)) {
+                    if (car(bindings).type() == SType.CONS && cdr(car(bindings)).type() == SType.CONS) {
+                        collectDefinitions(car(cdr(car(bindings))), scope);
+                    }
+                }
+            }
+            return;
+        }
+        if (car == Token.DEFINE && cdr(sexpr).type() == SType.CONS) {
+            SExpr target = car(cdr(sexpr));
+            if (target.type() == SType.CONS) {
+                target = car(target);
+            }
+            if (target.type() == SType.SYMBOL && scope.indexOf((Symbol)target) < 0) {
+                scope.add((Symbol)target);
+            }
+        }
+        for (SExpr list = sexpr; list.type() == SType.CONS; list = cdr(list)) {
+            collectDefinitions(car(list), scope);
+        }
+    }
+
+
+    private Node compileSequence(SExpr exps, Scope scope, String name) {
+        Node[] nodes = compileList(exps, scope, name);
+        if (nodes.length == 0) {
+            throw evaluator.error("%1: malformed expression", name);
+        }
+        return nodes.length == 1 ? nodes[0] : new Node.Sequence(nodes);
+    }
+
+
+    /**
+     * Compiles the expressions of a proper list.
+     */
+    private Node[] compileList(SExpr exps, Scope scope, String name) {
+        List<Node> nodes = new ArrayList<>();
+        SExpr list = exps;
+        while (list.type() == SType.CONS) {
+            nodes.add(compile(car(list), scope));
+            list = cdr(list);
+        }
+        if (list.type() != SType.NULL) {
+            throw evaluator.error("%1: argument list malformed", name);
+        }
+        return nodes.toArray(new Node[0]);
+    }
+
+
+    /**
+     * The variables of a frame known at compile time.
+     */
+    private static final class Scope {
+
+        private final Scope parent;
+        private final List<Symbol> symbols = new ArrayList<>();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private int indexOf(Symbol symbol) {
+            return symbols.lastIndexOf(symbol);
+        }
+
+        private int add(Symbol symbol) {
+            symbols.add(symbol);
+            return symbols.size()-1;
+        }
+
+        private int size() {
+            return symbols.size();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.scheme;
+
+import org.vetronauta.latrunculus.core.scheme.expression.SExpr;
+
+/**
+ * The run-time frame of a procedure call or of a <code>let</code>.
+ * Local variables are stored in slots, addressed by the {@link Compiler}
+ * with the number of links to follow and the index in the frame.
+ * A null slot is a variable that has not been defined yet.
+ *
+ * @author vetronauta
+ */
+final class Frame {
+
+    final SExpr[] slots;
+    final Frame link;
+
+    Frame(SExpr[] slots, Frame link) {
+        this.slots = slots;
+        this.link = link;
+    }
+
+    Frame up(int depth) {
+        Frame frame = this;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.link;
+        }
+        return frame;
+    }
+
+}
@@ -0,0 +1,641 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.scheme;
+
+import org.vetronauta.latrunculus.core.scheme.expression.Env;
+import org.vetronauta.latrunculus.core.scheme.expression.SBoolean;
+import org.vetronauta.latrunculus.core.scheme.expression.SExpr;
+import org.vetronauta.latrunculus.core.scheme.expression.Symbol;
+
+import java.util.Arrays;
+
+import static org.vetronauta.latrunculus.core.scheme.expression.SNull.SCHEME_NULL;
+import static org.vetronauta.latrunculus.core.scheme.expression.SVoid.SCHEME_VOID;
+
+/**
+ * An executable node produced by the {@link Compiler} from a Scheme expression.
+ * Syntax dispatch, desugaring and variable resolution happen once at compile time,
+ * evaluation only executes the nodes.
+ * <p>
+ * Procedure calls do not nest on the Java stack: a node that needs the value
+ * of a call pushes itself on the continuation stack of the evaluator and
+ * returns null, after the call has been scheduled with {@link Evaluator#apply}.
+ * The node is then resumed with the value, so that the depth of recursion
+ * is only limited by the heap and tail calls do not grow the stack at all.
+ * The Java stack only grows with the nesting of the expressions.
+ *
+ * @author vetronauta
+ */
+abstract class Node {
+
+    /**
+     * True iff the node is evaluated without calling procedures,
+     * so that it never returns null.
+     */
+    final boolean simple;
+
+    Node(boolean simple) {
+        this.simple = simple;
+    }
+
+
+    /**
+     * Evaluates this node in <code>frame</code> and returns the value,
+     * or null if the evaluation continues on the evaluator.
+     */
+    abstract SExpr exec(Frame frame, Evaluator evaluator);
+
+
+    /**
+     * Continues the evaluation of this node with the <code>value</code> of the
+     * subnode it was waiting for, and with the state it has been pushed with.
+     * Returns the value of this node or null, as {@link #exec}.
+     */
+    SExpr resume(SExpr value, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+        throw new IllegalStateException();
+    }
+
+
+    /**
+     * Evaluates the subnode <code>node</code> in <code>frame</code> and returns its value.
+     * If the evaluation continues on the evaluator, this node is pushed to be
+     * resumed with the value and with the given state, and null is returned.
+     */
+    final SExpr eval(Node node, Frame frame, Evaluator evaluator, Frame state, int index, SExpr[] values, SExpr saved) {
+        if (node.simple) {
+            return node.exec(frame, evaluator);
+        }
+        evaluator.push(this, state, index, values, saved);
+        SExpr value = node.exec(frame, evaluator);
+        if (value != null) {
+            evaluator.pop();
+        }
+        return value;
+    }
+
+
+    /**
+     * Evaluates the subnode <code>node</code> in <code>frame</code>,
+     * this node is resumed with <code>frame</code>, if needed.
+     */
+    final SExpr eval(Node node, Frame frame, Evaluator evaluator, int index) {
+        return eval(node, frame, evaluator, frame, index, null, null);
+    }
+
+
+    static final class Constant extends Node {
+
+        private final SExpr value;
+
+        Constant(SExpr value) {
+            super(true);
+            this.value = value;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return value;
+        }
+    }
+
+
+    /**
+     * A variable of the innermost frame.
+     */
+    static final class LocalRef extends Node {
+
+        private final int index;
+        private final Symbol symbol;
+
+        LocalRef(int index, Symbol symbol) {
+            super(true);
+            this.index = index;
+            this.symbol = symbol;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr value = frame.slots[index];
+            if (value == null) {
+                throw evaluator.error("variable %%1 not defined", symbol);
+            }
+            return value;
+        }
+    }
+
+
+    /**
+     * A variable of an enclosing frame.
+     */
+    static final class OuterRef extends Node {
+
+        private final int depth;
+        private final int index;
+        private final Symbol symbol;
+
+        OuterRef(int depth, int index, Symbol symbol) {
+            super(true);
+            this.depth = depth;
+            this.index = index;
+            this.symbol = symbol;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr value = frame.up(depth).slots[index];
+            if (value == null) {
+                throw evaluator.error("variable %%1 not defined", symbol);
+            }
+            return value;
+        }
+    }
+
+
+    /**
+     * A variable of the environment. The binding cell is looked up once
+     * and reused until a new symbol is bound in some environment.
+     */
+    static final class GlobalRef extends Node {
+
+        private final Env env;
+        private final Symbol symbol;
+        private Cache cache;
+
+        GlobalRef(Env env, Symbol symbol) {
+            super(true);
+            this.env = env;
+            this.symbol = symbol;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            Cache current = cache;
+            int version = Env.getVersion();
+            if (current == null || current.version != version) {
+                Env.Binding binding = env.lookup(symbol);
+                if (binding == null) {
+                    throw evaluator.error("variable %%1 not defined", symbol);
+                }
+                current = new Cache(binding, version);
+                cache = current;
+            }
+            SExpr value = current.binding.getValue();
+            if (value == null) {
+                throw evaluator.error("variable %%1 not defined", symbol);
+            }
+            return value;
+        }
+
+        private static final class Cache {
+
+            private final Env.Binding binding;
+            private final int version;
+
+            private Cache(Env.Binding binding, int version) {
+                this.binding = binding;
+                this.version = version;
+            }
+        }
+    }
+
+
+    static final class LocalSet extends Node {
+
+        private final int depth;
+        private final int index;
+        private final Symbol symbol;
+        private final Node value;
+
+        LocalSet(int depth, int index, Symbol symbol, Node value) {
+            super(false);
+            this.depth = depth;
+            this.index = index;
+            this.symbol = symbol;
+            this.value = value;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr val = eval(value, frame, evaluator, 0);
+            return val == null ? null : set(val, frame, evaluator);
+        }
+
+        SExpr resume(SExpr val, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return set(val, frame, evaluator);
+        }
+
+        private SExpr set(SExpr val, Frame frame, Evaluator evaluator) {
+            SExpr[] slots = frame.up(depth).slots;
+            if (slots[index] == null) {
+                throw evaluator.error("set!: unbound variable %%1", symbol);
+            }
+            slots[index] = val;
+            return SCHEME_VOID;
+        }
+    }
+
+
+    static final class GlobalSet extends Node {
+
+        private final Env env;
+        private final Symbol symbol;
+        private final Node value;
+
+        GlobalSet(Env env, Symbol symbol, Node value) {
+            super(false);
+            this.env = env;
+            this.symbol = symbol;
+            this.value = value;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr val = eval(value, frame, evaluator, 0);
+            return val == null ? null : set(val, evaluator);
+        }
+
+        SExpr resume(SExpr val, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return set(val, evaluator);
+        }
+
+        private SExpr set(SExpr val, Evaluator evaluator) {
+            if (!env.set(symbol, val)) {
+                throw evaluator.error("set!: unbound variable %%1", symbol);
+            }
+            return SCHEME_VOID;
+        }
+    }
+
+
+    /**
+     * An internal definition, stored in the innermost frame.
+     */
+    static final class LocalDefine extends Node {
+
+        private final int index;
+        private final Node value;
+
+        LocalDefine(int index, Node value) {
+            super(false);
+            this.index = index;
+            this.value = value;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr val = eval(value, frame, evaluator, 0);
+            return val == null ? null : define(val, frame);
+        }
+
+        SExpr resume(SExpr val, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return define(val, frame);
+        }
+
+        private SExpr define(SExpr val, Frame frame) {
+            frame.slots[index] = val;
+            return SCHEME_VOID;
+        }
+    }
+
+
+    static final class GlobalDefine extends Node {
+
+        private final Env env;
+        private final Symbol symbol;
+        private final Node value;
+
+        GlobalDefine(Env env, Symbol symbol, Node value) {
+            super(false);
+            this.env = env;
+            this.symbol = symbol;
+            this.value = value;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr val = eval(value, frame, evaluator, 0);
+            return val == null ? null : define(val);
+        }
+
+        SExpr resume(SExpr val, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return define(val);
+        }
+
+        private SExpr define(SExpr val) {
+            env.put(symbol, val);
+            return SCHEME_VOID;
+        }
+    }
+
+
+    static final class If extends Node {
+
+        private final Node test;
+        private final Node consequent;
+        private final Node alternative;
+
+        If(Node test, Node consequent, Node alternative) {
+            super(false);
+            this.test = test;
+            this.consequent = consequent;
+            this.alternative = alternative;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr value = eval(test, frame, evaluator, 0);
+            return value == null ? null : branch(value, frame, evaluator);
+        }
+
+        SExpr resume(SExpr value, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return branch(value, frame, evaluator);
+        }
+
+        private SExpr branch(SExpr value, Frame frame, Evaluator evaluator) {
+            if (value == SBoolean.TRUE) {
+                return consequent.exec(frame, evaluator);
+            }
+            else {
+                return alternative.exec(frame, evaluator);
+            }
+        }
+    }
+
+
+    /**
+     * A <code>cond</code> expression; the test of an <code>else</code>
+     * clause is null, the body of a clause without actions is null.
+     */
+    static final class Cond extends Node {
+
+        private final Node[] tests;
+        private final Node[] bodies;
+
+        Cond(Node[] tests, Node[] bodies) {
+            super(false);
+            this.tests = tests;
+            this.bodies = bodies;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return clauses(frame, evaluator, 0);
+        }
+
+        SExpr resume(SExpr value, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            if (value == SBoolean.TRUE) {
+                return bodies[index] == null ? value : bodies[index].exec(frame, evaluator);
+            }
+            return clauses(frame, evaluator, index+1);
+        }
+
+        private SExpr clauses(Frame frame, Evaluator evaluator, int from) {
+            for (int i = from; i < tests.length; i++) {
+                if (tests[i] == null) {
+                    return bodies[i].exec(frame, evaluator);
+                }
+                SExpr value = eval(tests[i], frame, evaluator, i);
+                if (value == null) {
+                    return null;
+                }
+                if (value == SBoolean.TRUE) {
+                    return bodies[i] == null ? value : bodies[i].exec(frame, evaluator);
+                }
+            }
+            return SCHEME_NULL;
+        }
+    }
+
+
+    static final class And extends Node {
+
+        private final Node[] nodes;
+
+        And(Node[] nodes) {
+            super(false);
+            this.nodes = nodes;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return from(frame, evaluator, 0);
+        }
+
+        SExpr resume(SExpr value, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return value != SBoolean.TRUE ? value : from(frame, evaluator, index+1);
+        }
+
+        private SExpr from(Frame frame, Evaluator evaluator, int from) {
+            int last = nodes.length-1;
+            for (int i = from; i < last; i++) {
+                SExpr value = eval(nodes[i], frame, evaluator, i);
+                if (value != SBoolean.TRUE) {
+                    return value;
+                }
+            }
+            return nodes[last].exec(frame, evaluator);
+        }
+    }
+
+
+    static final class Or extends Node {
+
+        private final Node[] nodes;
+
+        Or(Node[] nodes) {
+            super(false);
+            this.nodes = nodes;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return from(frame, evaluator, 0);
+        }
+
+        SExpr resume(SExpr value, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return value == SBoolean.TRUE ? value : from(frame, evaluator, index+1);
+        }
+
+        private SExpr from(Frame frame, Evaluator evaluator, int from) {
+            int last = nodes.length-1;
+            for (int i = from; i < last; i++) {
+                SExpr value = eval(nodes[i], frame, evaluator, i);
+                if (value == null || value == SBoolean.TRUE) {
+                    return value;
+                }
+            }
+            return nodes[last].exec(frame, evaluator);
+        }
+    }
+
+
+    static final class Sequence extends Node {
+
+        private final Node[] nodes;
+
+        Sequence(Node[] nodes) {
+            super(false);
+            this.nodes = nodes;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return from(frame, evaluator, 0);
+        }
+
+        SExpr resume(SExpr value, Frame frame, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            return from(frame, evaluator, index+1);
+        }
+
+        private SExpr from(Frame frame, Evaluator evaluator, int from) {
+            int last = nodes.length-1;
+            for (int i = from; i < last; i++) {
+                if (eval(nodes[i], frame, evaluator, i) == null) {
+                    return null;
+                }
+            }
+            return nodes[last].exec(frame, evaluator);
+        }
+    }
+
+
+    /**
+     * A lambda expression. The parameters occupy the first slots of the
+     * frame, followed by the rest parameter, if any, and by the internal
+     * definitions of the body.
+     */
+    static final class Lambda extends Node {
+
+        final SExpr params;
+        final SExpr source;
+        final int required;
+        final boolean rest;
+        final Env env;
+        int frameSize;
+        Node body;
+
+        Lambda(SExpr params, SExpr source, int required, boolean rest, Env env) {
+            super(true);
+            this.params = params;
+            this.source = source;
+            this.required = required;
+            this.rest = rest;
+            this.env = env;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return new Closure(this, frame, env);
+        }
+
+        /**
+         * Creates the frame of a call with arguments <code>args</code>.
+         * The array <code>args</code> may become the slots of the frame.
+         */
+        Frame bind(Frame link, SExpr[] args, Evaluator evaluator) {
+            if (rest ? args.length < required : args.length != required) {
+                throw evaluator.error("app: cannot bind variables %1 to values %2", params, Evaluator.toList(args, 0));
+            }
+            SExpr[] slots;
+            if (rest) {
+                slots = Arrays.copyOf(args, frameSize);
+                slots[required] = Evaluator.toList(args, required);
+                Arrays.fill(slots, required+1, Math.min(args.length, frameSize), null);
+            }
+            else if (args.length == frameSize) {
+                slots = args;
+            }
+            else {
+                slots = Arrays.copyOf(args, frameSize);
+            }
+            return new Frame(slots, link);
+        }
+    }
+
+
+    /**
+     * A <code>let</code> or <code>let*</code> expression. The initial values
+     * of a <code>let</code> are evaluated in the enclosing frame, those of
+     * a <code>let*</code> in the new frame, each one seeing the previous ones.
+     */
+    static final class Let extends Node {
+
+        private final Node[] inits;
+        private final boolean sequential;
+        int frameSize;
+        Node body;
+
+        Let(Node[] inits, boolean sequential) {
+            super(false);
+            this.inits = inits;
+            this.sequential = sequential;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            return from(new Frame(new SExpr[frameSize], frame), evaluator, 0);
+        }
+
+        SExpr resume(SExpr value, Frame inner, int index, SExpr[] values, SExpr saved, Evaluator evaluator) {
+            inner.slots[index] = value;
+            return from(inner, evaluator, index+1);
+        }
+
+        private SExpr from(Frame inner, Evaluator evaluator, int from) {
+            Frame initFrame = sequential ? inner : inner.link;
+            for (int i = from; i < inits.length; i++) {
+                SExpr value = eval(inits[i], initFrame, evaluator, inner, i, null, null);
+                if (value == null) {
+                    return null;
+                }
+                inner.slots[i] = value;
+            }
+            return body.exec(inner, evaluator);
+        }
+    }
+
+
+    /**
+     * A procedure call. The operator is evaluated first, then the operands
+     * from left to right; while an operand is evaluated, the arguments
+     * evaluated so far and the procedure are kept with the continuation.
+     */
+    static final class Application extends Node {
+
+        private final Node operator;
+        private final Node[] operands;
+
+        Application(Node operator, Node[] operands) {
+            super(false);
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        SExpr exec(Frame frame, Evaluator evaluator) {
+            SExpr fun = eval(operator, frame, evaluator, -1);
+            return fun == null ? null : from(frame, evaluator, fun, new SExpr[operands.length], 0);
+        }
+
+        SExpr resume(SExpr value, Frame frame, int index, SExpr[] args, SExpr fun, Evaluator evaluator) {
+            if (index < 0) {
+                return from(frame, evaluator, value, new SExpr[operands.length], 0);
+            }
+            args[index] = value;
+            return from(frame, evaluator, fun, args, index+1);
+        }
+
+        private SExpr from(Frame frame, Evaluator evaluator, SExpr fun, SExpr[] args, int from) {
+            for (int i = from; i < args.length; i++) {
+                SExpr value = eval(operands[i], frame, evaluator, frame, i, args, fun);
+                if (value == null) {
+                    return null;
+                }
+                args[i] = value;
+            }
+            return evaluator.apply(fun, args);
+        }
+    }
+
+}
@@ -29,14 +29,19 @@ import org.vetronauta.latrunculus.core.scheme.primitive.StringPrimitives;
 import org.vetronauta.latrunculus.core.scheme.primitive.VectorPrimitives;
 
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The class representing Scheme environments. Environments
  * are linked as stacks. Searching for a symbol starts at top
  * environment and follows links until the ground environment
  * is reached.
+ * Each symbol is bound to a {@link Binding} cell, which compiled code
+ * may keep as long as the {@link #getVersion() version} does not change.
  * 
  * @author Gérard Milmeister
  */
@@ -79,7 +84,19 @@ public final class Env extends SExpr {
      * in this environment.
      */
     public void put(Symbol sym, SExpr sexpr) {
-        env.put(sym, sexpr);
+        Binding binding = env.get(sym);
+        if (binding == null) {
+            env.put(sym, new Binding(sexpr));
+            VERSION.incrementAndGet();
+        }
+        else if (binding.value == null) {
+            // the symbol was unbound here and may have been found further down
+            binding.value = sexpr;
+            VERSION.incrementAndGet();
+        }
+        else {
+            binding.value = sexpr;
+        }
     }
     
     
@@ -88,7 +105,7 @@ public final class Env extends SExpr {
      * to the expression <code>sexpr</code> in this environment.
      */
     public void put(String sym, SExpr expr) {
-        env.put(Symbol.make(sym), expr);
+        put(Symbol.make(sym), expr);
     }
     
     
@@ -98,11 +115,26 @@ public final class Env extends SExpr {
      * If there is no binding at all, returns null.
      */
     public SExpr get(Symbol sym) {
-        SExpr res = env.get(sym);
-        if (res == null && link != null) {
-            res = link.get(sym);
-        }
-        return res;
+        Binding binding = lookup(sym);
+        return binding == null ? null : binding.value;
+    }
+
+
+    /**
+     * Returns the binding cell of the symbol <code>sym</code>.
+     * If there is no binding in this environment, follows the link.
+     * If there is no binding at all, returns null.
+     */
+    public Binding lookup(Symbol sym) {
+        Env current = this;
+        do {
+            Binding binding = current.env.get(sym);
+            if (binding != null && binding.value != null) {
+                return binding;
+            }
+            current = current.link;
+        } while (current != null);
+        return null;
     }
     
     
@@ -114,13 +146,11 @@ public final class Env extends SExpr {
      * false is returned.
      */
     public boolean set(Symbol sym, SExpr expr) {
-        if (env.get(sym) != null) {
-            env.put(sym, expr);
+        Binding binding = lookup(sym);
+        if (binding != null) {
+            binding.value = expr;
             return true;
         }
-        else if (link != null) {
-            return link.set(sym, expr);
-        }
         else {
             return false;
         }
@@ -131,7 +161,24 @@ public final class Env extends SExpr {
      * Returns all bindings in this environment.
      */
     public Set<Entry<Symbol,SExpr>> getBindings() {
-        return env.entrySet();
+        Map<Symbol,SExpr> bindings = new LinkedHashMap<>();
+        for (Entry<Symbol,Binding> entry : env.entrySet()) {
+            if (entry.getValue().value != null) {
+                bindings.put(entry.getKey(), entry.getValue().value);
+            }
+        }
+        return bindings.entrySet();
+    }
+
+
+    /**
+     * Returns a counter that changes whenever a new symbol is bound
+     * in any environment. A binding cell returned by {@link #lookup}
+     * is still the one that would be found as long as the version
+     * has not changed.
+     */
+    public static int getVersion() {
+        return VERSION.get();
     }
     
 
@@ -158,7 +205,7 @@ public final class Env extends SExpr {
             return false;
         }
         if (vars.type() == SType.SYMBOL) {
-            env.put((Symbol)vars, vals);
+            put((Symbol)vars, vals);
             return true;
         }
         if (vals.type() == SType.NULL) {
@@ -204,9 +251,38 @@ public final class Env extends SExpr {
         return this == obj;
     }
     
-    private IdentityHashMap<Symbol,SExpr> env = new IdentityHashMap<Symbol,SExpr>();
+    private IdentityHashMap<Symbol,Binding> env = new IdentityHashMap<Symbol,Binding>();
     private Env link = null;
 
+    private static final AtomicInteger VERSION = new AtomicInteger();
+
+
+    /**
+     * A mutable cell holding the value bound to a symbol.
+     */
+    public static final class Binding {
+
+        private volatile SExpr value;
+
+        private Binding(SExpr value) {
+            this.value = value;
+        }
+
+        /**
+         * Returns the value bound to the symbol.
+         */
+        public SExpr getValue() {
+            return value;
+        }
+
+        /**
+         * Binds the symbol to <code>value</code>.
+         */
+        public void setValue(SExpr value) {
+            this.value = value;
+        }
+    }
+
 
     /**
      * Creates a ground environment containing bindings for
@@ -236,7 +312,8 @@ public final class Env extends SExpr {
      */
     public void resetGlobal() {
         link = null;
-        env = new IdentityHashMap<Symbol,SExpr>();
+        env = new IdentityHashMap<Symbol,Binding>();
+        VERSION.incrementAndGet();
         fillGlobalEnvironment();
     }
 
@@ -246,7 +323,8 @@ public final class Env extends SExpr {
      */
     public void resetStandard() {
         link = null;
-        env = new IdentityHashMap<Symbol,SExpr>();
+        env = new IdentityHashMap<Symbol,Binding>();
+        VERSION.incrementAndGet();
         fillGlobalEnvironment();
     }
 
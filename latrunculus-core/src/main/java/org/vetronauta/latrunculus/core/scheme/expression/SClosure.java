@@ -24,7 +24,7 @@ package org.vetronauta.latrunculus.core.scheme.expression;
  * 
  * @author Gérard Milmeister
  */
-public final class SClosure extends SExpr {
+public class SClosure extends SExpr {
 
     /**
      * Creates a closure with list of arguments <code>args</code>,
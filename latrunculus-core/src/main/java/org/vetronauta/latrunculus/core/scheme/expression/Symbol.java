@@ -19,7 +19,7 @@
 
 package org.vetronauta.latrunculus.core.scheme.expression;
 
-import java.util.HashMap;
+import org.vetronauta.latrunculus.core.util.Interner;
 
 /**
  * Class representing Scheme symbol values. Symbols are unique, i.e., there is always
@@ -33,13 +33,7 @@ public final class Symbol extends SExpr {
      * Creates a symbol with string representation <code>s</code>.
      */
     public static Symbol make(String s) {
-        Symbol sym = symtab.get(s);
-        if (sym == null) {
-            sym = new Symbol();
-            sym.name = s;
-            symtab.put(s, sym);
-        }
-        return sym;
+        return symtab.intern(s, Symbol::new);
     }
 
     
@@ -74,9 +68,11 @@ public final class Symbol extends SExpr {
         return this == obj;
     }
 
-    private Symbol() {}
+    private Symbol(String name) {
+        this.name = name;
+    }
 
-    private String name;    
-    
-    private static HashMap<String,Symbol> symtab = new HashMap<>(256);
+    private final String name;
+
+    private static final Interner<String,Symbol> symtab = Interner.weak();
 }
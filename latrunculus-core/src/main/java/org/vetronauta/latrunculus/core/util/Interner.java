@@ -0,0 +1,154 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A thread-safe table of unique values, for example symbols or names.
+ * For each key there is at most one live value at any time.
+ * Lookups do not lock; a missing value is created outside of the
+ * table, so the function creating it may itself intern other values,
+ * and if two threads create a value for the same key concurrently,
+ * only the first one stored is returned to both.
+ * <p>
+ * A weak interner does not prevent its values from being garbage collected:
+ * once a value is no longer referenced, the next request for its key
+ * creates a new one. The keys of a weak interner must not refer to the values.
+ *
+ * @author vetronauta
+ */
+public final class Interner<K,V> {
+
+    private final ConcurrentMap<K,Ref<K,V>> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> queue;
+
+    private Interner(boolean weak) {
+        queue = weak ? new ReferenceQueue<>() : null;
+    }
+
+    /**
+     * Creates an interner that keeps its values forever.
+     */
+    public static <K,V> Interner<K,V> strong() {
+        return new Interner<>(false);
+    }
+
+    /**
+     * Creates an interner that holds its values through weak references.
+     */
+    public static <K,V> Interner<K,V> weak() {
+        return new Interner<>(true);
+    }
+
+    /**
+     * Returns the value for <code>key</code>, or null if there is none.
+     */
+    public V get(K key) {
+        Ref<K,V> ref = table.get(key);
+        return ref == null ? null : ref.get();
+    }
+
+    /**
+     * Returns the value for <code>key</code>, creating it with <code>factory</code> if there is none.
+     * If <code>factory</code> returns null, nothing is stored and null is returned.
+     */
+    public V intern(K key, Function<? super K,? extends V> factory) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        expungeStaleEntries();
+        value = factory.apply(key);
+        if (value == null) {
+            return null;
+        }
+        Ref<K,V> newRef = makeRef(key, value);
+        while (true) {
+            Ref<K,V> ref = table.putIfAbsent(key, newRef);
+            if (ref == null) {
+                return value;
+            }
+            V existing = ref.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (table.replace(key, ref, newRef)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the table, including the keys
+     * whose values have been collected and not yet removed.
+     */
+    public int size() {
+        return table.size();
+    }
+
+    private Ref<K,V> makeRef(K key, V value) {
+        return queue == null ? new StrongRef<>(value) : new WeakRef<>(key, value, queue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expungeStaleEntries() {
+        if (queue == null) {
+            return;
+        }
+        WeakRef<K,V> ref;
+        while ((ref = (WeakRef<K,V>) queue.poll()) != null) {
+            table.remove(ref.key, ref);
+        }
+    }
+
+    private interface Ref<K,V> {
+        V get();
+    }
+
+    private static final class StrongRef<K,V> implements Ref<K,V> {
+
+        private final V value;
+
+        private StrongRef(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public V get() {
+            return value;
+        }
+    }
+
+    private static final class WeakRef<K,V> extends WeakReference<V> implements Ref<K,V> {
+
+        private final K key;
+
+        private WeakRef(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+}
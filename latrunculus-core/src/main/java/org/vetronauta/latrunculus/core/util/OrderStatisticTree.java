@@ -0,0 +1,664 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted set of distinct elements with access by position, implemented as a counted B+-tree.
+ * Insertion, removal, position of an element ({@link #indexOf(Comparable)}) and
+ * element at a position ({@link #get(int)}) take logarithmic time.
+ * The elements are stored in arrays in the leaves, which are linked for iteration.
+ * Two elements are considered equal if they compare to 0. This class is not thread-safe.
+ *
+ * @author vetronauta
+ */
+public final class OrderStatisticTree<E extends Comparable<? super E>> implements Iterable<E> {
+
+    private static final int MAX_COUNT = 64;
+    private static final int MIN_COUNT = MAX_COUNT/4;
+    private static final int BULK_COUNT = MAX_COUNT*3/4;
+
+    private Node root;
+    private boolean added;
+
+    /**
+     * Creates an empty tree.
+     */
+    public OrderStatisticTree() {
+        this.root = new Leaf();
+    }
+
+    /**
+     * Creates a tree from a list that is already sorted in strictly increasing order.
+     * The tree is built in linear time; the order is not checked,
+     * a list violating this contract results in a corrupted tree.
+     */
+    public static <E extends Comparable<? super E>> OrderStatisticTree<E> fromSorted(Collection<? extends E> sorted) {
+        OrderStatisticTree<E> tree = new OrderStatisticTree<>();
+        int n = sorted.size();
+        if (n == 0) {
+            return tree;
+        }
+        List<Node> level = new ArrayList<>(n/BULK_COUNT+1);
+        Iterator<? extends E> iterator = sorted.iterator();
+        int leafCount = (n+BULK_COUNT-1)/BULK_COUNT;
+        Leaf previous = null;
+        for (int k = 0, start = 0; k < leafCount; k++) {
+            int end = (int) ((long) n*(k+1)/leafCount);
+            Leaf leaf = new Leaf();
+            for (int i = start; i < end; i++) {
+                leaf.elements[i-start] = iterator.next();
+            }
+            leaf.count = leaf.size = end-start;
+            if (previous != null) {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level.add(leaf);
+            start = end;
+        }
+        while (level.size() > 1) {
+            int m = level.size();
+            int innerCount = (m+BULK_COUNT-1)/BULK_COUNT;
+            List<Node> parents = new ArrayList<>(innerCount);
+            for (int k = 0, start = 0; k < innerCount; k++) {
+                int end = (int) ((long) m*(k+1)/innerCount);
+                Inner inner = new Inner();
+                for (int i = start; i < end; i++) {
+                    inner.setChild(i-start, level.get(i), firstKey(level.get(i)));
+                    inner.size += inner.sizes[i-start];
+                }
+                inner.count = end-start;
+                parents.add(inner);
+                start = end;
+            }
+            level = parents;
+        }
+        tree.root = level.get(0);
+        return tree;
+    }
+
+    /**
+     * Creates a tree containing the elements of <code>elements</code>, in any order and possibly with duplicates.
+     */
+    public static <E extends Comparable<? super E>> OrderStatisticTree<E> of(Collection<? extends E> elements) {
+        List<E> list = new ArrayList<>(elements);
+        Collections.sort(list);
+        int count = 0;
+        for (E element : list) {
+            if (count == 0 || list.get(count-1).compareTo(element) != 0) {
+                list.set(count++, element);
+            }
+        }
+        return fromSorted(list.subList(0, count));
+    }
+
+    /**
+     * Returns the number of elements.
+     */
+    public int size() {
+        return root.size;
+    }
+
+    public boolean isEmpty() {
+        return root.size == 0;
+    }
+
+    /**
+     * Returns the element at position <code>index</code>.
+     *
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, root.size);
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int i = 0;
+            while (index >= inner.sizes[i]) {
+                index -= inner.sizes[i++];
+            }
+            node = inner.children[i];
+        }
+        return (E) ((Leaf) node).elements[index];
+    }
+
+    /**
+     * Returns the position of <code>element</code>, or -1 if it is not contained in the tree.
+     */
+    public int indexOf(E element) {
+        int index = locate(element);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the number of elements smaller than <code>element</code>.
+     * Together with {@link #iterator(int, int)}, this allows to iterate over a range of elements.
+     */
+    public int rank(E element) {
+        int index = locate(element);
+        return index >= 0 ? index : -index-1;
+    }
+
+    public boolean contains(E element) {
+        return locate(element) >= 0;
+    }
+
+    /**
+     * Returns the position of <code>element</code> if it is contained in the tree,
+     * otherwise (-(insertion point)-1), as in {@link java.util.Arrays#binarySearch(Object[], Object)}.
+     */
+    private int locate(E element) {
+        int rank = 0;
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int i = childIndex(inner, element);
+            for (int j = 0; j < i; j++) {
+                rank += inner.sizes[j];
+            }
+            node = inner.children[i];
+        }
+        int position = search((Leaf) node, element);
+        return position >= 0 ? rank+position : position-rank;
+    }
+
+    /**
+     * Adds <code>element</code>, if no equal element is already contained in the tree.
+     *
+     * @return true iff the element has been added
+     */
+    public boolean add(E element) {
+        added = false;
+        Node split = insert(root, element);
+        if (split != null) {
+            Inner newRoot = new Inner();
+            newRoot.setChild(0, root, firstKey(root));
+            newRoot.setChild(1, split, firstKey(split));
+            newRoot.count = 2;
+            newRoot.size = root.size+split.size;
+            root = newRoot;
+        }
+        return added;
+    }
+
+    /**
+     * Removes the element equal to <code>element</code>.
+     *
+     * @return true iff an element has been removed
+     */
+    public boolean remove(E element) {
+        return delete(element, -1) != null;
+    }
+
+    /**
+     * Removes the element at position <code>index</code>.
+     *
+     * @return the removed element
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public E removeAt(int index) {
+        checkIndex(index, root.size);
+        return (E) delete(null, index);
+    }
+
+    /**
+     * Returns an iterator over all the elements, in increasing order.
+     * The tree must not be modified during the iteration.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return iterator(0, root.size);
+    }
+
+    /**
+     * Returns an iterator over the elements from position <code>fromIndex</code> (inclusive)
+     * to <code>toIndex</code> (exclusive). The tree must not be modified during the iteration.
+     *
+     * @throws IndexOutOfBoundsException if the range is not valid
+     */
+    public Iterator<E> iterator(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > root.size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range ["+fromIndex+","+toIndex+") of size "+root.size);
+        }
+        if (fromIndex == toIndex) {
+            return Collections.emptyIterator();
+        }
+        Node node = root;
+        int offset = fromIndex;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int i = 0;
+            while (offset >= inner.sizes[i]) {
+                offset -= inner.sizes[i++];
+            }
+            node = inner.children[i];
+        }
+        return new LeafIterator<>((Leaf) node, offset, toIndex-fromIndex);
+    }
+
+    /**
+     * Returns a new list of all the elements, in increasing order.
+     */
+    public ArrayList<E> toList() {
+        ArrayList<E> list = new ArrayList<>(root.size);
+        for (E element : this) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    private Node insert(Node node, E element) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int position = search(leaf, element);
+            if (position >= 0) {
+                return null;
+            }
+            added = true;
+            position = -position-1;
+            Leaf right = null;
+            if (leaf.count == MAX_COUNT) {
+                right = leaf.split();
+                if (position > leaf.count) {
+                    right.insert(position-leaf.count, element);
+                    return right;
+                }
+            }
+            leaf.insert(position, element);
+            return right;
+        }
+        Inner inner = (Inner) node;
+        int i = childIndex(inner, element);
+        Node child = inner.children[i];
+        Node split = insert(child, element);
+        if (!added) {
+            return null;
+        }
+        inner.size++;
+        inner.sizes[i] = child.size;
+        if (split == null) {
+            return null;
+        }
+        // the elements of the split child are counted again when it is inserted
+        inner.size -= split.size;
+        Inner right = null;
+        if (inner.count == MAX_COUNT) {
+            right = inner.split();
+            if (i >= inner.count) {
+                right.insertChild(i+1-inner.count, split, firstKey(split));
+                return right;
+            }
+        }
+        inner.insertChild(i+1, split, firstKey(split));
+        return right;
+    }
+
+    /**
+     * Removes an element, either by value if <code>element</code> is not null, or by position.
+     * Returns the removed element, or null if there is none.
+     */
+    private Object delete(E element, int index) {
+        Object removed = delete(root, element, index);
+        if (root instanceof Inner && root.count == 1) {
+            root = ((Inner) root).children[0];
+        }
+        return removed;
+    }
+
+    private Object delete(Node node, E element, int index) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int position = element != null ? search(leaf, element) : index;
+            if (position < 0) {
+                return null;
+            }
+            return leaf.remove(position);
+        }
+        Inner inner = (Inner) node;
+        int i = 0;
+        if (element != null) {
+            i = childIndex(inner, element);
+        }
+        else {
+            while (index >= inner.sizes[i]) {
+                index -= inner.sizes[i++];
+            }
+        }
+        Node child = inner.children[i];
+        Object removed = delete(child, element, index);
+        if (removed == null) {
+            return null;
+        }
+        inner.size--;
+        inner.sizes[i] = child.size;
+        if (child.count < MIN_COUNT && inner.count > 1) {
+            rebalance(inner, i > 0 ? i-1 : i);
+        }
+        return removed;
+    }
+
+    /**
+     * Merges the children <code>l</code> and <code>l+1</code> of <code>parent</code>,
+     * or moves elements between them so that they are equally filled.
+     */
+    private static void rebalance(Inner parent, int l) {
+        Node left = parent.children[l];
+        Node right = parent.children[l+1];
+        if (left.count+right.count <= MAX_COUNT) {
+            if (left instanceof Leaf) {
+                ((Leaf) left).merge((Leaf) right);
+            }
+            else {
+                ((Inner) left).merge((Inner) right, parent.keys[l+1]);
+            }
+            parent.sizes[l] = left.size;
+            parent.removeChild(l+1);
+        }
+        else {
+            int target = (left.count+right.count)/2;
+            if (left instanceof Leaf) {
+                ((Leaf) left).redistribute((Leaf) right, target);
+                parent.keys[l+1] = ((Leaf) right).elements[0];
+            }
+            else {
+                parent.keys[l+1] = ((Inner) left).redistribute((Inner) right, target, parent.keys[l+1]);
+            }
+            parent.sizes[l] = left.size;
+            parent.sizes[l+1] = right.size;
+        }
+    }
+
+    /**
+     * Returns the index of the child of <code>inner</code> that may contain <code>element</code>,
+     * i.e., the last child whose key is not greater than <code>element</code>.
+     */
+    private static <E extends Comparable<? super E>> int childIndex(Inner inner, E element) {
+        int low = 1;
+        int high = inner.count-1;
+        while (low <= high) {
+            int mid = (low+high) >>> 1;
+            if (compare(element, inner.keys[mid]) < 0) {
+                high = mid-1;
+            }
+            else {
+                low = mid+1;
+            }
+        }
+        return high;
+    }
+
+    private static <E extends Comparable<? super E>> int search(Leaf leaf, E element) {
+        int low = 0;
+        int high = leaf.count-1;
+        while (low <= high) {
+            int mid = (low+high) >>> 1;
+            int c = compare(element, leaf.elements[mid]);
+            if (c > 0) {
+                low = mid+1;
+            }
+            else if (c < 0) {
+                high = mid-1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -low-1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Comparable<? super E>> int compare(E element, Object other) {
+        return element.compareTo((E) other);
+    }
+
+    /**
+     * Returns a lower bound of the elements of a subtree.
+     */
+    private static Object firstKey(Node node) {
+        return node instanceof Leaf ? ((Leaf) node).elements[0] : ((Inner) node).keys[0];
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+        }
+    }
+
+    private abstract static class Node {
+        // number of elements or children of this node
+        int count;
+        // number of elements in the subtree
+        int size;
+    }
+
+    private static final class Leaf extends Node {
+
+        final Object[] elements = new Object[MAX_COUNT];
+        Leaf next;
+
+        void insert(int position, Object element) {
+            System.arraycopy(elements, position, elements, position+1, count-position);
+            elements[position] = element;
+            count++;
+            size++;
+        }
+
+        Object remove(int position) {
+            Object removed = elements[position];
+            System.arraycopy(elements, position+1, elements, position, count-position-1);
+            elements[--count] = null;
+            size--;
+            return removed;
+        }
+
+        Leaf split() {
+            Leaf right = new Leaf();
+            int half = count/2;
+            right.count = right.size = count-half;
+            System.arraycopy(elements, half, right.elements, 0, right.count);
+            Arrays.fill(elements, half, count, null);
+            count = size = half;
+            right.next = next;
+            next = right;
+            return right;
+        }
+
+        void merge(Leaf right) {
+            System.arraycopy(right.elements, 0, elements, count, right.count);
+            count += right.count;
+            size = count;
+            next = right.next;
+        }
+
+        void redistribute(Leaf right, int target) {
+            if (count > target) {
+                int move = count-target;
+                System.arraycopy(right.elements, 0, right.elements, move, right.count);
+                System.arraycopy(elements, target, right.elements, 0, move);
+                Arrays.fill(elements, target, count, null);
+                right.count += move;
+            }
+            else {
+                int move = target-count;
+                System.arraycopy(right.elements, 0, elements, count, move);
+                System.arraycopy(right.elements, move, right.elements, 0, right.count-move);
+                Arrays.fill(right.elements, right.count-move, right.count, null);
+                right.count -= move;
+            }
+            count = size = target;
+            right.size = right.count;
+        }
+    }
+
+    private static final class Inner extends Node {
+
+        final Node[] children = new Node[MAX_COUNT];
+        // number of elements of each child
+        final int[] sizes = new int[MAX_COUNT];
+        // lower bound of the elements of each child, the first one is only used when the child is moved
+        final Object[] keys = new Object[MAX_COUNT];
+
+        void setChild(int i, Node child, Object key) {
+            children[i] = child;
+            sizes[i] = child.size;
+            keys[i] = key;
+        }
+
+        void insertChild(int i, Node child, Object key) {
+            System.arraycopy(children, i, children, i+1, count-i);
+            System.arraycopy(sizes, i, sizes, i+1, count-i);
+            System.arraycopy(keys, i, keys, i+1, count-i);
+            setChild(i, child, key);
+            count++;
+            size += child.size;
+        }
+
+        /**
+         * Removes the child at <code>i</code>, whose elements have been moved to its left sibling.
+         */
+        void removeChild(int i) {
+            System.arraycopy(children, i+1, children, i, count-i-1);
+            System.arraycopy(sizes, i+1, sizes, i, count-i-1);
+            System.arraycopy(keys, i+1, keys, i, count-i-1);
+            count--;
+            children[count] = null;
+            keys[count] = null;
+        }
+
+        Inner split() {
+            Inner right = new Inner();
+            int half = count/2;
+            right.count = count-half;
+            System.arraycopy(children, half, right.children, 0, right.count);
+            System.arraycopy(sizes, half, right.sizes, 0, right.count);
+            System.arraycopy(keys, half, right.keys, 0, right.count);
+            for (int i = 0; i < right.count; i++) {
+                right.size += right.sizes[i];
+            }
+            Arrays.fill(children, half, count, null);
+            Arrays.fill(keys, half, count, null);
+            count = half;
+            size -= right.size;
+            return right;
+        }
+
+        /**
+         * Appends the children of <code>right</code>, whose lower bound is <code>rightKey</code>.
+         */
+        void merge(Inner right, Object rightKey) {
+            System.arraycopy(right.children, 0, children, count, right.count);
+            System.arraycopy(right.sizes, 0, sizes, count, right.count);
+            System.arraycopy(right.keys, 0, keys, count, right.count);
+            keys[count] = rightKey;
+            count += right.count;
+            size += right.size;
+        }
+
+        /**
+         * Moves children between this node and <code>right</code>, whose lower bound is <code>rightKey</code>,
+         * so that this node has <code>target</code> children. Returns the new lower bound of <code>right</code>.
+         */
+        Object redistribute(Inner right, int target, Object rightKey) {
+            int moved = 0;
+            if (count > target) {
+                int move = count-target;
+                right.keys[0] = rightKey;
+                System.arraycopy(right.children, 0, right.children, move, right.count);
+                System.arraycopy(right.sizes, 0, right.sizes, move, right.count);
+                System.arraycopy(right.keys, 0, right.keys, move, right.count);
+                System.arraycopy(children, target, right.children, 0, move);
+                System.arraycopy(sizes, target, right.sizes, 0, move);
+                System.arraycopy(keys, target, right.keys, 0, move);
+                for (int i = target; i < count; i++) {
+                    moved += sizes[i];
+                }
+                Arrays.fill(children, target, count, null);
+                Arrays.fill(keys, target, count, null);
+                right.count += move;
+                size -= moved;
+                right.size += moved;
+            }
+            else {
+                int move = target-count;
+                System.arraycopy(right.children, 0, children, count, move);
+                System.arraycopy(right.sizes, 0, sizes, count, move);
+                System.arraycopy(right.keys, 0, keys, count, move);
+                keys[count] = rightKey;
+                for (int i = 0; i < move; i++) {
+                    moved += right.sizes[i];
+                }
+                int rest = right.count-move;
+                System.arraycopy(right.children, move, right.children, 0, rest);
+                System.arraycopy(right.sizes, move, right.sizes, 0, rest);
+                System.arraycopy(right.keys, move, right.keys, 0, rest);
+                Arrays.fill(right.children, rest, right.count, null);
+                Arrays.fill(right.keys, rest, right.count, null);
+                right.count = rest;
+                size += moved;
+                right.size -= moved;
+            }
+            count = target;
+            return right.keys[0];
+        }
+    }
+
+    private static final class LeafIterator<E> implements Iterator<E> {
+
+        private Leaf leaf;
+        private int offset;
+        private int remaining;
+
+        private LeafIterator(Leaf leaf, int offset, int remaining) {
+            this.leaf = leaf;
+            this.offset = offset;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            while (offset == leaf.count) {
+                leaf = leaf.next;
+                offset = 0;
+            }
+            remaining--;
+            return (E) leaf.elements[offset++];
+        }
+    }
+
+}
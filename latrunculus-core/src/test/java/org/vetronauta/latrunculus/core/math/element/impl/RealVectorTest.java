@@ -0,0 +1,53 @@
+package org.vetronauta.latrunculus.core.math.element.impl;
+
+import org.junit.jupiter.api.Test;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RealVectorTest {
+
+    @Test
+    void testEqualsAgreesWithGenericVector() {
+        double[][] pairs = {{0.0, -0.0}, {Double.NaN, Double.NaN}, {1.5, 1.5}, {1.5, 2.5}};
+        for (double[] pair : pairs) {
+            RealVector x = new RealVector(new double[]{pair[0], 3.0});
+            RealVector y = new RealVector(new double[]{pair[1], 3.0});
+            Vector<Real> genericX = generic(pair[0], 3.0);
+            Vector<Real> genericY = generic(pair[1], 3.0);
+            assertEquals(genericX.equals(genericY), x.equals(y));
+            assertEquals(genericX.equals(genericY), x.equals(genericY));
+            assertEquals(genericX.equals(genericY), genericX.equals(y));
+        }
+    }
+
+    @Test
+    void testSignedZeroAndNaN() {
+        assertTrue(new RealVector(new double[]{0.0}).equals(new RealVector(new double[]{-0.0})));
+        assertFalse(new RealVector(new double[]{Double.NaN}).equals(new RealVector(new double[]{Double.NaN})));
+        assertFalse(new RealVector(new double[]{1.0}).equals(new RealVector(new double[]{1.0, 0.0})));
+    }
+
+    @Test
+    void testHashCodeAgreesWithGenericVector() {
+        double[] values = {0.0, -0.0, 0.49, -2.5, 1e3};
+        RealVector x = new RealVector(values.clone());
+        assertEquals(generic(values).hashCode(), x.hashCode());
+        assertEquals(new RealVector(new double[]{0.0}).hashCode(), new RealVector(new double[]{-0.0}).hashCode());
+    }
+
+    private static Vector<Real> generic(double... values) {
+        List<Real> list = new ArrayList<>();
+        for (double v : values) {
+            list.add(new Real(v));
+        }
+        return new Vector<>(RRing.ring, list);
+    }
+
+}
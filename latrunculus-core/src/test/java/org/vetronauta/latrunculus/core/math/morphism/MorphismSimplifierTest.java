@@ -0,0 +1,186 @@
+package org.vetronauta.latrunculus.core.math.morphism;
+
+import org.junit.jupiter.api.Test;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.element.generic.PolynomialElement;
+import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
+import org.vetronauta.latrunculus.core.math.matrix.RMatrix;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineMultiMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineRingMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.endo.Endomorphism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MorphismSimplifierTest {
+
+    private static final int SAMPLES = 20;
+    // relative tolerance of the fused morphisms over R
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    void testFusedMorphismsAgreeOverZ() throws LatrunculusCheckedException {
+        Random random = new Random(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            AffineRingMorphism<ZInteger> f = new AffineRingMorphism<>(ZRing.ring, z(random), z(random));
+            AffineRingMorphism<ZInteger> g = new AffineRingMorphism<>(ZRing.ring, z(random), z(random));
+            ZInteger scalar = z(random);
+            int exp = 2 + random.nextInt(5);
+            for (int j = 0; j < SAMPLES; j++) {
+                ZInteger x = z(random);
+                assertEquals(f.map(g.map(x)), CompositionMorphism.make(f, g).map(x));
+                assertEquals(f.map(x).sum(g.map(x)), SumMorphism.make(f, g).map(x));
+                assertEquals(f.map(x).difference(g.map(x)), DifferenceMorphism.make(f, g).map(x));
+                assertEquals(f.map(x).scaled(scalar), ScaledMorphism.make(f, scalar).map(x));
+                assertEquals(iterate(f, exp, x), PowerMorphism.make(f, exp).map(x));
+            }
+        }
+    }
+
+    @Test
+    void testFusedMorphismsAgreeOverQ() throws LatrunculusCheckedException {
+        Random random = new Random(2);
+        for (int i = 0; i < SAMPLES; i++) {
+            AffineRingMorphism<Rational> f = new AffineRingMorphism<>(QRing.ring, q(random), q(random));
+            AffineRingMorphism<Rational> g = new AffineRingMorphism<>(QRing.ring, q(random), q(random));
+            Rational scalar = q(random);
+            int exp = 2 + random.nextInt(5);
+            for (int j = 0; j < SAMPLES; j++) {
+                Rational x = q(random);
+                assertEquals(f.map(g.map(x)), CompositionMorphism.make(f, g).map(x));
+                assertEquals(f.map(x).sum(g.map(x)), SumMorphism.make(f, g).map(x));
+                assertEquals(f.map(x).difference(g.map(x)), DifferenceMorphism.make(f, g).map(x));
+                assertEquals(f.map(x).scaled(scalar), ScaledMorphism.make(f, scalar).map(x));
+                assertEquals(iterate(f, exp, x), PowerMorphism.make(f, exp).map(x));
+            }
+        }
+    }
+
+    @Test
+    void testFusedMorphismsAgreeOverR() throws LatrunculusCheckedException {
+        Random random = new Random(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            AffineRingMorphism<Real> f = new AffineRingMorphism<>(RRing.ring, r(random), r(random));
+            AffineRingMorphism<Real> g = new AffineRingMorphism<>(RRing.ring, r(random), r(random));
+            Real scalar = r(random);
+            int exp = 2 + random.nextInt(5);
+            ModuleMorphism<Real,Real,Real,Real> composition = CompositionMorphism.make(f, g);
+            assertFalse(composition instanceof CompositionMorphism);
+            for (int j = 0; j < SAMPLES; j++) {
+                Real x = r(random);
+                assertClose(f.map(g.map(x)), composition.map(x));
+                assertClose(f.map(x).sum(g.map(x)), SumMorphism.make(f, g).map(x));
+                assertClose(f.map(x).difference(g.map(x)), DifferenceMorphism.make(f, g).map(x));
+                assertClose(f.map(x).scaled(scalar), ScaledMorphism.make(f, scalar).map(x));
+                assertClose(iterate(f, exp, x), PowerMorphism.make(f, exp).map(x));
+            }
+        }
+    }
+
+    @Test
+    void testFusedMultiMorphismsAgreeOverR() throws LatrunculusCheckedException {
+        Random random = new Random(4);
+        for (int i = 0; i < SAMPLES; i++) {
+            AffineMultiMorphism<Real> f = multi(random, 3, 2);
+            AffineMultiMorphism<Real> g = multi(random, 2, 3);
+            ModuleMorphism<Vector<Real>,Vector<Real>,Real,Real> composition = CompositionMorphism.make(f, g);
+            assertFalse(composition instanceof CompositionMorphism);
+            for (int j = 0; j < SAMPLES; j++) {
+                Vector<Real> x = vector(random, 2);
+                Vector<Real> expected = f.map(g.map(x));
+                Vector<Real> actual = composition.map(x);
+                for (int k = 0; k < expected.getLength(); k++) {
+                    assertClose(expected.getComponent(k), actual.getComponent(k));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSimplifyAgreesWithTree() throws LatrunculusCheckedException {
+        Random random = new Random(5);
+        // 1+X^2 cannot be fused, so that the tree keeps a composition
+        PolynomialMorphism<Rational> polynomial = new PolynomialMorphism<>(
+                new PolynomialElement<>("X", Arrays.asList(new Rational(1), new Rational(0), new Rational(1))));
+        for (int i = 0; i < SAMPLES; i++) {
+            AffineRingMorphism<Rational> f = new AffineRingMorphism<>(QRing.ring, q(random), q(random));
+            AffineRingMorphism<Rational> g = new AffineRingMorphism<>(QRing.ring, q(random), q(random));
+            ModuleMorphism<Rational,Rational,Rational,Rational> tree = SumMorphism.make(
+                    CompositionMorphism.make(f, CompositionMorphism.make(polynomial, g)),
+                    PowerMorphism.make(f, 3));
+            ModuleMorphism<Rational,Rational,Rational,Rational> simplified = MorphismSimplifier.simplify(tree);
+            for (int j = 0; j < SAMPLES; j++) {
+                Rational x = q(random);
+                Rational expected = f.map(polynomial.map(g.map(x))).sum(f.map(f.map(f.map(x))));
+                assertEquals(expected, tree.map(x));
+                assertEquals(expected, simplified.map(x));
+            }
+        }
+    }
+
+    @Test
+    void testSimplifyKeepsFusedMorphisms() throws LatrunculusCheckedException {
+        AffineRingMorphism<ZInteger> f = new AffineRingMorphism<>(ZRing.ring, new ZInteger(2), new ZInteger(1));
+        ModuleMorphism<ZInteger,ZInteger,ZInteger,ZInteger> fused = CompositionMorphism.make(f, f);
+        assertTrue(fused instanceof AffineRingMorphism);
+        assertEquals(fused, MorphismSimplifier.simplify(fused));
+        assertEquals(new AffineRingMorphism<>(ZRing.ring, new ZInteger(4), new ZInteger(3)), fused);
+    }
+
+    private static <R extends RingElement<R>> R iterate(Endomorphism<R,R> f, int exp, R x) throws LatrunculusCheckedException {
+        R y = x;
+        for (int i = 0; i < exp; i++) {
+            y = f.map(y);
+        }
+        return y;
+    }
+
+    private static void assertClose(Real expected, Real actual) {
+        double e = expected.doubleValue();
+        assertEquals(e, actual.doubleValue(), EPSILON*Math.max(1.0, Math.abs(e)));
+    }
+
+    private static AffineMultiMorphism<Real> multi(Random random, int cols, int rows) {
+        double[][] matrix = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                matrix[i][j] = random.nextDouble()*4-2;
+            }
+        }
+        return new AffineMultiMorphism<>(RRing.ring, new RMatrix(matrix), vector(random, rows));
+    }
+
+    private static Vector<Real> vector(Random random, int length) {
+        List<Real> list = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            list.add(r(random));
+        }
+        return new Vector<>(RRing.ring, list);
+    }
+
+    private static ZInteger z(Random random) {
+        return new ZInteger(random.nextInt(21)-10);
+    }
+
+    private static Rational q(Random random) {
+        return new Rational(random.nextInt(21)-10, 1+random.nextInt(6));
+    }
+
+    private static Real r(Random random) {
+        return new Real(random.nextDouble()*20-10);
+    }
+
+}
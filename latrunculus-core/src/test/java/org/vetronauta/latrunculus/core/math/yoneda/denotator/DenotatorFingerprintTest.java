@@ -0,0 +1,118 @@
+package org.vetronauta.latrunculus.core.math.yoneda.denotator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineRingMorphism;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.repository.Repository;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.vetronauta.latrunculus.core.logeo.DenoFactory.makeDenotator;
+
+class DenotatorFingerprintTest {
+
+    private Form scoreForm, noteForm, onsetForm, pitchForm, loudnessForm, durationForm, voiceForm;
+
+    @BeforeEach
+    void setUp() {
+        Repository repository = Repository.systemRepository();
+        scoreForm = repository.getForm("Score");
+        noteForm = repository.getForm("Note");
+        onsetForm = repository.getForm("Onset");
+        pitchForm = repository.getForm("Pitch");
+        loudnessForm = repository.getForm("Loudness");
+        durationForm = repository.getForm("Duration");
+        voiceForm = repository.getForm("Voice");
+    }
+
+    @Test
+    void testModifiedFactorInvalidatesParents() throws LatrunculusCheckedException {
+        LimitDenotator note = note(0);
+        Denotator score = makeDenotator(scoreForm, note);
+        Denotator otherScore = makeDenotator(scoreForm, note);
+        long before = score.getFingerprint();
+        assertEquals(before, otherScore.getFingerprint());
+
+        note.setFactor(0, makeDenotator(onsetForm, 3.0));
+        Denotator expected = makeDenotator(scoreForm, note(3));
+        assertNotEquals(before, score.getFingerprint());
+        assertEquals(expected.getFingerprint(), score.getFingerprint());
+        assertEquals(expected.getFingerprint(), otherScore.getFingerprint());
+        assertEquals(expected.hashCode(), score.hashCode());
+        assertEquals(expected, score);
+    }
+
+    @Test
+    void testRepeatedModifications() throws LatrunculusCheckedException {
+        LimitDenotator note = note(0);
+        Denotator score = makeDenotator(scoreForm, note);
+        for (int i = 1; i < 10; i++) {
+            score.getFingerprint();
+            note.setFactor(0, makeDenotator(onsetForm, (double) i));
+            assertEquals(makeDenotator(scoreForm, note(i)).getFingerprint(), score.getFingerprint());
+        }
+    }
+
+    @Test
+    void testUnrelatedModificationKeepsFingerprint() throws LatrunculusCheckedException {
+        Denotator score = makeDenotator(scoreForm, note(0));
+        long before = score.getFingerprint();
+        LimitDenotator unrelated = note(1);
+        makeDenotator(scoreForm, unrelated).getFingerprint();
+        unrelated.setFactor(0, makeDenotator(onsetForm, 2.0));
+        assertEquals(before, score.getFingerprint());
+    }
+
+    @Test
+    void testModifiedFactorOfScoreTable() throws LatrunculusCheckedException {
+        Denotator score = makeDenotator(scoreForm, note(0), note(1));
+        PowerDenotator tableScore = PowerDenotator.fromScoreTable(null, ScoreTable.of((PowerDenotator) score));
+        long before = tableScore.getFingerprint();
+        assertEquals(score.getFingerprint(), before);
+
+        // the factors are created from the table, then one of them is changed in place
+        LimitDenotator note = (LimitDenotator) tableScore.getFactor(0);
+        assertEquals(before, tableScore.getFingerprint());
+        note.setFactor(0, makeDenotator(onsetForm, 0.5));
+        Denotator expected = makeDenotator(scoreForm, note(0.5), note(1));
+        assertNotEquals(before, tableScore.getFingerprint());
+        assertEquals(expected.getFingerprint(), tableScore.getFingerprint());
+        assertEquals(expected.hashCode(), tableScore.hashCode());
+        assertEquals(expected, tableScore);
+    }
+
+    @Test
+    void testRenameInvalidates() {
+        Denotator onset = makeDenotator(onsetForm, 1.0);
+        long before = onset.getFingerprint();
+        onset.setName(NameDenotator.make("renamed"));
+        assertNotEquals(before, onset.getFingerprint());
+        assertEquals(makeDenotator("renamed", onsetForm, 1.0).getFingerprint(), onset.getFingerprint());
+    }
+
+    @Test
+    void testNonConstantSimpleDenotators() {
+        SimpleDenotator a = makeDenotator(onsetForm, new AffineRingMorphism<>(RRing.ring, new Real(1), new Real(1)));
+        SimpleDenotator b = makeDenotator(onsetForm, new AffineRingMorphism<>(RRing.ring, new Real(1), new Real(2)));
+        SimpleDenotator c = makeDenotator(onsetForm, new AffineRingMorphism<>(RRing.ring, new Real(1), new Real(1)));
+        assertFalse(a.equals(b));
+        assertNotEquals(a.getFingerprint(), b.getFingerprint());
+        assertEquals(a, c);
+        assertEquals(a.getFingerprint(), c.getFingerprint());
+    }
+
+    private LimitDenotator note(double onset) {
+        return (LimitDenotator) makeDenotator(noteForm, Arrays.asList(makeDenotator(onsetForm, onset),
+                makeDenotator(pitchForm, new Rational(60)), makeDenotator(loudnessForm, 120),
+                makeDenotator(durationForm, 1.0), makeDenotator(voiceForm, 0)));
+    }
+
+}
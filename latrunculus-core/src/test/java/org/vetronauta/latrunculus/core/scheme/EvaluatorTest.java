@@ -0,0 +1,92 @@
+package org.vetronauta.latrunculus.core.scheme;
+
+import org.junit.jupiter.api.Test;
+import org.vetronauta.latrunculus.core.scheme.expression.Env;
+import org.vetronauta.latrunculus.core.scheme.expression.SBoolean;
+import org.vetronauta.latrunculus.core.scheme.expression.SExpr;
+import org.vetronauta.latrunculus.core.scheme.expression.SInteger;
+import org.vetronauta.latrunculus.core.scheme.primitive.Primitive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvaluatorTest {
+
+    @Test
+    void testMutualRecursion() {
+        Evaluator evaluator = new Evaluator();
+        eval(evaluator, "(define (my-even? n) (if (= n 0) #t (my-odd? (- n 1))))");
+        eval(evaluator, "(define (my-odd? n) (if (= n 0) #f (my-even? (- n 1))))");
+        // tail calls do not nest
+        assertEquals(SBoolean.TRUE, eval(evaluator, "(my-even? 1000000)"));
+        assertEquals(SBoolean.FALSE, eval(evaluator, "(my-odd? 1000000)"));
+        eval(evaluator, "(define (count-a n) (if (= n 0) 0 (+ 1 (count-b (- n 1)))))");
+        eval(evaluator, "(define (count-b n) (if (= n 0) 0 (+ 1 (count-a (- n 1)))))");
+        assertEquals(new SInteger(100001), eval(evaluator, "(count-a 100001)"));
+    }
+
+    @Test
+    void testRedefinitionIsSeenByCompiledReferences() {
+        Evaluator evaluator = new Evaluator();
+        eval(evaluator, "(define (f) 1)");
+        eval(evaluator, "(define (g) (f))");
+        assertEquals(new SInteger(1), eval(evaluator, "(g)"));
+        eval(evaluator, "(define (f) 2)");
+        assertEquals(new SInteger(2), eval(evaluator, "(g)"));
+        eval(evaluator, "(set! f (lambda () 3))");
+        assertEquals(new SInteger(3), eval(evaluator, "(g)"));
+        // a redefinition during the evaluation of the same expression
+        assertEquals(new SInteger(4), eval(evaluator, "(let ((unused (set! f (lambda () 4)))) (g))"));
+        eval(evaluator, "(define x 5)");
+        eval(evaluator, "(define (get-x) x)");
+        eval(evaluator, "(define x 6)");
+        assertEquals(new SInteger(6), eval(evaluator, "(get-x)"));
+    }
+
+    @Test
+    void testDeepRecursion() {
+        Evaluator evaluator = new Evaluator();
+        eval(evaluator, "(define (count n) (if (= n 0) 0 (+ 1 (count (- n 1)))))");
+        // the depth is only limited by the heap
+        assertEquals(new SInteger(1000000), eval(evaluator, "(count 1000000)"));
+        assertEquals(new SInteger(1000), eval(evaluator, "(count 1000)"));
+        eval(evaluator, "(define (build n) (if (= n 0) '() (cons n (build (- n 1)))))");
+        assertEquals(new SInteger(50000), eval(evaluator, "(length (map (lambda (x) (+ x 1)) (build 50000)))"));
+        eval(evaluator, "(define (sum l) (if (null? l) 0 (+ (car l) (sum (cdr l)))))");
+        assertEquals(new SInteger(200010000), eval(evaluator, "(sum (map count (build 20000)))"));
+    }
+
+    @Test
+    void testPrimitivesRunOnCallingThread() {
+        Env env = Env.makeGlobalEnvironment();
+        Thread thread = Thread.currentThread();
+        env.addPrimitive(new Primitive() {
+            public String getName() { return "on-calling-thread?"; }
+            public SExpr call(SExpr args, Evaluator eval) {
+                return SBoolean.make(Thread.currentThread() == thread);
+            }
+        });
+        Evaluator evaluator = new Evaluator(env);
+        eval(evaluator, "(define (deep n) (if (= n 0) (on-calling-thread?) (if (deep (- n 1)) #t #f)))");
+        assertEquals(SBoolean.TRUE, eval(evaluator, "(deep 100000)"));
+    }
+
+    @Test
+    void testErrorInDeepRecursion() {
+        Evaluator evaluator = new Evaluator();
+        eval(evaluator, "(define (count n) (if (= n 0) (car '()) (+ 1 (count (- n 1)))))");
+        evaluator.eval("(count 100000)");
+        assertTrue(evaluator.hasErrors());
+        // the evaluator remains usable
+        eval(evaluator, "(define (count n) (if (= n 0) 0 (+ 1 (count (- n 1)))))");
+        assertEquals(new SInteger(1000), eval(evaluator, "(count 1000)"));
+    }
+
+    private static SExpr eval(Evaluator evaluator, String code) {
+        SExpr res = evaluator.eval(code);
+        assertFalse(evaluator.hasErrors(), String.valueOf(evaluator.getErrors()));
+        return res;
+    }
+
+}
@@ -0,0 +1,177 @@
+package org.vetronauta.latrunculus.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the tree with a sorted list, under random insertions and removals.
+ * With more than 64*64 elements, the tree has three levels, so that leaves and
+ * inner nodes are split, merged and redistributed.
+ */
+class OrderStatisticTreeTest {
+
+    @Test
+    void testRandomInsertionsAndRemovals() {
+        Random random = new Random(1);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        List<Integer> oracle = new ArrayList<>();
+        // grow to about 10000 elements, then shrink to empty
+        for (int step = 0; step < 40000; step++) {
+            boolean grow = step < 20000 ? random.nextInt(4) != 0 : random.nextInt(4) == 0;
+            int key = random.nextInt(20000);
+            if (grow) {
+                assertEquals(addTo(oracle, key), tree.add(key));
+            }
+            else if (random.nextBoolean() || oracle.isEmpty()) {
+                assertEquals(removeFrom(oracle, key), tree.remove(key));
+            }
+            else {
+                int index = random.nextInt(oracle.size());
+                assertEquals(oracle.remove(index), tree.removeAt(index));
+            }
+            checkQueries(tree, oracle, random);
+            if (step % 500 == 0) {
+                checkAll(tree, oracle);
+            }
+        }
+        while (!oracle.isEmpty()) {
+            int index = random.nextInt(oracle.size());
+            assertEquals(oracle.remove(index), tree.removeAt(index));
+        }
+        checkAll(tree, oracle);
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void testAscendingAndDescendingRuns() {
+        // runs always split and merge the same border nodes
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        List<Integer> oracle = new ArrayList<>();
+        for (int i = 0; i < 6000; i++) {
+            assertTrue(tree.add(i));
+            oracle.add(i);
+        }
+        for (int i = -1; i >= -6000; i--) {
+            assertTrue(tree.add(i));
+            oracle.add(0, i);
+        }
+        checkAll(tree, oracle);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(oracle.remove(0), tree.removeAt(0));
+            assertEquals(oracle.remove(oracle.size()-1), tree.removeAt(tree.size()-1));
+        }
+        checkAll(tree, oracle);
+        for (int i = 0; i < 1000; i++) {
+            // remove from the middle, where the nodes are merged with both neighbours
+            int index = oracle.size()/2;
+            assertTrue(tree.remove(oracle.remove(index)));
+        }
+        checkAll(tree, oracle);
+    }
+
+    @Test
+    void testBulkConstruction() {
+        Random random = new Random(2);
+        for (int n : new int[]{0, 1, 47, 48, 49, 64, 65, 3000, 20000}) {
+            TreeSet<Integer> set = new TreeSet<>();
+            List<Integer> elements = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                int key = random.nextInt(3*n+1);
+                elements.add(key);
+                set.add(key);
+            }
+            List<Integer> oracle = new ArrayList<>(set);
+            checkAll(OrderStatisticTree.of(elements), oracle);
+            OrderStatisticTree<Integer> tree = OrderStatisticTree.fromSorted(oracle);
+            checkAll(tree, oracle);
+            // the bulk loaded nodes must be split and merged like the others
+            for (int step = 0; step < 2*n; step++) {
+                int key = random.nextInt(3*n+1);
+                if (random.nextBoolean()) {
+                    assertEquals(addTo(oracle, key), tree.add(key));
+                }
+                else {
+                    assertEquals(removeFrom(oracle, key), tree.remove(key));
+                }
+            }
+            checkAll(tree, oracle);
+        }
+    }
+
+    @Test
+    void testInvalidIndices() {
+        OrderStatisticTree<Integer> tree = OrderStatisticTree.of(Collections.singletonList(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.removeAt(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.iterator(0, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.iterator(1, 0));
+        assertFalse(tree.iterator(1, 1).hasNext());
+    }
+
+    private static boolean addTo(List<Integer> oracle, int key) {
+        int index = Collections.binarySearch(oracle, key);
+        if (index >= 0) {
+            return false;
+        }
+        oracle.add(-index-1, key);
+        return true;
+    }
+
+    private static boolean removeFrom(List<Integer> oracle, int key) {
+        int index = Collections.binarySearch(oracle, key);
+        if (index < 0) {
+            return false;
+        }
+        oracle.remove(index);
+        return true;
+    }
+
+    /**
+     * Checks size, select, rank and range iteration at a few random positions.
+     */
+    private static void checkQueries(OrderStatisticTree<Integer> tree, List<Integer> oracle, Random random) {
+        assertEquals(oracle.size(), tree.size());
+        if (oracle.isEmpty()) {
+            return;
+        }
+        int index = random.nextInt(oracle.size());
+        assertEquals(oracle.get(index), tree.get(index));
+        assertEquals(index, tree.indexOf(oracle.get(index)));
+        int key = random.nextInt(20000);
+        int position = Collections.binarySearch(oracle, key);
+        assertEquals(position >= 0, tree.contains(key));
+        assertEquals(position >= 0 ? position : -1, tree.indexOf(key));
+        assertEquals(position >= 0 ? position : -position-1, tree.rank(key));
+        int from = random.nextInt(oracle.size());
+        int to = Math.min(oracle.size(), from+random.nextInt(200));
+        Iterator<Integer> iterator = tree.iterator(from, to);
+        for (int i = from; i < to; i++) {
+            assertEquals(oracle.get(i), iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    private static void checkAll(OrderStatisticTree<Integer> tree, List<Integer> oracle) {
+        assertEquals(oracle.size(), tree.size());
+        assertEquals(oracle.isEmpty(), tree.isEmpty());
+        assertEquals(oracle, tree.toList());
+        for (int i = 0; i < oracle.size(); i++) {
+            assertEquals(oracle.get(i), tree.get(i));
+            assertEquals(i, tree.indexOf(oracle.get(i)));
+            assertEquals(i, tree.rank(oracle.get(i)));
+        }
+    }
+
+}
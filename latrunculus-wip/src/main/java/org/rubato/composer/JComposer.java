@@ -53,6 +53,9 @@ import org.rubato.composer.rubette.JRubette;
 import org.vetronauta.latrunculus.plugin.base.PluginNode;
 import org.rubato.rubettes.builtin.MacroRubette;
 import org.vetronauta.latrunculus.core.util.TextUtils;
+import org.vetronauta.latrunculus.server.binary.BinaryReader;
+import org.vetronauta.latrunculus.server.binary.BinaryWriter;
+import org.vetronauta.latrunculus.server.binary.RepositoryBinaryWriter;
 import org.vetronauta.latrunculus.server.xml.XMLReader;
 import org.vetronauta.latrunculus.server.xml.XMLWriter;
 import org.vetronauta.latrunculus.server.xml.writer.RepositoryXmlWriter;
@@ -223,6 +226,11 @@ public class JComposer extends JFrame implements Observer {
         fileMenu.add(saveasItem);
         allActions.add(saveasAction);
 
+        JMenuItem exportItem = new JMenuItem(exportAction);
+        exportItem.setMnemonic(KeyEvent.VK_E);
+        fileMenu.add(exportItem);
+        allActions.add(exportAction);
+
         fileMenu.addSeparator();
         
         JMenu recentFilesItem = new JMenu("Recent Files");
@@ -654,26 +662,31 @@ public class JComposer extends JFrame implements Observer {
             else {
                 discardProject();
 
-                // add Scheme code
-                rep.setSchemeCode(reader.getSchemeCode());
-                
-                // register all parsed modules
-                for (String name : reader.getModuleNames()) {
-                    rep.registerModule(name, reader.getModule(name));
-                }
-                
-                // register all parsed module elements
-                for (String name : reader.getModuleElementNames()) {
-                    rep.registerModuleElement(name, reader.getModuleElement(name));
-                }
-                
-                // register all parsed module morphisms
-                for (String name : reader.getModuleMorphismNames()) {
-                    rep.registerModuleMorphism(name, reader.getModuleMorphism(name));
-                }
-                
-                // register all parsed denotators and forms
-                if (!rep.register(reader.getForms(), reader.getDenotators())) {
+                // register all parsed definitions as a single change
+                boolean[] registered = new boolean[1];
+                rep.batch(() -> {
+                    // add Scheme code
+                    rep.setSchemeCode(reader.getSchemeCode());
+
+                    // register all parsed modules
+                    for (String name : reader.getModuleNames()) {
+                        rep.registerModule(name, reader.getModule(name));
+                    }
+
+                    // register all parsed module elements
+                    for (String name : reader.getModuleElementNames()) {
+                        rep.registerModuleElement(name, reader.getModuleElement(name));
+                    }
+
+                    // register all parsed module morphisms
+                    for (String name : reader.getModuleMorphismNames()) {
+                        rep.registerModuleMorphism(name, reader.getModuleMorphism(name));
+                    }
+
+                    // register all parsed denotators and forms
+                    registered[0] = rep.register(reader.getForms(), reader.getDenotators());
+                });
+                if (!registered[0]) {
                     setStatusError(ComposerMessages.getString("JComposer.couldnotregister"));
                     return;
                 }
@@ -718,6 +731,8 @@ public class JComposer extends JFrame implements Observer {
     
     /**
      * Adds definitions (rubettes, networks, denotators, forms) from file.
+     * The file is either an XML file or a binary file written by
+     * {@link #exportDefinitions()}.
      * Prompts the user for the file to load.
      */
     protected void addDefinitions() {
@@ -728,6 +743,16 @@ public class JComposer extends JFrame implements Observer {
         int res = fileChooser.showOpenDialog(this);
         if (res == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
+            try {
+                if (BinaryReader.isBinaryFile(selectedFile.toPath())) {
+                    addBinaryDefinitions(selectedFile);
+                    return;
+                }
+            }
+            catch (IOException e) {
+                setStatusError(ComposerMessages.getString("JComposer.filenotfound"), selectedFile.getName());
+                return;
+            }
             try {
                 // parse the XML file
                 Reader r = new FileReader(selectedFile);
@@ -768,6 +793,55 @@ public class JComposer extends JFrame implements Observer {
             }
         }
     }
+
+
+    /**
+     * Adds the modules, module elements, module morphisms, forms and
+     * denotators of a binary file.
+     */
+    private void addBinaryDefinitions(File file) {
+        BinaryReader reader = null;
+        try {
+            reader = BinaryReader.open(file.toPath());
+            reader.read();
+        }
+        catch (IOException e) {
+            setStatusError(e.getMessage());
+            showErrorDialog(ComposerMessages.getString("JComposer.couldnotloadfile"), file.getName());
+            return;
+        }
+        finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                }
+                catch (IOException e) {
+                    /* do nothing */
+                }
+            }
+        }
+        BinaryReader definitions = reader;
+        boolean[] registered = new boolean[1];
+        rep.batch(() -> {
+            for (String name : definitions.getModules().keySet()) {
+                rep.registerModule(name, definitions.getModule(name));
+            }
+            for (String name : definitions.getModuleElementNames()) {
+                rep.registerModuleElement(name, definitions.getModuleElement(name));
+            }
+            for (String name : definitions.getModuleMorphismNames()) {
+                rep.registerModuleMorphism(name, definitions.getModuleMorphism(name));
+            }
+            registered[0] = rep.register(definitions.getForms(), definitions.getDenotators());
+        });
+        if (!registered[0]) {
+            setStatusError(ComposerMessages.getString("JComposer.couldnotregister"));
+            return;
+        }
+        setCurrentDirectory(fileChooser.getCurrentDirectory());
+        setChanged(true);
+        setStatusInfo(ComposerMessages.getString("JComposer.definitionsloaded"), file.getName());
+    }
     
     
     /**
@@ -853,6 +927,46 @@ public class JComposer extends JFrame implements Observer {
             save();
         }
     }
+
+
+    /**
+     * Exports the user defined modules, module elements, module morphisms,
+     * forms, denotators and Scheme code to a binary file, which is much
+     * smaller and faster to load than XML for large scores. The file can be
+     * added to a project with {@link #addDefinitions()}. Networks and rubettes
+     * are not exported, they are only saved with the project.
+     * Prompts the user for the file to write.
+     */
+    protected void exportDefinitions() {
+        if (fileChooser == null) {
+            createFileChooser();
+        }
+        fileChooser.setCurrentDirectory(getCurrentDirectory());
+        int res = fileChooser.showSaveDialog(this);
+        if (res == JFileChooser.APPROVE_OPTION) {
+            File selectedFile = fileChooser.getSelectedFile();
+            if (!selectedFile.getName().endsWith(DOT_BINARY_EXTENSION)) {
+                selectedFile = new File(selectedFile.getAbsolutePath()+DOT_BINARY_EXTENSION);
+            }
+            if (selectedFile.exists()) {
+                String text = TextUtils.replaceStrings(ComposerMessages.getString("JComposer.wantoverwrite"), selectedFile.getName());
+                int i = JOptionPane.showConfirmDialog(this, text); 
+                if (i != JOptionPane.OK_OPTION) {
+                    return;
+                }
+            }
+            try (BinaryWriter writer = BinaryWriter.create(selectedFile.toPath())) {
+                writer.open();
+                RepositoryBinaryWriter.toBinary(rep, writer);
+            }
+            catch (IOException e) {
+                setStatusError(ComposerMessages.getString("JComposer.couldnotsavefile"), selectedFile.getName());
+                return;
+            }
+            setCurrentDirectory(fileChooser.getCurrentDirectory());
+            setStatusInfo(ComposerMessages.getString("JComposer.definitionsexported"), selectedFile.getName());
+        }
+    }
     
 
     /**
@@ -1337,7 +1451,7 @@ public class JComposer extends JFrame implements Observer {
         fileChooser = new JFileChooser();
         fileChooser.setFileFilter(new FileFilter() {
             public boolean accept(File f) {
-                return f.isDirectory() || f.getName().endsWith(".rbo");
+                return f.isDirectory() || f.getName().endsWith(DOT_EXTENSION) || f.getName().endsWith(DOT_BINARY_EXTENSION);
             }
             public String getDescription() {
                 return ComposerMessages.getString("JComposer.rubatofiles");
@@ -1401,6 +1515,13 @@ public class JComposer extends JFrame implements Observer {
     };
 
 
+    private Action exportAction = new ComposerAction(ComposerMessages.getString("JComposer.exportdefinitions"), Icons.saveasIcon, ComposerMessages.getString("JComposer.exportdefinitionsfile")) {
+        public void actionPerformed(ActionEvent e) {
+            exportDefinitions();
+        }
+    };
+
+
     private Action quitAction = new ComposerAction(ComposerMessages.getString("JComposer.quit"), Icons.quitIcon, ComposerMessages.getString("JComposer.leavecomposer")) {
         public void actionPerformed(ActionEvent e) {
             quit();
@@ -1714,6 +1835,7 @@ public class JComposer extends JFrame implements Observer {
     private static final String    TITLE_STRING   = "Rubato Composer";
     private static final String    EXTENSION      = "rbo";
     private static final String    DOT_EXTENSION  = "."+EXTENSION;
+    private static final String    DOT_BINARY_EXTENSION = ".rbb";
 
     private static final Repository rep = Repository.systemRepository();
     
@@ -22,12 +22,18 @@ package org.rubato.composer;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
+import javax.swing.SwingUtilities;
+
 import org.vetronauta.latrunculus.plugin.base.Rubette;
 import org.rubato.composer.network.NetworkModel;
 import org.vetronauta.latrunculus.plugin.base.PluginNode;
 import org.vetronauta.latrunculus.plugin.base.RunInfo;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.util.TextUtils;
 
 
@@ -65,39 +71,155 @@ public class Runner implements Runnable {
     }
     
     
+    /**
+     * Sets the maximal number of rubettes that are run concurrently,
+     * by default the number of available processors. Only thread-safe
+     * rubettes are run concurrently, see {@link Rubette#isThreadSafe()}.
+     * With a value of 1, the rubettes are run one after the other
+     * in the order of the dependency list.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+    
+    
+    /**
+     * Sets whether rubettes whose inputs and properties have not changed
+     * since their last successful run are skipped, keeping their outputs.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    
     /**
      * Runs the current network.
      */
     public void run() {
-        composer.resetProgressWindow(dependents.size());
+        final int count = dependents.size();
+        onEventThread(() -> composer.resetProgressWindow(count));
+        if (parallelism > 1 && count > 1 && hasThreadSafeRubettes()) {
+            runScheduled();
+        }
+        else {
+            runSequentially();
+        }
+        final boolean interrupted = Thread.interrupted();
+        onEventThread(() -> {
+            composer.finishRun();
+            if (interrupted) {
+                composer.showErrorDialog("The execution of the network has been interrupted.");
+            }
+        });
+    }
+    
+    
+    private void runSequentially() {
         for (int i = 0; i < dependents.size(); i++) {
             if (runInfo.stopped()) { break; }
-            PluginNode model = dependents.get(i);
-            Rubette rubette = model.getRubette();
-            rubette.clearErrors();
-            try {
+            runRubette(dependents.get(i));
+            makeProgress(i+1);
+        }
+    }
+    
+    
+    /**
+     * Runs the rubettes as soon as all the rubettes they depend on
+     * (among the ones to run) have finished, so that independent branches
+     * of the network made of thread-safe rubettes are run concurrently.
+     * The scheduling is done by the runner thread, while the rubettes are
+     * run by a pool of worker threads. All the calls to Swing are passed
+     * to the event dispatch thread.
+     */
+    private void runScheduled() {
+        Scheduler<PluginNode> scheduler = new Scheduler<PluginNode>(dependents,
+                                                                    PluginNode::getFirstDependencies,
+                                                                    model -> model.getRubette().isThreadSafe());
+        ExecutorService service = Executors.newFixedThreadPool(Math.min(parallelism, dependents.size()), new WorkerFactory());
+        executor = service;
+        try {
+            scheduler.run(service, this::runRubette, this::makeProgress, runInfo::stopped);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            service.shutdown();
+            executor = null;
+        }
+    }
+    
+    
+    private boolean hasThreadSafeRubettes() {
+        for (PluginNode model : dependents) {
+            if (model.getRubette().isThreadSafe()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    
+    private void runRubette(PluginNode model) {
+        Rubette rubette = model.getRubette();
+        try {
+            if (model.isPassThrough()) {
+                rubette.clearErrors();
                 logger.info(TextUtils.replaceStrings("Running rubette %%1", model.getName())); 
-                composer.addProgressMessage(TextUtils.replaceStrings("Running rubette %%1", model.getName()));
-                if (model.isPassThrough()) {
-                    rubette.setOutput(0, rubette.getInput(0));
-                }
-                else {
-                    rubette.run(runInfo);
-                    if (rubette.hasErrors()) {
-                        addProblems(rubette.getErrors(), model);
-                    }
-                    else {
-                        rubette.updateView();
-                    }
-                }
+                addProgressMessage(TextUtils.replaceStrings("Running rubette %%1", model.getName()));
+                rubette.setOutput(0, rubette.getInput(0));
+                return;
             }
-            catch (Exception e) {
-                e.printStackTrace();
-                addProblem(ComposerMessages.getString("Runner.exceptionproblem"), model);
+            Denotator[] inputs = model.getInputs();
+            if (incremental && !model.needsRun(inputs)) {
+                // neither inputs nor properties have changed, keep the previous outputs
+                logger.info(TextUtils.replaceStrings("Rubette %%1 is up to date", model.getName()));
+                return;
+            }
+            long[] fingerprints = PluginNode.getFingerprints(inputs);
+            rubette.clearErrors();
+            model.markDirty();
+            logger.info(TextUtils.replaceStrings("Running rubette %%1", model.getName())); 
+            addProgressMessage(TextUtils.replaceStrings("Running rubette %%1", model.getName()));
+            rubette.run(runInfo);
+            if (rubette.hasErrors()) {
+                addProblems(rubette.getErrors(), model);
+            }
+            else {
+                onEventThread(rubette::updateView);
+                if (!runInfo.stopped()) {
+                    model.markClean(inputs, fingerprints);
+                }
             }
-            composer.makeProgress(i+1);
         }
-        composer.finishRun();
+        catch (Exception e) {
+            e.printStackTrace();
+            addProblem(ComposerMessages.getString("Runner.exceptionproblem"), model);
+        }
+    }
+    
+
+    private void makeProgress(final int value) {
+        onEventThread(() -> composer.makeProgress(value));
+    }
+    
+    
+    private void addProgressMessage(final String msg) {
+        onEventThread(() -> composer.addProgressMessage(msg));
+    }
+    
+    
+    /**
+     * Runs <code>r</code> on the event dispatch thread, after the
+     * previously passed calls.
+     */
+    private static void onEventThread(Runnable r) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            r.run();
+        }
+        else {
+            SwingUtilities.invokeLater(r);
+        }
     }
     
 
@@ -106,7 +228,7 @@ public class Runner implements Runnable {
      * @param msg the string describing the problem
      * @param model the RubetteModel where the problem occurred
      */
-    public void addProblem(String msg, PluginNode model) {
+    public synchronized void addProblem(String msg, PluginNode model) {
         problems.add(new Problem(msg, network.getJNetwork(), model.getJRubette()));
     }
 
@@ -116,7 +238,7 @@ public class Runner implements Runnable {
      * @param msgs a list of the strings describing the problems
      * @param model the RubetteModel where the problems occurred
      */
-    public void addProblems(List<String> msgs, PluginNode model) {
+    public synchronized void addProblems(List<String> msgs, PluginNode model) {
         for (String msg : msgs) {
             addProblem(msg, model);
         }
@@ -126,7 +248,7 @@ public class Runner implements Runnable {
     /**
      * Returns the list of problems.
      */
-    public List<Problem> getProblems() {
+    public synchronized List<Problem> getProblems() {
         return problems;
     }
 
@@ -144,20 +266,20 @@ public class Runner implements Runnable {
     
 
     /**
-     * Stops running of the network.
+     * Stops running of the network. The rubettes are asked to stop
+     * through their RunInfo, no rubette is run after the current ones.
      */
-    @SuppressWarnings("deprecation")
     public void stop() {
-        if (nrClicked < 2) {
-            runInfo.stop();
-            nrClicked++;
-        }
-        else {
-            // at the third click on stop button, force the thread to stop
-            thread.stop();
-            //composer.showProgessWindow(false);
-            composer.finishRun();            
-            composer.showErrorDialog("The execution of the network has been forcibly halted.");
+        runInfo.stop();
+        nrClicked++;
+        if (nrClicked > 2) {
+            // at the third click on stop button, also interrupt the threads
+            // in case a rubette is waiting without checking its RunInfo
+            ExecutorService service = executor;
+            if (service != null) {
+                service.shutdownNow();
+            }
+            thread.interrupt();
         }
     }
     
@@ -169,6 +291,9 @@ public class Runner implements Runnable {
     private LinkedList<Problem> problems;    
     private RunnerRunInfo runInfo;
     private int           nrClicked = 0;     
+    private int           parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean       incremental = true;
+    private volatile ExecutorService executor;
     
     private final Logger logger = Logger.getLogger("org.rubato.composer.runner"); 
     
@@ -191,10 +316,23 @@ public class Runner implements Runnable {
         }
         
         public void addMessage(PluginNode rubette, String msg) {
-            jcomposer.addProgressMessage(rubette.getName()+": "+msg);
+            final String message = rubette.getName()+": "+msg;
+            onEventThread(() -> jcomposer.addProgressMessage(message));
         }
         
-        private boolean stop;
+        private volatile boolean stop;
         private JComposer jcomposer;
     }
+    
+    
+    private static class WorkerFactory implements ThreadFactory {
+        
+        public Thread newThread(Runnable r) {
+            Thread worker = new Thread(r, "rubette-runner-"+(++nr));
+            worker.setDaemon(true);
+            return worker;
+        }
+        
+        private int nr = 0;
+    }
 }
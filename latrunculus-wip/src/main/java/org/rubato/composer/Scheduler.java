@@ -0,0 +1,179 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.rubato.composer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs a list of tasks, e.g., the rubettes of a network, as soon as all
+ * the tasks they depend on (among the ones in the list) have finished,
+ * so that independent branches are run concurrently. Only thread-safe
+ * tasks are run concurrently, the other ones are run while no other task
+ * is running. Ready tasks are started in the order of the list, and the
+ * tasks of a dependency cycle are run in the order of the list.
+ *
+ * @author vetronauta
+ */
+final class Scheduler<T> {
+
+    private final List<T> tasks;
+    private final Predicate<? super T> threadSafe;
+    // number of dependencies and dependents of each task
+    private final int[] dependencyCounts;
+    private final List<List<Integer>> dependents;
+
+    /**
+     * Creates a scheduler for <code>tasks</code>.
+     *
+     * @param dependencies returns the tasks a task depends on,
+     *                     the ones not in <code>tasks</code> are ignored
+     * @param threadSafe   returns true iff a task may run concurrently with other tasks
+     */
+    Scheduler(List<T> tasks, Function<? super T,? extends Collection<T>> dependencies, Predicate<? super T> threadSafe) {
+        this.tasks = tasks;
+        this.threadSafe = threadSafe;
+        int count = tasks.size();
+        Map<T,Integer> positions = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            positions.put(tasks.get(i), i);
+        }
+        dependencyCounts = new int[count];
+        dependents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < count; i++) {
+            for (T dependency : new HashSet<T>(dependencies.apply(tasks.get(i)))) {
+                Integer position = positions.get(dependency);
+                if (position != null && position != i) {
+                    dependencyCounts[i]++;
+                    dependents.get(position).add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks with <code>action</code> on the threads of <code>service</code>,
+     * and returns when they have finished. The scheduling is done by the calling thread,
+     * which passes the number of finished tasks to <code>progress</code> after each task.
+     * As soon as <code>stopped</code> returns true, no more tasks are started,
+     * and the running ones are waited for.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting,
+     *                              the running tasks are then not waited for
+     */
+    void run(ExecutorService service, Consumer<? super T> action, IntConsumer progress, BooleanSupplier stopped)
+            throws InterruptedException {
+        int count = tasks.size();
+        int[] pending = dependencyCounts.clone();
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < count; i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(service);
+        boolean[] started = new boolean[count];
+        boolean exclusive = false;
+        int running = 0;
+        int finished = 0;
+        int first = 0;
+        while (finished < count) {
+            // a task that is not thread-safe waits until the running tasks have
+            // finished, and no other task is started while it is running
+            while (!exclusive && !ready.isEmpty() && !stopped.getAsBoolean()) {
+                int i = ready.peek();
+                if (!threadSafe.test(tasks.get(i))) {
+                    if (running > 0) {
+                        break;
+                    }
+                    exclusive = true;
+                }
+                ready.poll();
+                submit(completion, action, i);
+                started[i] = true;
+                running++;
+            }
+            if (running == 0) {
+                if (stopped.getAsBoolean()) {
+                    break;
+                }
+                // a cycle among the remaining tasks: resume in list order
+                while (started[first]) {
+                    first++;
+                }
+                ready.add(first);
+                continue;
+            }
+            int done = take(completion);
+            running--;
+            finished++;
+            exclusive = false;
+            progress.accept(finished);
+            for (int dependent : dependents.get(done)) {
+                pending[dependent]--;
+                if (pending[dependent] == 0 && !started[dependent]) {
+                    ready.add(dependent);
+                }
+            }
+        }
+    }
+
+    private void submit(CompletionService<Integer> completion, Consumer<? super T> action, int i) {
+        T task = tasks.get(i);
+        completion.submit(() -> {
+            action.accept(task);
+            return i;
+        });
+    }
+
+    private static int take(CompletionService<Integer> completion)
+            throws InterruptedException {
+        try {
+            return completion.take().get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.rubato.composer.network;
+
+import org.vetronauta.latrunculus.plugin.base.Link;
+import org.vetronauta.latrunculus.plugin.base.PluginNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Topological index of the rubettes of a network.
+ * Each rubette has a level, i.e., the length of the longest chain of links
+ * leading to it: rubettes of the same level do not depend on each other,
+ * and sorting by level gives a valid running order.
+ * The levels are maintained incrementally when rubettes and links are added
+ * or removed; a full rebuild (Kahn's algorithm) is linear in the size of the
+ * network. Rubettes on a cycle, or depending on one, have no level and
+ * are not part of the running order.
+ *
+ * @author vetronauta
+ */
+public class DependencyIndex {
+
+    private static final int NO_LEVEL = -1;
+
+    private final Map<PluginNode,Node> nodes = new LinkedHashMap<>();
+    private final Set<Link> links = Collections.newSetFromMap(new HashMap<>());
+    private boolean cyclic;
+    private List<List<PluginNode>> levels;
+    private ArrayList<PluginNode> order;
+
+    /**
+     * Rebuilds the index from scratch for the given rubettes, using their current links.
+     */
+    public void rebuild(Collection<PluginNode> rubettes) {
+        nodes.clear();
+        links.clear();
+        for (PluginNode rubette : rubettes) {
+            nodes.put(rubette, new Node(rubette));
+        }
+        for (PluginNode rubette : rubettes) {
+            for (Link link : rubette.getInLinks()) {
+                registerLink(link);
+            }
+            for (Link link : rubette.getOutLinks()) {
+                registerLink(link);
+            }
+        }
+        computeLevels();
+    }
+
+    public void addRubette(PluginNode rubette) {
+        if (nodes.containsKey(rubette)) {
+            return;
+        }
+        nodes.put(rubette, new Node(rubette));
+        invalidateOrder();
+        for (Link link : rubette.getInLinks()) {
+            addLink(link);
+        }
+        for (Link link : rubette.getOutLinks()) {
+            addLink(link);
+        }
+    }
+
+    public void removeRubette(PluginNode rubette) {
+        Node node = nodes.get(rubette);
+        if (node == null) {
+            return;
+        }
+        List<Link> attached = new ArrayList<>();
+        for (Link link : links) {
+            if (link.getSrcModel() == rubette || link.getDestModel() == rubette) {
+                attached.add(link);
+            }
+        }
+        for (Link link : attached) {
+            removeLink(link);
+        }
+        nodes.remove(rubette);
+        invalidateOrder();
+    }
+
+    /**
+     * Registers the link, if both its ends are in the index.
+     * Registering the same link several times has no further effect.
+     */
+    public void addLink(Link link) {
+        Node src = nodes.get(link.getSrcModel());
+        Node dest = nodes.get(link.getDestModel());
+        if (src == null || dest == null || !links.add(link)) {
+            return;
+        }
+        if (!src.connect(dest)) {
+            return;
+        }
+        invalidateOrder();
+        if (cyclic) {
+            computeLevels();
+        }
+        else if (dest.level <= src.level) {
+            raiseLevels(src, dest);
+        }
+    }
+
+    public void removeLink(Link link) {
+        if (!links.remove(link)) {
+            return;
+        }
+        Node src = nodes.get(link.getSrcModel());
+        Node dest = nodes.get(link.getDestModel());
+        if (!src.disconnect(dest)) {
+            return;
+        }
+        invalidateOrder();
+        if (cyclic) {
+            computeLevels();
+        }
+        else {
+            lowerLevels(dest);
+        }
+    }
+
+    /**
+     * Returns true iff the network contains a cycle.
+     */
+    public boolean isCyclic() {
+        return cyclic;
+    }
+
+    /**
+     * Returns true iff a link from <code>src</code> to <code>dest</code> would create a cycle.
+     */
+    public boolean wouldCreateCycle(PluginNode src, PluginNode dest) {
+        if (src == dest) {
+            return true;
+        }
+        Node srcNode = nodes.get(src);
+        Node destNode = nodes.get(dest);
+        if (srcNode == null || destNode == null) {
+            return false;
+        }
+        if (!cyclic && destNode.level > srcNode.level) {
+            // levels strictly increase along links, dest cannot reach src
+            return false;
+        }
+        return reachable(destNode, srcNode);
+    }
+
+    /**
+     * Returns the level of <code>rubette</code>, or -1 if it is not part of the running order.
+     */
+    public int getLevel(PluginNode rubette) {
+        Node node = nodes.get(rubette);
+        return node == null ? NO_LEVEL : node.level;
+    }
+
+    /**
+     * Returns the rubettes grouped by level. The rubettes in a level
+     * only depend on rubettes in previous levels.
+     */
+    public List<List<PluginNode>> getLevels() {
+        if (levels == null) {
+            List<List<PluginNode>> newLevels = new ArrayList<>();
+            for (Node node : nodes.values()) {
+                if (node.level != NO_LEVEL) {
+                    while (newLevels.size() <= node.level) {
+                        newLevels.add(new ArrayList<>());
+                    }
+                    newLevels.get(node.level).add(node.rubette);
+                }
+            }
+            levels = newLevels;
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the rubettes in running order.
+     * The returned list must not be modified.
+     */
+    public ArrayList<PluginNode> getOrder() {
+        if (order == null) {
+            ArrayList<PluginNode> newOrder = new ArrayList<>(nodes.size());
+            for (List<PluginNode> level : getLevels()) {
+                newOrder.addAll(level);
+            }
+            order = newOrder;
+        }
+        return order;
+    }
+
+    /**
+     * Returns <code>rubette</code> and all the rubettes depending on it, in running order.
+     */
+    public ArrayList<PluginNode> getOrder(PluginNode rubette) {
+        ArrayList<PluginNode> res = new ArrayList<>();
+        Node start = nodes.get(rubette);
+        if (start == null || start.level == NO_LEVEL) {
+            return res;
+        }
+        Set<Node> reached = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        reached.add(start);
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            for (Node next : stack.pop().out.keySet()) {
+                if (reached.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        for (PluginNode p : getOrder()) {
+            if (reached.contains(nodes.get(p))) {
+                res.add(p);
+            }
+        }
+        return res;
+    }
+
+    private void registerLink(Link link) {
+        Node src = nodes.get(link.getSrcModel());
+        Node dest = nodes.get(link.getDestModel());
+        if (src != null && dest != null && links.add(link)) {
+            src.connect(dest);
+        }
+    }
+
+    /**
+     * Kahn's algorithm: each rubette gets its level as soon as all the rubettes
+     * it depends on have one. The rubettes left over are on or behind a cycle.
+     */
+    private void computeLevels() {
+        invalidateOrder();
+        Map<Node,Integer> pending = new HashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            node.level = NO_LEVEL;
+            pending.put(node, node.in.size());
+            if (node.in.isEmpty()) {
+                node.level = 0;
+                ready.add(node);
+            }
+        }
+        int leveled = 0;
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            leveled++;
+            for (Node next : node.out.keySet()) {
+                next.level = Math.max(next.level, node.level+1);
+                int count = pending.get(next)-1;
+                pending.put(next, count);
+                if (count == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        for (Node node : nodes.values()) {
+            if (pending.get(node) > 0) {
+                node.level = NO_LEVEL;
+            }
+        }
+        cyclic = leveled < nodes.size();
+    }
+
+    /**
+     * Pushes the levels downstream of <code>dest</code> after the link src-&gt;dest
+     * has been added. Reaching <code>src</code> again means a cycle.
+     */
+    private void raiseLevels(Node src, Node dest) {
+        Deque<Node> work = new ArrayDeque<>();
+        dest.level = src.level+1;
+        work.push(dest);
+        while (!work.isEmpty()) {
+            Node node = work.pop();
+            for (Node next : node.out.keySet()) {
+                if (next == src) {
+                    computeLevels();
+                    return;
+                }
+                if (next.level <= node.level) {
+                    next.level = node.level+1;
+                    work.push(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes the levels downstream of <code>start</code> after a link to it
+     * has been removed. Nodes are processed by increasing old level, so that
+     * the rubettes a node depends on are settled before it.
+     */
+    private void lowerLevels(Node start) {
+        PriorityQueue<Node> work = new PriorityQueue<>((a, b) -> Integer.compare(a.level, b.level));
+        Set<Node> queued = new HashSet<>();
+        work.add(start);
+        queued.add(start);
+        while (!work.isEmpty()) {
+            Node node = work.poll();
+            int level = 0;
+            for (Node prev : node.in.keySet()) {
+                level = Math.max(level, prev.level+1);
+            }
+            if (level != node.level) {
+                node.level = level;
+                for (Node next : node.out.keySet()) {
+                    if (queued.add(next)) {
+                        work.add(next);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean reachable(Node from, Node to) {
+        Set<Node> reached = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(from);
+        reached.add(from);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node == to) {
+                return true;
+            }
+            for (Node next : node.out.keySet()) {
+                // nodes beyond the level of the target cannot reach it
+                if ((cyclic || next.level <= to.level) && reached.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void invalidateOrder() {
+        levels = null;
+        order = null;
+    }
+
+    private static final class Node {
+
+        private final PluginNode rubette;
+        // neighbours with the number of links to them
+        private final Map<Node,Integer> in = new LinkedHashMap<>();
+        private final Map<Node,Integer> out = new LinkedHashMap<>();
+        private int level;
+
+        private Node(PluginNode rubette) {
+            this.rubette = rubette;
+        }
+
+        /**
+         * Adds a link to <code>dest</code>, returns true iff it is the first one.
+         */
+        private boolean connect(Node dest) {
+            dest.in.merge(this, 1, Integer::sum);
+            return out.merge(dest, 1, Integer::sum) == 1;
+        }
+
+        /**
+         * Removes a link to <code>dest</code>, returns true iff it was the last one.
+         */
+        private boolean disconnect(Node dest) {
+            dest.in.computeIfPresent(this, (n, count) -> count > 1 ? count-1 : null);
+            return out.computeIfPresent(dest, (n, count) -> count > 1 ? count-1 : null) == null;
+        }
+    }
+
+}
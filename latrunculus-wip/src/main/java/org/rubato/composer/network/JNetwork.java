@@ -390,7 +390,8 @@ public class JNetwork extends JLayeredPane
         jlink.setSrc(src, srcPos);
         jlink.setDest(dest, destPos);
         if (src.canLink(src, srcPos, dest, destPos) &&
-            dest.canLink(src, srcPos, dest, destPos)) {
+            dest.canLink(src, srcPos, dest, destPos) &&
+            !model.wouldCreateCycle(src.getModel(), dest.getModel())) {
             src.addOutLink(jlink, srcPos);
             dest.setInLink(jlink, destPos);
             addLink(jlink);
@@ -25,7 +25,7 @@ import org.vetronauta.latrunculus.plugin.base.Link;
 import org.vetronauta.latrunculus.plugin.base.PluginNode;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
 public class NetworkModel {
 
@@ -68,84 +68,96 @@ public class NetworkModel {
     
     public void addRubette(PluginNode rubette) {
         rubettes.add(rubette);
+        rubette.setNetwork(this);
+        dependencyIndex.addRubette(rubette);
     }
     
     
     public void removeRubette(PluginNode rubette) {
         rubettes.remove(rubette);
+        dependencyIndex.removeRubette(rubette);
+        if (rubette.getNetwork() == this) {
+            rubette.setNetwork(null);
+        }
     }
     
     
-    public ArrayList<PluginNode> getRubettes() {
-        return rubettes;
+    /**
+     * Called by the rubettes of this network when a link is attached to them.
+     */
+    public void linkAdded(Link link) {
+        dependencyIndex.addLink(link);
     }
     
     
-    public void computeDependencyTree() {
-        computeRootsAndCoroots();
-        computeDependents();
-        computeDependencies();
+    /**
+     * Called by the rubettes of this network when a link is detached from them.
+     */
+    public void linkRemoved(Link link) {
+        dependencyIndex.removeLink(link);
     }
     
     
-    public ArrayList<PluginNode> getDependents() {
-        return dependents;
+    public ArrayList<PluginNode> getRubettes() {
+        return rubettes;
     }
     
     
-    private void computeRootsAndCoroots() {
-        roots.clear();
-        coroots.clear();
+    /**
+     * Rebuilds the dependency index from the current rubettes and links.
+     * The index is otherwise kept up to date as rubettes and links are
+     * added and removed, so this is only needed if links have been changed
+     * without the rubettes being part of this network.
+     */
+    public void computeDependencyTree() {
         for (PluginNode rubette : rubettes) {
-            if (rubette.getInLinkCount() == 0) {
-                roots.add(rubette);
-            }
-            else if (rubette.getOutLinkCount() == 0) {
-                coroots.add(rubette);
-            }
-        }        
+            rubette.setNetwork(this);
+        }
+        dependencyIndex.rebuild(rubettes);
     }
     
     
-    private void computeDependents() {
-        dependents.clear();
-        for (PluginNode model : roots) {
-            computeDependents(model, dependents);
-            dependents.add(model);
-        }
-        // reverse list
-        Collections.reverse(dependents);
+    /**
+     * Returns the rubettes of this network in running order.
+     * Rubettes on a cycle are not included.
+     */
+    public ArrayList<PluginNode> getDependents() {
+        return dependencyIndex.getOrder();
     }
     
     
-    private void computeDependents(PluginNode model, ArrayList<PluginNode> list) {
-        for (PluginNode rmodel : model.getFirstDependents()) {
-            computeDependents(rmodel, list);
-            if (!(list.contains(rmodel))) {
-                list.add(rmodel);
-            }
-        }
+    /**
+     * Returns <code>rubette</code> followed by all the rubettes
+     * depending on it, in running order.
+     */
+    public ArrayList<PluginNode> getDependents(PluginNode rubette) {
+        return dependencyIndex.getOrder(rubette);
     }
     
     
-    private void computeDependencies() {
-        dependencies.clear();
-        for (PluginNode model : coroots) {
-            computeDependencies(model, dependencies);
-            dependencies.add(model);
-        }
-        // reverse list
-        Collections.reverse(dependencies);
+    /**
+     * Returns the rubettes of this network grouped by level: the rubettes
+     * of a level depend only on rubettes of the previous levels and can
+     * therefore be run concurrently.
+     */
+    public List<List<PluginNode>> getDependencyLevels() {
+        return dependencyIndex.getLevels();
     }
     
     
-    private void computeDependencies(PluginNode model, ArrayList<PluginNode> list) {
-        for (PluginNode rmodel : model.getFirstDependencies()) {
-            computeDependencies(rmodel, list);
-            if (!(list.contains(rmodel))) {
-                list.add(rmodel);
-            }
-        }
+    /**
+     * Returns true iff the links of this network contain a cycle.
+     */
+    public boolean hasCycle() {
+        return dependencyIndex.isCyclic();
+    }
+    
+    
+    /**
+     * Returns true iff linking <code>src</code> to <code>dest</code> would create a cycle.
+     */
+    public boolean wouldCreateCycle(PluginNode src, PluginNode dest) {
+        return dependencyIndex.wouldCreateCycle(src, dest);
     }
     
     
@@ -231,9 +243,6 @@ public class NetworkModel {
     private String    name;
     private String    info = ""; 
     private ArrayList<PluginNode> rubettes = new ArrayList<>();
-    private ArrayList<PluginNode> roots = new ArrayList<>();
-    private ArrayList<PluginNode> coroots = new ArrayList<>();
-    private ArrayList<PluginNode> dependents = new ArrayList<>(100);
-    private ArrayList<PluginNode> dependencies = new ArrayList<>(100);
+    private DependencyIndex dependencyIndex = new DependencyIndex();
     private ArrayList<NoteModel> notes = new ArrayList<>();
 }
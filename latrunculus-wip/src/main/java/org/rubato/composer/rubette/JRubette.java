@@ -814,7 +814,7 @@ public final class JRubette extends JPanel
     
     
     public void runPartially() {
-        computeDependents();
+        ArrayList<PluginNode> dependents = getJNetwork().getModel().getDependents(model);
         getJNetwork().getJComposer().startPartialRun(dependents);
     }
     
@@ -948,27 +948,10 @@ public final class JRubette extends JPanel
     }
     
     
-    private void computeDependents() {
-        dependents.clear();
-        computeDependents(model, dependents);
-        dependents.add(model);
-        Collections.reverse(dependents);
-    }
-
-    
-    private void computeDependents(PluginNode rubetteModel, ArrayList<PluginNode> list) {
-        for (PluginNode rmodel : rubetteModel.getFirstDependents()) {
-            computeDependents(rmodel, list);
-            if (!(list.contains(rmodel))) {
-                list.add(rmodel);
-            }
-        }
-    }
-    
-    
     protected void applyProperties(boolean hide) {
         if (!isRunning()) {
             if (model.getRubette().applyProperties()) {
+                model.markDirty();
                 if (hide) {
                     propertiesDialog.setVisible(false);
                 }
@@ -1011,7 +994,6 @@ public final class JRubette extends JPanel
     private Connector    inConnectors[];
     private Connector    outConnectors[];
 
-    private ArrayList<PluginNode> dependents = new ArrayList<PluginNode>(100);
     
     // dimensions of box
     
@@ -360,6 +360,11 @@ public class AlterationRubette extends AbstractRubette implements ActionListener
 		}
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	/**
      * Returns the fact that MorphingRubette belongs to the core rubettes
      */
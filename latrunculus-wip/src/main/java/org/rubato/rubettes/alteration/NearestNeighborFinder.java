@@ -19,14 +19,17 @@
 
 package org.rubato.rubettes.alteration;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
-import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.CompiledPath;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 import org.rubato.rubettes.alteration.CG.KDTree;
 import org.rubato.rubettes.alteration.CG.KeyDuplicateException;
 import org.rubato.rubettes.alteration.CG.KeySizeException;
@@ -36,6 +39,8 @@ public class NearestNeighborFinder {
 	private KDTree kdTree;
 	private Set<Denotator> neighbors;
 	private int[][] elementPaths;
+	//element paths compiled for the forms of the denotators seen so far
+	private Map<Form,CompiledPath[]> compiledPaths = new HashMap<>();
 	
 	public NearestNeighborFinder(int[][] elementPaths) {
 		this.neighbors = new TreeSet<>();
@@ -80,15 +85,30 @@ public class NearestNeighborFinder {
 	}
 	
 	private double[] generateKey(Denotator denotator) {
-		double[] key = new double[this.elementPaths.length];
+		CompiledPath[] paths = this.getCompiledPaths(denotator.getForm());
+		double[] key = new double[paths.length];
 		for (int i = 0; i < key.length; i++) {
-			//getElementPath verschnellern!!
-			int[] currentPath = this.elementPaths[i];
-			try {
-				key[i] = RRing.ring.cast(denotator.getElement(currentPath)).getValue();
-			} catch (LatrunculusCheckedException e) { e.printStackTrace(); }
+			if (paths[i] != null) {
+				double value = paths[i].getDouble(denotator);
+				//unreachable elements count as 0
+				key[i] = Double.isNaN(value) ? 0 : value;
+			}
 		}
 		return key;
 	}
 	
+	private CompiledPath[] getCompiledPaths(Form form) {
+		CompiledPath[] paths = this.compiledPaths.get(form);
+		if (paths == null) {
+			paths = new CompiledPath[this.elementPaths.length];
+			for (int i = 0; i < paths.length; i++) {
+				try {
+					paths[i] = CompiledPath.compile(form, this.elementPaths[i]);
+				} catch (LatrunculusCheckedException e) { e.printStackTrace(); }
+			}
+			this.compiledPaths.put(form, paths);
+		}
+		return paths;
+	}
+	
 }
@@ -51,10 +51,12 @@ public class BigBangModel extends Model {
 	private BigBangObjects objects; //object-oriented representation of the denotator composition
 	private UndoManager undoManager;
 	private BigBangOperationGraph operationGraph;
+	private CompositionCheckpoints checkpoints;
 	private BigBangGraphAnimator animator;
 	
 	public BigBangModel() {
 		this.denotators = new BigBangDenotatorManager();
+		this.checkpoints = new CompositionCheckpoints();
 		this.setInputActive(true);
 		this.objects = new BigBangObjects(this.denotators.getForm());
 		this.undoManager = new UndoManager();
@@ -73,11 +75,13 @@ public class BigBangModel extends Model {
 	public void reset() {
 		this.undoManager.discardAllEdits();
 		this.operationGraph = new BigBangOperationGraph();
+		this.checkpoints.clear();
 		this.firePropertyChange(BigBangController.GRAPH, null, this.operationGraph);
 	}
 	
 	public void setGraph(BigBangOperationGraph graph) {
 		this.operationGraph = graph;
+		this.checkpoints.clear();
 	}
 	
 	public void setInputActive(Boolean inputActive) {
@@ -122,7 +126,7 @@ public class BigBangModel extends Model {
 		}
 		if (this.operationGraph.getSelectedOperation() instanceof InputCompositionOperation) {
 			((InputCompositionOperation)this.operationGraph.getSelectedOperation()).setOrAddComposition(composition);
-			this.operationModified();
+			this.operationModified(this.operationGraph.getSelectedOperation());
 		} else {
 			this.addOperation(new InputCompositionOperation(this, composition));
 		}
@@ -142,7 +146,7 @@ public class BigBangModel extends Model {
 			if (lastEdit instanceof AddObjectsOperation) {
 				AddObjectsOperation addEdit = (AddObjectsOperation) lastEdit;
 				if (addEdit.addObjects(pathsWithValues, powersetPaths, inPreviewMode)) {
-					this.operationModified();
+					this.operationModified(addEdit);
 					return;
 				}
 			}
@@ -159,7 +163,7 @@ public class BigBangModel extends Model {
 		}
 		if (edit != null) {
 			edit.unAddObjects(pathsWithValues);
-			this.operationModified();
+			this.operationModified(edit);
 		}
 	}
 	
@@ -171,7 +175,7 @@ public class BigBangModel extends Model {
 		AbstractOperation lastEdit = this.operationGraph.getLastAddedOperation();
 		if (lastEdit instanceof DeleteObjectsOperation) {
 			((DeleteObjectsOperation)lastEdit).addObjects(objects);
-			this.operationModified();
+			this.operationModified(lastEdit);
 			return;
 		}
 		this.addOperation(new DeleteObjectsOperation(this, objects));
@@ -181,7 +185,7 @@ public class BigBangModel extends Model {
 		if (properties.startNewTransformation()) {
 			this.addOperation(new TranslationTransformation(this, properties));
 		} else if (this.updateTransformation(properties, TranslationTransformation.class)) {
-			this.updateComposition();
+			this.updateComposition(this.operationGraph.getLastAddedOperation());
 		}
 	}
 	
@@ -191,7 +195,7 @@ public class BigBangModel extends Model {
 		} else if (this.updateTransformation(properties, RotationTransformation.class)) {
 			RotationTransformation lastRotation = (RotationTransformation)this.operationGraph.getLastAddedOperation();
 			lastRotation.setParameters(startingPoint, angle);
-			this.updateComposition();
+			this.updateComposition(lastRotation);
 		}
 	}
 	
@@ -225,7 +229,7 @@ public class BigBangModel extends Model {
 		} else if (this.updateTransformation(properties, ShearingTransformation.class)) {
 			AffineTransformation lastTransformation = (AffineTransformation)this.operationGraph.getLastAddedOperation();
 			lastTransformation.setParameters(shift, transform);
-			this.updateComposition();
+			this.updateComposition(lastTransformation);
 		}
 	}
 	
@@ -241,7 +245,7 @@ public class BigBangModel extends Model {
 	private void modifyLastTransformation(double[] newValues) {
 		AbstractTransformation lastTransformation = (AbstractTransformation)this.operationGraph.getLastAddedOperation();
 		lastTransformation.modify(newValues);
-		this.updateComposition();
+		this.updateComposition(lastTransformation);
 	}
 
 	public void shapeObjects(TransformationProperties properties, TreeMap<Double,Double> shapingLocations) {
@@ -253,7 +257,7 @@ public class BigBangModel extends Model {
 		}
 		if (edit != null && edit.getShapingPaths().equals(properties.getTransformationPaths())) {
 			edit.addShapingLocations(shapingLocations);
-			this.updateComposition();
+			this.updateComposition(edit);
 		} else {
 			this.addOperation(new ShapingOperation(this, properties, shapingLocations));
 		}
@@ -317,20 +321,27 @@ public class BigBangModel extends Model {
 		edit.execute();
 		this.postEdit(edit);
 		this.objects.removeOperation(operation);
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.GRAPH, null, this.operationGraph);
 	}
 	
 	private void postEdit(AbstractUndoableEdit edit) {
 		this.undoManager.postEdit(edit);
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.UNDO, null, this.undoManager);
 		this.firePropertyChange(BigBangController.GRAPH, null, this.operationGraph);
 		//this.firePropertyChange(BigBangController.SELECT_COMPOSITION_STATE, null, this.transformationGraph.getSelectedCompositionState());
 	}
 	
+	/**
+	 * to be called after the selected operation was modified
+	 */
 	public void operationModified() {
-		this.updateComposition();
+		this.operationModified(this.operationGraph.getSelectedOperation());
+	}
+	
+	private void operationModified(AbstractOperation operation) {
+		this.updateComposition(operation);
 		this.firePropertyChange(BigBangController.GRAPH, null, this.operationGraph);
 	}
 	
@@ -340,7 +351,7 @@ public class BigBangModel extends Model {
 		    List<AbstractOperation> shortestPath = dijkstra.getPath(this.operationGraph.getFirstState(), this.operationGraph.getLastState());
 		    AbstractOperation operation = shortestPath.get(operationIndex);
 		    operation.modify(ratio);
-			this.updateComposition();
+			this.updateComposition(operation);
 			this.firePropertyChange(BigBangController.MODIFY_OPERATION, null, operation);
 		}
 	}
@@ -358,7 +369,7 @@ public class BigBangModel extends Model {
 		CompositionState state = this.operationGraph.getSource(lastAddedOperation);
 		//this.undoneOperations.add(this.transformationGraph.removeLastAddedOperation());
 		this.undoManager.undo();
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.UNDO, null, this.undoManager);
 		this.firePropertyChange(BigBangController.GRAPH, null, this.operationGraph);
 	}
@@ -366,7 +377,7 @@ public class BigBangModel extends Model {
 	public void redo() {
 		//this.transformationGraph.addOrInsertOperation(this.undoneOperations.remove(this.undoneOperations.size()-1), false);
 		this.undoManager.redo();
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.REDO, null, this.undoManager);
 		this.firePropertyChange(BigBangController.GRAPH, null, this.operationGraph);
 	}
@@ -395,19 +406,19 @@ public class BigBangModel extends Model {
 	
 	public void selectCompositionStateAt(Integer stateIndex) {
 		this.operationGraph.selectCompositionStateAt(stateIndex);
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.SELECT_COMPOSITION_STATE, null, this.operationGraph.getSelectedCompositionState());
 	}
 	
 	public void selectCompositionState(CompositionState vertex) {
 		this.operationGraph.selectCompositionState(vertex);
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.SELECT_COMPOSITION_STATE, null, vertex);
 	}
 
 	public void deselectCompositionStates() {
 		this.operationGraph.deselectCompositionStates();
-		this.updateComposition();
+		this.resumeComposition();
 		this.firePropertyChange(BigBangController.DESELECT_COMPOSITION_STATES, null, null);
 	}
 
@@ -467,14 +478,59 @@ public class BigBangModel extends Model {
 		return this.operationGraph;
 	}
 	
+	/**
+	 * Executes all operations from scratch. To be used when operations may have been modified without notifying
+	 * the model, e.g. by the animator at every frame. No checkpoints are created, since all of them would be
+	 * invalid at the next call.
+	 */
 	public synchronized void updateComposition() {
+		this.checkpoints.clear();
+		this.resumeComposition(null);
+	}
+	
+	/**
+	 * Reexecutes the given modified operation and all following ones. Reexecutes everything if it is null.
+	 * The composition before the modified operation is kept as a checkpoint, so that further modifications of
+	 * the same operation, e.g. while it is dragged, only reexecute it and the following ones.
+	 */
+	private synchronized void updateComposition(AbstractOperation modifiedOperation) {
+		if (modifiedOperation != null) {
+			this.checkpoints.invalidateFrom(modifiedOperation);
+		} else {
+			this.checkpoints.clear();
+		}
+		this.resumeComposition(modifiedOperation);
+	}
+	
+	private synchronized void resumeComposition() {
+		this.resumeComposition(null);
+	}
+	
+	/**
+	 * Executes the currently executed operations starting from the last checkpoint that is not affected by
+	 * changes. Operations modified since the last execution have to be invalidated beforehand. A checkpoint is
+	 * only created before the given operation, if it is not null.
+	 */
+	private synchronized void resumeComposition(AbstractOperation checkpointedOperation) {
 		if (this.operationGraph.getEdgeCount() > 0) {
 			List<AbstractOperation> operationsToBeExecuted = this.operationGraph.getCurrentlyExecutedOperationsInOrder();
-			this.denotators.reset();
+			int resumeIndex = this.checkpoints.prepare(operationsToBeExecuted);
+			if (resumeIndex > 0) {
+				this.denotators.resumeFrom(this.checkpoints.get(resumeIndex));
+			} else {
+				this.denotators.reset();
+			}
 			
 			OperationPathResults currentPathResults = null;
-			for (int i = 0; i < operationsToBeExecuted.size(); i++) {
+			for (int i = resumeIndex; i < operationsToBeExecuted.size(); i++) {
 				AbstractOperation currentOperation = operationsToBeExecuted.get(i);
+				if (i > 0 && currentOperation == checkpointedOperation && !this.checkpoints.contains(i)) {
+					PerformanceCheck.startTask("checkpoint");
+					Denotator checkpoint = this.denotators.createCheckpoint();
+					if (checkpoint != null) {
+						this.checkpoints.put(i, checkpoint);
+					}
+				}
 				AbstractOperation nextOperation = null;
 				if (i < operationsToBeExecuted.size()-1) {
 					nextOperation = operationsToBeExecuted.get(i+1);
@@ -485,6 +541,7 @@ public class BigBangModel extends Model {
 				PerformanceCheck.startTask("update paths");
 				this.objects.updatePaths(currentOperation, nextOperation, currentPathResults);
 			}
+			this.checkpoints.setExecutedOperations(operationsToBeExecuted);
 			//System.out.println("BO "+this.objects.getObjectsAt(null).size());
 			//System.out.println(operationsToBeExecuted + " " + this.objects.getObjects());
 			
@@ -495,6 +552,7 @@ public class BigBangModel extends Model {
 			PerformanceCheck.startTask("fire");
 			this.fireCompositionChange();
 		} else {
+			this.checkpoints.clear();
 			this.objects.clearObjects();
 			this.denotators.reset();
 			this.fireCompositionChange();
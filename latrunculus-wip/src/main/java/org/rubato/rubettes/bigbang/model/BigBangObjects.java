@@ -341,6 +341,12 @@ public class BigBangObjects {
 	public synchronized BigBangObject getClosestObject(int[] coordinateSystemValueIndices, double[] values, DenotatorPath examplePowersetPath) {
 		BigBangObject closestObject = null;
 		double shortestDistance = Double.MAX_VALUE;
+		String[] valueNames = new String[values.length];
+		int[] nameIndices = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			valueNames[i] = this.coordinateSystemValueNames.get(coordinateSystemValueIndices[i]);
+			nameIndices[i] = this.getInstanceNumberOfCoordinateValueName(coordinateSystemValueIndices[i]);
+		}
 			
 		if (this.objectsMaps.containsKey(null)) {
 			for (BigBangObject currentObject : this.objectsMaps.get(null).values()) {
@@ -349,10 +355,7 @@ public class BigBangObjects {
 					//calculate Euclidean distance
 					double currentDistance = 0;
 					for (int i = 0; i < values.length; i++) {
-						String valueName = this.coordinateSystemValueNames.get(coordinateSystemValueIndices[i]);
-						int nameIndex = this.getInstanceNumberOfCoordinateValueName(coordinateSystemValueIndices[i]);
-						
-						Double currentValue = currentObject.getNthValue(valueName, nameIndex);
+						Double currentValue = currentObject.getNthValue(valueNames[i], nameIndices[i]);
 						if (currentValue != null) {
 							currentDistance += Math.pow(currentValue-values[i], 2);
 						}
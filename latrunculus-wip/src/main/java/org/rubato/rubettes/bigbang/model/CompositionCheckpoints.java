@@ -0,0 +1,160 @@
+package org.rubato.rubettes.bigbang.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.rubato.rubettes.bigbang.model.operations.AbstractOperation;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.FactorDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
+
+/**
+ * Keeps copies of the composition at the composition states of the last executed sequence of operations, so that
+ * the execution can be resumed from the last state that is not affected by a change. The checkpoint at index i is
+ * the composition before the i-th operation. The path maps of BigBangObjects are kept per operation anyway and
+ * remain valid for the unchanged operations.
+ * <p>
+ * Checkpoints are only added by the caller where they pay off, i.e. before an operation that is being edited.
+ * Their total estimated size is bounded by a fraction of the maximum heap. When a new checkpoint exceeds it, the
+ * checkpoints farthest from the new one are evicted.
+ */
+class CompositionCheckpoints {
+
+	//estimated bytes kept at most
+	static final long MAX_ESTIMATED_SIZE = Runtime.getRuntime().maxMemory()/8;
+	//rough size of a denotator with its coordinate, form reference and element
+	static final long ESTIMATED_DENOTATOR_SIZE = 256;
+
+	private List<AbstractOperation> executedOperations;
+	private TreeMap<Integer,Denotator> checkpoints;
+	private TreeMap<Integer,Long> sizes;
+	private long totalSize;
+
+	public CompositionCheckpoints() {
+		this.clear();
+	}
+
+	public void clear() {
+		this.executedOperations = new ArrayList<AbstractOperation>();
+		this.checkpoints = new TreeMap<Integer,Denotator>();
+		this.sizes = new TreeMap<Integer,Long>();
+		this.totalSize = 0;
+	}
+
+	/**
+	 * Invalidates all checkpoints after the given operation, i.e. all the compositions that depend on it.
+	 */
+	public void invalidateFrom(AbstractOperation operation) {
+		int index = this.executedOperations.indexOf(operation);
+		if (index >= 0) {
+			this.executedOperations = new ArrayList<AbstractOperation>(this.executedOperations.subList(0, index+1));
+			this.removeAfter(index);
+		}
+	}
+
+	/**
+	 * Prepares the execution of the given operations and returns the index of the first operation that has to be
+	 * executed. The result is either 0, i.e. everything has to be executed on an empty composition, or the index of
+	 * a valid checkpoint. At least the last operation is always executed, so that the final state is updated.
+	 */
+	public int prepare(List<AbstractOperation> operations) {
+		int commonPrefix = 0;
+		while (commonPrefix < operations.size() && commonPrefix < this.executedOperations.size()
+				&& operations.get(commonPrefix) == this.executedOperations.get(commonPrefix)) {
+			commonPrefix++;
+		}
+		//the objects at an operation are only known if the operation was executed as the next one before
+		int limit = commonPrefix-1;
+		this.executedOperations = new ArrayList<AbstractOperation>();
+		if (limit <= 0) {
+			this.removeAfter(-1);
+			return 0;
+		}
+		this.removeAfter(limit);
+		if (this.checkpoints.isEmpty()) {
+			return 0;
+		}
+		return this.checkpoints.lastKey();
+	}
+
+	public boolean contains(int index) {
+		return this.checkpoints.containsKey(index);
+	}
+
+	public Denotator get(int index) {
+		return this.checkpoints.get(index);
+	}
+
+	/**
+	 * Adds the given composition as the checkpoint at the given index, unless it alone exceeds the size budget.
+	 * Evicts the checkpoints farthest from the index until the budget is met.
+	 */
+	public void put(int index, Denotator composition) {
+		long size = CompositionCheckpoints.estimateSize(composition);
+		if (size > MAX_ESTIMATED_SIZE) {
+			return;
+		}
+		this.remove(index);
+		this.checkpoints.put(index, composition);
+		this.sizes.put(index, size);
+		this.totalSize += size;
+		while (this.totalSize > MAX_ESTIMATED_SIZE) {
+			int first = this.checkpoints.firstKey();
+			int last = this.checkpoints.lastKey();
+			this.remove(index-first >= last-index ? first : last);
+		}
+	}
+
+	private void remove(int index) {
+		if (this.checkpoints.remove(index) != null) {
+			this.totalSize -= this.sizes.remove(index);
+		}
+	}
+
+	private void removeAfter(int index) {
+		Iterator<Map.Entry<Integer,Long>> entries = this.sizes.tailMap(index, false).entrySet().iterator();
+		while (entries.hasNext()) {
+			this.totalSize -= entries.next().getValue();
+			entries.remove();
+		}
+		this.checkpoints.tailMap(index, false).clear();
+	}
+
+	/**
+	 * Estimates the memory used by the given composition from the number of denotators it consists of. Factors
+	 * backed by a score table are counted from the table without creating their denotators.
+	 */
+	static long estimateSize(Denotator composition) {
+		long count = 0;
+		Deque<Denotator> stack = new ArrayDeque<Denotator>();
+		stack.push(composition);
+		while (!stack.isEmpty()) {
+			Denotator current = stack.pop();
+			count++;
+			if (current instanceof PowerDenotator && ((PowerDenotator)current).getScoreTable() != null) {
+				ScoreTable table = ((PowerDenotator)current).getScoreTable();
+				count += (long)table.size()*(table.getColumnCount()+1);
+			} else if (current instanceof FactorDenotator) {
+				FactorDenotator factors = (FactorDenotator)current;
+				for (int i = 0; i < factors.getFactorCount(); i++) {
+					stack.push(factors.getFactor(i));
+				}
+			}
+		}
+		return count*ESTIMATED_DENOTATOR_SIZE;
+	}
+
+	/**
+	 * Records the given operations as executed completely, so that their checkpoints can be used.
+	 */
+	public void setExecutedOperations(List<AbstractOperation> operations) {
+		this.executedOperations = new ArrayList<AbstractOperation>(operations);
+	}
+
+}
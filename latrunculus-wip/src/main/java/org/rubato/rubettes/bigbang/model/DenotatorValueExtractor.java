@@ -11,6 +11,8 @@ import org.vetronauta.latrunculus.core.math.yoneda.denotator.ColimitDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.FactorDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.SimpleDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 
@@ -64,6 +66,10 @@ public class DenotatorValueExtractor {
 		if (denotatorType == FormDenotatorTypeEnum.POWER || denotatorType == FormDenotatorTypeEnum.LIST) {
 			FactorDenotator currentPower = (FactorDenotator)currentDenotator;
 			//System.out.println(currentDenotator + " " + satelliteLevel);
+			if (denotatorType == FormDenotatorTypeEnum.POWER && ((PowerDenotator)currentPower).getScoreTable() != null) {
+				this.extractObjects(((PowerDenotator)currentPower).getScoreTable(), currentObject, satelliteLevel, colimitIndex, currentPath);
+				return;
+			}
 			for (int i = 0; i < currentPower.getFactorCount(); i++) {
 				//call with currentDisplayObject and currentJSynObject null, since all children become independent objects
 				if (currentObject != null) {
@@ -108,6 +114,19 @@ public class DenotatorValueExtractor {
 		}
 	}
 	
+	//same as extractObjects for the notes of a score table, but reads the values directly from the columns
+	private void extractObjects(ScoreTable table, BigBangObject parentObject, int satelliteLevel, int colimitIndex, DenotatorPath currentPath) {
+		int rowSatelliteLevel = parentObject != null ? satelliteLevel+1 : satelliteLevel;
+		for (int i = 0; i < table.size(); i++) {
+			BigBangObject rowObject = this.getBigBangObject(parentObject, rowSatelliteLevel, i, colimitIndex, currentPath.getChildPath(i));
+			if (rowObject != null) {
+				for (int j = 0; j < table.getColumnCount(); j++) {
+					this.addSimpleValues(parentObject, rowObject, table.getColumnForm(j).getNameString(), table.getElement(j, i));
+				}
+			}
+		}
+	}
+	
 	private BigBangObject getBigBangObject(BigBangObject parentObject, int satelliteLevel, int siblingNumber, int colimitIndex, DenotatorPath path) {
 		BigBangObject object = this.objects.getObject(path);
 		if (object != null) {
@@ -132,16 +151,19 @@ public class DenotatorValueExtractor {
 	}
 	
 	private void addSimpleValues(BigBangObject parent, BigBangObject object, SimpleDenotator simpleDenotator) {
+		this.addSimpleValues(parent, object, simpleDenotator.getForm().getNameString(), simpleDenotator.getElement());
+	}
+	
+	private void addSimpleValues(BigBangObject parent, BigBangObject object, String simpleName, ModuleElement element) {
 		List<String> valueNames = new ArrayList<String>();
 		List<Double> values = new ArrayList<Double>();
-		this.extractValues(simpleDenotator, parent, object, valueNames, values);
+		this.extractValues(simpleName, element, parent, object, valueNames, values);
 		object.addValues(values);
 	}
 	
 	//TODO: maybe outsource, join with ObjectGenerator.createModule
-	private void extractValues(SimpleDenotator denotator, BigBangObject parent, BigBangObject object, List<String> valueNames, List<Double> values) {
-		String simpleName = denotator.getForm().getNameString();
-		this.extractValues(parent, object, simpleName, denotator.getElement(), valueNames, values, "");
+	private void extractValues(String simpleName, ModuleElement element, BigBangObject parent, BigBangObject object, List<String> valueNames, List<Double> values) {
+		this.extractValues(parent, object, simpleName, element, valueNames, values, "");
 		this.updateMinAndMax(valueNames, values);
 	}
 	
@@ -150,7 +150,27 @@ public class BigBangDenotatorManager {
 	public Denotator getComposition() {
 		return this.composition;
 	}
-	
+
+	/**
+	 * @return a copy of the current composition to resume from later, null if a wallpaper is currently being made,
+	 * since its state cannot be restored
+	 */
+	public Denotator createCheckpoint() {
+		if (this.currentWallpaper != null) {
+			return null;
+		}
+		return this.composition.deepCopy();
+	}
+
+	/**
+	 * replaces the present composition with a copy of the given checkpoint without reporting any new paths
+	 */
+	public void resumeFrom(Denotator checkpoint) {
+		this.composition = checkpoint.deepCopy();
+		this.resetCurrentPaths();
+		this.currentWallpaper = null;
+	}
+
 	public OperationPathResults addTransformation(Set<DenotatorPath> objectPaths, DenotatorPath anchorPath, BigBangTransformation transformation) {
 		//if there is currently a wallpaper being made, add transformation to wallpaper
 		if (this.currentWallpaper != null) {
@@ -92,13 +92,19 @@ public class TransformationPaths {
 		return null;
 	}
 	
-	/*public List<DenotatorPath> getDomainPaths(int dimensionIndex) {
+	/**
+	 * @return all paths of the given dimension of the domain, null if the dimension is not present
+	 */
+	public List<DenotatorPath> getDomainPaths(int dimensionIndex) {
 		return this.domainPaths.get(dimensionIndex);
 	}
 	
+	/**
+	 * @return all paths of the given dimension of the codomain, null if the dimension is not present
+	 */
 	public List<DenotatorPath> getCodomainPaths(int dimensionIndex) {
 		return this.codomainPaths.get(dimensionIndex);
-	}*/
+	}
 	
 	public int getDomainDim() {
 		return this.domainPaths.size();
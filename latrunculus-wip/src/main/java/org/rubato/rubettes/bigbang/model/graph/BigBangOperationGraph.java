@@ -1,7 +1,8 @@
 package org.rubato.rubettes.bigbang.model.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -16,7 +17,6 @@ import org.rubato.rubettes.bigbang.model.operations.AbstractOperation;
 import org.vetronauta.latrunculus.server.xml.XMLReader;
 import org.w3c.dom.Element;
 
-import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
 import edu.uci.ics.jung.graph.DirectedSparseMultigraph;
 import edu.uci.ics.jung.graph.util.EdgeType;
 import edu.uci.ics.jung.graph.util.Pair;
@@ -277,7 +277,8 @@ public class BigBangOperationGraph extends DirectedSparseMultigraph<CompositionS
 	
 	/*
 	 * updates currentOperationsInExecutedOrder to include all operations that start and end between state 0
-	 * and the selected composition states. simultaneously updates currentlyReachedStatesAndTimes
+	 * and the selected composition states. simultaneously updates currentlyReachedStatesAndTimes. the states are
+	 * visited in topological order, so that a state is reached when all executed operations leading to it are done
 	 */
 	private void updateCurrentlyExecutedEditsAndStatesAndTimes() {
 		if (!this.containsVertex(this.selectedCompositionState)) {
@@ -286,32 +287,85 @@ public class BigBangOperationGraph extends DirectedSparseMultigraph<CompositionS
 		if (!this.containsEdge(this.selectedOperation)) {
 			this.selectedOperation = null;
 		}
+		Set<CompositionState> shownStateAncestors = this.getAncestors(this.getShownState());
+		Set<CompositionState> reachedStates = this.getReachedStates(shownStateAncestors);
 		Set<AbstractOperation> currentlyExecutedEdits = new HashSet<AbstractOperation>();
 		this.currentlyReachedStatesAndTimes = new HashMap<CompositionState,Double>();
 		this.currentlyReachedStatesAndTimes.put(this.getFirstState(), 0.0);
-		Set<CompositionState> currentStates = new HashSet<CompositionState>();
-		currentStates.add(this.getFirstState());
-		while (currentStates.size() > 0) {
-			Set<CompositionState> nextStates = new HashSet<CompositionState>();
-			for (CompositionState currentState : currentStates) {
-				Collection<AbstractOperation> currentOutEdges = this.getOutEdges(currentState);
-				if (currentOutEdges != null) {
-					for (AbstractOperation currentEdit : this.getOutEdges(currentState)) {
-						CompositionState editDestination = this.getDest(currentEdit);
-						if (editDestination.equals(this.getShownState()) || this.connectedByPath(editDestination, this.getShownState())) {
-							currentlyExecutedEdits.add(currentEdit);
-							nextStates.add(editDestination);
-							double timeReached = this.currentlyReachedStatesAndTimes.get(currentState) + currentEdit.getDuration();
-							this.currentlyReachedStatesAndTimes.put(editDestination, timeReached);
-						}
+		//number of executed operations still leading to each state
+		Map<CompositionState,Integer> remainingInEdges = new HashMap<CompositionState,Integer>();
+		for (CompositionState currentState : reachedStates) {
+			for (AbstractOperation currentEdit : this.getOutEdges(currentState)) {
+				CompositionState editDestination = this.getDest(currentEdit);
+				if (reachedStates.contains(editDestination)) {
+					Integer remaining = remainingInEdges.get(editDestination);
+					remainingInEdges.put(editDestination, remaining != null ? remaining+1 : 1);
+				}
+			}
+		}
+		Deque<CompositionState> currentStates = new ArrayDeque<CompositionState>();
+		if (reachedStates.contains(this.getFirstState())) {
+			currentStates.add(this.getFirstState());
+		}
+		while (!currentStates.isEmpty()) {
+			CompositionState currentState = currentStates.poll();
+			double currentTime = this.currentlyReachedStatesAndTimes.get(currentState);
+			for (AbstractOperation currentEdit : this.getOutEdges(currentState)) {
+				CompositionState editDestination = this.getDest(currentEdit);
+				if (reachedStates.contains(editDestination)) {
+					currentlyExecutedEdits.add(currentEdit);
+					double timeReached = currentTime + currentEdit.getDuration();
+					Double previousTimeReached = this.currentlyReachedStatesAndTimes.get(editDestination);
+					if (previousTimeReached == null || previousTimeReached < timeReached) {
+						this.currentlyReachedStatesAndTimes.put(editDestination, timeReached);
+					}
+					int remaining = remainingInEdges.get(editDestination)-1;
+					remainingInEdges.put(editDestination, remaining);
+					if (remaining == 0) {
+						currentStates.add(editDestination);
 					}
 				}
 			}
-			currentStates = nextStates;
 		}
 		this.currentlyExecutedOperationsInOrder = this.putOperationsInLogicalOrder(currentlyExecutedEdits);
 	}
 	
+	//returns the given state and all states from which it can be reached
+	private Set<CompositionState> getAncestors(CompositionState state) {
+		Set<CompositionState> ancestors = new HashSet<CompositionState>();
+		Deque<CompositionState> statesToVisit = new ArrayDeque<CompositionState>();
+		ancestors.add(state);
+		statesToVisit.add(state);
+		while (!statesToVisit.isEmpty()) {
+			for (AbstractOperation currentEdit : this.getInEdges(statesToVisit.poll())) {
+				CompositionState editSource = this.getSource(currentEdit);
+				if (ancestors.add(editSource)) {
+					statesToVisit.add(editSource);
+				}
+			}
+		}
+		return ancestors;
+	}
+	
+	//returns all of the given states that can be reached from the first state without leaving the given states
+	private Set<CompositionState> getReachedStates(Set<CompositionState> states) {
+		Set<CompositionState> reachedStates = new HashSet<CompositionState>();
+		Deque<CompositionState> statesToVisit = new ArrayDeque<CompositionState>();
+		if (states.contains(this.getFirstState())) {
+			reachedStates.add(this.getFirstState());
+			statesToVisit.add(this.getFirstState());
+		}
+		while (!statesToVisit.isEmpty()) {
+			for (AbstractOperation currentEdit : this.getOutEdges(statesToVisit.poll())) {
+				CompositionState editDestination = this.getDest(currentEdit);
+				if (states.contains(editDestination) && reachedStates.add(editDestination)) {
+					statesToVisit.add(editDestination);
+				}
+			}
+		}
+		return reachedStates;
+	}
+	
 	private CompositionState getShownState() {
 		if (this.selectedCompositionState != null) {
 			return this.selectedCompositionState;
@@ -331,8 +385,7 @@ public class BigBangOperationGraph extends DirectedSparseMultigraph<CompositionS
 	}
 
 	private boolean connectedByPath(CompositionState state1, CompositionState state2) {
-		DijkstraShortestPath<CompositionState,AbstractOperation> dijkstra = new DijkstraShortestPath<CompositionState,AbstractOperation>(this);
-		return dijkstra.getPath(state1, state2).size() > 0;
+		return !state1.equals(state2) && this.getAncestors(state2).contains(state1);
 	}
 	
 	/**
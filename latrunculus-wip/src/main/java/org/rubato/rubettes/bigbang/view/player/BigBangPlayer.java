@@ -31,7 +31,7 @@ public class BigBangPlayer {
 	public static final int BASE_A4 = 440; // A4 tuning in Hz
 	public static final int SAMPLE_RATE = 48000;
 	public static final double DEFAULT_ADVANCE = 0.05; //seconds
-	public final int MAX_NUMBER_OF_THREADS = 200;
+	public static final int MAX_NUMBER_OF_VOICES = 200;
 	
 	public static final String[] WAVEFORMS = {"Sine", "Square", "Sawtooth", "Triangle"};
 	private static Map<String,MidiDevice> midiOutDevices;
@@ -1,10 +1,15 @@
 package org.rubato.rubettes.bigbang.view.player;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import javax.sound.midi.MidiDevice;
@@ -12,12 +17,25 @@ import javax.sound.midi.MidiDevice;
 import org.rubato.rubettes.bigbang.model.BigBangObject;
 import org.rubato.rubettes.bigbang.view.io.BigBangMidiTransmitter;
 
+/**
+ * Plays a score by scheduling the objects of all its voices from a single thread. The voices are kept in a queue
+ * ordered by the synth time of their next object, which is played DEFAULT_ADVANCE seconds ahead. Changes of the
+ * score, pitch or velocity replace the voices while reusing the modules of the objects that are currently playing.
+ */
 public class JSynPerformance extends Thread {
 	
+	//number of unused modules kept for later voices instead of being removed from the synth
+	private static final int MAX_IDLE_MODULES = 16;
+	private static final Comparator<JSynVoice> NEXT_ONSET_ORDER = Comparator.comparingDouble(JSynVoice::getNextSynthOnset);
+	private static final Comparator<JSynVoice> LAST_OFFSET_ORDER = Comparator.comparingDouble(JSynVoice::getLastOffset);
+	
 	private BigBangPlayer player;
 	private JSynScore score;
-	private JSynThreadGroup threads;
-	private List<JSynModule> modules;
+	private final Object scheduleLock;
+	private PriorityQueue<JSynVoice> scheduledVoices;
+	private boolean isScheduling, isStopped;
+	private Set<JSynModule> modules;
+	private Deque<JSynModule> idleModules;
 	private double synthTimeAtStartOrChange;
 	private double symbolicTimeAtStartOrChange;
 	private boolean isPlaying;
@@ -31,8 +49,10 @@ public class JSynPerformance extends Thread {
 	public JSynPerformance(BigBangPlayer player, MidiDevice outputDevice, JSynScore score, Integer pitch, Integer velocity) {
 		this.player = player;
 		this.score = score;
-		this.threads = new JSynThreadGroup(false);
-		this.modules = new ArrayList<JSynModule>();
+		this.scheduleLock = new Object();
+		this.scheduledVoices = new PriorityQueue<JSynVoice>(NEXT_ONSET_ORDER);
+		this.modules = new LinkedHashSet<JSynModule>();
+		this.idleModules = new ArrayDeque<JSynModule>();
 		this.symbolicTimeAtStartOrChange = 0;
 		this.isPlaying = false;
 		this.pitch = pitch;
@@ -40,6 +60,7 @@ public class JSynPerformance extends Thread {
 		if (outputDevice != null) {
 			this.midiTransmitter = new BigBangMidiTransmitter(outputDevice);
 		}
+		this.setDaemon(true);
 	}
 	
 	public BigBangPlayer getPlayer() {
@@ -48,7 +69,7 @@ public class JSynPerformance extends Thread {
 	
 	public void setPitch(int pitch) {
 		this.pitch = pitch;
-		this.replaceThreads();
+		this.replaceVoices();
 	}
 	
 	public int getPitch() {
@@ -57,7 +78,7 @@ public class JSynPerformance extends Thread {
 	
 	public void setVelocity(int velocity) {
 		this.velocity = velocity;
-		this.replaceThreads();
+		this.replaceVoices();
 	}
 	
 	public void setRateModifier(double rateModifier) {
@@ -66,22 +87,55 @@ public class JSynPerformance extends Thread {
 	
 	public void replaceScore(JSynScore score) {
 		this.score = score;
-		this.replaceThreads();
+		this.replaceVoices();
 		if (this.midiTransmitter != null) {
 			this.midiTransmitter.removeOldRepeaters(score);
 		}
 	}
 	
-	private void replaceThreads() {
-		JSynThreadGroup newThreads = this.generateThreads(false);
-		this.allocateModules(newThreads);
-		this.threads.stop();
-		this.threads = newThreads;
-		this.threads.start();
+	/*
+	 * replaces the scheduled voices with ones generated from the current score. the modules of the objects
+	 * currently playing are kept, so that they are adjusted rather than restarted
+	 */
+	private void replaceVoices() {
+		synchronized (this.scheduleLock) {
+			if (this.isScheduling) {
+				List<JSynVoice> newVoices = this.generateVoices(false);
+				this.allocateModules(newVoices);
+				this.scheduledVoices.clear();
+				for (JSynVoice currentVoice : newVoices) {
+					this.scheduleVoice(currentVoice);
+				}
+				this.scheduleLock.notifyAll();
+			}
+		}
 	}
 	
+	/**
+	 * Reschedules all voices, e.g. after a change of tempo.
+	 */
 	public void interrupt() {
-		this.threads.interrupt();
+		synchronized (this.scheduleLock) {
+			List<JSynVoice> voices = new ArrayList<JSynVoice>(this.scheduledVoices);
+			this.scheduledVoices.clear();
+			for (JSynVoice currentVoice : voices) {
+				this.scheduleVoice(currentVoice);
+			}
+			this.scheduleLock.notifyAll();
+		}
+	}
+	
+	//adjusts the given voice to the current time and schedules its next object if there is one
+	private void scheduleVoice(JSynVoice voice) {
+		JSynObject nextObject = voice.adjustToCurrentTime();
+		if (nextObject != null) {
+			this.scheduleObject(voice, nextObject);
+		}
+	}
+	
+	private void scheduleObject(JSynVoice voice, JSynObject object) {
+		voice.setNextSynthOnset(this.getSynthOnset(object.getOnset(), voice.isPlayedInNextLoop()));
+		this.scheduledVoices.add(voice);
 	}
 	
 	public void setPlaybackPosition(double playbackPosition) {
@@ -131,16 +185,25 @@ public class JSynPerformance extends Thread {
 	 * Clean up synthesis by overriding stop() method.
 	 */
 	public void stopPlaying(boolean justMute) {
-		this.interrupt();
-		this.isPlaying = false;
-		for (JSynModule currentModule : this.modules) {
-			currentModule.mute();
-		}
-		if (!justMute) {
-			this.threads.stop(); // tell run() to exit peacefully
+		synchronized (this.scheduleLock) {
+			this.isPlaying = false;
 			for (JSynModule currentModule : this.modules) {
-				currentModule.finalize();
+				currentModule.mute();
+			}
+			if (!justMute) {
+				this.isStopped = true;
+				this.isScheduling = false; // tell run() to exit peacefully
+				this.scheduledVoices.clear();
+				for (JSynModule currentModule : this.modules) {
+					currentModule.finalize();
+				}
+				for (JSynModule currentModule : this.idleModules) {
+					currentModule.finalize();
+				}
+				this.modules.clear();
+				this.idleModules.clear();
 			}
+			this.scheduleLock.notifyAll();
 		}
 		if (this.midiTransmitter != null) {
 			this.midiTransmitter.clear();
@@ -153,147 +216,172 @@ public class JSynPerformance extends Thread {
 	
 	public void run() {
 		if (this.score != null) {
-			if (!this.isPlaying) {
-				this.player.startSynth();
-			} else {
-				this.threads.stop();
-			}
-			
-			this.isPlaying = true;
-			this.synthTimeAtStartOrChange = this.player.getCurrentSynthTime();
-			
-			this.threads = this.generateThreads(false);
-			this.allocateModules(this.threads);
-			this.threads.start();
-			
-			if (this.player.isLooping()) {
-				double timeOfNextLoop = this.player.getCurrentSynthTime();
-				
-				while (this.player.isLooping() && this.isPlaying) {
-					double currentLoopDuration = this.player.convertToSynthDuration(this.player.getLoopDuration());
-					timeOfNextLoop += currentLoopDuration;
-					
-					while (timeOfNextLoop - BigBangPlayer.DEFAULT_ADVANCE > this.player.getCurrentSynthTime()) {
-						try {
-							long sleepTime = (long)Math.ceil((timeOfNextLoop - BigBangPlayer.DEFAULT_ADVANCE - this.player.getCurrentSynthTime())*1000);
-							Thread.sleep(sleepTime);
-						} catch (InterruptedException e) {
-							/*if (this.player.isLooping() && this.isPlaying) {
-								timeOfNextLoop -= currentLoopDuration;
-								currentLoopDuration = this.player.convertToSynthDuration(this.player.getLoopDuration());
-								timeOfNextLoop += currentLoopDuration;
-								//go back to sleep
-							} else {*/
-								this.threads.stop();
-								return;
-							//}
-						}
-					}
-					
-					//System.out.println("loop "+ this.score + " "  + this.player.getCurrentSynthTime());
-					//this.threads.stop();
-					this.threads = this.generateThreads(true);
-					this.allocateModules(this.threads);
-					this.threads.start();
+			this.player.startSynth();
+			synchronized (this.scheduleLock) {
+				if (this.isStopped) {
+					return;
 				}
+				this.isPlaying = true;
+				this.isScheduling = true;
+				this.synthTimeAtStartOrChange = this.player.getCurrentSynthTime();
+				this.replaceVoices();
+			}
+			double timeOfNextLoop = this.player.getCurrentSynthTime() + this.player.convertToSynthDuration(this.player.getLoopDuration());
+			try {
+				this.playScheduledObjects(timeOfNextLoop);
+			} catch (InterruptedException e) {
+				this.stopPlaying(false);
 			}
 			//System.out.println("done "+ this.score + " "  + this.getCurrentSynthTime());
 		}
 	}
 	
 	/*
-	 * generates threads based on copies of this score, adjusted to the given starting time and pitch
+	 * plays the objects of the scheduled voices in time until playing is stopped. when looping, schedules the
+	 * voices of the next loop at its beginning
 	 */
-	private JSynThreadGroup generateThreads(boolean playInNextLoop) {
-		Set<JSynObject> objects = this.score.getObjects();
-		JSynThreadGroup threads = new JSynThreadGroup(playInNextLoop);
-		if (objects.size() > 0) {
-			for (JSynObject currentObject : objects) {
-				JSynObject clone = currentObject.clone();
-				if (this.pitch != null) {
-					clone.setTranspositionInterval(this.pitch-60);
+	private void playScheduledObjects(double timeOfNextLoop) throws InterruptedException {
+		boolean isLooping = this.player.isLooping();
+		synchronized (this.scheduleLock) {
+			while (this.isScheduling) {
+				isLooping = isLooping && this.player.isLooping();
+				JSynVoice nextVoice = this.scheduledVoices.peek();
+				double nextObjectTime = Double.MAX_VALUE;
+				if (nextVoice != null) {
+					nextObjectTime = nextVoice.getNextSynthOnset() - BigBangPlayer.DEFAULT_ADVANCE;
 				}
-				if (this.velocity != null) {
-					clone.setLoudnessRatio(((double)this.velocity)/127);
+				double nextLoopTime = isLooping ? timeOfNextLoop - BigBangPlayer.DEFAULT_ADVANCE : Double.MAX_VALUE;
+				double wakeUpTime = Math.min(nextObjectTime, nextLoopTime);
+				double currentTime = this.player.getCurrentSynthTime();
+				if (wakeUpTime == Double.MAX_VALUE) {
+					//nothing to play until the score changes
+					this.scheduleLock.wait();
+				} else if (wakeUpTime > currentTime) {
+					this.scheduleLock.wait((long)Math.ceil((wakeUpTime - currentTime)*1000));
+				} else if (nextObjectTime <= nextLoopTime) {
+					this.scheduledVoices.poll();
+					JSynObject followingObject = nextVoice.playNextObject();
+					if (followingObject != null) {
+						this.scheduleObject(nextVoice, followingObject);
+					}
+				} else {
+					//System.out.println("loop "+ this.score + " "  + this.player.getCurrentSynthTime());
+					List<JSynVoice> nextLoopVoices = this.generateVoices(true);
+					this.allocateModules(nextLoopVoices);
+					//voices of the previous loop that lost their module stop playing
+					this.scheduledVoices.removeIf(voice -> !this.modules.contains(voice.getModule()));
+					for (JSynVoice currentVoice : nextLoopVoices) {
+						this.scheduleVoice(currentVoice);
+					}
+					timeOfNextLoop += this.player.convertToSynthDuration(this.player.getLoopDuration());
 				}
-				this.addNoteToConvenientThread(clone, threads);
 			}
 		}
-		this.removeExcessiveThreads(threads);
-		return threads;
 	}
 	
-	private void addNoteToConvenientThread(JSynObject note, JSynThreadGroup threads) {
-		double onset = note.getOnset();
-		double offset = note.getOffset();
-		double voice = note.getVoice();
-		boolean convenientThreadFound = false;
-		for (JSynThread currentThread : threads) {
-			if (currentThread.getVoice() == voice) {
-				if (!currentThread.playsAt(onset, offset)) {
-					currentThread.addObject(note);
-					convenientThreadFound = true;
-					return;
-				}
+	/*
+	 * generates voices based on copies of the objects of this score, adjusted to the given starting time and pitch.
+	 * the objects are distributed in the order of their onsets, each to the voice with the same voice number that
+	 * ends first, if it ends before the object starts
+	 */
+	private List<JSynVoice> generateVoices(boolean playInNextLoop) {
+		List<JSynObject> objects = new ArrayList<JSynObject>();
+		for (JSynObject currentObject : this.score.getObjects()) {
+			JSynObject clone = currentObject.clone();
+			if (this.pitch != null) {
+				clone.setTranspositionInterval(this.pitch-60);
+			}
+			if (this.velocity != null) {
+				clone.setLoudnessRatio(((double)this.velocity)/127);
 			}
+			objects.add(clone);
 		}
-		if (!convenientThreadFound) {
-			threads.add(new JSynThread(this, note));
+		objects.sort(Comparator.comparingDouble(JSynObject::getOnset));
+		List<JSynVoice> voices = new ArrayList<JSynVoice>();
+		Map<Integer,PriorityQueue<JSynVoice>> voicesByNumber = new HashMap<Integer,PriorityQueue<JSynVoice>>();
+		for (JSynObject currentObject : objects) {
+			PriorityQueue<JSynVoice> sameNumberVoices = voicesByNumber.get(currentObject.getVoice());
+			if (sameNumberVoices == null) {
+				sameNumberVoices = new PriorityQueue<JSynVoice>(LAST_OFFSET_ORDER);
+				voicesByNumber.put(currentObject.getVoice(), sameNumberVoices);
+			}
+			JSynVoice firstEndingVoice = sameNumberVoices.peek();
+			if (firstEndingVoice != null && firstEndingVoice.getLastOffset() < currentObject.getOnset()) {
+				sameNumberVoices.poll();
+				firstEndingVoice.addObject(currentObject);
+				sameNumberVoices.add(firstEndingVoice);
+			} else {
+				JSynVoice newVoice = new JSynVoice(this, currentObject, playInNextLoop);
+				voices.add(newVoice);
+				sameNumberVoices.add(newVoice);
+			}
 		}
+		this.removeExcessiveVoices(voices);
+		return voices;
 	}
 	
-	private void removeExcessiveThreads(JSynThreadGroup threads) {
-		while (threads.size() > this.player.MAX_NUMBER_OF_THREADS) {
-			threads.remove((int)Math.round(Math.random()*(threads.size()-1)));
+	private void removeExcessiveVoices(List<JSynVoice> voices) {
+		while (voices.size() > BigBangPlayer.MAX_NUMBER_OF_VOICES) {
+			voices.remove((int)Math.round(Math.random()*(voices.size()-1)));
 		}
 	}
 	
 	//reallocate sound modules in order to get as few glitches as possible
-	private synchronized void allocateModules(JSynThreadGroup threads) {
+	private void allocateModules(List<JSynVoice> voices) {
 		
-		//associate currently playing threads with modules playing same BigBangObjects, or create new ones
+		//associate currently playing voices with modules playing same BigBangObjects, or take other ones
 		Set<JSynModule> remainingModules = new HashSet<JSynModule>(this.modules);
 		Map<BigBangObject,JSynModule> objectsAndModulesMap = this.getCurrentObjectsAndModules();
 		double currentTime = this.player.getSynth().getCurrentTime();
-		List<JSynThread> notPlayingThreads = new ArrayList<JSynThread>();
+		List<JSynVoice> notPlayingVoices = new ArrayList<JSynVoice>();
 		
-		for (JSynThread currentThread : threads) {
-			JSynObject objectAtCurrentTime = currentThread.getObjectAt(currentTime);
+		for (JSynVoice currentVoice : voices) {
+			JSynObject objectAtCurrentTime = currentVoice.getObjectAt(currentTime);
 			
-			//System.out.println(remainingModules);
 			if (objectAtCurrentTime != null) {
 				JSynModule objectModule = objectsAndModulesMap.get(objectAtCurrentTime.getBigBangObject());
 				
-				if (objectModule != null) {
-					currentThread.setModule(objectModule);
-					remainingModules.remove(objectModule);
-					//System.out.println(currentFrequency + " " + closestModule.getCarrierFrequency());
+				if (objectModule != null && remainingModules.remove(objectModule)) {
+					currentVoice.setModule(objectModule);
 				} else {
-					JSynModule newModule = new JSynModule(this);
-					this.modules.add(newModule);
-					currentThread.setModule(newModule);
-					//System.out.println(currentFrequency + " new module");
+					currentVoice.setModule(this.obtainModule());
 				}
 			} else {
-				notPlayingThreads.add(currentThread);
+				notPlayingVoices.add(currentVoice);
 			}
 		}
 		
-		//remove unused modules from this.modules
+		//reuse remaining modules for voices that are not playing, release the others
 		for (JSynModule currentRemainingModule : remainingModules) {
-			if (notPlayingThreads.size() > 0) {
-				notPlayingThreads.remove(0).setModule(currentRemainingModule);
+			if (notPlayingVoices.size() > 0) {
+				notPlayingVoices.remove(notPlayingVoices.size()-1).setModule(currentRemainingModule);
 			} else {
-				this.modules.remove(currentRemainingModule);
-				currentRemainingModule.finalize();
+				this.releaseModule(currentRemainingModule);
 			}
 		}
 		
-		//make more modules for threads that are not playing 
-		for (JSynThread currentThread : notPlayingThreads) {
-			JSynModule newModule = new JSynModule(this);
-			this.modules.add(newModule);
-			currentThread.setModule(newModule);
+		//take more modules for voices that are not playing 
+		for (JSynVoice currentVoice : notPlayingVoices) {
+			currentVoice.setModule(this.obtainModule());
+		}
+	}
+	
+	private JSynModule obtainModule() {
+		JSynModule module = this.idleModules.poll();
+		if (module == null) {
+			module = new JSynModule(this);
+		}
+		this.modules.add(module);
+		return module;
+	}
+	
+	private void releaseModule(JSynModule module) {
+		this.modules.remove(module);
+		if (this.idleModules.size() < JSynPerformance.MAX_IDLE_MODULES) {
+			module.mute();
+			this.idleModules.push(module);
+		} else {
+			module.finalize();
 		}
 	}
 	
@@ -0,0 +1,117 @@
+package org.rubato.rubettes.bigbang.view.player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of non-overlapping objects of the same voice, played one after the other by one JSynModule. The
+ * voices are not threads, they are scheduled by their JSynPerformance.
+ */
+class JSynVoice {
+
+	private JSynPerformance performance;
+	private JSynModule module;
+
+	private List<JSynObject> objects;
+	private int nextIndex;
+	private int voice;
+	private double lastOffset;
+	private boolean playInNextLoop;
+	//synth time at which the next object is due, as last scheduled
+	private double nextSynthOnset;
+
+	public JSynVoice(JSynPerformance performance, JSynObject object, boolean playInNextLoop) {
+		this.performance = performance;
+		this.objects = new ArrayList<JSynObject>();
+		this.voice = object.getVoice();
+		this.playInNextLoop = playInNextLoop;
+		this.lastOffset = Double.NEGATIVE_INFINITY;
+		this.addObject(object);
+	}
+
+	/**
+	 * objects have to be added in the order of their onsets
+	 */
+	public void addObject(JSynObject object) {
+		this.objects.add(object);
+		this.lastOffset = Math.max(this.lastOffset, object.getOffset());
+	}
+
+	public JSynObject getObjectAt(double time) {
+		for (JSynObject currentObject : this.objects) {
+			if (currentObject.getOnset() <= time && currentObject.getOnset()+currentObject.getDuration() >= time) {
+				return currentObject;
+			}
+		}
+		return null;
+	}
+
+	public void setModule(JSynModule module) {
+		this.module = module;
+	}
+
+	public JSynModule getModule() {
+		return this.module;
+	}
+
+	public int getVoice() {
+		return this.voice;
+	}
+
+	public double getLastOffset() {
+		return this.lastOffset;
+	}
+
+	public boolean isPlayedInNextLoop() {
+		return this.playInNextLoop;
+	}
+
+	/*
+	 * adjusts the currently playing object to the current time and returns the next object to be played, null if
+	 * there is none.
+	 */
+	public JSynObject adjustToCurrentTime() {
+		this.nextIndex = 0;
+		boolean foundOneToAdjust = false;
+		double currentSymbolicTime = this.performance.getCurrentSymbolicTime();
+		while (this.nextIndex < this.objects.size()) {
+			JSynObject currentObject = this.objects.get(this.nextIndex);
+			if (currentObject.getOnset() < currentSymbolicTime && !this.playInNextLoop) {
+				this.module.playOrAdjustObject(currentObject, false);
+				foundOneToAdjust = true;
+				this.nextIndex++;
+			} else {
+				if (!foundOneToAdjust) {
+					this.module.mute();
+				}
+				return currentObject;
+			}
+		}
+		return null;
+	}
+
+	public JSynObject getNextObject() {
+		if (this.nextIndex < this.objects.size()) {
+			return this.objects.get(this.nextIndex);
+		}
+		return null;
+	}
+
+	/**
+	 * plays the next object and returns the one after it, null if there is none
+	 */
+	public JSynObject playNextObject() {
+		this.module.playOrAdjustObject(this.objects.get(this.nextIndex), this.playInNextLoop);
+		this.nextIndex++;
+		return this.getNextObject();
+	}
+
+	public double getNextSynthOnset() {
+		return this.nextSynthOnset;
+	}
+
+	public void setNextSynthOnset(double nextSynthOnset) {
+		this.nextSynthOnset = nextSynthOnset;
+	}
+
+}
@@ -0,0 +1,183 @@
+package org.rubato.rubettes.bigbang.view.subview;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.rubato.rubettes.bigbang.view.model.DisplayObject;
+import org.rubato.rubettes.util.Point2D;
+import org.rubato.rubettes.util.Rectangle2D;
+
+/**
+ * A uniform grid over the rectangles of display objects, so that hit tests and area
+ * selections only look at the objects in the cells they touch. The cell size is the
+ * average object size. Objects spanning too many cells are kept aside and always tested.
+ * The grid has to be rebuilt when the bounds of the objects change.
+ */
+class DisplayObjectGrid {
+	
+	private static final int MAX_CELLS_PER_OBJECT = 64;
+	
+	private Map<Long,List<DisplayObject>> cells;
+	private List<DisplayObject> largeObjects;
+	private Collection<DisplayObject> objects;
+	private double cellWidth, cellHeight;
+	
+	public DisplayObjectGrid(Collection<DisplayObject> objects) {
+		this.objects = objects;
+		this.cells = new HashMap<Long,List<DisplayObject>>();
+		this.largeObjects = new ArrayList<DisplayObject>();
+		double widthSum = 0, heightSum = 0;
+		int count = 0;
+		for (DisplayObject currentObject : objects) {
+			Rectangle2D rectangle = currentObject.getRectangle();
+			if (rectangle != null) {
+				widthSum += Math.abs(rectangle.getWidth());
+				heightSum += Math.abs(rectangle.getHeight());
+				count++;
+			}
+		}
+		this.cellWidth = this.getCellSize(widthSum, count);
+		this.cellHeight = this.getCellSize(heightSum, count);
+		for (DisplayObject currentObject : objects) {
+			this.add(currentObject);
+		}
+	}
+	
+	private double getCellSize(double sizeSum, int count) {
+		double size = count > 0 ? sizeSum/count : 1;
+		if (size > 0 && !Double.isInfinite(size)) {
+			return size;
+		}
+		return 1;
+	}
+	
+	private void add(DisplayObject object) {
+		Rectangle2D rectangle = object.getRectangle();
+		if (rectangle == null) {
+			return;
+		}
+		int[] cellRange = this.getCellRange(rectangle);
+		if (cellRange == null || this.getCellCount(cellRange) > MAX_CELLS_PER_OBJECT) {
+			this.largeObjects.add(object);
+			return;
+		}
+		for (int x = cellRange[0]; x <= cellRange[2]; x++) {
+			for (int y = cellRange[1]; y <= cellRange[3]; y++) {
+				Long key = this.getKey(x, y);
+				List<DisplayObject> cell = this.cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<DisplayObject>(2);
+					this.cells.put(key, cell);
+				}
+				cell.add(object);
+			}
+		}
+	}
+	
+	public void remove(DisplayObject object) {
+		if (!this.largeObjects.remove(object)) {
+			Rectangle2D rectangle = object.getRectangle();
+			int[] cellRange = rectangle != null ? this.getCellRange(rectangle) : null;
+			if (cellRange != null) {
+				for (int x = cellRange[0]; x <= cellRange[2]; x++) {
+					for (int y = cellRange[1]; y <= cellRange[3]; y++) {
+						List<DisplayObject> cell = this.cells.get(this.getKey(x, y));
+						if (cell != null) {
+							cell.remove(object);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the objects intersecting the given area, in their natural order.
+	 */
+	public TreeSet<DisplayObject> getObjectsIn(Rectangle2D area) {
+		TreeSet<DisplayObject> objectsInArea = new TreeSet<DisplayObject>();
+		int[] cellRange = this.getCellRange(area);
+		if (cellRange == null || this.getCellCount(cellRange) > this.objects.size()) {
+			//cheaper to test every object
+			this.addIntersecting(this.objects, area, objectsInArea);
+			return objectsInArea;
+		}
+		for (int x = cellRange[0]; x <= cellRange[2]; x++) {
+			for (int y = cellRange[1]; y <= cellRange[3]; y++) {
+				List<DisplayObject> cell = this.cells.get(this.getKey(x, y));
+				if (cell != null) {
+					this.addIntersecting(cell, area, objectsInArea);
+				}
+			}
+		}
+		this.addIntersecting(this.largeObjects, area, objectsInArea);
+		return objectsInArea;
+	}
+	
+	private void addIntersecting(Collection<DisplayObject> candidates, Rectangle2D area, Collection<DisplayObject> objectsInArea) {
+		for (DisplayObject currentObject : candidates) {
+			if (currentObject.getRectangle() != null && currentObject.intersects(area)) {
+				objectsInArea.add(currentObject);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the first object, in their natural order, whose rectangle contains the given location,
+	 * or null if there is none.
+	 */
+	public DisplayObject getObjectAt(Point2D location) {
+		DisplayObject firstObject = this.getFirstObjectAt(this.largeObjects, location, null);
+		int x = this.getCell(location.getX(), this.cellWidth);
+		int y = this.getCell(location.getY(), this.cellHeight);
+		List<DisplayObject> cell = this.cells.get(this.getKey(x, y));
+		if (cell != null) {
+			firstObject = this.getFirstObjectAt(cell, location, firstObject);
+		}
+		return firstObject;
+	}
+	
+	private DisplayObject getFirstObjectAt(List<DisplayObject> candidates, Point2D location, DisplayObject firstObject) {
+		for (DisplayObject currentObject : candidates) {
+			Rectangle2D rectangle = currentObject.getRectangle();
+			if (rectangle != null && rectangle.contains(location)
+					&& (firstObject == null || currentObject.compareTo(firstObject) < 0)) {
+				firstObject = currentObject;
+			}
+		}
+		return firstObject;
+	}
+	
+	/*
+	 * Returns the cells {minX, minY, maxX, maxY} covered by the given rectangle,
+	 * or null if it is not finite.
+	 */
+	private int[] getCellRange(Rectangle2D rectangle) {
+		double minX = Math.min(rectangle.getX(), rectangle.getX()+rectangle.getWidth());
+		double maxX = Math.max(rectangle.getX(), rectangle.getX()+rectangle.getWidth());
+		double minY = Math.min(rectangle.getY(), rectangle.getY()+rectangle.getHeight());
+		double maxY = Math.max(rectangle.getY(), rectangle.getY()+rectangle.getHeight());
+		if (Double.isNaN(minX+maxX+minY+maxY) || Double.isInfinite(minX+maxX+minY+maxY)) {
+			return null;
+		}
+		return new int[]{this.getCell(minX, this.cellWidth), this.getCell(minY, this.cellHeight),
+				this.getCell(maxX, this.cellWidth), this.getCell(maxY, this.cellHeight)};
+	}
+	
+	private long getCellCount(int[] cellRange) {
+		return ((long)cellRange[2]-cellRange[0]+1)*((long)cellRange[3]-cellRange[1]+1);
+	}
+	
+	private int getCell(double coordinate, double cellSize) {
+		return (int)Math.floor(coordinate/cellSize);
+	}
+	
+	private Long getKey(int x, int y) {
+		return ((long)x << 32) | (y & 0xffffffffL);
+	}
+
+}
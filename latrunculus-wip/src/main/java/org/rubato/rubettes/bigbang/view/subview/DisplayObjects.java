@@ -33,6 +33,10 @@ public class DisplayObjects {
 	private Set<DisplayObject> selectedObjects;
 	//selectedAnchor might also not be present currently
 	private DisplayObject selectedAnchor;
+	//objects shown as selected while an area is being selected
+	private Set<DisplayObject> tempSelectedObjects;
+	//index of the current objects for hit tests, null if the objects or their bounds changed
+	private DisplayObjectGrid grid;
 	
 	//active object is the one selected for being drawn etc
 	private int indexOfActiveObjectType;
@@ -58,11 +62,13 @@ public class DisplayObjects {
 		this.objectMap = new HashMap<BigBangObject,DisplayObject>();
 		this.objects = new TreeSet<DisplayObject>();
 		this.selectedObjects = new TreeSet<DisplayObject>();
+		this.tempSelectedObjects = new TreeSet<DisplayObject>();
 	}
 	
 	public synchronized void addObjects(Set<BigBangObject> newObjects) {
 		//reset object since they might temporarily not exist (e.g. during animation)
 		this.objects = new TreeSet<DisplayObject>();
+		this.grid = null;
 		if (newObjects != null) {
 			for (BigBangObject currentObject : newObjects) {
 				if (!this.objectMap.containsKey(currentObject)) {
@@ -81,13 +87,25 @@ public class DisplayObjects {
 		this.updateActiveSatelliteLevel();
 	}
 	
-	public void removeObjects(Set<BigBangObject> removedObjects) {
+	public synchronized void removeObjects(Set<BigBangObject> removedObjects) {
 		for (BigBangObject currentObject : removedObjects) {
-			this.objects.remove(currentObject);
-			this.objectMap.remove(currentObject);
+			DisplayObject removedObject = this.objectMap.remove(currentObject);
+			if (removedObject != null) {
+				this.objects.remove(removedObject);
+				if (this.grid != null) {
+					this.grid.remove(removedObject);
+				}
+			}
 		}
 	}
 	
+	private synchronized DisplayObjectGrid getGrid() {
+		if (this.grid == null) {
+			this.grid = new DisplayObjectGrid(this.objects);
+		}
+		return this.grid;
+	}
+	
 	public List<Double> getMinValues() {
 		return this.bbObjects.getMinValues();
 	}
@@ -260,18 +278,24 @@ public class DisplayObjects {
 	}
 	
 	public void tempSelectObjects(Rectangle2D area) {
-		for (DisplayObject currentObject: this.objects) {
+		Set<DisplayObject> objectsInArea = this.getGrid().getObjectsIn(area);
+		for (DisplayObject currentObject: this.tempSelectedObjects) {
+			if (!objectsInArea.contains(currentObject) && !this.selectedObjects.contains(currentObject)) {
+				currentObject.setSelected(false);
+			}
+		}
+		this.tempSelectedObjects = new TreeSet<DisplayObject>();
+		for (DisplayObject currentObject: objectsInArea) {
 			if (!this.selectedObjects.contains(currentObject)) {
-				currentObject.setSelected(currentObject.intersects(area));
+				currentObject.setSelected(true);
+				this.tempSelectedObjects.add(currentObject);
 			}
 		}
 	}
 	
 	public int selectObjects(Rectangle2D area) {
-		for (DisplayObject currentObject: this.objects) {
-			if (currentObject.intersects(area)) {
-				this.selectObject(currentObject);
-			}
+		for (DisplayObject currentObject: this.getGrid().getObjectsIn(area)) {
+			this.selectObject(currentObject);
 		}
 		return this.selectedObjects.size();
 	}
@@ -338,11 +362,10 @@ public class DisplayObjects {
 	
 	public int selectTopOrDeselectAllObjects(Point2D location) {
 		//notes are saved from bottom to top... just takes one note
-		for (DisplayObject currentObject: this.objects) {
-			if (currentObject.getRectangle().contains(location)) {
-				this.toggleSelected(currentObject);
-				return this.selectedObjects.size();
-			}
+		DisplayObject topObject = this.getObjectAt(location);
+		if (topObject != null) {
+			this.toggleSelected(topObject);
+			return this.selectedObjects.size();
 		}
 		this.deselectAllObjects();
 		return this.selectedObjects.size();
@@ -364,7 +387,7 @@ public class DisplayObjects {
 	}
 	
 	public DisplayObject getObjectAt(Point2D location) {
-		return this.getObjectAt(location, this.objects);
+		return this.getGrid().getObjectAt(location);
 	}
 	
 	public boolean hasSelectedObjectAt(Point2D location) {
@@ -486,6 +509,7 @@ public class DisplayObjects {
 		for (DisplayObject currentObject : this.objects) {
 			currentObject.updateBounds(xZoomFactor, yZoomFactor, xPosition, yPosition);
 		}
+		this.grid = null;
 	}
 	
 	public void paint(AbstractPainter painter) {
@@ -91,6 +91,12 @@ public final class BooleanRubette extends AbstractRubette {
     }
     
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -191,6 +191,12 @@ public class ConstructorRubette extends AbstractRubette {
     }
 
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
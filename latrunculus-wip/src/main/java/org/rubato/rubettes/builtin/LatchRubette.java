@@ -54,6 +54,12 @@ public class LatchRubette extends AbstractRubette {
     }
 
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
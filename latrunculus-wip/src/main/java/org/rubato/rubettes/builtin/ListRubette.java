@@ -216,6 +216,17 @@ public class ListRubette extends AbstractRubette {
     }
     
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
+    
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -72,6 +72,12 @@ public class MacroRubette extends AbstractRubette {
     }
 
     
+    public boolean isCacheable() {
+        // the inner network may have changed since the last run
+        return false;
+    }
+
+    
     public void setNetworkModel(NetworkModel model) {
         networkModel = model;
         for (PluginNode rmodel : model.getRubettes()) {
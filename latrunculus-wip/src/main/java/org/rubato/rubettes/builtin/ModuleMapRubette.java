@@ -98,6 +98,17 @@ public class ModuleMapRubette extends AbstractRubette implements ActionListener
     }
 
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
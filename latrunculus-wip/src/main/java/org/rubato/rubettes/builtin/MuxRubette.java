@@ -69,6 +69,17 @@ public class MuxRubette extends AbstractRubette {
     }
 
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -106,6 +106,12 @@ public class RealArithRubette extends AbstractRubette {
     }
 
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -75,6 +75,17 @@ public class ReformRubette extends AbstractRubette {
     }
 
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -76,6 +76,12 @@ public class SchemeRubette extends AbstractRubette {
     }
 
     
+    public boolean isCacheable() {
+        // the program may read the repository or other external state
+        return false;
+    }
+
+    
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -68,6 +68,17 @@ public class SelectFormRubette extends AbstractRubette {
     }
 
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
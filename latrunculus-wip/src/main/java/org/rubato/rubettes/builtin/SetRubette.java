@@ -36,7 +36,6 @@ import org.vetronauta.latrunculus.plugin.base.RunInfo;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -242,12 +241,16 @@ public class SetRubette extends AbstractRubette {
             if (f instanceof PowerForm) {
                 Form baseForm = f;
                 List<Denotator> factors = d.getFactors();
-                List<Denotator> denoList = new LinkedList<Denotator>();
-                for (Denotator factor : factors) {
-                    PowerDenotator p = (PowerDenotator)factor;
-                    denoList.addAll(p.getFactors());                    
+                if (factors.isEmpty()) {
+                    return DenoFactory.makeDenotator(baseForm, new LinkedList<Denotator>());
+                }
+                try {
+                    return Sets.union(factors.toArray(new PowerDenotator[0]));
+                }
+                catch (LatrunculusCheckedException e) {
+                    addError(e);
+                    return null;
                 }
-                return DenoFactory.makeDenotator(baseForm, denoList);
             }
             else {
                 addError(BuiltinMessages.getString("SetRubette.basenotpower"));
@@ -267,18 +270,13 @@ public class SetRubette extends AbstractRubette {
             Form f = d.getPowerForm().getForm();
             if (f instanceof PowerForm) {
                 List<Denotator> factors = d.getFactors();
-                Iterator<Denotator> iter = factors.iterator();
-                if (!iter.hasNext()) {
+                if (factors.isEmpty()) {
                     addError(BuiltinMessages.getString("SetRubette.onefactor"));
                     return null;                    
                 }
                 else {
                     try {
-                        PowerDenotator factor = (PowerDenotator)iter.next();
-                        while (iter.hasNext()) {
-                            factor = Sets.intersection(factor, (PowerDenotator)iter.next());
-                        }
-                        return factor;
+                        return Sets.intersection(factors.toArray(new PowerDenotator[0]));
                     }
                     catch (LatrunculusCheckedException e) {
                         addError(e);
@@ -298,6 +296,17 @@ public class SetRubette extends AbstractRubette {
     }
     
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
+    
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
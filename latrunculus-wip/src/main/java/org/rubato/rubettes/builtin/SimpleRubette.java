@@ -96,6 +96,12 @@ public class SimpleRubette extends AbstractRubette implements ActionListener {
     }
 
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -62,6 +62,12 @@ public class SourceRubette extends AbstractRubette {
     }
 
     
+    public boolean isCacheable() {
+        // a refreshable denotator is read again from the repository
+        return !refreshable;
+    }
+
+    
     public Rubette duplicate() {
         SourceRubette rubette = new SourceRubette();
         rubette.setDenotator(denotator);
@@ -274,6 +274,12 @@ public class StatRubette extends AbstractRubette {
     }
     
     
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+    
+    
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
     }
@@ -121,6 +121,11 @@ public final class AddressEvalRubette extends AbstractRubette implements ActionL
         plugin.run(runInfo);
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public String getGroup() {
         return RubatoConstants.CORE_GROUP;
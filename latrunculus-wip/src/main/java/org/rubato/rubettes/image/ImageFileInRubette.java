@@ -81,6 +81,12 @@ public class ImageFileInRubette extends SimpleAbstractRubette {
     	}
     }
     
+    @Override
+    public boolean isCacheable() {
+        // the file may have changed since the last run
+        return false;
+    }
+    
     private Denotator getConvertedImage(RunInfo runInfo) {
     	BufferedImage image = this.readImageFile();
     	List<Denotator> pixels = new ArrayList<Denotator>();
@@ -23,6 +23,7 @@ import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -34,11 +35,14 @@ import org.vetronauta.latrunculus.core.repository.Repository;
 import org.vetronauta.latrunculus.plugin.base.SimpleAbstractRubette;
 import org.vetronauta.latrunculus.plugin.base.RunInfo;
 import org.vetronauta.latrunculus.client.plugin.icons.Icons;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.CompiledPath;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 import org.rubato.rubettes.util.DenotatorAnalyzer;
-import org.rubato.rubettes.util.ObjectGenerator;
+import org.rubato.rubettes.util.DenotatorPath;
+import org.rubato.rubettes.util.DenotatorValueFinder;
 
 /**
  * Exports an incoming image denotator to a GIF, PNG, JPEG, BMP image file 
@@ -54,7 +58,6 @@ public class ImageFileOutRubette extends SimpleAbstractRubette {
 	private boolean fillEmptyPixels;
 	private final String imageFileKey = "imageFile";
 	private final String fillEmptyPixelsKey = "fillEmptyPixels";
-	private ObjectGenerator objectGenerator;
 
 	/**
 	 * Creates a basic ImageFileInRubette.
@@ -62,7 +65,6 @@ public class ImageFileOutRubette extends SimpleAbstractRubette {
 	public ImageFileOutRubette() {
         this.setInCount(1);
         this.setOutCount(0);
-        this.objectGenerator = new ObjectGenerator();
         String[] allowedExtensions = new String[]{".gif", ".png", ".jpg", ".bmp"};
         this.putProperty(new FileClientProperty(this.imageFileKey, "Image file", allowedExtensions, true));
         this.putProperty(new BooleanClientProperty(this.fillEmptyPixelsKey, "Fill empty pixels", false));
@@ -89,13 +91,17 @@ public class ImageFileOutRubette extends SimpleAbstractRubette {
     	int width = (int)Math.round(minAndMaxX[1]-minAndMaxX[0]+1);
     	int height = (int)Math.round(minAndMaxY[1]-minAndMaxY[0]+1);
     	BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    	CompiledPath[] valuePaths = this.compileValuePaths(imageDenotator);
+    	if (valuePaths == null) {
+    		return null;
+    	}
     	for (Denotator currentPixel : imageDenotator.getFactors()) {
-    		int x = (int)Math.round(this.objectGenerator.getIntegerValue(currentPixel, 0)-minAndMaxX[0]);
-    		int y = (int)Math.round(this.objectGenerator.getIntegerValue(currentPixel, 1)-minAndMaxY[0]);
-    		int red = this.objectGenerator.getIntegerValue(currentPixel, 2);
-    		int green = this.objectGenerator.getIntegerValue(currentPixel, 3);
-    		int blue = this.objectGenerator.getIntegerValue(currentPixel, 4);
-    		int alpha = this.objectGenerator.getIntegerValue(currentPixel, 5);
+    		int x = (int)Math.round(valuePaths[0].getDouble(currentPixel)-minAndMaxX[0]);
+    		int y = (int)Math.round(valuePaths[1].getDouble(currentPixel)-minAndMaxY[0]);
+    		int red = valuePaths[2].getInt(currentPixel);
+    		int green = valuePaths[3].getInt(currentPixel);
+    		int blue = valuePaths[4].getInt(currentPixel);
+    		int alpha = valuePaths[5].getInt(currentPixel);
     		int rgb = new Color(red, green, blue, alpha).getRGB();
     		image.setRGB(x, height-1-y, rgb);
     		if (runInfo.stopped()) {
@@ -111,15 +117,19 @@ public class ImageFileOutRubette extends SimpleAbstractRubette {
     	int imageWidth = (int)Math.round(minAndMaxX[1]-minAndMaxX[0]+1);
     	int imageHeight = (int)Math.round(minAndMaxY[1]-minAndMaxY[0]+1);
     	BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+    	CompiledPath[] valuePaths = this.compileValuePaths(imageDenotator);
+    	if (valuePaths == null) {
+    		return null;
+    	}
     	for (Denotator currentPixel : imageDenotator.getFactors()) {
-    		int pixelX = (int)Math.round(this.objectGenerator.getIntegerValue(currentPixel, 0)-minAndMaxX[0]);
-    		int pixelY = (int)Math.round(this.objectGenerator.getIntegerValue(currentPixel, 1)-minAndMaxY[0]);
-    		int pixelWidth = this.objectGenerator.getIntegerValue(currentPixel, 2);
-    		int pixelHeight = this.objectGenerator.getIntegerValue(currentPixel, 3);
-    		int red = this.objectGenerator.getIntegerValue(currentPixel, 4);
-    		int green = this.objectGenerator.getIntegerValue(currentPixel, 5);
-    		int blue = this.objectGenerator.getIntegerValue(currentPixel, 6);
-    		int alpha = this.objectGenerator.getIntegerValue(currentPixel, 7);
+    		int pixelX = (int)Math.round(valuePaths[0].getDouble(currentPixel)-minAndMaxX[0]);
+    		int pixelY = (int)Math.round(valuePaths[1].getDouble(currentPixel)-minAndMaxY[0]);
+    		int pixelWidth = valuePaths[2].getInt(currentPixel);
+    		int pixelHeight = valuePaths[3].getInt(currentPixel);
+    		int red = valuePaths[4].getInt(currentPixel);
+    		int green = valuePaths[5].getInt(currentPixel);
+    		int blue = valuePaths[6].getInt(currentPixel);
+    		int alpha = valuePaths[7].getInt(currentPixel);
     		int rgb = new Color(red, green, blue, alpha).getRGB();
     		for (int x = Math.max(pixelX-(pixelWidth/2), 0); x < Math.min(pixelX+(pixelWidth/2)+pixelWidth%2, imageWidth); x++) {
     			for (int y = Math.max(pixelY-(pixelHeight/2), 0); y < Math.min(pixelY+(pixelHeight/2)+pixelHeight%2, imageHeight); y++) {
@@ -133,6 +143,24 @@ public class ImageFileOutRubette extends SimpleAbstractRubette {
     	return image;
     }
     
+    /*
+     * All pixels have the same form, so the value paths are found
+     * in the first one and compiled once for all of them.
+     */
+    private CompiledPath[] compileValuePaths(PowerDenotator imageDenotator) {
+    	List<DenotatorPath> valuePaths = new DenotatorValueFinder(imageDenotator.getFactor(0), false).getValuePaths();
+    	CompiledPath[] compiledPaths = new CompiledPath[valuePaths.size()];
+    	try {
+    		for (int i = 0; i < compiledPaths.length; i++) {
+    			compiledPaths[i] = valuePaths.get(i).compile();
+    		}
+    	} catch (LatrunculusCheckedException e) {
+    		this.addError(e);
+    		return null;
+    	}
+    	return compiledPaths;
+    }
+    
     private void writeImageFile(BufferedImage image) {
     	try {
     		String imageName = this.imageFile.getName();
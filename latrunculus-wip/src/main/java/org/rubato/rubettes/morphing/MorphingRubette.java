@@ -34,7 +34,6 @@ import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -96,6 +95,12 @@ public class MorphingRubette extends SimpleAbstractRubette {
 		}
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		// the output is random
+		return false;
+	}
+	
 	private boolean readAndVerifyInput() {
 		Denotator id1 = this.getInput(0);
 		Denotator id2 = this.getInput(1);
@@ -259,7 +264,7 @@ public class MorphingRubette extends SimpleAbstractRubette {
 	
 	private PowerDenotator getBasicMorph(Map<Denotator, Denotator> neighborMap, Set<Denotator> complementSet) throws LatrunculusCheckedException {
 		int[] positionPath = {0,0}; //onset for now...
-		PowerDenotator partialMorph = new PowerDenotator(NameDenotator.make(""), this.inputForm, new ArrayList<>());
+		PowerDenotator.Builder partialMorph = PowerDenotator.builder(this.inputForm).name(NameDenotator.make(""));
 		Iterator<Denotator> keys = neighborMap.keySet().iterator();
 		while (keys.hasNext()) {
 			Denotator currentDenotator = keys.next();
@@ -272,16 +277,16 @@ public class MorphingRubette extends SimpleAbstractRubette {
 			}
 			//System.out.println(position + " " + factor);
 			if (Math.random() > factor) {
-				partialMorph.appendFactor(this.alterator.alter(currentDenotator, currentNeighbor, position, this.paths));
+				partialMorph.add(this.alterator.alter(currentDenotator, currentNeighbor, position, this.paths));
 			}
 		}
-		return partialMorph;
+		return partialMorph.build();
 	}
 	
 	private PowerDenotator getAdditionalMorph(Map<Denotator, Denotator> neighborMap, Set<Denotator> complementSet) throws LatrunculusCheckedException {
 		int[] positionPath = {0,0}; //onset for now...
 		Iterator<Denotator> keys = neighborMap.keySet().iterator();
-		PowerDenotator additionalMorph = new PowerDenotator(NameDenotator.make(""), this.inputForm, new ArrayList<>());
+		PowerDenotator.Builder additionalMorph = PowerDenotator.builder(this.inputForm).name(NameDenotator.make(""));
 		while (keys.hasNext()) {
 			Denotator currentDenotator = keys.next();
 			if (!complementSet.contains(currentDenotator)) {
@@ -291,11 +296,11 @@ public class MorphingRubette extends SimpleAbstractRubette {
 				double factor = 1-position; //1-probablility that denotator is present
 				//System.out.println(position + " " + factor);
 				if (Math.random() > factor) {
-					additionalMorph.appendFactor(this.alterator.alter(currentDenotator, currentNeighbor, factor, this.paths));
+					additionalMorph.add(this.alterator.alter(currentDenotator, currentNeighbor, factor, this.paths));
 				}
 			}
 		}
-		return additionalMorph;
+		return additionalMorph.build();
 		
 	}
 	
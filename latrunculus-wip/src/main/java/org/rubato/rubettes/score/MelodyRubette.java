@@ -90,6 +90,11 @@ public class MelodyRubette extends SimpleAbstractRubette {
 		this.setOutput(0, this.noteGenerator.createScoreWithMelody());
     }
     
+    public boolean isCacheable() {
+        // the output is random
+        return false;
+    }
+    
     private void readProperties() {
     	this.numberOfNotes = (Integer) this.getProperty(this.numberOfNotesKey).getValue();
     	this.startingPitch = (Integer) this.getProperty(this.startingPitchKey).getValue();
@@ -68,6 +68,12 @@ public class MidiFileInRubette extends AbstractRubette {
     }
 
     
+    public boolean isCacheable() {
+        // the file may have changed since the last run
+        return false;
+    }
+
+    
     private Denotator midiToScore(File file) {
         Denotator scr = null;
         try {
@@ -52,7 +52,7 @@ public class QuantizeRubette extends SimpleAbstractRubette {
     }
 
     public void run(RunInfo runInfo) {
-    	Denotator input = this.getInput(0).deepCopy();
+    	Denotator input = this.getInput(0);
     	if (input == null) {
             this.addError("Input denotator is null.");
     	} else if (input.hasForm(new SoundNoteGenerator().getScoreForm())) {
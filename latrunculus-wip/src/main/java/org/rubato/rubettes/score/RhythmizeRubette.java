@@ -125,6 +125,11 @@ public class RhythmizeRubette extends SimpleAbstractRubette {
     	this.unemphasizedLoudness = (Integer) this.getProperty(this.unemphasizedLoudnessKey).getValue();
     }
     
+    public boolean isCacheable() {
+        // the output is random
+        return false;
+    }
+    
     public String getGroup() {
         return "Score";
     }
@@ -352,6 +352,11 @@ public class ScaleRubette extends AbstractRubette implements ChangeListener, Act
 		}
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	/**
      * Returns the fact that MorphingRubette belongs to the core rubettes
      */
@@ -85,6 +85,11 @@ public class TexturalizeRubette extends SimpleAbstractRubette {
 		return "Texturalize";
 	}
 	
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+	
 	@Override
 	public String getGroup() {
         return "Other";
@@ -4,13 +4,21 @@ import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
 import org.rubato.rubettes.bigbang.model.denotators.TransformationPaths;
 import org.vetronauta.latrunculus.core.exception.CompositionException;
 import org.vetronauta.latrunculus.core.exception.DomainException;
+import org.vetronauta.latrunculus.core.exception.MappingException;
 import org.vetronauta.latrunculus.core.math.module.generic.Module;
 import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
 import org.vetronauta.latrunculus.core.math.element.generic.ProductElement;
 import org.vetronauta.latrunculus.core.math.module.generic.ProductRing;
 import org.vetronauta.latrunculus.core.math.module.generic.Ring;
 import org.vetronauta.latrunculus.core.math.element.generic.RingElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
+import org.vetronauta.latrunculus.core.math.matrix.RMatrix;
 import org.vetronauta.latrunculus.core.math.module.generic.VectorModule;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
 import org.vetronauta.latrunculus.core.math.morphism.CanonicalMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.ConstantMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.EmbeddingMorphism;
@@ -18,15 +26,18 @@ import org.vetronauta.latrunculus.core.math.morphism.GenericAffineMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.ProjectionMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.SumMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineMultiMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.affine.AffineProjection;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.CompiledPath;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.SimpleDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -42,10 +53,15 @@ public class ArbitraryDenotatorMapper<A extends ModuleElement<A, RA>, B extends
 	private int domainDim;
 	private int codomainDim;
 	private List<ModuleMorphism> injectionMorphisms;
+	//paths and casts for the numeric evaluation, null if the morphism or the paths do not allow it
+	private Form numericForm;
+	private CompiledPath[][] numericDomainPaths, numericCodomainPaths;
+	private ModuleMorphism[][] numericCodomainCasts;
 	
 	public ArbitraryDenotatorMapper(ModuleMorphism<A,B,RA,RB> morphism, TransformationPaths paths) {
 		this.transformationPaths = paths;
 		this.init(morphism);
+		this.compileNumericPaths();
 	}
 	
 	//define morphism-specific variables
@@ -63,27 +79,269 @@ public class ArbitraryDenotatorMapper<A extends ModuleElement<A, RA>, B extends
 	 */
 	public PowerDenotator getMappedPowerDenotator(PowerDenotator input) throws LatrunculusCheckedException {
 		//prepare output
-		PowerDenotator output = new PowerDenotator(NameDenotator.make(""), input.getAddress(), input.getPowerForm(), new ArrayList<>());
-		
+		Module outputAddress = input.getAddress();
+		PowerDenotator.Builder output = PowerDenotator.builder(input.getPowerForm(), outputAddress).name(NameDenotator.make(""));
+		output.addAll(this.getMappedDenotators(input.getListMorphismMap().getFactors(), outputAddress));
+		return output.build();
+	}
+	
+	/*
+	 * maps the given factors of a power denotator with the given address one by one, without uniting
+	 * them. the mapper is not modified, so this may be called concurrently.
+	 */
+	public List<Denotator> getMappedDenotators(List<Denotator> factors, Module outputAddress) throws LatrunculusCheckedException {
+		List<Denotator> output = new ArrayList<>(factors.size());
 		if (this.transformationPaths != null && this.transformationPaths.getDomainDim() == this.domainDim
 				&& this.transformationPaths.getCodomainDim() == this.codomainDim) {
+			if (outputAddress.isNullModule() && this.numericForm != null) {
+				this.addNumericallyMappedDenotators(factors, outputAddress, output);
+				return output;
+			}
 			//iterate through the coordinates of the input and add their mapping to the output
-			Iterator<Denotator> inputCoordinates = input.iterator();
-			Denotator currentCoordinate; //später allgemein!!
-			while (inputCoordinates.hasNext()) {
-				currentCoordinate = inputCoordinates.next();
-				
+			for (Denotator currentCoordinate : factors) {
 				Denotator mappedCoordinate = this.getMappedDenotator(currentCoordinate);
 				
-				if (!output.getAddress().equals(mappedCoordinate.getAddress())) {
-					mappedCoordinate = mappedCoordinate.changeAddress(output.getAddress());
+				if (!outputAddress.equals(mappedCoordinate.getAddress())) {
+					mappedCoordinate = mappedCoordinate.changeAddress(outputAddress);
 				}
-				output.appendFactor(mappedCoordinate);
+				output.add(mappedCoordinate);
 			}
 		}
 		return output;
 	}
 	
+	/*
+	 * true if the morphism maps between real modules, so that it can be evaluated on the coordinates
+	 * of constant denotators as doubles
+	 */
+	private boolean isNumeric() {
+		return RRing.ring.equals(this.domain.getRing()) && RRing.ring.equals(this.morphism.getCodomain().getRing());
+	}
+	
+	/*
+	 * compiles the domain and codomain paths for the numeric evaluation. they are left null if the morphism
+	 * is not numeric or any path is an element path, does not end at a simple form over R, Q or Z or
+	 * starts at another form than the others.
+	 */
+	private void compileNumericPaths() {
+		if (this.transformationPaths == null || this.transformationPaths.getDomainDim() != this.domainDim
+				|| this.transformationPaths.getCodomainDim() != this.codomainDim || !this.isNumeric()) {
+			return;
+		}
+		try {
+			CompiledPath[][] domainPaths = new CompiledPath[this.domainDim][];
+			for (int j = 0; j < this.domainDim; j++) {
+				domainPaths[j] = this.compileNumericPaths(this.transformationPaths.getDomainPaths(j));
+			}
+			CompiledPath[][] codomainPaths = new CompiledPath[this.codomainDim][];
+			ModuleMorphism[][] codomainCasts = new ModuleMorphism[this.codomainDim][];
+			for (int i = 0; i < this.codomainDim; i++) {
+				codomainPaths[i] = this.compileNumericPaths(this.transformationPaths.getCodomainPaths(i));
+				codomainCasts[i] = new ModuleMorphism[codomainPaths[i].length];
+				for (int k = 0; k < codomainPaths[i].length; k++) {
+					//the mapped value has the codomain of the projection on the i-th component
+					Module newCodomain = ((SimpleForm)codomainPaths[i][k].getEndForm()).getModule();
+					Module valueModule = this.getNumericValueModule();
+					if (!newCodomain.equals(valueModule)) {
+						codomainCasts[i][k] = CanonicalMorphism.make(valueModule, newCodomain);
+					}
+				}
+			}
+			if (this.numericForm != null) {
+				this.numericDomainPaths = domainPaths;
+				this.numericCodomainPaths = codomainPaths;
+				this.numericCodomainCasts = codomainCasts;
+			}
+		} catch (LatrunculusCheckedException e) {
+			//not numerically mappable, all factors are mapped symbolically
+			this.numericForm = null;
+		}
+	}
+	
+	private CompiledPath[] compileNumericPaths(List<DenotatorPath> paths) throws LatrunculusCheckedException {
+		if (paths == null) {
+			return new CompiledPath[0];
+		}
+		CompiledPath[] compiledPaths = new CompiledPath[paths.size()];
+		for (int k = 0; k < compiledPaths.length; k++) {
+			DenotatorPath currentPath = paths.get(k);
+			if (currentPath.isElementPath()) {
+				throw new LatrunculusCheckedException("ArbitraryDenotatorMapper: Element path %1", currentPath);
+			}
+			compiledPaths[k] = currentPath.compile();
+			if (!compiledPaths[k].isElementPath() || !this.isNumericModule(((SimpleForm)compiledPaths[k].getEndForm()).getModule())) {
+				throw new LatrunculusCheckedException("ArbitraryDenotatorMapper: Path %1 does not end at a number", currentPath);
+			}
+			if (this.numericForm == null) {
+				this.numericForm = compiledPaths[k].getForm();
+			} else if (!this.numericForm.equals(compiledPaths[k].getForm())) {
+				throw new LatrunculusCheckedException("ArbitraryDenotatorMapper: Path %1 starts at another form", currentPath);
+			}
+		}
+		return compiledPaths;
+	}
+	
+	private boolean isNumericModule(Module module) {
+		return RRing.ring.equals(module) || QRing.ring.equals(module) || ZRing.ring.equals(module);
+	}
+	
+	private Module getNumericValueModule() {
+		if (this.codomainDim > 1 || this.morphism.getCodomain() instanceof Ring) {
+			return RRing.ring;
+		}
+		return this.morphism.getCodomain();
+	}
+	
+	/*
+	 * numeric evaluation of the morphism for null-addressed denotators: the domain coordinates of all factors
+	 * are read as doubles along the compiled paths, mapped all at once and written back as new simple
+	 * denotators. factors of another form, factors missing a domain coordinate and factors whose mapped
+	 * coordinates cannot be written back are mapped symbolically.
+	 */
+	private void addNumericallyMappedDenotators(List<Denotator> factors, Module outputAddress, List<Denotator> output) throws LatrunculusCheckedException {
+		int n = factors.size();
+		if (n == 0) {
+			return;
+		}
+		double[][] x = new double[this.domainDim][];
+		for (int j = 0; j < this.domainDim; j++) {
+			x[j] = this.getDoubles(this.numericDomainPaths[j], factors);
+		}
+		boolean[] numeric = new boolean[n];
+		for (int k = 0; k < n; k++) {
+			Denotator factor = factors.get(k);
+			numeric[k] = (factor.getForm() == this.numericForm || this.numericForm.equals(factor.getForm()))
+					&& factor.getAddress().isNullModule();
+			for (int j = 0; j < this.domainDim && numeric[k]; j++) {
+				numeric[k] = !Double.isNaN(x[j][k]);
+			}
+		}
+		RMatrix y = this.mapNumerically(new RMatrix(x), numeric);
+		double[] values = new double[this.codomainDim];
+		for (int k = 0; k < n; k++) {
+			Denotator mappedCoordinate = null;
+			if (numeric[k]) {
+				for (int i = 0; i < this.codomainDim; i++) {
+					values[i] = y.getDouble(i, k);
+				}
+				mappedCoordinate = this.replaceCoordinates(factors.get(k), values);
+			}
+			if (mappedCoordinate == null) {
+				mappedCoordinate = this.getMappedDenotator(factors.get(k));
+				if (!outputAddress.equals(mappedCoordinate.getAddress())) {
+					mappedCoordinate = mappedCoordinate.changeAddress(outputAddress);
+				}
+			}
+			output.add(mappedCoordinate);
+		}
+	}
+	
+	/*
+	 * returns the values along the first of the paths that leads to a value in each factor,
+	 * NaN if there is none
+	 */
+	private double[] getDoubles(CompiledPath[] paths, List<Denotator> factors) {
+		double[] values = null;
+		for (CompiledPath currentPath : paths) {
+			double[] currentValues = currentPath.getDoubles(factors);
+			if (values == null) {
+				values = currentValues;
+			} else {
+				for (int k = 0; k < values.length; k++) {
+					if (Double.isNaN(values[k])) {
+						values[k] = currentValues[k];
+					}
+				}
+			}
+		}
+		if (values == null) {
+			values = new double[factors.size()];
+			Arrays.fill(values, Double.NaN);
+		}
+		return values;
+	}
+	
+	/*
+	 * maps the columns of x, each holding the domain coordinates of a factor. real affine morphisms map
+	 * all columns with a single matrix product, other morphisms map the numeric columns one by one.
+	 */
+	private RMatrix mapNumerically(RMatrix x, boolean[] numeric) throws MappingException {
+		if (this.morphism instanceof AffineMultiMorphism) {
+			return AffineMultiMorphism.map((AffineMultiMorphism<Real>)this.morphism, x);
+		}
+		RMatrix y = new RMatrix(this.codomainDim, x.getColumnCount());
+		for (int k = 0; k < numeric.length; k++) {
+			if (!numeric[k]) {
+				continue;
+			}
+			ModuleElement result;
+			if (this.domain instanceof Ring) {
+				result = ((ModuleMorphism)this.morphism).map(new Real(x.getDouble(0, k)));
+			} else {
+				result = ((ModuleMorphism)this.morphism).map(x.getColumn(k));
+			}
+			if (result instanceof Real) {
+				y.set(0, k, ((Real)result).getValue());
+			} else {
+				double[] values = RealVector.toArray((Vector<Real>)result);
+				for (int i = 0; i < this.codomainDim; i++) {
+					y.set(i, k, values[i]);
+				}
+			}
+		}
+		return y;
+	}
+	
+	/*
+	 * replaces the codomain coordinates of the denotator by the mapped values, casted to the modules of the
+	 * replaced simple denotators, in the same way as makeFinalProjections. returns null if the values
+	 * cannot be written back, so that the denotator is mapped symbolically.
+	 */
+	private Denotator replaceCoordinates(Denotator denotator, double[] values) throws LatrunculusCheckedException {
+		Denotator mappedDenotator = denotator;
+		for (int i = 0; i < this.codomainDim; i++) {
+			int pathIndex = this.getNumericPathIndex(this.numericCodomainPaths[i], mappedDenotator);
+			if (pathIndex < 0) {
+				continue;
+			}
+			CompiledPath currentCodomainPath = this.numericCodomainPaths[i][pathIndex];
+			ModuleElement value;
+			if (this.codomainDim > 1 || this.morphism.getCodomain() instanceof Ring) {
+				value = new Real(values[i]);
+			} else {
+				value = new RealVector(new double[]{values[i]});
+			}
+			ModuleMorphism cast = this.numericCodomainCasts[i][pathIndex];
+			try {
+				if (cast != null) {
+					value = cast.map(value);
+				}
+				Denotator currentSimpleDenotator = new SimpleDenotator(NameDenotator.make(""), (SimpleForm)currentCodomainPath.getEndForm(), value);
+				int[] path = currentCodomainPath.getPath();
+				if (path.length == 0) {
+					mappedDenotator = currentSimpleDenotator;
+				} else {
+					mappedDenotator = mappedDenotator.replace(path, currentSimpleDenotator);
+				}
+			} catch (DomainException | MappingException e) {
+				return null;
+			}
+		}
+		return mappedDenotator;
+	}
+	
+	/*
+	 * returns the index of the first of the paths that exists in the denotator, -1 if there is none
+	 */
+	private int getNumericPathIndex(CompiledPath[] paths, Denotator denotator) {
+		for (int k = 0; k < paths.length; k++) {
+			if (paths[k].get(denotator) != null) {
+				return k;
+			}
+		}
+		return -1;
+	}
+	
 	public Denotator getMappedDenotator(Denotator denotator) throws LatrunculusCheckedException {
 		ModuleMorphism morphism = this.morphism.compose(this.makeInitialInjectionSum(denotator));
 		return this.makeFinalProjections(denotator, morphism);
@@ -12,6 +12,7 @@ import java.util.TreeSet;
 import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
 import org.vetronauta.latrunculus.core.math.module.generic.Module;
 import org.vetronauta.latrunculus.core.math.module.generic.ProductRing;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.CompiledPath;
 import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 import org.vetronauta.latrunculus.core.math.yoneda.FormDenotatorTypeEnum;
 import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
@@ -229,6 +230,13 @@ public class DenotatorPath implements Comparable<DenotatorPath> {
 		return arrayPath;
 	}
 	
+	/**
+	 * Returns this path compiled for its base form, to be followed in many denotators
+	 */
+	public CompiledPath compile() throws LatrunculusCheckedException {
+		return CompiledPath.compile(this.baseForm, this.toIntArray());
+	}
+	
 	private void add(int index) {
 		this.indices.add(index);
 		this.updateFormAndModule();
@@ -27,11 +27,13 @@ import org.vetronauta.latrunculus.core.math.element.impl.Real;
 import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
 import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
 import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.CompiledPath;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.SimpleDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
 
@@ -62,6 +64,9 @@ public abstract class NoteGenerator {
 	protected NameDenotator emptyName = NameDenotator.make("");
 	
 	private final List<int[]> noteModulePaths;
+	//the most recently used element paths, compiled for their note forms
+	private final List<CompiledPath> compiledPaths = new ArrayList<>();
+	private static final int MAX_COMPILED_PATHS = 16;
 	
 	private List<Denotator> currentMelody;
 	private double noteDistance;
@@ -414,8 +419,30 @@ public abstract class NoteGenerator {
 	}
 	
 	public Double getDoubleValue(Denotator note, int[] elementPath) {
+		CompiledPath compiledPath = this.getCompiledPath(note.getForm(), elementPath);
+		if (compiledPath == null) {
+			return null;
+		}
+		ModuleElement element = compiledPath.getElement(note);
+		if (element == null) {
+			return null;
+		}
+		return RRing.ring.cast(element).getValue();
+	}
+	
+	private CompiledPath getCompiledPath(Form form, int[] elementPath) {
+		for (CompiledPath currentPath : this.compiledPaths) {
+			if (currentPath.isCompiledFor(form, elementPath)) {
+				return currentPath;
+			}
+		}
 		try {
-			return RRing.ring.cast(note.getElement(elementPath)).getValue();
+			CompiledPath compiledPath = CompiledPath.compile(form, elementPath);
+			if (this.compiledPaths.size() >= MAX_COMPILED_PATHS) {
+				this.compiledPaths.remove(0);
+			}
+			this.compiledPaths.add(compiledPath);
+			return compiledPath;
 		} catch (LatrunculusCheckedException e) {
 			e.printStackTrace();
 			return null;
@@ -2,10 +2,13 @@ package org.rubato.rubettes.util;
 
 import java.util.Iterator;
 
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.exception.LatrunculusRuntimeException;
 import org.vetronauta.latrunculus.plugin.base.RunInfo;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
 
 public class Quantizer {
 	
@@ -18,18 +21,58 @@ public class Quantizer {
 		this.noteGenerator = new SoundNoteGenerator();
 	}
 	
+	/**
+	 * Returns a new score with the onsets and durations of the notes of <code>score</code>
+	 * rounded to the time unit and their pitches rounded to the pitch unit.
+	 * <code>score</code> itself is not modified, and it is returned if the run is stopped.
+	 */
 	public PowerDenotator getQuantizedScore(PowerDenotator score, RunInfo runInfo) {
+		ScoreTable table = score.getScoreTable();
+		if (table != null) {
+			return this.getQuantizedScore(score, table, runInfo);
+		}
+		PowerDenotator.Builder quantized = PowerDenotator.builder(score.getPowerForm(), score.getAddress());
+		quantized.name(score.getName());
 		Iterator<Denotator> notes = score.iterator();
 		while (notes.hasNext()) {
-			LimitDenotator currentNote = (LimitDenotator) notes.next();
+			LimitDenotator currentNote = (LimitDenotator) notes.next().deepCopy();
 			this.replaceElementRoundedToUnit(currentNote, new int[]{0,0}, this.timeUnit);
 			this.replaceElementRoundedToUnit(currentNote, new int[]{3,0}, this.timeUnit);
 			this.replaceElementRoundedToUnit(currentNote, new int[]{1,0}, this.pitchUnit);
+			quantized.add(currentNote);
 			if (runInfo.stopped()) {
-				break;
+				return score;
 			}
 		}
-		return score;
+		try {
+			return quantized.build();
+		} catch (LatrunculusCheckedException e) {
+			//the notes keep the form and address of the score
+			throw new LatrunculusRuntimeException(e);
+		}
+	}
+	
+	/*
+	 * Quantizes a score backed by a score table by building a new table,
+	 * without creating the note denotators.
+	 */
+	private PowerDenotator getQuantizedScore(PowerDenotator score, ScoreTable table, RunInfo runInfo) {
+		ScoreTable.Builder quantized = ScoreTable.builder(table.getForm());
+		for (int i = 0; i < table.size(); i++) {
+			quantized.addRow(table, i);
+			this.setValueRoundedToUnit(quantized, table, i, 0, this.timeUnit);
+			this.setValueRoundedToUnit(quantized, table, i, 3, this.timeUnit);
+			this.setValueRoundedToUnit(quantized, table, i, 1, this.pitchUnit);
+			if (runInfo.stopped()) {
+				return score;
+			}
+		}
+		return PowerDenotator.fromScoreTable(score.getName(), quantized.build());
+	}
+	
+	private void setValueRoundedToUnit(ScoreTable.Builder quantized, ScoreTable table, int row, int column, double unit) {
+		double value = table.getDouble(column, row);
+		quantized.setDouble(column, Math.round(value/unit)*unit);
 	}
 	
 	private void replaceElementRoundedToUnit(LimitDenotator noteDenotator, int[] elementPath, double unit) {
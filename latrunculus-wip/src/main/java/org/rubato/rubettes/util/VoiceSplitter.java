@@ -1,54 +1,170 @@
 package org.rubato.rubettes.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Comparator;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
 
-import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.CompiledPath;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 
+/**
+ * Splits a score into contrapuntal voices. The notes are swept in the order
+ * of their onsets, and each note is added to the voice with the nearest last
+ * pitch among the voices that have room for it, i.e., whose last note has ended
+ * or has the same onset and duration. If there is none, a new voice is started.
+ * The voices that are still sounding are kept by the end of their last note,
+ * and the others by their last pitch, so a note is placed in logarithmic time.
+ */
 public class VoiceSplitter {
 	
+	private static final int[] ONSET_PATH = new int[]{0,0};
+	private static final int[] PITCH_PATH = new int[]{1,0};
+	private static final int[] DURATION_PATH = new int[]{3,0};
+	
+	//ties are broken by the order in which the voices were started
+	private static final Comparator<SweepVoice> END_ORDER =
+		Comparator.<SweepVoice>comparingDouble(voice -> voice.end).thenComparingInt(voice -> voice.index);
+	private static final Comparator<SweepVoice> PITCH_ORDER =
+		Comparator.<SweepVoice>comparingDouble(voice -> voice.pitch).thenComparingInt(voice -> voice.index);
+	
 	List<ContrapuntalVoice> contrapuntalVoices;
 	private double firstOnset;
-	private SoundNoteGenerator noteGenerator;
+	private final SweepVoice probe = new SweepVoice(null, -1);
 	
 	public VoiceSplitter(PowerDenotator score) {
-		this.noteGenerator = new SoundNoteGenerator();
-		this.splitContrapuntalVoices(score);
-	}
-	
-	private void splitContrapuntalVoices(PowerDenotator score) {
-    	Iterator<Denotator> notes = score.iterator();
-    	this.contrapuntalVoices = new ArrayList<ContrapuntalVoice>();
-    	
-    	while (notes.hasNext()) {
-    		LimitDenotator currentNote = (LimitDenotator) notes.next();
-			double currentOnset = this.noteGenerator.getDoubleValue(currentNote, new int[]{0,0});
-			double currentPitch = this.noteGenerator.getDoubleValue(currentNote, new int[]{1,0});
-			double currentDuration = this.noteGenerator.getDoubleValue(currentNote, new int[]{3,0});
-			this.firstOnset = Math.min(currentOnset, this.firstOnset);
-			TreeMap<Double,ContrapuntalVoice> candidates = new TreeMap<Double,ContrapuntalVoice>();
-			for (ContrapuntalVoice currentVoice : contrapuntalVoices) {
-				if (currentVoice.hasRoomFor(currentOnset, currentDuration)) {
-					double pitchDistance = Math.abs(currentVoice.getLastPitch()-currentPitch);
-					if (!candidates.keySet().contains(pitchDistance)) {
-						candidates.put(pitchDistance, currentVoice);
-					}
+		ScoreTable table = score.getScoreTable();
+		try {
+			Form noteForm = score.getPowerForm().getForm();
+			double[] onsets = CompiledPath.compile(noteForm, ONSET_PATH).getDoubles(score);
+			double[] pitches = CompiledPath.compile(noteForm, PITCH_PATH).getDoubles(score);
+			double[] durations = CompiledPath.compile(noteForm, DURATION_PATH).getDoubles(score);
+			if (table != null) {
+				//every note is added to a voice, so a denotator is created for each row of the table
+				this.splitContrapuntalVoices(onsets, pitches, durations, table::getDenotator);
+			} else {
+				this.splitContrapuntalVoices(onsets, pitches, durations, i -> (LimitDenotator) score.getFactor(i));
+			}
+		} catch (LatrunculusCheckedException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Splits the notes with the given onsets, pitches and durations,
+	 * where the i-th note is returned by <code>notes</code> when it is added to a voice.
+	 */
+	public VoiceSplitter(double[] onsets, double[] pitches, double[] durations, IntFunction<LimitDenotator> notes) {
+		this.splitContrapuntalVoices(onsets, pitches, durations, notes);
+	}
+	
+	private void splitContrapuntalVoices(double[] onsets, double[] pitches, double[] durations, IntFunction<LimitDenotator> notes) {
+		this.contrapuntalVoices = new ArrayList<ContrapuntalVoice>();
+		PriorityQueue<SweepVoice> soundingVoices = new PriorityQueue<SweepVoice>(END_ORDER);
+		TreeSet<SweepVoice> freeVoices = new TreeSet<SweepVoice>(PITCH_ORDER);
+		//the voices whose last note starts at the current onset
+		List<SweepVoice> startedVoices = new ArrayList<SweepVoice>();
+		double currentOnset = Double.NaN;
+		for (int i : this.getOnsetOrder(onsets)) {
+			double onset = onsets[i];
+			double pitch = pitches[i];
+			double duration = durations[i];
+			this.firstOnset = Math.min(onset, this.firstOnset);
+			if (onset != currentOnset) {
+				startedVoices.clear();
+				currentOnset = onset;
+			}
+			while (!soundingVoices.isEmpty() && onset >= soundingVoices.peek().end) {
+				SweepVoice voice = soundingVoices.poll();
+				voice.free = true;
+				freeVoices.add(voice);
+			}
+			SweepVoice nearestVoice = this.findNearestFreeVoice(freeVoices, pitch);
+			boolean started = false;
+			for (SweepVoice voice : startedVoices) {
+				if (!voice.free && voice.duration == duration && this.isNearer(voice, nearestVoice, pitch)) {
+					nearestVoice = voice;
+					started = true;
 				}
 			}
-			if (candidates.size() > 0) {
-				double smallestPitchDistance = new ArrayList<Double>(candidates.keySet()).get(0);
-				candidates.get(smallestPitchDistance).addNote(currentNote, currentOnset, currentPitch, currentDuration);
+			LimitDenotator note = notes.apply(i);
+			if (nearestVoice == null) {
+				ContrapuntalVoice contrapuntalVoice = new ContrapuntalVoice(note, onset, pitch, duration);
+				nearestVoice = new SweepVoice(contrapuntalVoice, this.contrapuntalVoices.size());
+				this.contrapuntalVoices.add(contrapuntalVoice);
 			} else {
-				contrapuntalVoices.add(new ContrapuntalVoice(currentNote, currentOnset, currentPitch, currentDuration));
+				nearestVoice.voice.addNote(note, onset, pitch, duration);
+				if (nearestVoice.free) {
+					freeVoices.remove(nearestVoice);
+				}
+			}
+			if (!started) {
+				//a sounding voice with the same onset and duration keeps its end
+				nearestVoice.pitch = pitch;
+				nearestVoice.duration = duration;
+				nearestVoice.end = onset+duration;
+				nearestVoice.free = false;
+				soundingVoices.add(nearestVoice);
+				startedVoices.add(nearestVoice);
+			} else {
+				nearestVoice.pitch = pitch;
+			}
+		}
+		Collections.reverse(this.contrapuntalVoices);
+	}
+	
+	/*
+	 * Returns the indices of the notes sorted by onset. Scores are already sorted,
+	 * otherwise notes with the same onset keep their order.
+	 */
+	private int[] getOnsetOrder(double[] onsets) {
+		int[] order = new int[onsets.length];
+		boolean sorted = true;
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+			sorted &= i == 0 || onsets[i-1] <= onsets[i];
+		}
+		if (!sorted) {
+			Integer[] boxedOrder = new Integer[order.length];
+			for (int i = 0; i < order.length; i++) {
+				boxedOrder[i] = i;
+			}
+			Arrays.sort(boxedOrder, Comparator.comparingDouble(i -> onsets[i]));
+			for (int i = 0; i < order.length; i++) {
+				order[i] = boxedOrder[i];
 			}
 		}
-    	Collections.reverse(this.contrapuntalVoices);
-    }
+		return order;
+	}
+	
+	private SweepVoice findNearestFreeVoice(TreeSet<SweepVoice> freeVoices, double pitch) {
+		this.probe.pitch = pitch;
+		SweepVoice above = freeVoices.ceiling(this.probe);
+		SweepVoice below = freeVoices.lower(this.probe);
+		if (below != null) {
+			//the first started of the voices with the same pitch
+			this.probe.pitch = below.pitch;
+			below = freeVoices.ceiling(this.probe);
+		}
+		return this.isNearer(below, above, pitch) ? below : above;
+	}
+	
+	private boolean isNearer(SweepVoice voice, SweepVoice otherVoice, double pitch) {
+		if (voice == null || otherVoice == null) {
+			return otherVoice == null;
+		}
+		double distance = Math.abs(voice.pitch-pitch);
+		double otherDistance = Math.abs(otherVoice.pitch-pitch);
+		return distance < otherDistance || (distance == otherDistance && voice.index < otherVoice.index);
+	}
 	
 	public List<ContrapuntalVoice> getVoices() {
 		return this.contrapuntalVoices;
@@ -57,5 +173,21 @@ public class VoiceSplitter {
 	public double getFirstOnset() {
 		return this.firstOnset;
 	}
+	
+	private static class SweepVoice {
+		
+		private final ContrapuntalVoice voice;
+		private final int index;
+		private double pitch;
+		private double duration;
+		private double end;
+		private boolean free;
+		
+		private SweepVoice(ContrapuntalVoice voice, int index) {
+			this.voice = voice;
+			this.index = index;
+		}
+		
+	}
 
 }
@@ -28,8 +28,11 @@ import org.rubato.rubettes.util.ArbitraryDenotatorMapper;
 import org.rubato.rubettes.util.DenotatorPath;
 import org.rubato.rubettes.util.SimpleFormFinder;
 import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.exception.LatrunculusRuntimeException;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
 import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.FormDenotatorTypeEnum;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
@@ -44,7 +47,9 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * A rubette that creates a wallpaper using an input power denotator and a number of morphisms.
@@ -53,6 +58,9 @@ import java.util.List;
  */
 public class WallpaperRubette extends AbstractRubette implements ActionListener {
 
+	//number of factors mapped together by one task
+	private static final int CHUNK_SIZE = 128;
+
 	@Getter
 	private PowerForm inputForm = null;
 	private SimpleFormFinder simpleFormFinder;
@@ -107,51 +115,73 @@ public class WallpaperRubette extends AbstractRubette implements ActionListener
 	
 	/*
 	 * returns the wallpaper denotator, i.e. a PowerDenotator of the same form as the input
-	 * denotator with set union of all mappings of the input denotator's elements. 
-	 * Recursive method!
+	 * denotator with set union of all mappings of the input denotator's elements. the grid is
+	 * built one morphism at a time, starting with the last one (the first morphism is dominant),
+	 * and the images along each morphism are united before being mapped along the next one.
 	 */
 	private PowerDenotator getUnitedMappedDenotators(PowerDenotator input, List<ModuleMorphism> morphisms) throws LatrunculusCheckedException {
-		//remove first morphism from the list and get its range
-		ModuleMorphism currentMorphism = morphisms.remove(0);
-		int currentRangeFrom = this.morphismsTable.getRangeFrom(currentMorphism);
-		int currentRangeTo = this.morphismsTable.getRangeTo(currentMorphism);
-		//prepare the output denotator (same form as the input denotator)
-		PowerDenotator output = (PowerDenotator) input.getPowerForm().createDefaultDenotator();
-		PowerDenotator mappedDenotator = input;
-		
-		//Map using remaining morphisms in the list first (current morphism is dominant)
-		if (morphisms.size() > 0) {
-			mappedDenotator = this.getUnitedMappedDenotators(mappedDenotator, morphisms);
+		Module address = input.getAddress();
+		PowerDenotator output = input;
+		for (int i = morphisms.size()-1; i >= 0; i--) {
+			List<Denotator> images = this.mapAlongRange(output.getListMorphismMap().getFactors(), address, morphisms.get(i));
+			PowerDenotator.Builder union = PowerDenotator.builder(input.getPowerForm());
+			union.addAll(images);
+			output = union.build();
 		}
-		
-		//Map using current morphism until 'from' position is reached
-		if (currentRangeFrom >= 0) {
-			for (int i = 0; i < currentRangeFrom; i++) {
-				mappedDenotator = this.mapDenotator(mappedDenotator, currentMorphism);
-			}
-		} else {
-			for (int i = 0; i > currentRangeFrom; i--) {
-				//NEGATIV MAPPEN!
-				mappedDenotator = this.mapDenotator(mappedDenotator, currentMorphism);
+		return output;
+	}
+	
+	/*
+	 * returns the images of the factors at all positions of the range of the morphism. the factors
+	 * are mapped |from| times to reach the 'from' position and then once for every further position
+	 * (negative ranges are mapped with the morphism as well). the chunks of factors are mapped
+	 * independently on the fork-join pool.
+	 */
+	private List<Denotator> mapAlongRange(List<Denotator> factors, Module address, ModuleMorphism morphism) throws LatrunculusCheckedException {
+		ArbitraryDenotatorMapper mapper = new ArbitraryDenotatorMapper(morphism, this.createTransformationPaths(morphism));
+		int rangeFrom = this.morphismsTable.getRangeFrom(morphism);
+		int rangeTo = this.morphismsTable.getRangeTo(morphism);
+		int offset = Math.abs(rangeFrom);
+		int steps = Math.abs(rangeTo-rangeFrom);
+		int chunks = (factors.size()+CHUNK_SIZE-1)/CHUNK_SIZE;
+		List<List<Denotator>> images = new ArrayList<List<Denotator>>(Collections.<List<Denotator>>nCopies(chunks, null));
+		try {
+			IntStream.range(0, chunks).parallel().forEach(i -> {
+				List<Denotator> chunk = factors.subList(i*CHUNK_SIZE, Math.min(factors.size(), (i+1)*CHUNK_SIZE));
+				images.set(i, mapChunk(mapper, chunk, address, offset, steps));
+			});
+		} catch (LatrunculusRuntimeException e) {
+			// the fork-join pool may wrap the exception of the worker once more
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof LatrunculusCheckedException) {
+					throw (LatrunculusCheckedException)cause;
+				}
 			}
+			throw e;
+		}
+		List<Denotator> mappedFactors = new ArrayList<Denotator>(factors.size()*(steps+1));
+		for (List<Denotator> image : images) {
+			mappedFactors.addAll(image);
 		}
-		//add the mapped denotator at 'from' position to the output 
-		output = output.union(mappedDenotator);
-		
-		//Map until 'to' position is reached and add all denotators to the output
-		if (currentRangeFrom < currentRangeTo) {
-			for (int i = currentRangeFrom; i < currentRangeTo; i++) {
-				mappedDenotator = this.mapDenotator(mappedDenotator, currentMorphism);
-				output = output.union(mappedDenotator);
+		return mappedFactors;
+	}
+	
+	private static List<Denotator> mapChunk(ArbitraryDenotatorMapper mapper, List<Denotator> chunk, Module address, int offset, int steps) {
+		try {
+			List<Denotator> mappedChunk = chunk;
+			for (int i = 0; i < offset; i++) {
+				mappedChunk = mapper.getMappedDenotators(mappedChunk, address);
 			}
-		} else {
-			for (int i = currentRangeFrom; i > currentRangeTo; i--) {
-				//NEGATIV MAPPEN!
-				mappedDenotator = this.mapDenotator(mappedDenotator, currentMorphism);
-				output = output.union(mappedDenotator);
+			List<Denotator> image = new ArrayList<Denotator>(chunk.size()*(steps+1));
+			image.addAll(mappedChunk);
+			for (int i = 0; i < steps; i++) {
+				mappedChunk = mapper.getMappedDenotators(mappedChunk, address);
+				image.addAll(mappedChunk);
 			}
+			return image;
+		} catch (LatrunculusCheckedException e) {
+			throw new LatrunculusRuntimeException(e);
 		}
-		return output;
 	}
 	
 	protected PowerDenotator mapDenotator(PowerDenotator input, ModuleMorphism morphism) throws LatrunculusCheckedException {
@@ -187,6 +217,11 @@ public class WallpaperRubette extends AbstractRubette implements ActionListener
         return newInstance();
     }
 
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     /**
      * Returns the fact that WallpaperRubette belongs to the core rubettes
      */
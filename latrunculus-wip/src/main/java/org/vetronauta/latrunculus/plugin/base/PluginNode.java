@@ -30,8 +30,10 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import org.rubato.composer.network.NetworkModel;
 import org.rubato.composer.rubette.JRubette;
 import org.rubato.rubettes.builtin.MacroRubette;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.server.xml.XMLWriter;
 
 @Getter
@@ -43,11 +45,24 @@ public class PluginNode {
     private int serial;
     private Point location;
     private boolean passThrough;
+    private NetworkModel network;
 
     @Getter(AccessLevel.NONE)
     @Setter(AccessLevel.NONE)
     private Link[] inputs;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean dirty = true;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Denotator[] lastInputs;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long[] lastInputFingerprints;
+
     private final Rubette rubette;
     private final List<Link> inLinks = new ArrayList<>();
     private final List<Link> outLinks = new ArrayList<>();
@@ -104,6 +119,10 @@ public class PluginNode {
     public void setInLink(Link link) {
         inLinks.add(link);
         inputs[link.getDestPos()] = link;
+        dirty = true;
+        if (network != null) {
+            network.linkAdded(link);
+        }
     }
     
     
@@ -114,17 +133,27 @@ public class PluginNode {
     
     public void addOutLink(Link link) {
         outLinks.add(link);        
+        if (network != null) {
+            network.linkAdded(link);
+        }
     }
     
     
     public void removeInLink(Link link) {
         inLinks.remove(link);
         inputs[link.getDestPos()] = null;
+        dirty = true;
+        if (network != null) {
+            network.linkRemoved(link);
+        }
     }
     
     
     public void removeOutLink(Link link) {
         outLinks.remove(link);
+        if (network != null) {
+            network.linkRemoved(link);
+        }
     }
     
     
@@ -182,6 +211,81 @@ public class PluginNode {
         return alldependencies;
     }
 
+    //
+    // Incremental running
+    //
+    
+    /**
+     * Marks the rubette to be run again at the next run,
+     * e.g., because its properties have changed.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+    
+    
+    /**
+     * Returns the current inputs of the rubette, null for an input that is not available.
+     */
+    public Denotator[] getInputs() {
+        Denotator[] currentInputs = new Denotator[getInCount()];
+        for (int i = 0; i < currentInputs.length; i++) {
+            currentInputs[i] = rubette.getInput(i);
+        }
+        return currentInputs;
+    }
+    
+    
+    /**
+     * Returns true iff the rubette must be run, i.e., it has been marked dirty,
+     * it is not cacheable, or its inputs are not equal to the ones of its last
+     * successful run. The fingerprints only rule out equality quickly, and
+     * detect inputs that have been changed in place.
+     */
+    public boolean needsRun(Denotator[] currentInputs) {
+        if (dirty || !rubette.isCacheable() || lastInputs == null || lastInputs.length != currentInputs.length) {
+            return true;
+        }
+        for (int i = 0; i < currentInputs.length; i++) {
+            Denotator last = lastInputs[i];
+            Denotator current = currentInputs[i];
+            if (last == null || current == null) {
+                if (last != current) {
+                    return true;
+                }
+            }
+            else if (lastInputFingerprints[i] != current.getFingerprint()
+                     || (last != current && !last.equals(current))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    
+    /**
+     * Returns the structural fingerprints of the given inputs, 0 for an input that is not available.
+     */
+    public static long[] getFingerprints(Denotator[] currentInputs) {
+        long[] fingerprints = new long[currentInputs.length];
+        for (int i = 0; i < currentInputs.length; i++) {
+            fingerprints[i] = (currentInputs[i] == null) ? 0 : currentInputs[i].getFingerprint();
+        }
+        return fingerprints;
+    }
+    
+    
+    /**
+     * Records a successful run of the rubette with the given inputs and their
+     * fingerprints, both taken before the run.
+     */
+    public void markClean(Denotator[] currentInputs, long[] fingerprints) {
+        lastInputs = currentInputs;
+        lastInputFingerprints = fingerprints;
+        dirty = false;
+    }
+    
+
     public PluginNode duplicate() {
         PluginNode newModel = new PluginNode(rubette.duplicate(), name);
         newModel.setLocation(getLocation());
@@ -203,6 +307,7 @@ public class PluginNode {
     
     public void togglePassThrough() {
         passThrough = !passThrough;
+        dirty = true;
     }
 
     
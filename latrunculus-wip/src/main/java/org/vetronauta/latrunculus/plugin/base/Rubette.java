@@ -103,6 +103,30 @@ public interface Rubette extends Plugin {
         //do nothing
     }
 
+    /**
+     * Returns true iff the outputs of this Rubette depend only on its inputs
+     * and properties, and running it has no other effect. In this case the
+     * Runner does not run the Rubette again as long as neither have changed,
+     * and keeps its previous outputs. Only pure functional Rubettes should
+     * return true: not the ones reading or writing external resources,
+     * using random values, showing or playing their inputs or being
+     * edited interactively.
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Returns true iff this Rubette may be run concurrently with the other
+     * Rubettes of the network it does not depend on. Its run method must then
+     * neither modify its inputs nor any state shared with other Rubettes,
+     * and must not call Swing. The Rubettes that are not thread-safe are
+     * run while no other Rubette is running.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * Returns true iff this Rubette has a view.
      * A view should provide a visual (or aural) representation of the
@@ -0,0 +1,98 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.server.binary;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tags of the binary format.
+ * <p>
+ * A binary file starts with {@link #MAGIC} and the format version (a varint),
+ * followed by a sequence of records, each introduced by a RECORD tag and
+ * terminated by {@link #RECORD_END}.
+ * Counts, indices and integers are varints (negative values are zigzag encoded),
+ * reals are raw IEEE 754 doubles.
+ * Strings, forms and modules are stored in tables shared by the whole file:
+ * a reference is the varint <i>i</i>+1 for the <i>i</i>-th entry of the table,
+ * or 0 followed by the definition of a new entry.
+ * Named denotators are written once and then referred to by index.
+ * Definitions without a native encoding are embedded as XML.
+ *
+ * @author vetronauta
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BinaryConstants {
+
+    public static final byte[] MAGIC = { 'L', 'T', 'R', 'B' };
+    public static final int VERSION = 1;
+
+    public static final byte RECORD_END = 0;
+    public static final byte RECORD_MODULE = 1;
+    public static final byte RECORD_MODULE_ELEMENT = 2;
+    public static final byte RECORD_MODULE_MORPHISM = 3;
+    public static final byte RECORD_FORM = 4;
+    public static final byte RECORD_DENOTATOR = 5;
+    public static final byte RECORD_SCHEME = 6;
+
+    public static final byte XML = 0;
+
+    public static final byte MODULE_Z = 1;
+    public static final byte MODULE_Q = 2;
+    public static final byte MODULE_R = 3;
+    public static final byte MODULE_C = 4;
+    public static final byte MODULE_ZN = 5;
+    public static final byte MODULE_VECTOR = 6;
+
+    public static final byte ELEMENT_Z = 1;
+    public static final byte ELEMENT_Q = 2;
+    public static final byte ELEMENT_R = 3;
+    public static final byte ELEMENT_C = 4;
+    public static final byte ELEMENT_ZN = 5;
+    public static final byte ELEMENT_VECTOR_Z = 6;
+    public static final byte ELEMENT_VECTOR_Q = 7;
+    public static final byte ELEMENT_VECTOR_R = 8;
+    public static final byte ELEMENT_VECTOR_C = 9;
+    public static final byte ELEMENT_VECTOR_ZN = 10;
+
+    public static final byte MORPHISM_CONSTANT = 1;
+
+    public static final byte FORM_BUILTIN = 1;
+    public static final byte FORM_REFERENCE = 2;
+    public static final byte FORM_SIMPLE = 3;
+    public static final byte FORM_LIMIT = 4;
+    public static final byte FORM_COLIMIT = 5;
+    public static final byte FORM_LIST = 6;
+    public static final byte FORM_POWER = 7;
+
+    public static final byte DENOTATOR_REF = 0;
+    public static final byte DENOTATOR_SIMPLE = 1;
+    public static final byte DENOTATOR_LIMIT = 2;
+    public static final byte DENOTATOR_COLIMIT = 3;
+    public static final byte DENOTATOR_LIST = 4;
+    public static final byte DENOTATOR_POWER = 5;
+    public static final byte DENOTATOR_NAMED = (byte) 0x80;
+
+    public static final byte MAP_CONSTANT = 1;
+    public static final byte MAP_MORPHISM = 2;
+    public static final byte MAP_MORPHISM_WITH_FRAME = 3;
+    public static final byte MAP_ELEMENT = 4;
+
+}
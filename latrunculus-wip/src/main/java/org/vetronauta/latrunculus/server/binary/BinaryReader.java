@@ -0,0 +1,683 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.server.binary;
+
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Complex;
+import org.vetronauta.latrunculus.core.math.element.impl.Modulus;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
+import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
+import org.vetronauta.latrunculus.core.math.module.factory.RingRepository;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.module.generic.Ring;
+import org.vetronauta.latrunculus.core.math.module.generic.VectorModule;
+import org.vetronauta.latrunculus.core.math.module.impl.CRing;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZnRing;
+import org.vetronauta.latrunculus.core.math.morphism.ConstantMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ColimitDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ListDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.SimpleDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.ColimitForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.form.FormReference;
+import org.vetronauta.latrunculus.core.math.yoneda.form.LimitForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.ListForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
+import org.vetronauta.latrunculus.core.math.yoneda.map.ConstantModuleMorphismMap;
+import org.vetronauta.latrunculus.core.math.yoneda.map.ModuleMorphismMap;
+import org.vetronauta.latrunculus.core.math.yoneda.morphism.CompoundMorphism;
+import org.vetronauta.latrunculus.core.repository.Dictionary;
+import org.vetronauta.latrunculus.core.repository.Repository;
+import org.vetronauta.latrunculus.server.xml.XMLReader;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.vetronauta.latrunculus.server.binary.BinaryConstants.*;
+
+/**
+ * Reads the binary format described in {@link BinaryConstants} from a channel.
+ * After {@link #read()}, the definitions of the file are available through
+ * the {@link Dictionary} interface, in the same way as from an {@link XMLReader}.
+ *
+ * @author vetronauta
+ */
+public class BinaryReader implements Dictionary, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Repository repository;
+
+    private final List<String> strings = new ArrayList<>();
+    private final List<Module> moduleTable = new ArrayList<>();
+    private final List<Form> formTable = new ArrayList<>();
+    private final List<String> formNames = new ArrayList<>();
+    private final List<Denotator> denotatorTable = new ArrayList<>();
+
+    private final Map<String,Module> modules = new LinkedHashMap<>();
+    private final Map<String,ModuleElement> elements = new LinkedHashMap<>();
+    private final Map<String,ModuleMorphism> moduleMorphisms = new LinkedHashMap<>();
+    private final Map<String,Form> forms = new LinkedHashMap<>();
+    private final Map<String,Denotator> denotators = new LinkedHashMap<>();
+    private String schemeCode = "";
+
+    private int formDepth;
+    private boolean unresolvedForms;
+    private XMLReader xmlReader;
+
+    /**
+     * Creates a binary reader from the specified channel using the global repository.
+     */
+    public BinaryReader(ReadableByteChannel channel) {
+        this(channel, Repository.systemRepository());
+    }
+
+    /**
+     * Creates a binary reader from the specified channel. Builtin forms
+     * are looked up in the repository.
+     */
+    public BinaryReader(ReadableByteChannel channel, Repository repository) {
+        this.channel = channel;
+        this.repository = repository;
+        buffer.flip();
+    }
+
+    /**
+     * Creates a binary reader from the file at <code>path</code>.
+     */
+    public static BinaryReader open(Path path) throws IOException {
+        return new BinaryReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Returns true iff the file at <code>path</code> starts like a binary
+     * file, so that it can be told apart from an XML file.
+     */
+    public static boolean isBinaryFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // read until the magic is complete or the file ends
+            }
+            return !magic.hasRemaining() && Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    /**
+     * Reads the whole file.
+     * @throws IOException if the file cannot be read or is not a valid binary file
+     */
+    public void read() throws IOException {
+        readHeader();
+        for (byte record = readByte(); record != RECORD_END; record = readByte()) {
+            switch (record) {
+                case RECORD_MODULE:
+                    modules.put(readString(), readModuleRef());
+                    break;
+                case RECORD_MODULE_ELEMENT:
+                    elements.put(readString(), readElement());
+                    break;
+                case RECORD_MODULE_MORPHISM:
+                    moduleMorphisms.put(readString(), readMorphism());
+                    break;
+                case RECORD_FORM:
+                    readFormRef();
+                    break;
+                case RECORD_DENOTATOR:
+                    Denotator denotator = readDenotator();
+                    if (denotator.getName() != null) {
+                        denotators.put(denotator.getNameString(), denotator);
+                    }
+                    break;
+                case RECORD_SCHEME:
+                    schemeCode = readString();
+                    break;
+                default:
+                    throw new IOException("Unknown record " + record);
+            }
+        }
+        resolveForms();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readHeader() throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        require(magic.length);
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary Rubato file");
+        }
+        int version = readVarint();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary format version " + version);
+        }
+    }
+
+    private Module readModuleRef() throws IOException {
+        int ref = readVarint();
+        if (ref > 0) {
+            return tableEntry(moduleTable, ref-1);
+        }
+        Module module;
+        byte tag = readByte();
+        switch (tag) {
+            case MODULE_Z:
+                module = ZRing.ring;
+                break;
+            case MODULE_Q:
+                module = QRing.ring;
+                break;
+            case MODULE_R:
+                module = RRing.ring;
+                break;
+            case MODULE_C:
+                module = CRing.ring;
+                break;
+            case MODULE_ZN:
+                module = RingRepository.getModulusRing(readVarint());
+                break;
+            case MODULE_VECTOR:
+                Module ring = readModuleRef();
+                if (!(ring instanceof Ring)) {
+                    throw new IOException("Vector module over " + ring + " which is not a ring");
+                }
+                module = new VectorModule<>((Ring) ring, readVarint());
+                break;
+            case XML:
+                module = readXml(element -> xmlReader.parseModule(element));
+                break;
+            default:
+                throw new IOException("Unknown module tag " + tag);
+        }
+        moduleTable.add(module);
+        return module;
+    }
+
+    private ModuleElement readElement() throws IOException {
+        byte tag = readByte();
+        int size;
+        switch (tag) {
+            case ELEMENT_Z:
+                return new ZInteger(readSignedVarint());
+            case ELEMENT_Q:
+                return readRational();
+            case ELEMENT_R:
+                return new Real(readDouble());
+            case ELEMENT_C:
+                return new Complex(readDouble(), readDouble());
+            case ELEMENT_ZN:
+                int modulus = readVarint();
+                return new Modulus(readVarint(), modulus);
+            case ELEMENT_VECTOR_Z:
+                size = readVarint();
+                List<ZInteger> integers = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    integers.add(new ZInteger(readSignedVarint()));
+                }
+                return new Vector<>(ZRing.ring, integers);
+            case ELEMENT_VECTOR_Q:
+                size = readVarint();
+                List<Rational> rationals = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    rationals.add(readRational());
+                }
+                return new Vector<>(QRing.ring, rationals);
+            case ELEMENT_VECTOR_R:
+                return new RealVector(readDoubles());
+            case ELEMENT_VECTOR_C:
+                size = readVarint();
+                List<Complex> complexes = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    complexes.add(new Complex(readDouble(), readDouble()));
+                }
+                return new Vector<>(CRing.ring, complexes);
+            case ELEMENT_VECTOR_ZN:
+                ZnRing ring = RingRepository.getModulusRing(readVarint());
+                size = readVarint();
+                List<Modulus> moduli = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    moduli.add(new Modulus(readVarint(), ring.getModulus()));
+                }
+                return new Vector<>(ring, moduli);
+            case XML:
+                return readXml(element -> xmlReader.parseModuleElement(element));
+            default:
+                throw new IOException("Unknown module element tag " + tag);
+        }
+    }
+
+    private Rational readRational() throws IOException {
+        int numerator = readSignedVarint();
+        return new Rational(numerator, readVarint());
+    }
+
+    private ModuleMorphism readMorphism() throws IOException {
+        byte tag = readByte();
+        switch (tag) {
+            case MORPHISM_CONSTANT:
+                Module domain = readModuleRef();
+                return new ConstantMorphism(domain, readElement());
+            case XML:
+                return readXml(element -> xmlReader.parseModuleMorphism(element));
+            default:
+                throw new IOException("Unknown module morphism tag " + tag);
+        }
+    }
+
+    private Form readFormRef() throws IOException {
+        int ref = readVarint();
+        if (ref > 0) {
+            Form form = tableEntry(formTable, ref-1);
+            if (form == null) {
+                // the form is still being read, i.e., it is recursive
+                unresolvedForms = true;
+                return new FormReference(formNames.get(ref-1));
+            }
+            return form;
+        }
+        int index = formTable.size();
+        formTable.add(null);
+        byte kind = readByte();
+        String name = readString();
+        formNames.add(name);
+        formDepth++;
+        Form form = readFormDefinition(kind, name);
+        formDepth--;
+        formTable.set(index, form);
+        if (kind != FORM_BUILTIN && kind != FORM_REFERENCE) {
+            forms.put(name, form);
+        }
+        if (formDepth == 0 && unresolvedForms) {
+            resolveForms();
+        }
+        return form;
+    }
+
+    private Form readFormDefinition(byte kind, String name) throws IOException {
+        switch (kind) {
+            case FORM_BUILTIN:
+                Form builtin = repository.getForm(name);
+                if (builtin == null) {
+                    throw new IOException("Builtin form " + name + " does not exist");
+                }
+                return builtin;
+            case FORM_REFERENCE:
+                unresolvedForms = true;
+                return new FormReference(name);
+            case FORM_SIMPLE:
+                Module module = readModuleRef();
+                if (readByte() != 0) {
+                    ModuleElement low = readElement();
+                    return new SimpleForm(NameDenotator.make(name), module, low, readElement());
+                }
+                return new SimpleForm(NameDenotator.make(name), module);
+            case FORM_LIMIT:
+                List<Form> limitForms = readFormRefs();
+                Map<String,Integer> limitLabels = readLabels();
+                return limitLabels.isEmpty() ? new LimitForm(NameDenotator.make(name), limitForms)
+                                             : new LimitForm(NameDenotator.make(name), limitForms, limitLabels);
+            case FORM_COLIMIT:
+                List<Form> colimitForms = readFormRefs();
+                Map<String,Integer> colimitLabels = readLabels();
+                return colimitLabels.isEmpty() ? new ColimitForm(NameDenotator.make(name), colimitForms)
+                                               : new ColimitForm(NameDenotator.make(name), colimitForms, colimitLabels);
+            case FORM_LIST:
+                return new ListForm(NameDenotator.make(name), readFormRef());
+            case FORM_POWER:
+                return new PowerForm(NameDenotator.make(name), readFormRef());
+            case XML:
+                unresolvedForms = true;
+                return readXml(element -> xmlReader.parseForm(element));
+            default:
+                throw new IOException("Unknown form tag " + kind);
+        }
+    }
+
+    private List<Form> readFormRefs() throws IOException {
+        int size = readVarint();
+        List<Form> res = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            res.add(readFormRef());
+        }
+        return res;
+    }
+
+    private Map<String,Integer> readLabels() throws IOException {
+        int size = readVarint();
+        Map<String,Integer> res = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String label = readString();
+            res.put(label, readVarint());
+        }
+        return res;
+    }
+
+    /**
+     * Resolves the references left by recursive forms and by forms embedded as XML.
+     */
+    private void resolveForms() throws IOException {
+        if (!unresolvedForms) {
+            return;
+        }
+        for (Form form : formTable) {
+            if (form != null && !form.resolveReferences(this)) {
+                throw new IOException("Could not resolve references in form " + form.getNameString());
+            }
+        }
+        unresolvedForms = false;
+    }
+
+    private Denotator readDenotator() throws IOException {
+        byte tag = readByte();
+        if (tag == DENOTATOR_REF) {
+            return tableEntry(denotatorTable, readVarint());
+        }
+        Form form = readFormRef();
+        NameDenotator name = (tag & DENOTATOR_NAMED) != 0 ? NameDenotator.make(readString()) : null;
+        Denotator denotator;
+        try {
+            switch (tag & ~DENOTATOR_NAMED) {
+                case DENOTATOR_SIMPLE:
+                    denotator = readSimpleCoordinate(name, castForm(form, SimpleForm.class));
+                    break;
+                case DENOTATOR_LIMIT:
+                    Module limitAddress = readModuleRef();
+                    denotator = new LimitDenotator(name, limitAddress, castForm(form, LimitForm.class), readDenotators());
+                    break;
+                case DENOTATOR_COLIMIT:
+                    Module colimitAddress = readModuleRef();
+                    int index = readVarint();
+                    denotator = new ColimitDenotator(name, colimitAddress, castForm(form, ColimitForm.class), index, readDenotator());
+                    break;
+                case DENOTATOR_LIST:
+                    Module listAddress = readModuleRef();
+                    denotator = new ListDenotator(name, listAddress, castForm(form, ListForm.class), readDenotators());
+                    break;
+                case DENOTATOR_POWER:
+                    // the factors have been written in the order of the power denotator
+                    Module powerAddress = readModuleRef();
+                    denotator = PowerDenotator._make_sorted_unsafe(name, powerAddress, castForm(form, PowerForm.class), readDenotators());
+                    break;
+                default:
+                    throw new IOException("Unknown denotator tag " + tag);
+            }
+        }
+        catch (LatrunculusCheckedException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (name != null) {
+            denotatorTable.add(denotator);
+        }
+        return denotator;
+    }
+
+    private List<Denotator> readDenotators() throws IOException {
+        int size = readVarint();
+        List<Denotator> res = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            res.add(readDenotator());
+        }
+        return res;
+    }
+
+    private SimpleDenotator readSimpleCoordinate(NameDenotator name, SimpleForm form) throws IOException {
+        byte tag = readByte();
+        switch (tag) {
+            case MAP_CONSTANT:
+                Module address = readModuleRef();
+                return SimpleDenotator._make_unsafe(name, form, address, readElement());
+            case MAP_ELEMENT:
+                CompoundMorphism constant = new CompoundMorphism(readModuleRef(), form.getModule(), new ConstantModuleMorphismMap(readElement()));
+                return SimpleDenotator._make_unsafe(name, form, constant, constant);
+            case MAP_MORPHISM:
+                return SimpleDenotator._make_unsafe(name, form, readMorphism());
+            case MAP_MORPHISM_WITH_FRAME:
+                ModuleMorphism morphism = readMorphism();
+                ModuleMorphism frameMorphism = readMorphism();
+                CompoundMorphism coordinate = new CompoundMorphism(morphism.getDomain(), morphism.getCodomain(), new ModuleMorphismMap(morphism));
+                CompoundMorphism frameCoordinate = new CompoundMorphism(frameMorphism.getDomain(), frameMorphism.getCodomain(), new ModuleMorphismMap(frameMorphism));
+                return SimpleDenotator._make_unsafe(name, form, coordinate, frameCoordinate);
+            default:
+                throw new IOException("Unknown coordinate tag " + tag);
+        }
+    }
+
+    private static <F extends Form> F castForm(Form form, Class<F> formClass) throws IOException {
+        if (!formClass.isInstance(form)) {
+            throw new IOException("Form " + form.getNameString() + " is not a " + formClass.getSimpleName());
+        }
+        return formClass.cast(form);
+    }
+
+    private static <T> T tableEntry(List<T> table, int index) throws IOException {
+        if (index < 0 || index >= table.size()) {
+            throw new IOException("Invalid reference " + index);
+        }
+        return table.get(index);
+    }
+
+    /**
+     * Parses an embedded XML definition with the given parsing method of {@link XMLReader}.
+     */
+    private <T> T readXml(Function<Element,T> parser) throws IOException {
+        String text = new String(readBytes(), StandardCharsets.UTF_8);
+        Element element;
+        try {
+            element = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                                            .parse(new InputSource(new StringReader(text)))
+                                            .getDocumentElement();
+        }
+        catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (xmlReader == null) {
+            xmlReader = new XMLReader(new StringReader("<Rubato/>"), repository);
+            xmlReader.parse();
+        }
+        T res = parser.apply(element);
+        if (res == null || xmlReader.hasError()) {
+            throw new IOException(String.join("\n", xmlReader.getErrors()));
+        }
+        return res;
+    }
+
+    private String readString() throws IOException {
+        int ref = readVarint();
+        if (ref > 0) {
+            return tableEntry(strings, ref-1);
+        }
+        String string = new String(readBytes(), StandardCharsets.UTF_8);
+        strings.add(string);
+        return string;
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] res = new byte[readVarint()];
+        int offset = 0;
+        while (offset < res.length) {
+            require(1);
+            int length = Math.min(buffer.remaining(), res.length-offset);
+            buffer.get(res, offset, length);
+            offset += length;
+        }
+        return res;
+    }
+
+    private byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     */
+    private int readVarint() throws IOException {
+        int res = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            res |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return res;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readSignedVarint() throws IOException {
+        int value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private double readDouble() throws IOException {
+        require(8);
+        return buffer.getDouble();
+    }
+
+    private double[] readDoubles() throws IOException {
+        double[] res = new double[readVarint()];
+        int offset = 0;
+        while (offset < res.length) {
+            require(8);
+            int length = Math.min(buffer.remaining() >> 3, res.length-offset);
+            buffer.asDoubleBuffer().get(res, offset, length);
+            buffer.position(buffer.position() + (length << 3));
+            offset += length;
+        }
+        return res;
+    }
+
+    /**
+     * Makes sure that at least <code>size</code> bytes are available in the buffer.
+     */
+    private void require(int size) throws IOException {
+        if (buffer.remaining() >= size) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < size) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of binary file");
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public List<Form> getForms() {
+        return new ArrayList<>(forms.values());
+    }
+
+    @Override
+    public Form getForm(String name) {
+        Form form = forms.get(name);
+        return form != null ? form : repository.getForm(name);
+    }
+
+    @Override
+    public List<Denotator> getDenotators() {
+        return new ArrayList<>(denotators.values());
+    }
+
+    @Override
+    public Denotator getDenotator(String name) {
+        Denotator denotator = denotators.get(name);
+        return denotator != null ? denotator : repository.getDenotator(name);
+    }
+
+    /**
+     * Returns the modules defined in the file as a map from names to modules.
+     */
+    public Map<String,Module> getModules() {
+        return modules;
+    }
+
+    @Override
+    public Module getModule(String name) {
+        Module module = modules.get(name);
+        return module != null ? module : repository.getModule(name);
+    }
+
+    public Set<String> getModuleElementNames() {
+        return elements.keySet();
+    }
+
+    @Override
+    public ModuleElement getModuleElement(String name) {
+        ModuleElement element = elements.get(name);
+        return element != null ? element : repository.getModuleElement(name);
+    }
+
+    public Set<String> getModuleMorphismNames() {
+        return moduleMorphisms.keySet();
+    }
+
+    @Override
+    public ModuleMorphism getModuleMorphism(String name) {
+        ModuleMorphism morphism = moduleMorphisms.get(name);
+        return morphism != null ? morphism : repository.getModuleMorphism(name);
+    }
+
+    /**
+     * Returns the Scheme code.
+     */
+    public String getSchemeCode() {
+        return schemeCode;
+    }
+
+}
@@ -0,0 +1,592 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.server.binary;
+
+import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Complex;
+import org.vetronauta.latrunculus.core.math.element.impl.Modulus;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.RealVector;
+import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.module.generic.Ring;
+import org.vetronauta.latrunculus.core.math.module.generic.VectorModule;
+import org.vetronauta.latrunculus.core.math.module.impl.CRing;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZnRing;
+import org.vetronauta.latrunculus.core.math.morphism.ConstantMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ColimitDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.DenotatorReference;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ListDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.SimpleDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.diagram.FormDiagram;
+import org.vetronauta.latrunculus.core.math.yoneda.form.ColimitForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.form.FormReference;
+import org.vetronauta.latrunculus.core.math.yoneda.form.LimitForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.ListForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.SimpleForm;
+import org.vetronauta.latrunculus.core.math.yoneda.map.ConstantModuleMorphismMap;
+import org.vetronauta.latrunculus.core.math.yoneda.map.ModuleMorphismMap;
+import org.vetronauta.latrunculus.core.math.yoneda.morphism.ProperIdentityMorphism;
+import org.vetronauta.latrunculus.core.math.yoneda.morphism.RepresentableIdentityMorphism;
+import org.vetronauta.latrunculus.core.repository.Repository;
+import org.vetronauta.latrunculus.server.xml.XMLWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.vetronauta.latrunculus.server.binary.BinaryConstants.*;
+
+/**
+ * Writes modules, module elements, module morphisms, forms and denotators
+ * in the binary format described in {@link BinaryConstants} to a channel.
+ * The output is buffered, {@link #close()} must be called at the end.
+ *
+ * @author vetronauta
+ */
+public class BinaryWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Repository repository;
+
+    private final Map<String,Integer> strings = new HashMap<>();
+    private final Map<Module,Integer> modules = new HashMap<>();
+    private final Map<Form,Integer> forms = new IdentityHashMap<>();
+    private final Map<Denotator,Integer> denotators = new IdentityHashMap<>();
+
+    /**
+     * Creates a binary writer to the specified channel using the global repository.
+     */
+    public BinaryWriter(WritableByteChannel channel) {
+        this(channel, Repository.systemRepository());
+    }
+
+    /**
+     * Creates a binary writer to the specified channel. Builtin forms of the
+     * repository are written by name only.
+     */
+    public BinaryWriter(WritableByteChannel channel, Repository repository) {
+        this.channel = channel;
+        this.repository = repository;
+    }
+
+    /**
+     * Creates a binary writer to the file at <code>path</code>, which is
+     * truncated if it already exists.
+     */
+    public static BinaryWriter create(Path path) throws IOException {
+        return new BinaryWriter(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Starts the binary file. This must be called before anything
+     * else is done.
+     */
+    public void open() throws IOException {
+        ensure(MAGIC.length);
+        buffer.put(MAGIC);
+        writeVarint(VERSION);
+    }
+
+    /**
+     * Ends the binary file, flushes the buffer and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeByte(RECORD_END);
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    public void writeModule(String name, Module module) throws IOException {
+        writeByte(RECORD_MODULE);
+        writeString(name);
+        writeModuleRef(module);
+    }
+
+    public void writeModuleElement(String name, ModuleElement element) throws IOException {
+        writeByte(RECORD_MODULE_ELEMENT);
+        writeString(name);
+        writeElement(element);
+    }
+
+    public void writeModuleMorphism(String name, ModuleMorphism morphism) throws IOException {
+        writeByte(RECORD_MODULE_MORPHISM);
+        writeString(name);
+        writeMorphism(morphism);
+    }
+
+    /**
+     * Writes the specified form, together with all the forms it depends on
+     * that have not been written yet.
+     */
+    public void writeForm(Form form) throws IOException {
+        writeByte(RECORD_FORM);
+        writeFormRef(form);
+    }
+
+    /**
+     * Writes the specified denotator. Named denotators occurring more than once
+     * in the file are written only the first time.
+     */
+    public void writeDenotator(Denotator denotator) throws IOException {
+        writeByte(RECORD_DENOTATOR);
+        writeDenotatorValue(denotator);
+    }
+
+    public void writeSchemeCode(String code) throws IOException {
+        writeByte(RECORD_SCHEME);
+        writeString(code);
+    }
+
+    private void writeModuleRef(Module module) throws IOException {
+        Integer index = modules.get(module);
+        if (index != null) {
+            writeVarint(index+1);
+            return;
+        }
+        writeVarint(0);
+        if (module == ZRing.ring) {
+            writeByte(MODULE_Z);
+        }
+        else if (module == QRing.ring) {
+            writeByte(MODULE_Q);
+        }
+        else if (module == RRing.ring) {
+            writeByte(MODULE_R);
+        }
+        else if (module == CRing.ring) {
+            writeByte(MODULE_C);
+        }
+        else if (module.getClass() == ZnRing.class) {
+            writeByte(MODULE_ZN);
+            writeVarint(((ZnRing) module).getModulus());
+        }
+        else if (module.getClass() == VectorModule.class) {
+            VectorModule<?> vectorModule = (VectorModule<?>) module;
+            writeByte(MODULE_VECTOR);
+            writeModuleRef(vectorModule.getRing());
+            writeVarint(vectorModule.getDimension());
+        }
+        else {
+            writeByte(XML);
+            writeXml(writer -> writer.writeModule(module));
+        }
+        // the table index is assigned once the definition is complete, as in the reader
+        modules.put(module, modules.size());
+    }
+
+    private void writeElement(ModuleElement element) throws IOException {
+        if (element instanceof ZInteger) {
+            writeByte(ELEMENT_Z);
+            writeSignedVarint(((ZInteger) element).intValue());
+        }
+        else if (element instanceof Rational) {
+            writeByte(ELEMENT_Q);
+            writeSignedVarint(((Rational) element).getNumerator());
+            writeVarint(((Rational) element).getDenominator());
+        }
+        else if (element instanceof Real) {
+            writeByte(ELEMENT_R);
+            writeDouble(((Real) element).getValue());
+        }
+        else if (element instanceof Complex) {
+            writeByte(ELEMENT_C);
+            writeDouble(((Complex) element).getReal());
+            writeDouble(((Complex) element).getImag());
+        }
+        else if (element instanceof Modulus) {
+            writeByte(ELEMENT_ZN);
+            writeVarint(((Modulus) element).getModulus());
+            writeVarint(((Modulus) element).getValue());
+        }
+        else if (element instanceof RealVector) {
+            writeByte(ELEMENT_VECTOR_R);
+            writeDoubles(((RealVector) element).getArray());
+        }
+        else if (element.getClass() != Vector.class || !writeVector((Vector<?>) element)) {
+            writeByte(XML);
+            writeXml(writer -> writer.writeModuleElement(element));
+        }
+    }
+
+    /**
+     * Writes the vector if its ring has a native encoding.
+     * @return false iff nothing has been written
+     */
+    private boolean writeVector(Vector<?> vector) throws IOException {
+        Ring<?> ring = vector.getRing();
+        List<?> values = vector.getValue();
+        if (ring == ZRing.ring) {
+            writeByte(ELEMENT_VECTOR_Z);
+            writeVarint(values.size());
+            for (Object value : values) {
+                writeSignedVarint(((ZInteger) value).intValue());
+            }
+        }
+        else if (ring == QRing.ring) {
+            writeByte(ELEMENT_VECTOR_Q);
+            writeVarint(values.size());
+            for (Object value : values) {
+                writeSignedVarint(((Rational) value).getNumerator());
+                writeVarint(((Rational) value).getDenominator());
+            }
+        }
+        else if (ring == RRing.ring) {
+            writeByte(ELEMENT_VECTOR_R);
+            writeDoubles(RealVector.toArray((Vector<Real>) vector));
+        }
+        else if (ring == CRing.ring) {
+            writeByte(ELEMENT_VECTOR_C);
+            writeVarint(values.size());
+            for (Object value : values) {
+                writeDouble(((Complex) value).getReal());
+                writeDouble(((Complex) value).getImag());
+            }
+        }
+        else if (ring instanceof ZnRing) {
+            writeByte(ELEMENT_VECTOR_ZN);
+            writeVarint(((ZnRing) ring).getModulus());
+            writeVarint(values.size());
+            for (Object value : values) {
+                writeVarint(((Modulus) value).getValue());
+            }
+        }
+        else {
+            return false;
+        }
+        return true;
+    }
+
+    private void writeMorphism(ModuleMorphism morphism) throws IOException {
+        if (morphism instanceof ConstantMorphism) {
+            writeByte(MORPHISM_CONSTANT);
+            writeModuleRef(morphism.getDomain());
+            writeElement(((ConstantMorphism<?,?,?,?>) morphism).getValue());
+        }
+        else {
+            writeByte(XML);
+            writeXml(writer -> writer.writeModuleMorphism(morphism));
+        }
+    }
+
+    private void writeFormRef(Form form) throws IOException {
+        Integer index = forms.get(form);
+        if (index != null) {
+            writeVarint(index+1);
+            return;
+        }
+        writeVarint(0);
+        // the index is assigned before the definition, so that recursive forms can refer to themselves
+        forms.put(form, forms.size());
+        byte kind = formKind(form);
+        writeByte(kind);
+        writeString(form.getNameString());
+        switch (kind) {
+            case FORM_SIMPLE:
+                writeSimpleForm((SimpleForm) form);
+                break;
+            case FORM_LIMIT:
+                writeCoordinateForms(form.getForms(), ((LimitForm) form).getLabelMap());
+                break;
+            case FORM_COLIMIT:
+                writeCoordinateForms(form.getForms(), ((ColimitForm) form).getLabelMap());
+                break;
+            case FORM_LIST:
+                writeFormRef(((ListForm) form).getForm());
+                break;
+            case FORM_POWER:
+                writeFormRef(((PowerForm) form).getForm());
+                break;
+            case XML:
+                writeXml(writer -> writer.writeForm(form));
+                break;
+            default:
+                // builtins and references are written by name only
+                break;
+        }
+    }
+
+    private byte formKind(Form form) {
+        if (form instanceof FormReference) {
+            return FORM_REFERENCE;
+        }
+        if (repository.isBuiltin(form)) {
+            return FORM_BUILTIN;
+        }
+        if (form instanceof SimpleForm) {
+            return FORM_SIMPLE;
+        }
+        if (!hasFormDiagram(form)) {
+            return XML;
+        }
+        if (form instanceof LimitForm) {
+            return FORM_LIMIT;
+        }
+        if (form instanceof ColimitForm) {
+            return FORM_COLIMIT;
+        }
+        if (form instanceof ListForm) {
+            return FORM_LIST;
+        }
+        if (form instanceof PowerForm) {
+            return FORM_POWER;
+        }
+        return XML;
+    }
+
+    private void writeSimpleForm(SimpleForm form) throws IOException {
+        writeModuleRef(form.getModule());
+        RepresentableIdentityMorphism morphism = (RepresentableIdentityMorphism) form.getIdentifier();
+        if (morphism.hasBounds()) {
+            writeByte((byte) 1);
+            writeElement(morphism.getLowValue());
+            writeElement(morphism.getHighValue());
+        }
+        else {
+            writeByte((byte) 0);
+        }
+    }
+
+    private void writeCoordinateForms(List<Form> coordinates, Map<String,Integer> labels) throws IOException {
+        writeVarint(coordinates.size());
+        for (Form coordinate : coordinates) {
+            writeFormRef(coordinate);
+        }
+        if (labels == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(labels.size());
+        for (Map.Entry<String,Integer> label : labels.entrySet()) {
+            writeString(label.getKey());
+            writeVarint(label.getValue());
+        }
+    }
+
+    private static boolean hasFormDiagram(Form form) {
+        return form.getIdentifier() instanceof ProperIdentityMorphism &&
+               ((ProperIdentityMorphism) form.getIdentifier()).getDiagram() instanceof FormDiagram;
+    }
+
+    private void writeDenotatorValue(Denotator denotator) throws IOException {
+        if (denotator instanceof DenotatorReference) {
+            throw new IOException("Cannot write unresolved denotator reference " + denotator.getNameString());
+        }
+        boolean named = denotator.getName() != null;
+        if (named) {
+            Integer index = denotators.get(denotator);
+            if (index != null) {
+                writeByte(DENOTATOR_REF);
+                writeVarint(index);
+                return;
+            }
+        }
+        byte flag = named ? DENOTATOR_NAMED : 0;
+        if (denotator instanceof SimpleDenotator) {
+            writeDenotatorHeader((byte) (DENOTATOR_SIMPLE | flag), denotator);
+            writeSimpleCoordinate((SimpleDenotator) denotator);
+        }
+        else if (denotator instanceof LimitDenotator) {
+            writeDenotatorHeader((byte) (DENOTATOR_LIMIT | flag), denotator);
+            writeModuleRef(denotator.getAddress());
+            writeFactors(((LimitDenotator) denotator).getFactors());
+        }
+        else if (denotator instanceof ColimitDenotator) {
+            ColimitDenotator colimit = (ColimitDenotator) denotator;
+            writeDenotatorHeader((byte) (DENOTATOR_COLIMIT | flag), denotator);
+            writeModuleRef(denotator.getAddress());
+            writeVarint(colimit.getIndex());
+            writeDenotatorValue(colimit.getFactor());
+        }
+        else if (denotator instanceof ListDenotator) {
+            writeDenotatorHeader((byte) (DENOTATOR_LIST | flag), denotator);
+            writeModuleRef(denotator.getAddress());
+            writeFactors(((ListDenotator) denotator).getFactors());
+        }
+        else if (denotator instanceof PowerDenotator) {
+            writeDenotatorHeader((byte) (DENOTATOR_POWER | flag), denotator);
+            writeModuleRef(denotator.getAddress());
+            writeFactors(((PowerDenotator) denotator).getFactors());
+        }
+        else {
+            throw new IOException("Cannot write denotator of type " + denotator.getType());
+        }
+        if (named) {
+            denotators.put(denotator, denotators.size());
+        }
+    }
+
+    private void writeDenotatorHeader(byte tag, Denotator denotator) throws IOException {
+        writeByte(tag);
+        writeFormRef(denotator.getForm());
+        if (denotator.getName() != null) {
+            writeString(denotator.getNameString());
+        }
+    }
+
+    private void writeSimpleCoordinate(SimpleDenotator denotator) throws IOException {
+        ModuleMorphismMap map = denotator.getModuleMorphismMap();
+        boolean sameFrame = denotator.getCoordinate() == denotator.getFrameCoordinate();
+        if (sameFrame && map instanceof ConstantModuleMorphismMap) {
+            // a map made from the element alone has no domain of its own
+            writeByte(map.getDomain() == null ? MAP_ELEMENT : MAP_CONSTANT);
+            writeModuleRef(denotator.getAddress());
+            writeElement(((ConstantModuleMorphismMap) map).getElement());
+        }
+        else if (sameFrame) {
+            writeByte(MAP_MORPHISM);
+            writeMorphism(map.getMorphism());
+        }
+        else {
+            writeByte(MAP_MORPHISM_WITH_FRAME);
+            writeMorphism(map.getMorphism());
+            writeMorphism(denotator.getFrameModuleMorphismMap().getMorphism());
+        }
+    }
+
+    private void writeFactors(List<Denotator> factors) throws IOException {
+        writeVarint(factors.size());
+        for (Denotator factor : factors) {
+            writeDenotatorValue(factor);
+        }
+    }
+
+    /**
+     * Embeds the XML representation produced by <code>action</code>.
+     */
+    private void writeXml(Consumer<XMLWriter> action) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, "UTF-8");
+        action.accept(new XMLWriter(out));
+        out.flush();
+        writeBytes(bytes.toByteArray());
+    }
+
+    private void writeString(String string) throws IOException {
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeVarint(index+1);
+            return;
+        }
+        writeVarint(0);
+        writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        strings.put(string, strings.size());
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length-offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void writeByte(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    /**
+     * Writes <code>value</code> as an unsigned LEB128 varint.
+     */
+    private void writeVarint(int value) throws IOException {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void writeSignedVarint(int value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    private void writeDouble(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    private void writeDoubles(double[] values) throws IOException {
+        writeVarint(values.length);
+        int offset = 0;
+        while (offset < values.length) {
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining() >> 3, values.length-offset);
+            buffer.asDoubleBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + (length << 3));
+            offset += length;
+        }
+    }
+
+    private void ensure(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
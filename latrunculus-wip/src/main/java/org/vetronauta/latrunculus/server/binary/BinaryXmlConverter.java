@@ -0,0 +1,126 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.server.binary;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.server.xml.XMLReader;
+import org.vetronauta.latrunculus.server.xml.XMLWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.SCHEME;
+
+/**
+ * Converts the definitions of a Rubato file (modules, module elements,
+ * module morphisms, forms, denotators and Scheme code) between the XML
+ * format and the binary format. Networks and rubettes are not converted:
+ * the binary format is meant for exchanging large definitions, e.g. scores,
+ * whereas projects are always saved as XML. Binary files are added to a
+ * project like XML definition files.
+ *
+ * @author vetronauta
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BinaryXmlConverter {
+
+    public static void xmlToBinary(File xmlFile, Path binaryFile) throws IOException {
+        XMLReader reader = new XMLReader(xmlFile);
+        reader.parse();
+        if (reader.hasError()) {
+            throw new IOException(String.join("\n", reader.getErrors()));
+        }
+        try (BinaryWriter writer = BinaryWriter.create(binaryFile)) {
+            writer.open();
+            xmlToBinary(reader, writer);
+        }
+    }
+
+    /**
+     * Writes the definitions parsed by <code>reader</code> to the opened <code>writer</code>.
+     */
+    public static void xmlToBinary(XMLReader reader, BinaryWriter writer) throws IOException {
+        if (!reader.getSchemeCode().isEmpty()) {
+            writer.writeSchemeCode(reader.getSchemeCode());
+        }
+        for (Map.Entry<String,Module> module : reader.getModules().entrySet()) {
+            writer.writeModule(module.getKey(), module.getValue());
+        }
+        for (String name : reader.getModuleElementNames()) {
+            writer.writeModuleElement(name, reader.getModuleElement(name));
+        }
+        for (String name : reader.getModuleMorphismNames()) {
+            writer.writeModuleMorphism(name, reader.getModuleMorphism(name));
+        }
+        for (Form form : reader.getForms()) {
+            writer.writeForm(form);
+        }
+        for (Denotator denotator : reader.getDenotators()) {
+            writer.writeDenotator(denotator);
+        }
+    }
+
+    public static void binaryToXml(Path binaryFile, File xmlFile, boolean compressed) throws IOException {
+        BinaryReader reader = BinaryReader.open(binaryFile);
+        try {
+            reader.read();
+        }
+        finally {
+            reader.close();
+        }
+        XMLWriter writer = new XMLWriter(xmlFile, compressed);
+        writer.open();
+        binaryToXml(reader, writer);
+        writer.close();
+    }
+
+    /**
+     * Writes the definitions read by <code>reader</code> to the opened <code>writer</code>.
+     */
+    public static void binaryToXml(BinaryReader reader, XMLWriter writer) {
+        if (!reader.getSchemeCode().isEmpty()) {
+            writer.openBlock(SCHEME);
+            writer.writeTextNode(reader.getSchemeCode().trim()+"\n");
+            writer.closeBlock();
+        }
+        for (Map.Entry<String,Module> module : reader.getModules().entrySet()) {
+            writer.writeModule(module.getKey(), module.getValue());
+        }
+        for (String name : reader.getModuleElementNames()) {
+            writer.writeModuleElement(name, reader.getModuleElement(name));
+        }
+        for (String name : reader.getModuleMorphismNames()) {
+            writer.writeModuleMorphism(name, reader.getModuleMorphism(name));
+        }
+        for (Form form : reader.getForms()) {
+            writer.writeForm(form);
+        }
+        for (Denotator denotator : reader.getDenotators()) {
+            writer.writeDenotator(denotator);
+        }
+    }
+
+}
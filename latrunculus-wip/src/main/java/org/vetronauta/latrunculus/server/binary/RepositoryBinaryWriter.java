@@ -0,0 +1,67 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.vetronauta.latrunculus.server.binary;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.repository.Repository;
+
+import java.io.IOException;
+
+/**
+ * Writes the user defined objects of a repository in the binary format,
+ * like {@link org.vetronauta.latrunculus.server.xml.writer.RepositoryXmlWriter}
+ * does in the XML format.
+ *
+ * @author vetronauta
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RepositoryBinaryWriter {
+
+    public static void toBinary(Repository repository, BinaryWriter writer) throws IOException {
+        if (repository.getSchemeCode().length() > 0) {
+            writer.writeSchemeCode(repository.getSchemeCode());
+        }
+        for (String moduleName : repository.getModuleNames()) {
+            if (!repository.isBuiltinModule(moduleName)) {
+                writer.writeModule(moduleName, repository.getModule(moduleName));
+            }
+        }
+        for (String moduleElementName : repository.getModuleElementNames()) {
+            if (!repository.isBuiltinModuleElement(moduleElementName)) {
+                writer.writeModuleElement(moduleElementName, repository.getModuleElement(moduleElementName));
+            }
+        }
+        for (String moduleMorphismName : repository.getModuleMorphismNames()) {
+            if (!repository.isBuiltinModuleMorphism(moduleMorphismName)) {
+                writer.writeModuleMorphism(moduleMorphismName, repository.getModuleMorphism(moduleMorphismName));
+            }
+        }
+        for (Form form : repository.getCustomForms()) {
+            writer.writeForm(form);
+        }
+        for (Denotator denotator : repository.getCustomDenotators()) {
+            writer.writeDenotator(denotator);
+        }
+    }
+
+}
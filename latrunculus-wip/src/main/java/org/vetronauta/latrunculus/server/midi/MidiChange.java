@@ -25,6 +25,7 @@ import org.vetronauta.latrunculus.core.math.element.generic.StringMap;
 import org.vetronauta.latrunculus.core.math.element.impl.Rational;
 import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.FactorDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.SimpleDenotator;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -53,8 +54,27 @@ public class MidiChange implements Comparable<MidiChange> {
         double   d = ((SimpleDenotator)note.getFactor(3)).getReal();
         int      v = ((SimpleDenotator)note.getFactor(4)).getInteger();
 
+        setNote(o, p.intValue(), l, d, v, resolution);
+    }
+
+
+    /**
+     * Creates the note on change of the note at row <code>row</code> of a score table.
+     */
+    public MidiChange(ScoreTable notes, int row, int resolution) {
+        double o = notes.getDouble(0, row);
+        int    p = (int)Math.round(notes.getDouble(1, row));
+        int    l = notes.getInt(2, row);
+        double d = notes.getDouble(3, row);
+        int    v = notes.getInt(4, row);
+
+        setNote(o, p, l, d, v, resolution);
+    }
+
+
+    private void setNote(double o, int p, int l, double d, int v, int resolution) {
         onset    = (int)Math.round(o*resolution);
-        pitch    = Math.max(Math.min(p.intValue(), 127), 0);
+        pitch    = Math.max(Math.min(p, 127), 0);
         loudness = Math.max(Math.min(l, 127), 0);
         duration = (int)Math.round(d*resolution);
         track    = 0;
@@ -33,6 +33,8 @@ import java.util.Map;
 import org.vetronauta.latrunculus.core.repository.Repository;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.FactorDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
 import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 
 import javax.sound.midi.Instrument;
@@ -405,16 +407,30 @@ public class MidiPlayer implements MetaEventListener {
      * sorted by onsets.
      */
     private ArrayList<MidiChange> scoreToMidiNotes() {
-        List<Denotator> noteList = ((FactorDenotator)score).getFactors();
-        ArrayList<MidiChange> midiChanges = new ArrayList<MidiChange>(noteList.size()*3);
+        ArrayList<MidiChange> midiChanges;
         
         int begin = Integer.MAX_VALUE;
         // process note on/off events
-        for (Denotator d : noteList) {
-            MidiChange midiChange = new MidiChange((FactorDenotator)d, resolution);
-            begin = Math.min(midiChange.getOnset(), begin);
-            midiChanges.add(midiChange);
-            midiChanges.add(midiChange.getNoteOff());
+        ScoreTable table = score instanceof PowerDenotator ? ((PowerDenotator)score).getScoreTable() : null;
+        if (table != null) {
+            // scan the columns without creating the note denotators
+            midiChanges = new ArrayList<MidiChange>(table.size()*2);
+            for (int i = 0; i < table.size(); i++) {
+                MidiChange midiChange = new MidiChange(table, i, resolution);
+                begin = Math.min(midiChange.getOnset(), begin);
+                midiChanges.add(midiChange);
+                midiChanges.add(midiChange.getNoteOff());
+            }
+        }
+        else {
+            List<Denotator> noteList = ((FactorDenotator)score).getFactors();
+            midiChanges = new ArrayList<MidiChange>(noteList.size()*3);
+            for (Denotator d : noteList) {
+                MidiChange midiChange = new MidiChange((FactorDenotator)d, resolution);
+                begin = Math.min(midiChange.getOnset(), begin);
+                midiChanges.add(midiChange);
+                midiChanges.add(midiChange.getNoteOff());
+            }
         }
         
         /*
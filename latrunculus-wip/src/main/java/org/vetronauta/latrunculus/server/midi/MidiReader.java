@@ -22,25 +22,39 @@ package org.vetronauta.latrunculus.server.midi;
 import org.vetronauta.latrunculus.core.repository.Repository;
 import org.vetronauta.latrunculus.core.math.element.impl.Rational;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
-import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.ScoreTable;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 
 import javax.sound.midi.InvalidMidiDataException;
-import javax.sound.midi.MetaMessage;
-import javax.sound.midi.MidiEvent;
-import javax.sound.midi.MidiMessage;
-import javax.sound.midi.MidiSystem;
-import javax.sound.midi.Sequence;
-import javax.sound.midi.ShortMessage;
-import javax.sound.midi.Track;
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
-
-import static org.vetronauta.latrunculus.core.logeo.DenoFactory.makeDenotator;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * This class reads in a MIDI file an converts it to a denotator of form Score.
+ * The standard MIDI file is parsed directly from its bytes, the tracks
+ * are merged by tick and the notes are added to the score table
+ * in the order of the table.
  *  
  * @author Gérard Milmeister
  */
@@ -49,12 +63,13 @@ public class MidiReader {
 
     /**
      * Creates a MidiReader that reads from a file.
+     * The file is memory-mapped.
      * @throws InvalidMidiDataException
      * @throws IOException
      */
     public MidiReader(String fileName)
             throws InvalidMidiDataException, IOException {
-        readSequence(fileName);
+        this(Paths.get(fileName));
     }
 
 
@@ -65,7 +80,15 @@ public class MidiReader {
      */
     public MidiReader(InputStream stream)
             throws InvalidMidiDataException, IOException {
-        readSequence(stream);
+        readSequence(ByteBuffer.wrap(readFully(stream)));
+    }
+
+
+    private MidiReader(Path file)
+            throws InvalidMidiDataException, IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readSequence(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
     }
 
 
@@ -85,365 +108,368 @@ public class MidiReader {
     public void setTempoFactor(double f) {
         tempoFactor = f;
     }
-    
+
 
     /**
-     * Reads a MIDI sequence from a file.
-     * @throws InvalidMidiDataException
-     * @throws IOException
+     * Reads all the MIDI files (with extension mid, midi or smf) of a directory
+     * in parallel and returns their Score denotators, sorted by path.
+     * @param tempoFactor the factor that each time value is multiplied with
+     * @throws IOException if the directory or one of the files cannot be read,
+     *                     or if one of the files is not a valid MIDI file
      */
-    private void readSequence(String fileName)
-            throws InvalidMidiDataException, IOException {
-        File midiFile = new File(fileName);
-        sequence = MidiSystem.getSequence(midiFile);
-        initialize();
+    public static Map<Path,Denotator> readDirectory(Path directory, double tempoFactor)
+            throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(MidiReader::isMidiFile).sorted().collect(Collectors.toList());
+        }
+        Denotator[] scores = new Denotator[files.size()];
+        try {
+            IntStream.range(0, files.size()).parallel().forEach(i -> {
+                scores[i] = readFile(files.get(i), tempoFactor);
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Map<Path,Denotator> result = new LinkedHashMap<>();
+        for (int i = 0; i < scores.length; i++) {
+            result.put(files.get(i), scores[i]);
+        }
+        return result;
     }
 
 
-    /**
-     * Reads a MIDI sequence from an InputStream.
-     * @throws InvalidMidiDataException
-     * @throws IOException
-     */
-    private void readSequence(InputStream stream)
-            throws InvalidMidiDataException, IOException {
-        sequence = MidiSystem.getSequence(stream);
-        initialize();
+    private static boolean isMidiFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(file)
+               && (name.endsWith(".mid") || name.endsWith(".midi") || name.endsWith(".smf"));
     }
 
 
-    /**
-     * Initializes various parameters from the sequence.
-     */
-    private void initialize() {
-        float divisionType = sequence.getDivisionType();
-        if (divisionType != Sequence.PPQ) {
-            throw new IllegalStateException("Only division type PPQ supported");
+    private static Denotator readFile(Path file, double tempoFactor) {
+        try {
+            MidiReader reader = new MidiReader(file);
+            reader.setTempoFactor(tempoFactor);
+            return reader.getDenotator();
+        }
+        catch (InvalidMidiDataException e) {
+            throw new UncheckedIOException(new IOException("Invalid MIDI file "+file+": "+e.getMessage(), e));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        ticksPerQuarter = sequence.getResolution();
-        tracks          = sequence.getTracks();
-//        seqLength       = sequence.getTickLength();
     }
 
 
-//    /**
-//     * Processes the sequence that has been read in and construct the denotator.
-//     */
-//    private void processSequence() {
-//        LinkedList generalNotes = new LinkedList();
-//        LinkedList articulations = new LinkedList();
-//        tempoList = new LinkedList();
-//        timeList = new LinkedList();
-//        keyList = new LinkedList();
-//        
-//        // Process all events in all tracks
-//        for (int i = 0; i < tracks.length; i++) {
-//            initTrack(i);
-//            for (int j = 0; j < tracks[i].size(); j++) {
-//                processEvent(tracks[i].get(j));
-//            }
-//            ListIterator iter = notes.listIterator();
-//            while (iter.hasNext()) {
-//                generalNotes.add(makeGeneralNote((Key)iter.next()));
-//            }
-//            iter = pedals.listIterator();
-//            while (iter.hasNext()) {
-//                articulations.add(makePedal((Key)iter.next()));
-//            }
-//        }
-//
-//        // Process global events like time and key signatures, tempi
-//        Denotator keySigs = DenoFactory.make(keySignaturesForm, keyList);
-//        Denotator timeSigs = DenoFactory.make(timeSignaturesForm, timeList);
-//
-//        score = scoreForm.createDefaultDenotator();
-//        FactorDenotator signatures = (FactorDenotator)DenoAccess.getIdFactor(score, 1);
-//        try {
-//            signatures.setIdFactor(0, keySigs);
-//            signatures.setIdFactor(1, timeSigs);
-//            DenoAccess.setIdFactor(score, 4, DenoFactory.make(generalNotesForm, generalNotes));
-//            DenoAccess.setIdFactor(score, 2, DenoFactory.make(tempiForm, tempoList));
-//            DenoAccess.setIdFactor(score, 5, DenoFactory.make(groupArticulationsForm, articulations));
-//        }
-//        catch (RubatoException e) {
-//            e.printStackTrace();
-//        }
-//    }
-
-
-    /**
-     * Processes the sequence that has been read in
-     * and construct the Score denotator.
-     */
-    private void processSequence() {
-        LinkedList<Denotator> noteList = new LinkedList<Denotator>();
-        
-        // Process all events in all tracks
-        for (int i = 0; i < tracks.length; i++) {
-            initTrack(i);
-            for (int j = 0; j < tracks[i].size(); j++) {
-                processEvent(tracks[i].get(j));
-            }
-            for (Key key : notes) {
-                noteList.add(makeNote(key));
-            }
+    private static byte[] readFully(InputStream stream)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(stream.available(), 1024));
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = stream.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, n);
         }
-
-        score = makeDenotator(scoreForm, noteList);
+        return bytes.toByteArray();
     }
 
 
     /**
-     * Processes a MIDI event in a track.
-     * According to the type of message, dispatches to processShortMessage
-     * or processMetaMessage.
+     * Reads the header and the track chunks of a standard MIDI file
+     * and collects the notes of all the tracks.
+     * @throws InvalidMidiDataException
      */
-    private void processEvent(MidiEvent event) {
-        MidiMessage msg = event.getMessage();
-        currentTick = event.getTick();
-        if (msg instanceof ShortMessage) {
-            processShortMessage((ShortMessage)msg);
+    private void readSequence(ByteBuffer buffer)
+            throws InvalidMidiDataException {
+        try {
+            if (buffer.remaining() < 14 || buffer.getInt() != MTHD) {
+                throw new InvalidMidiDataException("Not a standard MIDI file");
+            }
+            int headerLength = buffer.getInt();
+            if (headerLength < 6 || headerLength > buffer.remaining()) {
+                throw new InvalidMidiDataException("Invalid header chunk");
+            }
+            int headerStart = buffer.position();
+            buffer.getShort(); // format, all the tracks are merged anyway
+            int trackCount = buffer.getShort() & 0xFFFF;
+            int division = buffer.getShort() & 0xFFFF;
+            if ((division & 0x8000) != 0) {
+                throw new IllegalStateException("Only division type PPQ supported");
+            }
+            if (division == 0) {
+                throw new InvalidMidiDataException("Invalid resolution 0");
+            }
+            ticksPerQuarter = division;
+            buffer.position(headerStart+headerLength);
+
+            List<TrackCursor> cursors = new ArrayList<>(trackCount);
+            int trackBytes = 0;
+            while (cursors.size() < trackCount && buffer.remaining() >= 8) {
+                int type = buffer.getInt();
+                long length = buffer.getInt() & 0xFFFFFFFFL;
+                if (length > buffer.remaining()) {
+                    throw new InvalidMidiDataException("Truncated chunk");
+                }
+                if (type == MTRK) {
+                    ByteBuffer track = buffer.slice();
+                    track.limit((int)length);
+                    cursors.add(new TrackCursor(track, cursors.size()));
+                    trackBytes += (int)length;
+                }
+                buffer.position(buffer.position()+(int)length);
+            }
+            initNotes(trackBytes/MIN_NOTE_BYTES+1);
+            mergeTracks(cursors);
         }
-        else if (msg instanceof MetaMessage) {
-            processMetaMessage((MetaMessage)msg);
+        catch (BufferUnderflowException e) {
+            throw new InvalidMidiDataException("Unexpected end of data");
         }
     }
 
 
     /**
-     * Processes a short message from a track.
-     * Currently only note on, note off and program change messages are considered.
+     * Processes the events of all tracks in the order of their ticks.
+     * The tracks are merged with a priority queue, events with the
+     * same tick are taken in the order of the tracks.
+     * @throws InvalidMidiDataException
      */
-    private void processShortMessage(ShortMessage msg) {
-        switch (msg.getCommand()) {
-            case 0x80: {
-                // Note Off
-                processNoteOffEvent(msg.getData1(), msg.getChannel());
-                break;
-            }
-            case 0x90: {
-                // Note On
-                if (msg.getData2() == 0) {
-                    // "Note On" with velocity 0 is equivalent to Note Off
-                    processNoteOffEvent(msg.getData1(), msg.getChannel());
-                }
-                else {
-                    processNoteOnEvent(msg.getData1(), msg.getData2(), msg.getChannel());
-                }
-                break;
-            }
-            case 0xa0: {
-                // Polyphonic key pressure
-                // TODO: not yet implemented
-                break;
+    private void mergeTracks(List<TrackCursor> cursors)
+            throws InvalidMidiDataException {
+        PriorityQueue<TrackCursor> queue = new PriorityQueue<>(Math.max(cursors.size(), 1), TRACK_ORDER);
+        for (TrackCursor cursor : cursors) {
+            if (cursor.advance()) {
+                queue.add(cursor);
             }
-            case 0xb0: {
-                // Control change
-                processControlChange(msg.getData1(), msg.getData2(), msg.getChannel());
-                break;
-            }
-            case 0xc0: {
-                // Program change
-                currentProgram = msg.getData1();
-                break;
-            }
-            case 0xd0: {
-                // Key pressure
-                // TODO: not yet implemented
-                break;
-            }
-            case 0xe0: {
-                // Pitch wheel change
-                // TODO: not yet implemented
-                break;
-            }
-            case 0xF0 : {
-                // ???
-                // TODO: not yet implemented
-                break;
+        }
+        while (!queue.isEmpty()) {
+            TrackCursor cursor = queue.poll();
+            if (processEvent(cursor) && cursor.advance()) {
+                queue.add(cursor);
             }
         }
     }
 
 
     /**
-     * Processes a meta message from a track.
-     * Currently only tempo, time signature and key signature changes are considered.
+     * Processes the next MIDI event of a track.
+     * Currently only note on and note off messages are considered,
+     * all other messages are skipped.
+     * @return false if the event is the end of the track
+     * @throws InvalidMidiDataException
      */
-    private void processMetaMessage(MetaMessage msg) {
-//        byte[] message = msg.getMessage();
-//        byte[] data = msg.getData();
-//        int dataLength = msg.getLength();
-        
-        switch (msg.getType()) {
-            case 0: {
-                // Sequence Number
-//                currentTrackNr = ((data[0] & 0xFF) << 8) | (data[1] & 0xFF);
-                break;
-            }
-            case 1: {
-                // Text Event
-                // String text = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 2: {
-                // Copyright Notice
-                // String copyrightText = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 3: {
-                // Track Name
-                // String trackName = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 4: {
-                // Instrument Name
-                // String instrumentName = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 5: {
-                // Lyrics
-                // String lyrics = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 6: {
-                // Marker
-                // String markerText = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 7: {
-                // Cue Point
-                // String cuePointText = new String(data);
-                // TODO: not yet implemented
-                break;
-            }
-            case 0x20: {
-                // Channel Prefix
-                // int cannelPrefix = data[0] & 0xFF;
-                // TODO: not yet implemented
-                break;
-            }
-            case 0x2F: {
-                // End of Track
-                break;
-            }
-            case 0x51: {
-                // Change Tempo
-//                int tempo = ((data[0] & 0xFF) << 16) | ((data[1] & 0xFF) << 8) | (data[2] & 0xFF);
-//                changeTempo(tempo);
-                break;
-            }
-            case 0x54: {
-                // SMTPE Offset
-                // TODO: not yet implemented
-                break;
-            }
-            case 0x58: {
-                // Time Signature
-//                int numerator = data[0] & 0xFF;
-//                int denominator = 1 << (data[1] & 0xFF);
-//                changeTimeSig(numerator, denominator);
-                break;
-            }
-            case 0x59: {
-                // Key Signature
-                // int gender = data[1];
-//                int signature = data[0];
-//                changeKeySig(signature);
-                break;
-            }
-            case 0x7F: {
-                // Sequencer-Specific Meta-event
-                // TODO: not yet implemented
-                break;
+    private boolean processEvent(TrackCursor cursor)
+            throws InvalidMidiDataException {
+        ByteBuffer data = cursor.data;
+        int status = data.get() & 0xFF;
+        if (status == 0xFF) {
+            // Meta message
+            int type = data.get() & 0xFF;
+            skip(data, readVariableLength(data));
+            return type != END_OF_TRACK;
+        }
+        if (status == 0xF0 || status == 0xF7) {
+            // System exclusive message
+            skip(data, readVariableLength(data));
+            return true;
+        }
+        int data1;
+        if (status < 0x80) {
+            // Running status
+            if (cursor.runningStatus == 0) {
+                throw new InvalidMidiDataException("Missing status byte");
             }
+            data1 = status;
+            status = cursor.runningStatus;
+        }
+        else if (status < 0xF0) {
+            cursor.runningStatus = status;
+            data1 = data.get() & 0x7F;
+        }
+        else {
+            throw new InvalidMidiDataException("Invalid status byte "+status);
+        }
+        int command = status & 0xF0;
+        int channel = status & 0x0F;
+        if (command == 0xC0 || command == 0xD0) {
+            // Program change and key pressure have a single data byte
+            return true;
+        }
+        int data2 = data.get() & 0x7F;
+        if (command == 0x80 || (command == 0x90 && data2 == 0)) {
+            // Note Off, "Note On" with velocity 0 is equivalent to Note Off
+            processNoteOffEvent(cursor, data1, channel);
+        }
+        else if (command == 0x90) {
+            processNoteOnEvent(cursor, data1, data2, channel);
         }
+        return true;
     }
 
 
     /**
      * Processes a note on event.
      */
-    private void processNoteOnEvent(int key, int velocity, int channel) {
-        Key k = keys[channel][key] = new Key();
-        k.key      = key;
-        k.channel  = channel;
-        k.velocity = velocity;
-        k.tick     = currentTick;
-        k.program  = currentProgram;
-        notes.add(k);
+    private void processNoteOnEvent(TrackCursor cursor, int key, int velocity, int channel) {
+        if (noteCount == noteTicks.length) {
+            int length = noteCount*2;
+            noteTicks = Arrays.copyOf(noteTicks, length);
+            noteDurations = Arrays.copyOf(noteDurations, length);
+            noteKeys = Arrays.copyOf(noteKeys, length);
+        }
+        noteTicks[noteCount] = cursor.tick;
+        noteDurations[noteCount] = 0;
+        noteKeys[noteCount] = (key << 11) | (velocity << 4) | channel;
+        cursor.keys[channel*NR_KEYS+key] = noteCount;
+        noteCount++;
     }
 
 
     /**
      * Processes a note off event.
      */
-    private void processNoteOffEvent(int key, int channel) {
-        Key k = keys[channel][key];
-        if (k != null) {
-            k.duration = currentTick-k.tick;
+    private void processNoteOffEvent(TrackCursor cursor, int key, int channel) {
+        int note = cursor.keys[channel*NR_KEYS+key];
+        if (note >= 0) {
+            noteDurations[note] = cursor.tick-noteTicks[note];
+            packable &= noteDurations[note] <= MAX_PACKED_DURATION;
         }
     }
 
 
     /**
-     * Processes a control change event.
-     * Currently only the damper pedal is considered.
+     * Constructs the Score denotator from the collected notes.
+     * The notes are collected in a score table, the note
+     * denotators are only created when they are accessed.
+     * The notes have already been collected in the order of their
+     * onsets, the notes with the same onset are sorted here, so that
+     * the score table does not have to be sorted when it is built.
      */
-    private void processControlChange(int controller, int value, int channel) {
-        switch (controller) {
-            case 0x40: {
-                // Damper Pedal
-                if (value > 0) {
-                    Key k = controls[channel][controller] = new Key();
-                    k.key      = controller;
-                    k.channel  = channel;
-                    k.velocity = value;
-                    k.tick     = currentTick;
-                    k.program  = currentProgram;
-                    pedals.add(k);
+    private void processSequence() {
+        ScoreTable.Builder builder = ScoreTable.builder(scoreForm, noteCount);
+        if (!packable) {
+            // durations too long to be sorted here, the table sorts itself
+            for (int i = 0; i < noteCount; i++) {
+                addNote(builder, noteTicks[i], noteKeys[i] >>> 11, (noteKeys[i] >>> 4) & 0x7F,
+                        noteDurations[i], noteKeys[i] & 0x0F);
+            }
+        }
+        else {
+            long[] chord = new long[16];
+            int start = 0;
+            while (start < noteCount) {
+                int end = start+1;
+                while (end < noteCount && noteTicks[end] == noteTicks[start]) {
+                    end++;
+                }
+                int size = end-start;
+                if (size > chord.length) {
+                    chord = new long[Math.max(size, chord.length*2)];
                 }
-                else {
-                    Key k = controls[channel][controller];
-                    if (k != null) {
-                        k.duration = currentTick-k.tick;
+                for (int i = 0; i < size; i++) {
+                    chord[i] = packNote(start+i);
+                }
+                Arrays.sort(chord, 0, size);
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || chord[i] != chord[i-1]) {
+                        long note = chord[i];
+                        addNote(builder, noteTicks[start], (int)(note >>> 56), (int)(note >>> 49) & 0x7F,
+                                (note >>> 4) & MAX_PACKED_DURATION, (int)note & 0x0F);
                     }
                 }
+                start = end;
             }
         }
+        score = PowerDenotator.fromScoreTable(null, builder.build());
+    }
+
+
+    /**
+     * Packs the key, velocity, duration and channel of a note into a long
+     * whose order is the order of the corresponding rows of the score table.
+     */
+    private long packNote(int note) {
+        long keys = noteKeys[note];
+        return ((keys >>> 11) << 56) | (((keys >>> 4) & 0x7F) << 49) | (noteDurations[note] << 4) | (keys & 0x0F);
     }
 
 
     /**
-     * This private class represents a key event.
+     * Adds a row with the Onset, Pitch, Loudness, Duration and Voice
+     * of a note to the score table.
      */
-    protected class Key {
-        int  velocity;
-        long tick;
-        long duration;
-        int  channel;
-        int  program;
-        int  key;
+    private void addNote(ScoreTable.Builder builder, long tick, int key, int velocity, long duration, int channel) {
+        builder.addRow();
+        builder.setReal(ONSET, tempoFactor*tick/ticksPerQuarter);
+        builder.setRational(PITCH, PITCHES[key]);
+        builder.setInteger(LOUDNESS, velocity);
+        builder.setReal(DURATION, tempoFactor*duration/ticksPerQuarter);
+        builder.setInteger(VOICE, channel);
+    }
+
+
+    /**
+     * Initializes the note arrays with the given capacity.
+     */
+    private void initNotes(int capacity) {
+        noteTicks     = new long[capacity];
+        noteDurations = new long[capacity];
+        noteKeys      = new int[capacity];
+        noteCount     = 0;
+        packable      = true;
+    }
+
+
+    private static int readVariableLength(ByteBuffer data)
+            throws InvalidMidiDataException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = data.get() & 0xFF;
+            value = (value << 7) | (b & 0x7F);
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new InvalidMidiDataException("Invalid variable-length quantity");
+    }
+
+
+    private static void skip(ByteBuffer data, int length) {
+        if (length > data.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        data.position(data.position()+length);
     }
 
 
     /**
-     * Initializes various data structures before a track is processed.
+     * The position in a track and the state of the keys of the track.
      */
-    private void initTrack(int tracknr) {
-        keys     = new Key[NR_CHANNELS][NR_KEYS];
-        controls = new Key[NR_CHANNELS][NR_CONTROLS];
-        notes    = new LinkedList<Key>();
-        pedals   = new LinkedList<Key>();
-        currentProgram = 0;
-        currentTick    = 0;
-//        currentTrackNr = tracknr;
+    private static final class TrackCursor {
+        private final ByteBuffer data;
+        private final int index;
+        private final int[] keys;
+        private long tick;
+        private int runningStatus;
+
+        private TrackCursor(ByteBuffer data, int index) {
+            this.data = data;
+            this.index = index;
+            this.keys = new int[NR_CHANNELS*NR_KEYS];
+            Arrays.fill(keys, -1);
+        }
+
+        /**
+         * Reads the delta time of the next event.
+         * @return false if there are no more events
+         */
+        private boolean advance()
+                throws InvalidMidiDataException {
+            if (!data.hasRemaining()) {
+                return false;
+            }
+            tick += readVariableLength(data);
+            return true;
+        }
     }
 
 
@@ -466,17 +492,6 @@ public class MidiReader {
 //        return DenoFactory.make(generalNoteForm, 0, simpleNote); 
 //    }
 
-    private Denotator makeNote(Key key) {
-        LinkedList<Denotator> factors = new LinkedList<Denotator>();
-        factors.add(makeOnset(key.tick));
-        factors.add(makePitch(key.key));
-        factors.add(makeLoudness(key.velocity));
-        factors.add(makeDuration(key.duration));
-        factors.add(makeVoice(key.channel));
-        return makeDenotator(noteForm, factors);
-    }
-
-
 //    /**
 //     * Creates a Voice denotator from a key event.
 //     */
@@ -492,48 +507,6 @@ public class MidiReader {
 //    }
 
 
-    /**
-     * Creates an Onset denotator from a key event.
-     */
-    private Denotator makeOnset(long tick) {
-        double onset = tempoFactor*tick/ticksPerQuarter;
-        return makeDenotator(onsetForm, onset);        
-    }
-
-    
-    /**
-     * Creates a Pitch denotator from a key event.
-     */
-    private Denotator makePitch(int key) {
-        return makeDenotator(pitchForm, new Rational(key));
-    }
-    
-
-    /**
-     * Creates a Loudness denotator from a key event.
-     */
-    private Denotator makeLoudness(int velocity) {
-        return makeDenotator(loudnessForm, velocity);
-    }
-    
-
-    /**
-     * Creates a Duration denotator from a key event.
-     */
-    private Denotator makeDuration(long duration) {
-        double d = tempoFactor*duration/ticksPerQuarter;
-        return makeDenotator(durationForm, d);
-    }
-
-
-    /**
-     * Creates a Voice denotator from a key event.
-     */
-    private Denotator makeVoice(int channel) {
-        return makeDenotator(voiceForm, channel);
-    }
-    
-    
 //    private Denotator makePedal(Key key) {
 //        LinkedList denoList = new LinkedList();
 //        denoList.add(makeVoice(key));
@@ -615,22 +588,40 @@ public class MidiReader {
 //    }
 
 
-    private final int NR_CHANNELS = 16;
-    private final int NR_KEYS = 128;
-    private final int NR_CONTROLS = 128;
+    private static final int ONSET    = 0;
+    private static final int PITCH    = 1;
+    private static final int LOUDNESS = 2;
+    private static final int DURATION = 3;
+    private static final int VOICE    = 4;
+
+    private static final int NR_CHANNELS = 16;
+    private static final int NR_KEYS = 128;
+
+    private static final int MTHD = 0x4D546864;
+    private static final int MTRK = 0x4D54726B;
+    private static final int END_OF_TRACK = 0x2F;
+    // a note needs at least a delta time and two data bytes for note on and note off each
+    private static final int MIN_NOTE_BYTES = 6;
+    private static final long MAX_PACKED_DURATION = (1L << 45)-1;
+
+    private static final Comparator<TrackCursor> TRACK_ORDER =
+        Comparator.<TrackCursor>comparingLong(cursor -> cursor.tick).thenComparingInt(cursor -> cursor.index);
+
+    private static final Rational[] PITCHES = new Rational[NR_KEYS];
+    static {
+        for (int i = 0; i < NR_KEYS; i++) {
+            PITCHES[i] = new Rational(i);
+        }
+    }
 
-    private Sequence   sequence;
-    private Track[]    tracks;
     private double     tempoFactor = 1.0;
     private int        ticksPerQuarter;
-//    private long       seqLength;
-    private long       currentTick;
-//    private int        currentTrackNr;
-    private int        currentProgram;
-    private Key[][]    keys;
-    private Key[][]    controls;
-    private LinkedList<Key> notes;
-    private LinkedList<Key> pedals;
+    private long[]     noteTicks;
+    private long[]     noteDurations;
+    // key, velocity and channel of the notes
+    private int[]      noteKeys;
+    private int        noteCount;
+    private boolean    packable;
 //    private LinkedList tempoList;
 //    private LinkedList timeList;
 //    private LinkedList keyList;
@@ -643,13 +634,7 @@ public class MidiReader {
     //
     
     private static Repository rep = Repository.systemRepository();
-    private static Form onsetForm    = rep.getForm("Onset");
-    private static Form pitchForm    = rep.getForm("Pitch");
-    private static Form loudnessForm = rep.getForm("Loudness");
-    private static Form durationForm = rep.getForm("Duration");
-    private static Form voiceForm    = rep.getForm("Voice");
-    private static Form noteForm     = rep.getForm("Note");
-    private static Form scoreForm    = rep.getForm("Score");
+    private static PowerForm scoreForm = (PowerForm)rep.getForm("Score");
 //    private static Form simpleNoteForm = rep.getForm("SimpleNote");
 //    private static Form generalNoteForm = rep.getForm("GeneralNote");
 //    private static Form generalNotesForm = rep.getForm("GeneralNotes");
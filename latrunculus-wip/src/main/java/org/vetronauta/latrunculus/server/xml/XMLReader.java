@@ -28,37 +28,40 @@ import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.FormDenotatorTypeEnum;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.DenotatorReference;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
 import org.vetronauta.latrunculus.core.math.yoneda.form.FormReference;
+import org.vetronauta.latrunculus.core.math.yoneda.form.ListForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
 import org.vetronauta.latrunculus.core.math.yoneda.map.MorphismMap;
 import org.vetronauta.latrunculus.core.repository.LoadableDictionary;
 import org.vetronauta.latrunculus.core.repository.Repository;
 import org.vetronauta.latrunculus.plugin.base.Rubette;
 import org.vetronauta.latrunculus.plugin.xml.reader.DefaultRubetteXmlReader;
 import org.vetronauta.latrunculus.server.xml.reader.DefaultDefinitionXmlReader;
+import org.vetronauta.latrunculus.server.xml.reader.DefaultDenotatorXmlReader;
 import org.vetronauta.latrunculus.server.xml.reader.LatrunculusRestrictedXmlReader;
 import org.vetronauta.latrunculus.server.xml.reader.LatrunculusXmlReader;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.ErrorHandler;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.SAXParseException;
+import org.w3c.dom.Text;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -75,12 +78,15 @@ import static org.vetronauta.latrunculus.server.xml.XMLConstants.DEFINE_MODULE_E
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.DEFINE_MODULE_MORPHISM;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.DENOTATOR;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.FORM;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.FORM_ATTR;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.LIST_TYPE_VALUE;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.MODULE;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.MODULE_ELEMENT;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.MODULE_MORPHISM;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.MORPHISM_MAP;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.NAME_ATTR;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.NETWORK;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.POWER_TYPE_VALUE;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.REF_ATTR;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.ROOT_ELEMENT;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.RUBETTE;
@@ -101,18 +107,13 @@ public final class XMLReader implements LoadableDictionary {
 
     /**
      * Creates an XMLReader from the given <code>file</code>.
+     * The file may be compressed with GZIP.
      */
     public XMLReader(File file)
             throws IOException {
-        this(new FileReader(file));
+        this((Reader)null);
         this.file = file;
-        try {
-            // try to find out if the file is compressed
-            InputStream in = new GZIPInputStream(new FileInputStream(file));
-            reader = new InputStreamReader(in, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            // not compressed
-        }
+        this.stream = openStream(file);
     }
     
     
@@ -131,7 +132,6 @@ public final class XMLReader implements LoadableDictionary {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         try {
            builder = factory.newDocumentBuilder();
-           builder.setErrorHandler(errorHandler);
         }
         catch (ParserConfigurationException e) {
            throw new RuntimeException(e.getMessage());
@@ -141,18 +141,43 @@ public final class XMLReader implements LoadableDictionary {
         this.reader = reader;
     }
     
+    
+    /**
+     * Opens the file, uncompressing it if it starts with the GZIP magic number.
+     */
+    private static InputStream openStream(File file)
+            throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return new GZIPInputStream(in);
+        }
+        return in;
+    }
+    
 
     /**
-     * Parses an XML file from the specified reader.
+     * Parses the XML file.
+     * The document is streamed: the toplevel elements are read one
+     * at a time and discarded as soon as they have been parsed, so that
+     * only the definition currently parsed is held in memory.
      */
-    private void parse(Reader r) {
+    private void parseStream() {
         reset();
+        XMLStreamReader xml = null;
         try {
-            Document document = builder.parse(new InputSource(r));
-            parseStart(document.getDocumentElement());
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            xml = (stream != null) ? factory.createXMLStreamReader(stream) : factory.createXMLStreamReader(reader);
+            parseStart(xml);
             resolveReferences();
         } catch (Exception e) {
             setError(e);
+        } finally {
+            close(xml);
         }
     }
     
@@ -161,7 +186,7 @@ public final class XMLReader implements LoadableDictionary {
      * Parses an XML file.
      */
     public void parse() {
-        parse(reader);
+        parseStream();
     }
 
 
@@ -238,18 +263,199 @@ public final class XMLReader implements LoadableDictionary {
     
     
     /**
-     * Start parsing at the root <code>element</code>.
+     * Start parsing at the root element.
+     * Each toplevel element is read into a DOM fragment of its own
+     * and handed over to {@link #parseRoot(Node)}. Power and list
+     * denotators, such as scores, are parsed directly from the stream
+     * instead, see {@link #streamDenotator(XMLStreamReader)}.
+     */
+    private void parseStart(XMLStreamReader xml)
+            throws XMLStreamException {
+        xml.nextTag();
+        if (!xml.getLocalName().equals(ROOT_ELEMENT)) {
+            setError("Document root element is not %%1", ROOT_ELEMENT);
+            return;
+        }
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                parseRoot(readElement(xml));
+                streamedDenotators.clear();
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                // end of the root element
+                break;
+            }
+        }
+    }
+    
+    
+    /**
+     * Reads the element at the current position of <code>xml</code>,
+     * including its content, into a new DOM element. Power and list
+     * denotators are parsed from the stream right away and replaced
+     * by placeholders, that {@link #parseDenotator(Element)} resolves.
+     * After returning, <code>xml</code> is positioned at the end of the element.
      */
-    private void parseStart(Element element) {
-        if (element.getNodeName().equals(ROOT_ELEMENT)) {
-            NodeList childNodes = element.getChildNodes();
-            for (int i = 0; i < childNodes.getLength(); i++) {
-                parseRoot(childNodes.item(i));
+    private Element readElement(XMLStreamReader xml)
+            throws XMLStreamException {
+        Document document = builder.newDocument();
+        Node current = document;
+        int depth = 0;
+        while (true) {
+            switch (xml.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (isStreamable(xml)) {
+                        Element placeholder = document.createElement(DENOTATOR);
+                        placeholder.setAttribute(STREAMED_ATTR, Integer.toString(streamedDenotators.size()));
+                        streamedDenotators.add(streamDenotator(xml));
+                        current.appendChild(placeholder);
+                        break;
+                    }
+                    Element child = document.createElement(qualifiedName(xml.getPrefix(), xml.getLocalName()));
+                    for (int i = 0; i < xml.getAttributeCount(); i++) {
+                        child.setAttribute(qualifiedName(xml.getAttributePrefix(i), xml.getAttributeLocalName(i)),
+                                           xml.getAttributeValue(i));
+                    }
+                    current.appendChild(child);
+                    current = child;
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    current = current.getParentNode();
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    Node last = current.getLastChild();
+                    if (last instanceof Text) {
+                        ((Text)last).appendData(xml.getText());
+                    }
+                    else {
+                        current.appendChild(document.createTextNode(xml.getText()));
+                    }
+                    break;
+                default:
+                    // comments and processing instructions are not needed
+                    break;
             }
+            if (depth == 0) {
+                return document.getDocumentElement();
+            }
+            xml.next();
+        }
+    }
+    
+    
+    /**
+     * Returns true iff <code>xml</code> is at the start of a power or list
+     * denotator that is not a reference.
+     */
+    private static boolean isStreamable(XMLStreamReader xml) {
+        if (!xml.getLocalName().equals(DENOTATOR) || xml.getAttributeValue(null, REF_ATTR) != null) {
+            return false;
+        }
+        String type = xml.getAttributeValue(null, TYPE_ATTR);
+        return POWER_TYPE_VALUE.equals(type) || LIST_TYPE_VALUE.equals(type);
+    }
+    
+    
+    /**
+     * Parses the power or list denotator at the current position of <code>xml</code>
+     * directly from the stream. Only its factors that are neither powers nor lists
+     * are read into DOM fragments, one at a time, so that a large score is never
+     * held as a DOM tree. After returning, <code>xml</code> is positioned at the
+     * end of the element.
+     * @return the parsed denotator or null if parsing failed
+     */
+    private Denotator streamDenotator(XMLStreamReader xml)
+            throws XMLStreamException {
+        boolean power = POWER_TYPE_VALUE.equals(xml.getAttributeValue(null, TYPE_ATTR));
+        String type = power ? POWER_TYPE_VALUE : LIST_TYPE_VALUE;
+        String formName = xml.getAttributeValue(null, FORM_ATTR);
+        String nameString = xml.getAttributeValue(null, NAME_ATTR);
+        
+        Form form = null;
+        if (!formsToBeResolved.isEmpty() && !resolveFormReferences()) {
+            // error has already been set
+        }
+        else if (formName == null) {
+            setError("Type %%1 of element <%2> is missing attribute %%3.", type, DENOTATOR, FORM_ATTR);
+        }
+        else if (power) {
+            form = DefaultDenotatorXmlReader.getPowerForm(formName, this);
         }
         else {
-            setError("Document root element is not %%1", ROOT_ELEMENT);
-        }       
+            form = DefaultDenotatorXmlReader.getListForm(formName, this);
+        }
+        
+        boolean failed = (form == null);
+        List<Denotator> factorList = new LinkedList<>();
+        while (xml.next() != XMLStreamConstants.END_ELEMENT) {
+            if (xml.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if (failed || !xml.getLocalName().equals(DENOTATOR)) {
+                skipElement(xml);
+                continue;
+            }
+            Denotator factor = isStreamable(xml) ? streamDenotator(xml) : parseDenotator(readElement(xml));
+            if (factor == null) {
+                failed = true;
+            }
+            else {
+                factorList.add(factor);
+            }
+        }
+        if (failed) {
+            return null;
+        }
+        
+        NameDenotator name = (nameString == null) ? null : NameDenotator.make(nameString);
+        if (power) {
+            return DefaultDenotatorXmlReader.makePowerDenotator(name, (PowerForm)form, factorList, this);
+        }
+        return DefaultDenotatorXmlReader.makeListDenotator(name, (ListForm)form, factorList, this);
+    }
+    
+    
+    /**
+     * Skips the element at the current position of <code>xml</code>.
+     * After returning, <code>xml</code> is positioned at the end of the element.
+     */
+    private static void skipElement(XMLStreamReader xml)
+            throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    
+    private void close(XMLStreamReader xml) {
+        try {
+            if (xml != null) {
+                xml.close();
+            }
+            if (stream != null) {
+                // the stream has been opened by this reader
+                stream.close();
+            }
+        } catch (XMLStreamException | IOException e) {
+            // nothing to do
+        }
+    }
+    
+    
+    private static String qualifiedName(String prefix, String localName) {
+        return (prefix == null || prefix.isEmpty()) ? localName : prefix+":"+localName;
     }
     
 
@@ -582,6 +788,10 @@ public final class XMLReader implements LoadableDictionary {
                 return null;
             }
         }
+        // case 0: the denotator has already been parsed from the stream
+        if (denotatorNode.hasAttribute(STREAMED_ATTR)) {
+            return streamedDenotators.get(Integer.parseInt(denotatorNode.getAttribute(STREAMED_ATTR)));
+        }
         // case 1: a reference is given, try to resolve it
         if (denotatorNode.hasAttribute(REF_ATTR)) {
             String name = denotatorNode.getAttribute(REF_ATTR);
@@ -1101,19 +1311,6 @@ public final class XMLReader implements LoadableDictionary {
     }
     
     
-    private static final ErrorHandler errorHandler = new ErrorHandler() {
-        public void warning(SAXParseException exception) throws SAXException {
-            throw exception;
-        }
-        public void error(SAXParseException exception) throws SAXException {
-            throw exception;
-        }
-        public void fatalError(SAXParseException exception) throws SAXException {
-            throw exception;
-        }
-    };
-    
-    
     private HashMap<String,Denotator>      denotators;
     private HashMap<String,Form>           forms;
     private HashMap<String,Module>         modules;
@@ -1130,8 +1327,14 @@ public final class XMLReader implements LoadableDictionary {
     private Dispatcher            dispatcher;
     private LinkedList<Form>      formsToBeResolved;
     private LinkedList<Denotator> denosToBeResolved;
+    // denotators parsed from the stream while reading the current toplevel element,
+    // referred to by the placeholder elements with the STREAMED_ATTR attribute
+    private final List<Denotator> streamedDenotators = new ArrayList<>();
     private Repository            repository;
+    
+    private static final String STREAMED_ATTR = "_streamed";
 
-    private Reader reader;
-    private File   file   = null;
+    private Reader      reader;
+    private InputStream stream = null;
+    private File        file   = null;
 }
@@ -39,6 +39,7 @@ import org.vetronauta.latrunculus.server.xml.XMLReader;
 import org.w3c.dom.Element;
 
 import java.util.LinkedList;
+import java.util.List;
 
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.COLIMIT_TYPE_VALUE;
 import static org.vetronauta.latrunculus.server.xml.XMLConstants.DENOTATOR;
@@ -270,17 +271,10 @@ public class DefaultDenotatorXmlReader implements LatrunculusXmlReader<Denotator
             reader.setError("Type %%1 of element <%2> is missing attribute %%3.", LIST_TYPE_VALUE, DENOTATOR, FORM_ATTR);
             return null;
         }
-        String formName = element.getAttribute(FORM_ATTR);
-        Form form = reader.getForm(formName);
-        if (form == null) {
-            reader.setError("Form with name %%1 does not exist.", formName);
+        ListForm listForm = getListForm(element.getAttribute(FORM_ATTR), reader);
+        if (listForm == null) {
             return null;
         }
-        if (!(form instanceof ListForm)) {
-            reader.setError("Form with name %%1 is not a form of type %%2.", formName, LIST_TYPE_VALUE);
-            return null;
-        }
-        ListForm listForm = (ListForm)form;
 
         NameDenotator name = null;
         if (element.hasAttribute(NAME_ATTR)) {
@@ -300,6 +294,29 @@ public class DefaultDenotatorXmlReader implements LatrunculusXmlReader<Denotator
             childElement = XMLReader.getNextSibling(childElement, DENOTATOR);
         }
 
+        return makeListDenotator(name, listForm, factorList, reader);
+    }
+
+    /**
+     * Returns the list form with name <code>formName</code>, or null after setting an error.
+     */
+    public static ListForm getListForm(String formName, XMLReader reader) {
+        Form form = reader.getForm(formName);
+        if (form == null) {
+            reader.setError("Form with name %%1 does not exist.", formName);
+            return null;
+        }
+        if (!(form instanceof ListForm)) {
+            reader.setError("Form with name %%1 is not a form of type %%2.", formName, LIST_TYPE_VALUE);
+            return null;
+        }
+        return (ListForm)form;
+    }
+
+    /**
+     * Creates the list denotator with the given factors, or returns null after setting an error.
+     */
+    public static ListDenotator makeListDenotator(NameDenotator name, ListForm listForm, List<Denotator> factorList, XMLReader reader) {
         try {
             ListDenotator denotator = new ListDenotator(name, listForm, factorList);
             return denotator;
@@ -317,17 +334,10 @@ public class DefaultDenotatorXmlReader implements LatrunculusXmlReader<Denotator
             reader.setError("Type %%1 of element <%2> is missing attribute %%2.", POWER_TYPE_VALUE, DENOTATOR, FORM_ATTR);
             return null;
         }
-        String formName = element.getAttribute(FORM_ATTR);
-        Form form = reader.getForm(formName);
-        if (form == null) {
-            reader.setError("Form with name %%1 does not exist.", formName);
+        PowerForm powerForm = getPowerForm(element.getAttribute(FORM_ATTR), reader);
+        if (powerForm == null) {
             return null;
         }
-        if (!(form instanceof PowerForm)) {
-            reader.setError("Form with name %%1 is not a form of type %%2.", formName, POWER_TYPE_VALUE);
-            return null;
-        }
-        PowerForm powerForm = (PowerForm)form;
 
         NameDenotator name = null;
         if (element.hasAttribute(NAME_ATTR)) {
@@ -349,6 +359,29 @@ public class DefaultDenotatorXmlReader implements LatrunculusXmlReader<Denotator
             childElement = XMLReader.getNextSibling(childElement, DENOTATOR);
         }
 
+        return makePowerDenotator(name, powerForm, factorList, reader);
+    }
+
+    /**
+     * Returns the power form with name <code>formName</code>, or null after setting an error.
+     */
+    public static PowerForm getPowerForm(String formName, XMLReader reader) {
+        Form form = reader.getForm(formName);
+        if (form == null) {
+            reader.setError("Form with name %%1 does not exist.", formName);
+            return null;
+        }
+        if (!(form instanceof PowerForm)) {
+            reader.setError("Form with name %%1 is not a form of type %%2.", formName, POWER_TYPE_VALUE);
+            return null;
+        }
+        return (PowerForm)form;
+    }
+
+    /**
+     * Creates the power denotator with the given factors, or returns null after setting an error.
+     */
+    public static PowerDenotator makePowerDenotator(NameDenotator name, PowerForm powerForm, List<Denotator> factorList, XMLReader reader) {
         try {
             PowerDenotator denotator = new PowerDenotator(name, powerForm, factorList);
             return denotator;
@@ -0,0 +1,158 @@
+/*
+ * latrunculus-composer
+ * Copyright (C) 2023 vetronauta
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package org.rubato.composer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Defines tests for the Scheduler class.
+ *
+ * @author vetronauta
+ */
+class SchedulerTest {
+
+    private ExecutorService service;
+    private Map<String,List<String>> dependencies;
+    private List<String> order;
+
+    @BeforeEach
+    void setUp() {
+        service = Executors.newFixedThreadPool(4);
+        dependencies = new HashMap<>();
+        order = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownNow();
+    }
+
+    private void depends(String task, String... others) {
+        dependencies.put(task, Arrays.asList(others));
+    }
+
+    private Scheduler<String> scheduler(List<String> tasks, String... notThreadSafe) {
+        List<String> exclusive = Arrays.asList(notThreadSafe);
+        return new Scheduler<>(tasks,
+                               task -> dependencies.getOrDefault(task, Collections.emptyList()),
+                               task -> !exclusive.contains(task));
+    }
+
+    @Test
+    void testIndependentBranchesRunConcurrently() throws InterruptedException {
+        // each branch waits for the other one to have started
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger overlapping = new AtomicInteger();
+        depends("left", "source");
+        depends("right", "source");
+        depends("sink", "left", "right");
+        List<String> tasks = Arrays.asList("source", "left", "right", "sink");
+        scheduler(tasks).run(service, task -> {
+            if (task.equals("left") || task.equals("right")) {
+                started.countDown();
+                try {
+                    if (started.await(10, TimeUnit.SECONDS)) {
+                        overlapping.incrementAndGet();
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            order.add(task);
+        }, finished -> {}, () -> false);
+        assertEquals(2, overlapping.get());
+        assertEquals(4, order.size());
+        assertEquals("source", order.get(0));
+        assertEquals("sink", order.get(3));
+    }
+
+    @Test
+    void testDependenciesRunFirst() throws InterruptedException {
+        depends("a", "b");
+        depends("b", "c");
+        depends("d", "a", "c");
+        List<String> progress = new ArrayList<>();
+        scheduler(Arrays.asList("a", "b", "c", "d")).run(service, order::add,
+                                                           finished -> progress.add(String.valueOf(finished)),
+                                                           () -> false);
+        assertEquals(Arrays.asList("c", "b", "a", "d"), order);
+        assertEquals(Arrays.asList("1", "2", "3", "4"), progress);
+    }
+
+    @Test
+    void testCycleRunsInListOrder() throws InterruptedException {
+        depends("a", "b");
+        depends("b", "a");
+        depends("c", "b");
+        scheduler(Arrays.asList("a", "b", "c")).run(service, order::add, finished -> {}, () -> false);
+        assertEquals(Arrays.asList("a", "b", "c"), order);
+    }
+
+    @Test
+    void testNotThreadSafeRunAlone() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        List<Integer> alongside = Collections.synchronizedList(new ArrayList<>());
+        List<String> tasks = Arrays.asList("a", "b", "c", "d", "e", "f");
+        scheduler(tasks, "c").run(service, task -> {
+            int others = running.getAndIncrement();
+            if (task.equals("c")) {
+                alongside.add(others);
+            }
+            try {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (task.equals("c")) {
+                alongside.add(running.get()-1);
+            }
+            running.decrementAndGet();
+            order.add(task);
+        }, finished -> {}, () -> false);
+        assertEquals(Arrays.asList(0, 0), alongside);
+        assertEquals(6, order.size());
+    }
+
+    @Test
+    void testStopped() throws InterruptedException {
+        depends("b", "a");
+        depends("c", "b");
+        scheduler(Arrays.asList("a", "b", "c")).run(service, order::add, finished -> {}, () -> !order.isEmpty());
+        assertEquals(Collections.singletonList("a"), order);
+    }
+}
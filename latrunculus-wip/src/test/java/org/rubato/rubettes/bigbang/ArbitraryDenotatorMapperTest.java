@@ -14,6 +14,7 @@ import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
 import org.vetronauta.latrunculus.core.math.morphism.affine.AffineFreeMorphism;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.LimitDenotator;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.NameDenotator;
 import org.vetronauta.latrunculus.core.math.yoneda.denotator.PowerDenotator;
 
 import java.util.ArrayList;
@@ -108,4 +109,44 @@ class ArbitraryDenotatorMapperTest {
 		this.objects.assertEqualPowerDenotators((PowerDenotator)expectedGeneralScore, (PowerDenotator)mappedGeneralScore);
 	}
 
+	@Test
+	void testNumericAndSymbolicMappingAgree() throws LatrunculusCheckedException {
+		RMatrix shear = new RMatrix(new double[][]{{1,0.5},{0,2}});
+		List<Real> list = new ArrayList<>();
+		list.add(new Real(-1));
+		list.add(new Real(2.6));
+		ModuleMorphism shearing = AffineFreeMorphism.make(RRing.ring, shear, new Vector<>(RRing.ring, list));
+		
+		//map pitch x loudness (Q x Z) of the nodes of a sound score
+		TransformationPaths paths = this.objects.createStandardTransformationPaths(
+				this.objects.SOUND_NODE_FORM, new int[][]{{0,1},{0,2}});
+		ArbitraryDenotatorMapper mapper = new ArbitraryDenotatorMapper(shearing, paths);
+		this.assertNumericAndSymbolicMappingAgree(mapper, this.objects.multiLevelSoundScore);
+		
+		//map duration x pitch of notes and rests: the notes are mapped numerically, the rests
+		//have no pitch and are mapped symbolically
+		paths = new TransformationPaths();
+		List<DenotatorPath> durationPaths = Arrays.asList(new DenotatorPath(this.objects.GENERAL_NOTE_FORM, new int[]{0,3}),
+				new DenotatorPath(this.objects.GENERAL_NOTE_FORM, new int[]{1,1}));
+		paths.setDomainPaths(0, durationPaths);
+		paths.setCodomainPaths(0, durationPaths);
+		List<DenotatorPath> pitchPaths = Arrays.asList(new DenotatorPath(this.objects.GENERAL_NOTE_FORM, new int[]{0,1}));
+		paths.setDomainPaths(1, pitchPaths);
+		paths.setCodomainPaths(1, pitchPaths);
+		mapper = new ArbitraryDenotatorMapper(shearing, paths);
+		double[][] rests = new double[][]{{3,1,0},{4,3,0}};
+		this.assertNumericAndSymbolicMappingAgree(mapper, this.objects.createGeneralScore(this.objects.ABSOLUTE, rests));
+	}
+	
+	private void assertNumericAndSymbolicMappingAgree(ArbitraryDenotatorMapper mapper, PowerDenotator input) throws LatrunculusCheckedException {
+		//null-addressed powers are mapped numerically
+		PowerDenotator numericallyMapped = mapper.getMappedPowerDenotator(input);
+		List<Denotator> symbolicallyMappedFactors = new ArrayList<>();
+		for (Denotator currentFactor : input.getFactors()) {
+			symbolicallyMappedFactors.add(mapper.getMappedDenotator(currentFactor));
+		}
+		PowerDenotator symbolicallyMapped = new PowerDenotator(NameDenotator.make(""), input.getPowerForm(), symbolicallyMappedFactors);
+		this.objects.assertEqualPowerDenotators(symbolicallyMapped, numericallyMapped);
+	}
+
 }
@@ -0,0 +1,243 @@
+package org.vetronauta.latrunculus.server.binary;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.vetronauta.latrunculus.core.math.element.generic.ModuleElement;
+import org.vetronauta.latrunculus.core.math.element.impl.Modulus;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
+import org.vetronauta.latrunculus.core.math.module.generic.Module;
+import org.vetronauta.latrunculus.core.math.module.generic.VectorModule;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZnRing;
+import org.vetronauta.latrunculus.core.math.morphism.ConstantMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
+import org.vetronauta.latrunculus.core.math.yoneda.denotator.Denotator;
+import org.vetronauta.latrunculus.core.math.yoneda.form.Form;
+import org.vetronauta.latrunculus.core.math.yoneda.form.LimitForm;
+import org.vetronauta.latrunculus.core.math.yoneda.form.PowerForm;
+import org.vetronauta.latrunculus.core.repository.Repository;
+import org.vetronauta.latrunculus.server.xml.XMLWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.vetronauta.latrunculus.core.logeo.DenoFactory.makeDenotator;
+import static org.vetronauta.latrunculus.core.logeo.FormFactory.makeColimitForm;
+import static org.vetronauta.latrunculus.core.logeo.FormFactory.makeLimitForm;
+import static org.vetronauta.latrunculus.core.logeo.FormFactory.makeListForm;
+import static org.vetronauta.latrunculus.core.logeo.FormFactory.makePowerForm;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.SCHEME;
+
+/**
+ * Writes definitions of every natively encoded kind in the binary format,
+ * reads them back and converts them to XML.
+ */
+class BinaryFormatTest {
+
+    private static final String SCHEME_CODE = "(define (twice x) (* 2 x))";
+
+    private final Map<String,Module> modules = new LinkedHashMap<>();
+    private final Map<String,ModuleElement> elements = new LinkedHashMap<>();
+    private final Map<String,ModuleMorphism> morphisms = new LinkedHashMap<>();
+    private final List<Form> forms = new ArrayList<>();
+    private final List<Denotator> denotators = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Repository repository = Repository.systemRepository();
+        modules.put("Z12", ZnRing.make(12));
+        modules.put("Q3", new VectorModule<>(QRing.ring, 3));
+        elements.put("third", new Rational(1, 3));
+        elements.put("pi", new Real(Math.PI));
+        elements.put("minus", new ZInteger(-7));
+        elements.put("seven", new Modulus(7, 12));
+        morphisms.put("constant", new ConstantMorphism<>(QRing.ring, new Rational(5, 4)));
+
+        Form onsetForm = repository.getForm("Onset");
+        Form pitchForm = repository.getForm("Pitch");
+        LimitForm onsetPitchForm = makeLimitForm("OnsetPitch", onsetForm, pitchForm);
+        PowerForm onsetPitchesForm = makePowerForm("OnsetPitches", onsetPitchForm);
+        Form melodyForm = makeListForm("Melody", pitchForm);
+        Form onsetOrPitchForm = makeColimitForm("OnsetOrPitch", onsetForm, pitchForm);
+        forms.addAll(Arrays.asList(onsetPitchForm, onsetPitchesForm, melodyForm, onsetOrPitchForm));
+
+        Random random = new Random(1);
+        List<Denotator> notes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            notes.add(makeDenotator(repository.getForm("Note"), Arrays.asList(
+                    makeDenotator(onsetForm, random.nextInt(1000)/4.0),
+                    makeDenotator(pitchForm, new Rational(36+random.nextInt(60))),
+                    makeDenotator(repository.getForm("Loudness"), random.nextInt(128)),
+                    makeDenotator(repository.getForm("Duration"), 0.25),
+                    makeDenotator(repository.getForm("Voice"), random.nextInt(4)))));
+        }
+        List<Denotator> pairs = new ArrayList<>();
+        List<Denotator> melody = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Denotator pitch = makeDenotator(pitchForm, new Rational(60+i%7, 1+i%2));
+            pairs.add(makeDenotator(onsetPitchForm, makeDenotator(onsetForm, i/2.0), pitch));
+            melody.add(pitch);
+        }
+        denotators.add(makeDenotator("score", repository.getForm("Score"), notes));
+        denotators.add(makeDenotator("pairs", onsetPitchesForm, pairs));
+        denotators.add(makeDenotator("melody", melodyForm, melody));
+        denotators.add(makeDenotator("choice", onsetOrPitchForm, 1, makeDenotator(pitchForm, new Rational(61))));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        byte[] bytes = writeBinary();
+        BinaryReader reader = read(bytes);
+        assertEquals(SCHEME_CODE, reader.getSchemeCode());
+        assertEquals(modules, reader.getModules());
+        for (Map.Entry<String,ModuleElement> element : elements.entrySet()) {
+            assertEquals(element.getValue(), reader.getModuleElement(element.getKey()));
+        }
+        for (Map.Entry<String,ModuleMorphism> morphism : morphisms.entrySet()) {
+            assertEquals(morphism.getValue(), reader.getModuleMorphism(morphism.getKey()));
+        }
+        for (Form form : forms) {
+            assertEquals(form, reader.getForm(form.getNameString()));
+        }
+        for (Denotator denotator : denotators) {
+            assertEquals(denotator, reader.getDenotator(denotator.getNameString()));
+        }
+
+        // writing what was read gives the same file
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(Channels.newChannel(out))) {
+            writer.open();
+            writer.writeSchemeCode(reader.getSchemeCode());
+            for (Map.Entry<String,Module> module : reader.getModules().entrySet()) {
+                writer.writeModule(module.getKey(), module.getValue());
+            }
+            for (String name : reader.getModuleElementNames()) {
+                writer.writeModuleElement(name, reader.getModuleElement(name));
+            }
+            for (String name : reader.getModuleMorphismNames()) {
+                writer.writeModuleMorphism(name, reader.getModuleMorphism(name));
+            }
+            for (Form form : reader.getForms()) {
+                writer.writeForm(form);
+            }
+            for (Denotator denotator : reader.getDenotators()) {
+                writer.writeDenotator(denotator);
+            }
+        }
+        assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    void testConversionToXml() throws IOException {
+        // the XML of the converted definitions is the XML of the original ones
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLWriter writer = new XMLWriter(new PrintStream(out, true));
+        writer.open();
+        BinaryXmlConverter.binaryToXml(read(writeBinary()), writer);
+        writer.close();
+        assertEquals(writeXml(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFiles() throws IOException {
+        Path binary = Files.createTempFile("definitions", ".rbb");
+        Path xml = Files.createTempFile("definitions", ".rbo");
+        try {
+            Files.write(binary, writeBinary());
+            BinaryXmlConverter.binaryToXml(binary, xml.toFile(), false);
+            assertTrue(BinaryReader.isBinaryFile(binary));
+            assertFalse(BinaryReader.isBinaryFile(xml));
+            assertEquals(writeXml(), new String(Files.readAllBytes(xml), StandardCharsets.UTF_8));
+        }
+        finally {
+            Files.delete(binary);
+            Files.delete(xml);
+        }
+    }
+
+    @Test
+    void testInvalidInput() throws IOException {
+        byte[] bytes = writeBinary();
+        assertThrows(IOException.class, () -> read(Arrays.copyOf(bytes, bytes.length/2)));
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] = '<';
+        assertThrows(IOException.class, () -> read(wrongMagic));
+    }
+
+    private byte[] writeBinary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryWriter writer = new BinaryWriter(Channels.newChannel(out))) {
+            writer.open();
+            writer.writeSchemeCode(SCHEME_CODE);
+            for (Map.Entry<String,Module> module : modules.entrySet()) {
+                writer.writeModule(module.getKey(), module.getValue());
+            }
+            for (Map.Entry<String,ModuleElement> element : elements.entrySet()) {
+                writer.writeModuleElement(element.getKey(), element.getValue());
+            }
+            for (Map.Entry<String,ModuleMorphism> morphism : morphisms.entrySet()) {
+                writer.writeModuleMorphism(morphism.getKey(), morphism.getValue());
+            }
+            for (Form form : forms) {
+                writer.writeForm(form);
+            }
+            for (Denotator denotator : denotators) {
+                writer.writeDenotator(denotator);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private String writeXml() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLWriter writer = new XMLWriter(new PrintStream(out, true));
+        writer.open();
+        writer.openBlock(SCHEME);
+        writer.writeTextNode(SCHEME_CODE+"\n");
+        writer.closeBlock();
+        for (Map.Entry<String,Module> module : modules.entrySet()) {
+            writer.writeModule(module.getKey(), module.getValue());
+        }
+        for (Map.Entry<String,ModuleElement> element : elements.entrySet()) {
+            writer.writeModuleElement(element.getKey(), element.getValue());
+        }
+        for (Map.Entry<String,ModuleMorphism> morphism : morphisms.entrySet()) {
+            writer.writeModuleMorphism(morphism.getKey(), morphism.getValue());
+        }
+        for (Form form : forms) {
+            writer.writeForm(form);
+        }
+        for (Denotator denotator : denotators) {
+            writer.writeDenotator(denotator);
+        }
+        writer.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static BinaryReader read(byte[] bytes) throws IOException {
+        try (BinaryReader reader = new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            reader.read();
+            return reader;
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.vetronauta.latrunculus.server.xml;
+
+import org.junit.jupiter.api.Test;
+import org.vetronauta.latrunculus.core.exception.LatrunculusCheckedException;
+import org.vetronauta.latrunculus.core.math.element.generic.PolynomialElement;
+import org.vetronauta.latrunculus.core.math.element.generic.Vector;
+import org.vetronauta.latrunculus.core.math.element.impl.Rational;
+import org.vetronauta.latrunculus.core.math.element.impl.Real;
+import org.vetronauta.latrunculus.core.math.element.impl.ZInteger;
+import org.vetronauta.latrunculus.core.math.matrix.RMatrix;
+import org.vetronauta.latrunculus.core.math.module.impl.QRing;
+import org.vetronauta.latrunculus.core.math.module.impl.RRing;
+import org.vetronauta.latrunculus.core.math.module.impl.ZRing;
+import org.vetronauta.latrunculus.core.math.morphism.CompositionMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.ModuleMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.PolynomialMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.PowerMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.SumMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineMultiMorphism;
+import org.vetronauta.latrunculus.core.math.morphism.affine.AffineRingMorphism;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.DEFINE_MODULE_MORPHISM;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.MODULE_MORPHISM;
+import static org.vetronauta.latrunculus.server.xml.XMLConstants.NAME_ATTR;
+
+/**
+ * The morphisms fused by the simplifier must be written and read back unchanged,
+ * and the composition trees saved before they were fused must still be read.
+ */
+class ModuleMorphismXmlTest {
+
+    @Test
+    void testFusedRingMorphismsRoundTrip() throws LatrunculusCheckedException {
+        AffineRingMorphism<ZInteger> fz = new AffineRingMorphism<>(ZRing.ring, new ZInteger(3), new ZInteger(-2));
+        AffineRingMorphism<Rational> fq = new AffineRingMorphism<>(QRing.ring, new Rational(2, 3), new Rational(1, 5));
+        AffineRingMorphism<Real> fr = new AffineRingMorphism<>(RRing.ring, new Real(0.1), new Real(0.7));
+        assertRoundTrip(CompositionMorphism.make(fz, fz));
+        assertRoundTrip(PowerMorphism.make(fq, 5));
+        assertRoundTrip(SumMorphism.make(fr, CompositionMorphism.make(fr, fr)));
+    }
+
+    @Test
+    void testFusedMultiMorphismRoundTrip() throws LatrunculusCheckedException {
+        AffineMultiMorphism<Real> f = new AffineMultiMorphism<>(RRing.ring,
+                new RMatrix(new double[][]{{1.0, 0.5}, {-0.25, 2.0}}), vector(0.1, -3.0));
+        AffineMultiMorphism<Real> g = new AffineMultiMorphism<>(RRing.ring,
+                new RMatrix(new double[][]{{0.3, 0.0}, {1.0, 1.0}}), vector(2.0, 0.2));
+        assertRoundTrip(CompositionMorphism.make(f, g));
+    }
+
+    @Test
+    void testUnfusedCompositionRoundTrip() throws LatrunculusCheckedException {
+        PolynomialMorphism<Rational> polynomial = new PolynomialMorphism<>(
+                new PolynomialElement<>("X", Arrays.asList(new Rational(1), new Rational(0), new Rational(1))));
+        AffineRingMorphism<Rational> f = new AffineRingMorphism<>(QRing.ring, new Rational(2, 3), new Rational(1, 5));
+        ModuleMorphism<Rational,Rational,Rational,Rational> tree = CompositionMorphism.make(f, polynomial);
+        assertRoundTrip(tree);
+    }
+
+    @Test
+    void testPersistedCompositionIsReadFused() throws LatrunculusCheckedException {
+        // a composition of affine morphisms as saved before they were fused
+        AffineRingMorphism<Rational> f = new AffineRingMorphism<>(QRing.ring, new Rational(2, 3), new Rational(1, 5));
+        AffineRingMorphism<Rational> g = new AffineRingMorphism<>(QRing.ring, new Rational(-4), new Rational(7, 2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLWriter writer = new XMLWriter(new PrintStream(out, true));
+        writer.open();
+        writer.openBlock(DEFINE_MODULE_MORPHISM, NAME_ATTR, "h");
+        writer.openBlockWithType(MODULE_MORPHISM, "CompositionMorphism");
+        writer.writeModuleMorphism(f);
+        writer.writeModuleMorphism(g);
+        writer.closeBlock();
+        writer.closeBlock();
+        writer.close();
+
+        ModuleMorphism h = read(out, "h");
+        assertFalse(h instanceof CompositionMorphism);
+        for (int i = -5; i <= 5; i++) {
+            Rational x = new Rational(i, 3);
+            assertEquals(f.map(g.map(x)), h.map(x));
+        }
+    }
+
+    private static void assertRoundTrip(ModuleMorphism morphism) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLWriter writer = new XMLWriter(new PrintStream(out, true));
+        writer.open();
+        writer.writeModuleMorphism("m", morphism);
+        writer.close();
+        assertEquals(morphism, read(out, "m"));
+    }
+
+    private static ModuleMorphism read(ByteArrayOutputStream out, String name) {
+        XMLReader reader = new XMLReader(new StringReader(new String(out.toByteArray(), StandardCharsets.UTF_8)));
+        reader.parse();
+        assertFalse(reader.hasError(), String.valueOf(reader.getErrors()));
+        ModuleMorphism morphism = reader.getModuleMorphism(name);
+        assertNotNull(morphism);
+        return morphism;
+    }
+
+    private static Vector<Real> vector(double... values) {
+        Real[] reals = new Real[values.length];
+        for (int i = 0; i < values.length; i++) {
+            reals[i] = new Real(values[i]);
+        }
+        return new Vector<>(RRing.ring, Arrays.asList(reals));
+    }
+
+}